@@ -2,14 +2,25 @@
 package com.sheshape.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
 
 @Configuration
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
 public class AwsS3Config {
 
     @Value("${aws.accessKey}")
@@ -21,13 +32,88 @@ public class AwsS3Config {
     @Value("${aws.region}")
     private String region;
 
+    // Set to e.g. http://localhost:9000 to run against MinIO or another S3-compatible stand-in
+    @Value("${aws.s3.endpoint-override:}")
+    private String endpointOverride;
+
+    @Value("${aws.s3.path-style-access:false}")
+    private boolean pathStyleAccess;
+
+    // Bounds on a whole call (retries included) and on each attempt, so a stalled S3 cannot hold threads
+    @Value("${aws.s3.api-call-timeout-seconds:30}")
+    private long apiCallTimeoutSeconds;
+
+    @Value("${aws.s3.api-call-attempt-timeout-seconds:10}")
+    private long apiCallAttemptTimeoutSeconds;
+
+    // Multipart parts are large, so the async client gets its own, longer bound
+    @Value("${aws.s3.async.api-call-timeout-seconds:300}")
+    private long asyncApiCallTimeoutSeconds;
+
+    @Value("${aws.s3.async.api-call-attempt-timeout-seconds:120}")
+    private long asyncApiCallAttemptTimeoutSeconds;
+
     @Bean
     public S3Client s3Client() {
         AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKey, secretKey);
         
-        return S3Client.builder()
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
+                .serviceConfiguration(s3Configuration())
+                .overrideConfiguration(timeouts(apiCallTimeoutSeconds, apiCallAttemptTimeoutSeconds));
+
+        if (!endpointOverride.isBlank()) {
+            builder.endpointOverride(URI.create(endpointOverride));
+        }
+
+        return builder.build();
+    }
+
+    // Used for multipart uploads, where parts are sent concurrently without a thread per part
+    @Bean
+    public S3AsyncClient s3AsyncClient() {
+        AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKey, secretKey);
+
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
                 .region(Region.of(region))
                 .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
+                .serviceConfiguration(s3Configuration())
+                .overrideConfiguration(timeouts(asyncApiCallTimeoutSeconds, asyncApiCallAttemptTimeoutSeconds));
+
+        if (!endpointOverride.isBlank()) {
+            builder.endpointOverride(URI.create(endpointOverride));
+        }
+
+        return builder.build();
+    }
+
+    @Bean
+    public S3Presigner s3Presigner() {
+        AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKey, secretKey);
+
+        S3Presigner.Builder builder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
+                .serviceConfiguration(s3Configuration());
+
+        if (!endpointOverride.isBlank()) {
+            builder.endpointOverride(URI.create(endpointOverride));
+        }
+
+        return builder.build();
+    }
+
+    private static ClientOverrideConfiguration timeouts(long callSeconds, long attemptSeconds) {
+        return ClientOverrideConfiguration.builder()
+                .apiCallTimeout(Duration.ofSeconds(callSeconds))
+                .apiCallAttemptTimeout(Duration.ofSeconds(attemptSeconds))
+                .build();
+    }
+
+    private S3Configuration s3Configuration() {
+        return S3Configuration.builder()
+                .pathStyleAccessEnabled(pathStyleAccess)
                 .build();
     }
-}
\ No newline at end of file
+}
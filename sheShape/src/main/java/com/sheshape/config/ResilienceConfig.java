@@ -0,0 +1,77 @@
+package com.sheshape.config;
+
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.exception.ServiceUnavailableException;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.impl.ResilientFileStorageService;
+import com.sheshape.service.resilience.IoGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Bulkheads and circuit breakers for the blocking dependencies: object storage and SMTP.
+ * Settings live under resilience.storage.* and resilience.mail.*.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    // Bean name of the active storage backend, which the primary FileStorageService wraps
+    public static final String FILE_STORAGE_BACKEND = "fileStorageBackend";
+
+    @Bean
+    public IoGuard storageGuard(Environment environment, MeterRegistry meterRegistry) {
+        return new IoGuard("storage", settings(environment, "resilience.storage", 20),
+                ResilienceConfig::isStorageFailure, meterRegistry);
+    }
+
+    @Bean
+    public IoGuard mailGuard(Environment environment, MeterRegistry meterRegistry) {
+        // Malformed messages are our bug, not a sign that SMTP is down
+        return new IoGuard("mail", settings(environment, "resilience.mail", 2),
+                error -> !(error instanceof MailParseException || error instanceof MailPreparationException),
+                meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public FileStorageService fileStorageService(@Qualifier(FILE_STORAGE_BACKEND) FileStorageService backend,
+                                                 @Qualifier("storageGuard") IoGuard storageGuard) {
+        return new ResilientFileStorageService(backend, storageGuard);
+    }
+
+    private static boolean isStorageFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+        if (cause instanceof BadRequestException || cause instanceof ResourceNotFoundException
+                || cause instanceof ServiceUnavailableException) {
+            return false;
+        }
+        // Client errors (missing key, bad request) say nothing about the health of S3; throttling does
+        if (cause instanceof S3Exception s3Exception) {
+            return s3Exception.statusCode() >= 500 || s3Exception.statusCode() == 429;
+        }
+        return true;
+    }
+
+    private static IoGuard.Settings settings(Environment environment, String prefix, int defaultMaxConcurrentCalls) {
+        return new IoGuard.Settings(
+                environment.getProperty(prefix + ".max-concurrent-calls", Integer.class, defaultMaxConcurrentCalls),
+                Duration.ofMillis(environment.getProperty(prefix + ".max-wait-ms", Long.class, 500L)),
+                environment.getProperty(prefix + ".window-size", Integer.class, 20),
+                environment.getProperty(prefix + ".minimum-calls", Integer.class, 10),
+                environment.getProperty(prefix + ".failure-rate-percent", Integer.class, 50),
+                Duration.ofSeconds(environment.getProperty(prefix + ".open-seconds", Long.class, 30L)),
+                environment.getProperty(prefix + ".half-open-calls", Integer.class, 3));
+    }
+}
@@ -1,10 +1,14 @@
 package com.sheshape.config;
 
+import com.sheshape.security.BoundedPasswordEncoder;
 import com.sheshape.security.JwtAuthenticationFilter;
 import com.sheshape.security.JwtAuthorizationFilter;
 import com.sheshape.security.JwtUtil;
+import com.sheshape.security.LoginThrottle;
 import com.sheshape.service.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -24,6 +28,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -34,19 +39,23 @@ public class SecurityConfig {
     private final UserDetailsServiceImpl userDetailsService;
     private final JwtAuthorizationFilter jwtAuthorizationFilter;
     private final JwtUtil jwtUtil;
+    private final LoginThrottle loginThrottle;
 
     public SecurityConfig(UserDetailsServiceImpl userDetailsService,
                           JwtAuthorizationFilter jwtAuthorizationFilter,
-                          JwtUtil jwtUtil) {
+                          JwtUtil jwtUtil,
+                          LoginThrottle loginThrottle) {
         this.userDetailsService = userDetailsService;
         this.jwtAuthorizationFilter = jwtAuthorizationFilter;
         this.jwtUtil = jwtUtil;
+        this.loginThrottle = loginThrottle;
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager) throws Exception {
         // Configure JWT filter
-        JwtAuthenticationFilter jwtAuthenticationFilter = new JwtAuthenticationFilter(authenticationManager, jwtUtil);
+        JwtAuthenticationFilter jwtAuthenticationFilter =
+                new JwtAuthenticationFilter(authenticationManager, jwtUtil, loginThrottle);
         jwtAuthenticationFilter.setFilterProcessesUrl("/api/auth/login");
 
         return http
@@ -58,6 +67,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/register", "/api/auth/login").permitAll()
                         .requestMatchers("/api/blog/posts").permitAll()
                         .requestMatchers("/api/blog/posts/{id}").permitAll()
+                        .requestMatchers("/actuator/metrics/**").hasRole("ADMIN")
                         .requestMatchers("/health","/actuator/**").permitAll()
                         .requestMatchers("/api/blog/category/**").permitAll()
                         .requestMatchers("/api/blog/search").permitAll()
@@ -71,6 +81,8 @@ public class SecurityConfig {
 
                         .requestMatchers("/api/product-categories/**").permitAll()
                         .requestMatchers("/api/gym/programs").permitAll()
+                        .requestMatchers("/api/gym/programs/page").permitAll()
+                        .requestMatchers("/api/gym/programs/popular").permitAll()
                         .requestMatchers("/api/gym/programs/{id}").permitAll()
 
                         // Swagger UI endpoints
@@ -81,6 +93,10 @@ public class SecurityConfig {
                         // TEMPORARILY ALLOW UPLOADS FOR TESTING - REMOVE THIS LATER
                         .requestMatchers("/api/uploads/**").permitAll()
 
+                        // Local storage backend: public downloads, uploads authorised by the signed URL
+                        .requestMatchers(HttpMethod.GET, "/api/files/**").permitAll()
+                        .requestMatchers(HttpMethod.PUT, "/api/files/**").permitAll()
+
                         // Admin endpoints - Require ADMIN role
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
 
@@ -103,17 +119,24 @@ public class SecurityConfig {
 
     // FIXED: Replace deprecated .and() method
     @Bean
-    public AuthenticationManager authenticationManager() throws Exception {
+    public AuthenticationManager authenticationManager(PasswordEncoder passwordEncoder) throws Exception {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
 
         return new ProviderManager(provider);
     }
 
+    // BCrypt runs on its own bounded pool so a burst of logins cannot take every core from other traffic
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${auth.password-hashing.threads:0}") int threads,
+            @Value("${auth.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.password-hashing.max-wait-ms:5000}") long maxWaitMs) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity,
+                Duration.ofMillis(maxWaitMs), meterRegistry);
     }
 
     @Bean
@@ -1,5 +1,6 @@
 package com.sheshape.controller;
 
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -22,8 +23,7 @@ public class AuthCheckController {
      */
     @GetMapping("/check")
     public ResponseEntity<Map<String, Object>> checkAuthentication(Authentication authentication) {
-        if (authentication != null && authentication.isAuthenticated() &&
-                !authentication.getPrincipal().equals("anonymousUser")) {
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser) {
 
             try {
                 var currentUser = userService.getCurrentUser();
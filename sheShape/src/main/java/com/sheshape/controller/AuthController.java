@@ -4,6 +4,7 @@ import com.sheshape.dto.AuthDTO.AuthRequest;
 import com.sheshape.dto.AuthDTO.AuthResponse;
 import com.sheshape.dto.AuthDTO.RegistrationRequest;
 import com.sheshape.dto.UserDto;
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.service.AuthService;
 import com.sheshape.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,6 +31,7 @@ public class AuthController {
                 .body(authService.register(request));
     }
 
+    // JwtAuthenticationFilter answers POST /api/auth/login, including throttling, before this is reached
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request) {
         return ResponseEntity.ok(authService.login(request));
@@ -50,8 +52,9 @@ public class AuthController {
     @PutMapping("/password")
     public ResponseEntity<UserDto> updatePassword(
             @RequestParam("current") String currentPassword,
-            @RequestParam("new") String newPassword) {
-        Long userId = userService.getCurrentUser().getId();
+            @RequestParam("new") String newPassword,
+            AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         return ResponseEntity.ok(authService.updatePassword(userId, currentPassword, newPassword));
     }
 
@@ -1,8 +1,12 @@
 package com.sheshape.controller;
 
+import com.sheshape.controller.support.ConditionalGet;
 import com.sheshape.dto.BlogPostDto;
 import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.service.BlogService;
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -13,17 +17,21 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/blog")
 public class BlogController {
 
     private final BlogService blogService;
+    private final CatalogVersions catalogVersions;
 
-    public BlogController(BlogService blogService) {
+    public BlogController(BlogService blogService, CatalogVersions catalogVersions) {
         this.blogService = blogService;
+        this.catalogVersions = catalogVersions;
     }
 
     @GetMapping("/posts")
@@ -31,14 +39,16 @@ public class BlogController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "publishedAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            WebRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? 
                 Sort.Direction.ASC : Sort.Direction.DESC;
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         
-        return ResponseEntity.ok(blogService.getAllPublishedPosts(pageable));
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.BLOG,
+                () -> blogService.getAllPublishedPosts(pageable));
     }
     
     @GetMapping("/posts/all")
@@ -60,8 +70,9 @@ public class BlogController {
 
     
     @GetMapping("/author/{authorId}/posts")
-    public ResponseEntity<List<BlogPostDto>> getPostsByAuthor(@PathVariable Long authorId) {
-        return ResponseEntity.ok(blogService.getPostsByAuthor(authorId));
+    public ResponseEntity<List<BlogPostDto>> getPostsByAuthor(@PathVariable Long authorId, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.BLOG,
+                () -> blogService.getPostsByAuthor(authorId));
     }
     
     @GetMapping("/category/{category}")
@@ -70,14 +81,16 @@ public class BlogController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "publishedAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            WebRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? 
                 Sort.Direction.ASC : Sort.Direction.DESC;
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         
-        return ResponseEntity.ok(blogService.getPostsByCategory(category, pageable));
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.BLOG,
+                () -> blogService.getPostsByCategory(category, pageable));
     }
     
     @GetMapping("/search")
@@ -86,54 +99,63 @@ public class BlogController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "publishedAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            WebRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? 
                 Sort.Direction.ASC : Sort.Direction.DESC;
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         
-        return ResponseEntity.ok(blogService.searchPosts(keyword, pageable));
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.BLOG,
+                () -> blogService.searchPosts(keyword, pageable));
     }
     
     @PostMapping("/posts")
     @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER', 'NUTRITIONIST')")
-    public ResponseEntity<BlogPostDto> createPost(@Valid @RequestBody BlogPostDto blogPostDto) {
+    public ResponseEntity<BlogPostDto> createPost(
+            @Valid @RequestBody BlogPostDto blogPostDto,
+            AuthenticatedUser currentUser) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(blogService.createPost(blogPostDto));
+                .body(blogService.createPost(blogPostDto, currentUser));
     }
     
     @PutMapping("/posts/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER', 'NUTRITIONIST')")
     public ResponseEntity<BlogPostDto> updatePost(
             @PathVariable Long id, 
-            @Valid @RequestBody BlogPostDto blogPostDto) {
-        return ResponseEntity.ok(blogService.updatePost(id, blogPostDto));
+            @Valid @RequestBody BlogPostDto blogPostDto,
+            AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(blogService.updatePost(id, blogPostDto, currentUser));
     }
     
     @PutMapping("/posts/{id}/publish")
     @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER', 'NUTRITIONIST')")
-    public ResponseEntity<BlogPostDto> publishPost(@PathVariable Long id) {
-        return ResponseEntity.ok(blogService.publishPost(id));
+    public ResponseEntity<BlogPostDto> publishPost(@PathVariable Long id, AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(blogService.publishPost(id, currentUser));
     }
     
     @PutMapping("/posts/{id}/unpublish")
     @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER', 'NUTRITIONIST')")
-    public ResponseEntity<BlogPostDto> unpublishPost(@PathVariable Long id) {
-        return ResponseEntity.ok(blogService.unpublishPost(id));
+    public ResponseEntity<BlogPostDto> unpublishPost(@PathVariable Long id, AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(blogService.unpublishPost(id, currentUser));
     }
     
     @DeleteMapping("/posts/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER', 'NUTRITIONIST')")
-    public ResponseEntity<Void> deletePost(@PathVariable Long id) {
-        blogService.deletePost(id);
+    public ResponseEntity<Void> deletePost(@PathVariable Long id, AuthenticatedUser currentUser) {
+        blogService.deletePost(id, currentUser);
         return ResponseEntity.noContent().build();
     }
     @GetMapping("/posts/{id}")
-    public ResponseEntity<BlogPostDto> getPostById(@PathVariable Long id) {
+    public ResponseEntity<BlogPostDto> getPostById(
+            @PathVariable Long id,
+            Optional<AuthenticatedUser> currentUser,
+            WebRequest request) {
         try {
-            BlogPostDto post = blogService.getPostById(id);
-            return ResponseEntity.ok(post);
+            // Load first so the draft visibility check still runs before a 304 is considered
+            BlogPostDto post = blogService.getPostById(id, currentUser.orElse(null));
+            return ConditionalGet.respond(request, catalogVersions, Aggregate.BLOG, () -> post);
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.notFound().build();
         } catch (AccessDeniedException e) {
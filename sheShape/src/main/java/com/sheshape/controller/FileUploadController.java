@@ -1,8 +1,13 @@
 // com.sheshape.controller.FileUploadController.java
 package com.sheshape.controller;
 
-import com.sheshape.exception.BadRequestException;
-import com.sheshape.service.FileStorageService;
+import com.sheshape.dto.CompleteUploadRequestDto;
+import com.sheshape.dto.PresignUploadRequestDto;
+import com.sheshape.dto.PresignedUploadDto;
+import com.sheshape.model.ImageUpload;
+import com.sheshape.service.ImageUploadService;
+import com.sheshape.service.media.UploadPurpose;
+import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -14,39 +19,25 @@ import java.util.Map;
 @RequestMapping("/api/uploads")
 public class FileUploadController {
 
-    private final FileStorageService fileStorageService;
+    private final ImageUploadService imageUploadService;
 
     private static final String BLOG_IMAGES_DIRECTORY = "blog-images/";
     private static final String PRODUCT_IMAGES_DIRECTORY = "product-images/";
 
-    public FileUploadController(FileStorageService fileStorageService) {
-        this.fileStorageService = fileStorageService;
+    public FileUploadController(ImageUploadService imageUploadService) {
+        this.imageUploadService = imageUploadService;
     }
 
     @PostMapping("/blog-image")
     @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER', 'NUTRITIONIST')")
     public ResponseEntity<Map<String, String>> uploadBlogImage(@RequestParam("image") MultipartFile file) {
-        // Validate file
-        if (file.isEmpty()) {
-            throw new BadRequestException("File cannot be empty");
-        }
-
-        // Validate file type
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new BadRequestException("Only image files are allowed");
-        }
-
-        // Upload file to S3
-        String fileKey = fileStorageService.uploadFile(file, BLOG_IMAGES_DIRECTORY);
-
-        // Get the file URL
-        String imageUrl = fileStorageService.getFileUrl(fileKey);
+        // Store the original; resized variants are generated in the background
+        ImageUpload upload = imageUploadService.uploadImage(file, BLOG_IMAGES_DIRECTORY);
 
         // Return response
         Map<String, String> response = new HashMap<>();
-        response.put("imageUrl", imageUrl);
-        response.put("fileKey", fileKey);
+        response.put("imageUrl", upload.getUrl());
+        response.put("fileKey", upload.getFileKey());
         response.put("message", "Image uploaded successfully");
 
         return ResponseEntity.ok(response);
@@ -55,29 +46,55 @@ public class FileUploadController {
     @PostMapping("/product-image")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, String>> uploadProductImage(@RequestParam("image") MultipartFile file) {
-        // Validate file
-        if (file.isEmpty()) {
-            throw new BadRequestException("File cannot be empty");
-        }
+        // Store the original; resized variants are generated in the background
+        ImageUpload upload = imageUploadService.uploadImage(file, PRODUCT_IMAGES_DIRECTORY);
 
-        // Validate file type
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new BadRequestException("Only image files are allowed");
-        }
+        // Return response
+        Map<String, String> response = new HashMap<>();
+        response.put("imageUrl", upload.getUrl());
+        response.put("fileKey", upload.getFileKey());
+        response.put("message", "Product image uploaded successfully");
 
-        // Upload file to S3
-        String fileKey = fileStorageService.uploadFile(file, PRODUCT_IMAGES_DIRECTORY);
+        return ResponseEntity.ok(response);
+    }
 
-        // Get the file URL
-        String imageUrl = fileStorageService.getFileUrl(fileKey);
+    @PostMapping("/blog-image/presign")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER', 'NUTRITIONIST')")
+    public ResponseEntity<PresignedUploadDto> presignBlogImage(@Valid @RequestBody PresignUploadRequestDto request) {
+        return ResponseEntity.ok(imageUploadService.presignUpload(
+                UploadPurpose.BLOG_IMAGE, request.getContentType(), request.getContentLength()));
+    }
+
+    @PostMapping("/blog-image/complete")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER', 'NUTRITIONIST')")
+    public ResponseEntity<Map<String, String>> completeBlogImage(@Valid @RequestBody CompleteUploadRequestDto request) {
+        ImageUpload upload = imageUploadService.completeUpload(request.getFileKey(), UploadPurpose.BLOG_IMAGE);
+
+        Map<String, String> response = new HashMap<>();
+        response.put("imageUrl", upload.getUrl());
+        response.put("fileKey", upload.getFileKey());
+        response.put("message", "Image uploaded successfully");
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/product-image/presign")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PresignedUploadDto> presignProductImage(@Valid @RequestBody PresignUploadRequestDto request) {
+        return ResponseEntity.ok(imageUploadService.presignUpload(
+                UploadPurpose.PRODUCT_IMAGE, request.getContentType(), request.getContentLength()));
+    }
+
+    @PostMapping("/product-image/complete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, String>> completeProductImage(@Valid @RequestBody CompleteUploadRequestDto request) {
+        ImageUpload upload = imageUploadService.completeUpload(request.getFileKey(), UploadPurpose.PRODUCT_IMAGE);
 
-        // Return response
         Map<String, String> response = new HashMap<>();
-        response.put("imageUrl", imageUrl);
-        response.put("fileKey", fileKey);
+        response.put("imageUrl", upload.getUrl());
+        response.put("fileKey", upload.getFileKey());
         response.put("message", "Product image uploaded successfully");
 
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,76 @@
 package com.sheshape.controller;
 
+import com.sheshape.controller.support.ConditionalGet;
 import com.sheshape.dto.GymProgramDto;
+import com.sheshape.dto.GymProgramPageDto;
 import com.sheshape.dto.GymSessionDto;
+import com.sheshape.dto.PopularItemDto;
 import com.sheshape.dto.UserGymProgramDto;
+import com.sheshape.dto.WatchProgressDto;
+import com.sheshape.model.GymProgram;
+import com.sheshape.repository.GymProgramRepositoryCustom;
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.service.GymProgramService;
-import com.sheshape.service.UserService;
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/gym")
 public class GymProgramController {
 
     private final GymProgramService gymProgramService;
-    private final UserService userService;
+    private final CatalogVersions catalogVersions;
 
-    public GymProgramController(GymProgramService gymProgramService, UserService userService) {
+    public GymProgramController(GymProgramService gymProgramService, CatalogVersions catalogVersions) {
         this.gymProgramService = gymProgramService;
-        this.userService = userService;
+        this.catalogVersions = catalogVersions;
     }
 
     @GetMapping("/programs")
-    public ResponseEntity<List<GymProgramDto>> getAllActivePrograms() {
-        return ResponseEntity.ok(gymProgramService.getActiveGymPrograms());
+    public ResponseEntity<List<GymProgramDto>> getAllActivePrograms(WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.GYM_PROGRAMS,
+                gymProgramService::getActiveGymPrograms);
+    }
+    
+    /**
+     * Active programs as summaries (no sessions), filtered and paged by keyset: pass the previous
+     * page's nextCursor as after
+     */
+    @GetMapping("/programs/page")
+    public ResponseEntity<GymProgramPageDto> getActiveProgramPage(
+            @RequestParam(required = false) GymProgram.DifficultyLevel difficultyLevel,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer minDurationDays,
+            @RequestParam(required = false) Integer maxDurationDays,
+            @RequestParam(required = false) Long trainerId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        GymProgramRepositoryCustom.Filter filter = new GymProgramRepositoryCustom.Filter(
+                difficultyLevel, minPrice, maxPrice, minDurationDays, maxDurationDays, trainerId);
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.GYM_PROGRAMS,
+                () -> gymProgramService.getActiveGymProgramPage(filter, after, size));
     }
-    
+
+    /**
+     * Active programs with the most enrollments, most first
+     */
+    @GetMapping("/programs/popular")
+    public ResponseEntity<List<PopularItemDto>> getPopularPrograms(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(gymProgramService.getPopularGymPrograms(limit));
+    }
+
     @GetMapping("/programs/all")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<GymProgramDto>> getAllPrograms() {
@@ -37,70 +78,87 @@ public class GymProgramController {
     }
     
     @GetMapping("/programs/{id}")
-    public ResponseEntity<GymProgramDto> getProgramById(@PathVariable Long id) {
-        return ResponseEntity.ok(gymProgramService.getGymProgramById(id));
+    public ResponseEntity<GymProgramDto> getProgramById(@PathVariable Long id, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.GYM_PROGRAMS,
+                () -> gymProgramService.getGymProgramById(id));
     }
     
     @GetMapping("/trainer/{trainerId}/programs")
-    public ResponseEntity<List<GymProgramDto>> getProgramsByTrainer(@PathVariable Long trainerId) {
-        return ResponseEntity.ok(gymProgramService.getGymProgramsByTrainer(trainerId));
+    public ResponseEntity<List<GymProgramDto>> getProgramsByTrainer(@PathVariable Long trainerId, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.GYM_PROGRAMS,
+                () -> gymProgramService.getGymProgramsByTrainer(trainerId));
     }
     
     @PostMapping("/programs")
     @PreAuthorize("hasRole('TRAINER') or hasRole('ADMIN')")
-    public ResponseEntity<GymProgramDto> createProgram(@Valid @RequestBody GymProgramDto programDto) {
+    public ResponseEntity<GymProgramDto> createProgram(
+            @Valid @RequestBody GymProgramDto programDto,
+            AuthenticatedUser currentUser) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(gymProgramService.createGymProgram(programDto));
+                .body(gymProgramService.createGymProgram(programDto, currentUser));
     }
     
     @PutMapping("/programs/{id}")
     @PreAuthorize("hasRole('TRAINER') or hasRole('ADMIN')")
     public ResponseEntity<GymProgramDto> updateProgram(
             @PathVariable Long id, 
-            @Valid @RequestBody GymProgramDto programDto) {
-        return ResponseEntity.ok(gymProgramService.updateGymProgram(id, programDto));
+            @Valid @RequestBody GymProgramDto programDto,
+            AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(gymProgramService.updateGymProgram(id, programDto, currentUser));
     }
     
     @DeleteMapping("/programs/{id}")
     @PreAuthorize("hasRole('TRAINER') or hasRole('ADMIN')")
-    public ResponseEntity<Void> deleteProgram(@PathVariable Long id) {
-        gymProgramService.deleteGymProgram(id);
+    public ResponseEntity<Void> deleteProgram(@PathVariable Long id, AuthenticatedUser currentUser) {
+        gymProgramService.deleteGymProgram(id, currentUser);
         return ResponseEntity.noContent().build();
     }
     
     // Session endpoints
     
     @GetMapping("/programs/{programId}/sessions")
-    public ResponseEntity<List<GymSessionDto>> getProgramSessions(@PathVariable Long programId) {
-        return ResponseEntity.ok(gymProgramService.getSessionsByProgramId(programId));
+    public ResponseEntity<List<GymSessionDto>> getProgramSessions(@PathVariable Long programId, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.GYM_PROGRAMS,
+                () -> gymProgramService.getSessionsByProgramId(programId));
     }
     
     @GetMapping("/sessions/{sessionId}")
-    public ResponseEntity<GymSessionDto> getSessionById(@PathVariable Long sessionId) {
-        return ResponseEntity.ok(gymProgramService.getSessionById(sessionId));
+    public ResponseEntity<GymSessionDto> getSessionById(@PathVariable Long sessionId, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.GYM_PROGRAMS,
+                () -> gymProgramService.getSessionById(sessionId));
+    }
+    
+    @GetMapping("/programs/{programId}/sessions/video-urls")
+    @PreAuthorize("hasRole('TRAINER') or hasRole('ADMIN')")
+    public ResponseEntity<Map<Long, String>> getSessionVideoUrls(
+            @PathVariable Long programId,
+            AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(gymProgramService.getSessionVideoUrls(programId, currentUser));
     }
     
     @PostMapping("/programs/{programId}/sessions")
     @PreAuthorize("hasRole('TRAINER') or hasRole('ADMIN')")
     public ResponseEntity<GymSessionDto> createSession(
             @PathVariable Long programId,
-            @Valid @RequestBody GymSessionDto sessionDto) {
+            @Valid @RequestBody GymSessionDto sessionDto,
+            AuthenticatedUser currentUser) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(gymProgramService.createSession(programId, sessionDto));
+                .body(gymProgramService.createSession(programId, sessionDto, currentUser));
     }
     
     @PutMapping("/sessions/{sessionId}")
     @PreAuthorize("hasRole('TRAINER') or hasRole('ADMIN')")
     public ResponseEntity<GymSessionDto> updateSession(
             @PathVariable Long sessionId,
-            @Valid @RequestBody GymSessionDto sessionDto) {
-        return ResponseEntity.ok(gymProgramService.updateSession(sessionId, sessionDto));
+            @Valid @RequestBody GymSessionDto sessionDto,
+            AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(gymProgramService.updateSession(sessionId, sessionDto, currentUser));
     }
     
     @DeleteMapping("/sessions/{sessionId}")
     @PreAuthorize("hasRole('TRAINER') or hasRole('ADMIN')")
-    public ResponseEntity<Void> deleteSession(@PathVariable Long sessionId) {
-        gymProgramService.deleteSession(sessionId);
+    public ResponseEntity<Void> deleteSession(@PathVariable Long sessionId, AuthenticatedUser currentUser) {
+        gymProgramService.deleteSession(sessionId, currentUser);
         return ResponseEntity.noContent().build();
     }
     
@@ -148,14 +206,16 @@ public class GymProgramController {
     // Current user endpoints for easier client-side usage
     
     @GetMapping("/my-programs")
-    public ResponseEntity<List<UserGymProgramDto>> getCurrentUserPrograms() {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<List<UserGymProgramDto>> getCurrentUserPrograms(AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         return ResponseEntity.ok(gymProgramService.getUserGymPrograms(userId));
     }
     
     @PostMapping("/programs/{programId}/purchase")
-    public ResponseEntity<UserGymProgramDto> purchaseProgramCurrentUser(@PathVariable Long programId) {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<UserGymProgramDto> purchaseProgramCurrentUser(
+            @PathVariable Long programId,
+            AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(gymProgramService.purchaseGymProgram(userId, programId));
     }
@@ -163,8 +223,30 @@ public class GymProgramController {
     @PutMapping("/programs/{programId}/last-watched")
     public ResponseEntity<UserGymProgramDto> updateLastWatchedSessionCurrentUser(
             @PathVariable Long programId, 
-            @RequestParam Long sessionId) {
-        Long userId = userService.getCurrentUser().getId();
+            @RequestParam Long sessionId,
+            AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         return ResponseEntity.ok(gymProgramService.updateLastWatchedSession(userId, programId, sessionId));
     }
+
+    /**
+     * Player heartbeat: the current position in a session. Coalesced in memory and written in batches,
+     * so it can be sent every few seconds.
+     */
+    @PostMapping("/programs/{programId}/sessions/{sessionId}/progress")
+    public ResponseEntity<Void> recordWatchProgress(
+            @PathVariable Long programId,
+            @PathVariable Long sessionId,
+            @Valid @RequestBody WatchProgressDto progress,
+            AuthenticatedUser currentUser) {
+        gymProgramService.recordWatchProgress(currentUser.id(), programId, sessionId, progress);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/programs/{programId}/progress")
+    public ResponseEntity<List<WatchProgressDto>> getWatchProgress(
+            @PathVariable Long programId,
+            AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(gymProgramService.getWatchProgress(currentUser.id(), programId));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.sheshape.controller;
+
+import com.sheshape.controller.support.FileResponses;
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.service.impl.LocalFileStorageServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Serves and accepts files for the local storage backend. Downloads hand the file to Tomcat's
+ * sendfile when the connector supports it, which keeps file contents off the heap; otherwise
+ * FileChannel.transferTo streams them through a small buffer. Session videos are not served here; they
+ * go through the entitlement check in SessionVideoController.
+ */
+@RestController
+@RequestMapping("/api/files")
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalFileController {
+
+    private final LocalFileStorageServiceImpl storage;
+
+    // Keys never change content (content hashes or random ids), so responses can be cached for good
+    @Value("${storage.local.cache-max-age-days:365}")
+    private long cacheMaxAgeDays;
+
+    public LocalFileController(LocalFileStorageServiceImpl storage) {
+        this.storage = storage;
+    }
+
+    @GetMapping("/{*path}")
+    public void getFile(@PathVariable String path, HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        String fileKey = fileKey(path);
+        Path file = storage.resolve(fileKey);
+        if (!storage.isPublic(file)) {
+            // Not distinguishable from a missing file, so private keys can't be probed
+            throw new ResourceNotFoundException("File not found: " + fileKey);
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            throw new ResourceNotFoundException("File not found: " + fileKey);
+        }
+
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                CacheControl.maxAge(Duration.ofDays(cacheMaxAgeDays)).cachePublic().immutable().getHeaderValue());
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+
+        // Only single ranges are honoured; for anything else the whole file is sent, as RFC 9110 allows
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isCurrent(request.getHeader(HttpHeaders.IF_RANGE), etag)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException ex) {
+                ranges = List.of();
+            }
+
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                if (size == 0 || range.getRangeStart(size) >= size) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(storage.contentTypeOf(fileKey));
+        response.setContentLengthLong(length);
+
+        if ("HEAD".equals(request.getMethod()) || length <= 0) {
+            return;
+        }
+
+        FileResponses.send(request, response, file, start, end);
+    }
+
+    /**
+     * Target of the URLs handed out by presignUpload; the query string carries the signed upload terms.
+     */
+    @PutMapping("/{*path}")
+    public ResponseEntity<Void> putFile(@PathVariable String path,
+                                        @RequestParam String contentType,
+                                        @RequestParam long contentLength,
+                                        @RequestParam long expires,
+                                        @RequestParam String signature,
+                                        HttpServletRequest request) throws IOException {
+        String fileKey = fileKey(path);
+
+        if (!storage.verifyUploadSignature(fileKey, contentType, contentLength, expires, signature)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!contentType.equals(request.getContentType()) || request.getContentLengthLong() != contentLength) {
+            throw new BadRequestException("Upload does not match the signed Content-Type and Content-Length");
+        }
+
+        try (InputStream body = request.getInputStream()) {
+            if (!storage.storeUpload(fileKey, body, contentLength)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    // The catch-all path variable keeps its leading slash
+    private static String fileKey(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private static boolean isCurrent(String ifRange, String etag) {
+        // A date-valued If-Range is treated as stale, which just means the full file is sent
+        return ifRange == null || ifRange.equals(etag);
+    }
+}
@@ -1,9 +1,10 @@
 package com.sheshape.controller;
 
 import com.sheshape.dto.NutritionPlanDto;
+import com.sheshape.dto.PopularItemDto;
 import com.sheshape.dto.UserNutritionPlanDto;
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.service.NutritionPlanService;
-import com.sheshape.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,11 +18,9 @@ import java.util.List;
 public class NutritionPlanController {
 
     private final NutritionPlanService nutritionPlanService;
-    private final UserService userService;
 
-    public NutritionPlanController(NutritionPlanService nutritionPlanService, UserService userService) {
+    public NutritionPlanController(NutritionPlanService nutritionPlanService) {
         this.nutritionPlanService = nutritionPlanService;
-        this.userService = userService;
     }
 
     @GetMapping("/plans")
@@ -29,6 +28,14 @@ public class NutritionPlanController {
         return ResponseEntity.ok(nutritionPlanService.getActiveNutritionPlans());
     }
     
+    /**
+     * Active plans with the most enrollments, most first
+     */
+    @GetMapping("/plans/popular")
+    public ResponseEntity<List<PopularItemDto>> getPopularPlans(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(nutritionPlanService.getPopularNutritionPlans(limit));
+    }
+    
     @GetMapping("/plans/all")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<NutritionPlanDto>> getAllPlans() {
@@ -47,23 +54,26 @@ public class NutritionPlanController {
     
     @PostMapping("/plans")
     @PreAuthorize("hasRole('NUTRITIONIST') or hasRole('ADMIN')")
-    public ResponseEntity<NutritionPlanDto> createPlan(@Valid @RequestBody NutritionPlanDto planDto) {
+    public ResponseEntity<NutritionPlanDto> createPlan(
+            @Valid @RequestBody NutritionPlanDto planDto,
+            AuthenticatedUser currentUser) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(nutritionPlanService.createNutritionPlan(planDto));
+                .body(nutritionPlanService.createNutritionPlan(planDto, currentUser));
     }
     
     @PutMapping("/plans/{id}")
     @PreAuthorize("hasRole('NUTRITIONIST') or hasRole('ADMIN')")
     public ResponseEntity<NutritionPlanDto> updatePlan(
             @PathVariable Long id, 
-            @Valid @RequestBody NutritionPlanDto planDto) {
-        return ResponseEntity.ok(nutritionPlanService.updateNutritionPlan(id, planDto));
+            @Valid @RequestBody NutritionPlanDto planDto,
+            AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(nutritionPlanService.updateNutritionPlan(id, planDto, currentUser));
     }
     
     @DeleteMapping("/plans/{id}")
     @PreAuthorize("hasRole('NUTRITIONIST') or hasRole('ADMIN')")
-    public ResponseEntity<Void> deletePlan(@PathVariable Long id) {
-        nutritionPlanService.deleteNutritionPlan(id);
+    public ResponseEntity<Void> deletePlan(@PathVariable Long id, AuthenticatedUser currentUser) {
+        nutritionPlanService.deleteNutritionPlan(id, currentUser);
         return ResponseEntity.noContent().build();
     }
     
@@ -102,14 +112,16 @@ public class NutritionPlanController {
     // Current user endpoints for easier client-side usage
     
     @GetMapping("/my-plans")
-    public ResponseEntity<List<UserNutritionPlanDto>> getCurrentUserPlans() {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<List<UserNutritionPlanDto>> getCurrentUserPlans(AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         return ResponseEntity.ok(nutritionPlanService.getUserNutritionPlans(userId));
     }
     
     @PostMapping("/plans/{planId}/purchase")
-    public ResponseEntity<UserNutritionPlanDto> purchasePlanCurrentUser(@PathVariable Long planId) {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<UserNutritionPlanDto> purchasePlanCurrentUser(
+            @PathVariable Long planId,
+            AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(nutritionPlanService.purchaseNutritionPlan(userId, planId));
     }
@@ -1,13 +1,17 @@
 package com.sheshape.controller;
 
-import com.sheshape.dto.ProductDto;
+import com.sheshape.controller.support.ConditionalGet;
+import com.sheshape.dto.ProductSummaryDto;
 import com.sheshape.service.ProductCategoryService;
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -17,62 +21,67 @@ import java.util.Map;
 public class ProductCategoryController {
 
     private final ProductCategoryService productCategoryService;
+    private final CatalogVersions catalogVersions;
 
-    public ProductCategoryController(ProductCategoryService productCategoryService) {
+    public ProductCategoryController(ProductCategoryService productCategoryService,
+                                     CatalogVersions catalogVersions) {
         this.productCategoryService = productCategoryService;
+        this.catalogVersions = catalogVersions;
     }
 
     @GetMapping
-    public ResponseEntity<List<String>> getAllCategories() {
-        List<String> categories = productCategoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<List<String>> getAllCategories(WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                productCategoryService::getAllCategories);
     }
 
     @GetMapping("/with-counts")
-    public ResponseEntity<Map<String, Long>> getCategoriesWithProductCounts() {
-        Map<String, Long> categoriesWithCounts = productCategoryService.getCategoriesWithProductCounts();
-        return ResponseEntity.ok(categoriesWithCounts);
+    public ResponseEntity<Map<String, Long>> getCategoriesWithProductCounts(WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                productCategoryService::getCategoriesWithProductCounts);
     }
 
     @GetMapping("/{category}/products")
-    public ResponseEntity<Page<ProductDto>> getProductsByCategory(
+    public ResponseEntity<Page<ProductSummaryDto>> getProductsByCategory(
             @PathVariable String category,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            WebRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? 
                 Sort.Direction.ASC : Sort.Direction.DESC;
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         
-        Page<ProductDto> products = productCategoryService.getProductsByCategory(category, pageable);
-        return ResponseEntity.ok(products);
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                () -> productCategoryService.getProductsByCategory(category, pageable));
     }
 
     @GetMapping("/statistics")
-    public ResponseEntity<Map<String, Object>> getCategoryStatistics() {
-        Map<String, Object> statistics = productCategoryService.getCategoryStatistics();
-        return ResponseEntity.ok(statistics);
+    public ResponseEntity<Map<String, Object>> getCategoryStatistics(WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                productCategoryService::getCategoryStatistics);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<String>> searchCategories(@RequestParam String query) {
-        List<String> categories = productCategoryService.searchCategories(query);
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<List<String>> searchCategories(@RequestParam String query, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                () -> productCategoryService.searchCategories(query));
     }
 
     @GetMapping("/popular")
     public ResponseEntity<List<String>> getPopularCategories(
-            @RequestParam(defaultValue = "10") int limit) {
-        List<String> popularCategories = productCategoryService.getPopularCategories(limit);
-        return ResponseEntity.ok(popularCategories);
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                () -> productCategoryService.getPopularCategories(limit));
     }
 
     @GetMapping("/in-stock")
-    public ResponseEntity<List<String>> getCategoriesInStock() {
-        List<String> categoriesInStock = productCategoryService.getCategoriesWithStock();
-        return ResponseEntity.ok(categoriesInStock);
+    public ResponseEntity<List<String>> getCategoriesInStock(WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                productCategoryService::getCategoriesWithStock);
     }
 }
\ No newline at end of file
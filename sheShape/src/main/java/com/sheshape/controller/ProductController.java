@@ -1,7 +1,11 @@
 package com.sheshape.controller;
 
+import com.sheshape.controller.support.ConditionalGet;
 import com.sheshape.dto.ProductDto;
+import com.sheshape.dto.ProductSummaryDto;
 import com.sheshape.service.ProductService;
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -11,6 +15,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,24 +24,28 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogVersions catalogVersions;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, CatalogVersions catalogVersions) {
         this.productService = productService;
+        this.catalogVersions = catalogVersions;
     }
 
     @GetMapping
-    public ResponseEntity<Page<ProductDto>> getAllActiveProducts(
+    public ResponseEntity<Page<ProductSummaryDto>> getAllActiveProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            WebRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? 
                 Sort.Direction.ASC : Sort.Direction.DESC;
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         
-        return ResponseEntity.ok(productService.getAllActiveProducts(pageable));
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                () -> productService.getAllActiveProducts(pageable));
     }
     
     @GetMapping("/all")
@@ -56,44 +65,50 @@ public class ProductController {
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDto> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductDto> getProductById(@PathVariable Long id, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                () -> productService.getProductById(id));
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<Page<ProductDto>> getProductsByCategory(
+    public ResponseEntity<Page<ProductSummaryDto>> getProductsByCategory(
             @PathVariable String category,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            WebRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? 
                 Sort.Direction.ASC : Sort.Direction.DESC;
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         
-        return ResponseEntity.ok(productService.getProductsByCategory(category, pageable));
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                () -> productService.getProductsByCategory(category, pageable));
     }
     
     @GetMapping("/search")
-    public ResponseEntity<Page<ProductDto>> searchProducts(
+    public ResponseEntity<Page<ProductSummaryDto>> searchProducts(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            WebRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? 
                 Sort.Direction.ASC : Sort.Direction.DESC;
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         
-        return ResponseEntity.ok(productService.searchProducts(keyword, pageable));
+        return ConditionalGet.respond(request, catalogVersions, Aggregate.PRODUCTS,
+                () -> productService.searchProducts(keyword, pageable));
     }
     
+    // Not conditional: which products are listed changes with stock, which the catalog version ignores
     @GetMapping("/in-stock")
-    public ResponseEntity<List<ProductDto>> getProductsInStock() {
+    public ResponseEntity<List<ProductSummaryDto>> getProductsInStock() {
         return ResponseEntity.ok(productService.getProductsInStock());
     }
     
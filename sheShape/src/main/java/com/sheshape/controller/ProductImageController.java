@@ -1,10 +1,16 @@
 // com.sheshape.controller.ProductImageController.java
 package com.sheshape.controller;
 
+import com.sheshape.dto.CompleteUploadRequestDto;
+import com.sheshape.dto.PresignUploadRequestDto;
+import com.sheshape.dto.PresignedUploadDto;
 import com.sheshape.dto.ProductImageDto;
+import com.sheshape.model.ImageUpload;
 import com.sheshape.model.ProductImage;
-import com.sheshape.service.FileStorageService;
+import com.sheshape.service.ImageUploadService;
 import com.sheshape.service.ProductImageService;
+import com.sheshape.service.media.UploadPurpose;
+import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -21,14 +27,14 @@ import java.util.stream.Collectors;
 public class ProductImageController {
 
     private final ProductImageService productImageService;
-    private final FileStorageService fileStorageService;
+    private final ImageUploadService imageUploadService;
     private static final String PRODUCT_IMAGES_DIRECTORY = "product-images/";
 
     public ProductImageController(
             ProductImageService productImageService,
-            FileStorageService fileStorageService) {
+            ImageUploadService imageUploadService) {
         this.productImageService = productImageService;
-        this.fileStorageService = fileStorageService;
+        this.imageUploadService = imageUploadService;
     }
 
     /**
@@ -64,18 +70,42 @@ public class ProductImageController {
             return ResponseEntity.badRequest().build();
         }
         
-        // Upload file to S3
-        String fileKey = fileStorageService.uploadFile(file, PRODUCT_IMAGES_DIRECTORY);
-        
-        // Get the file URL
-        String imageUrl = fileStorageService.getFileUrl(fileKey);
+        // Store the original; resized variants are generated in the background
+        ImageUpload upload = imageUploadService.uploadImage(file, PRODUCT_IMAGES_DIRECTORY);
         
         // Add image to product
-        ProductImage productImage = productImageService.addProductImage(productId, imageUrl, fileKey, isMain);
+        ProductImage productImage = productImageService.addProductImage(
+                productId, upload.getUrl(), upload.getFileKey(), isMain);
         
         return ResponseEntity.ok(convertToDto(productImage));
     }
 
+    /**
+     * Get a presigned URL to upload a product image straight to storage
+     */
+    @PostMapping("/{productId}/images/presign")
+    public ResponseEntity<PresignedUploadDto> presignProductImage(
+            @PathVariable Long productId,
+            @Valid @RequestBody PresignUploadRequestDto request) {
+        return ResponseEntity.ok(imageUploadService.presignUpload(
+                UploadPurpose.PRODUCT_IMAGE, request.getContentType(), request.getContentLength()));
+    }
+
+    /**
+     * Register a presigned upload as an image of the product
+     */
+    @PostMapping("/{productId}/images/complete")
+    public ResponseEntity<ProductImageDto> completeProductImage(
+            @PathVariable Long productId,
+            @Valid @RequestBody CompleteUploadRequestDto request) {
+        ImageUpload upload = imageUploadService.completeUpload(request.getFileKey(), UploadPurpose.PRODUCT_IMAGE);
+
+        ProductImage productImage = productImageService.addProductImage(
+                productId, upload.getUrl(), upload.getFileKey(), request.isMain());
+
+        return ResponseEntity.ok(convertToDto(productImage));
+    }
+
     /**
      * Update image properties
      */
@@ -119,7 +149,7 @@ public class ProductImageController {
                 })
                 .collect(Collectors.toList());
         
-        productImageService.updateImagePositions(productImages);
+        productImageService.updateImagePositions(productId, productImages);
         
         Map<String, String> response = new HashMap<>();
         response.put("message", "Image order updated successfully");
@@ -148,6 +178,7 @@ public class ProductImageController {
         dto.setMain(image.isMain());
         dto.setPosition(image.getPosition());
         dto.setCreatedAt(image.getCreatedAt());
+        dto.applyVariants(image.getVariants());
         return dto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.sheshape.controller;
+
+import com.sheshape.dto.ProductImportStatusDto;
+import com.sheshape.service.ProductImportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequestMapping("/api/products/import")
+@PreAuthorize("hasRole('ADMIN')")
+public class ProductImportController {
+
+    private final ProductImportService productImportService;
+
+    public ProductImportController(ProductImportService productImportService) {
+        this.productImportService = productImportService;
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ProductImportStatusDto> startImport(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(productImportService.startImport(file, format));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ProductImportStatusDto> getImportStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(productImportService.getImportStatus(jobId));
+    }
+}
@@ -1,12 +1,17 @@
 package com.sheshape.controller;
 
+import com.sheshape.dto.CompleteUploadRequestDto;
+import com.sheshape.dto.PresignUploadRequestDto;
+import com.sheshape.dto.PresignedUploadDto;
 import com.sheshape.dto.profile.*;
 import com.sheshape.dto.response.ApiResponse;
 import com.sheshape.exception.BadRequestException;
 import com.sheshape.exception.ResourceNotFoundException;
-import com.sheshape.security.JwtUtil;
+import com.sheshape.model.ImageUpload;
+import com.sheshape.security.AuthenticatedUser;
+import com.sheshape.service.ImageUploadService;
 import com.sheshape.service.ProfileService;
-import com.sheshape.service.UserService;
+import com.sheshape.service.media.UploadPurpose;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,19 +30,18 @@ import java.util.Map;
 public class ProfileController {
 
     private final ProfileService profileService;
-    private final JwtUtil jwtUtil;
-    private final UserService userService;
+    private final ImageUploadService imageUploadService;
 
     /**
      * Setup user profile - Create or update complete profile information
      */
     @PostMapping("/setup")
     public ResponseEntity<ApiResponse<ProfileResponseDTO>> setupProfile(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser currentUser,
             @Valid @RequestBody ProfileSetupRequestDTO request) {
 
         try {
-            Long userId = extractUserIdFromToken(token);
+            Long userId = currentUser.id();
             log.info("Profile setup request received for user ID: {}", userId);
 
             ProfileResponseDTO profile = profileService.setupProfile(userId, request);
@@ -70,11 +74,11 @@ public class ProfileController {
      */
     @PutMapping("/update")
     public ResponseEntity<ApiResponse<ProfileResponseDTO>> updateProfile(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser currentUser,
             @Valid @RequestBody ProfileUpdateRequestDTO request) {
 
         try {
-            Long userId = extractUserIdFromToken(token);
+            Long userId = currentUser.id();
             log.info("Profile update request received for user ID: {}", userId);
 
             ProfileResponseDTO profile = profileService.updateProfile(userId, request);
@@ -110,11 +114,11 @@ public class ProfileController {
      */
     @PostMapping("/picture")
     public ResponseEntity<ApiResponse<ProfilePictureResponseDTO>> uploadProfilePicture(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser currentUser,
             @RequestParam("file") MultipartFile file) { // Ensure parameter name is "file"
 
         try {
-            Long userId = extractUserIdFromToken(token);
+            Long userId = currentUser.id();
             log.info("Profile picture upload request received for user ID: {}", userId);
 
             // Validate file before processing
@@ -147,15 +151,73 @@ public class ProfileController {
         }
     }
 
+    /**
+     * Get a presigned URL to upload a profile picture straight to storage
+     */
+    @PostMapping("/picture/presign")
+    public ResponseEntity<ApiResponse<PresignedUploadDto>> presignProfilePicture(
+            @Valid @RequestBody PresignUploadRequestDto request) {
+
+        try {
+            PresignedUploadDto response = imageUploadService.presignUpload(
+                    UploadPurpose.PROFILE_PICTURE, request.getContentType(), request.getContentLength());
+
+            return ResponseEntity.ok(ApiResponse.<PresignedUploadDto>builder()
+                    .success(true)
+                    .message("Upload URL created")
+                    .data(response)
+                    .build());
+
+        } catch (BadRequestException e) {
+            log.error("Profile picture presign validation error: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.<PresignedUploadDto>builder()
+                    .success(false)
+                    .message(e.getMessage())
+                    .data(null)
+                    .build());
+        }
+    }
+
+    /**
+     * Register a presigned upload as the profile picture
+     */
+    @PostMapping("/picture/complete")
+    public ResponseEntity<ApiResponse<ProfilePictureResponseDTO>> completeProfilePicture(
+            AuthenticatedUser currentUser,
+            @Valid @RequestBody CompleteUploadRequestDto request) {
+
+        try {
+            Long userId = currentUser.id();
+            log.info("Profile picture completion request received for user ID: {}", userId);
+
+            ImageUpload upload = imageUploadService.completeUpload(request.getFileKey(), UploadPurpose.PROFILE_PICTURE);
+            ProfilePictureResponseDTO response = profileService.setProfilePicture(userId, upload);
+
+            return ResponseEntity.ok(ApiResponse.<ProfilePictureResponseDTO>builder()
+                    .success(true)
+                    .message("Profile picture uploaded successfully")
+                    .data(response)
+                    .build());
+
+        } catch (BadRequestException | ResourceNotFoundException e) {
+            log.error("Profile picture completion validation error: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.<ProfilePictureResponseDTO>builder()
+                    .success(false)
+                    .message(e.getMessage())
+                    .data(null)
+                    .build());
+        }
+    }
+
     /**
      * Delete/remove profile picture
      */
     @DeleteMapping("/picture")
     public ResponseEntity<ApiResponse<Map<String, String>>> removeProfilePicture(
-            @RequestHeader("Authorization") String token) {
+            AuthenticatedUser currentUser) {
 
         try {
-            Long userId = extractUserIdFromToken(token);
+            Long userId = currentUser.id();
             log.info("Profile picture removal request received for user ID: {}", userId);
 
 
@@ -184,10 +246,10 @@ public class ProfileController {
      */
     @GetMapping
     public ResponseEntity<ApiResponse<ProfileResponseDTO>> getUserProfile(
-            @RequestHeader("Authorization") String token) {
+            AuthenticatedUser currentUser) {
 
         try {
-            Long userId = extractUserIdFromToken(token);
+            Long userId = currentUser.id();
             log.info("Profile retrieval request received for user ID: {}", userId);
 
             ProfileResponseDTO profile = profileService.getUserProfile(userId);
@@ -216,10 +278,10 @@ public class ProfileController {
      */
     @GetMapping("/summary")
     public ResponseEntity<ApiResponse<UserProfileSummaryDTO>> getUserProfileSummary(
-            @RequestHeader("Authorization") String token) {
+            AuthenticatedUser currentUser) {
 
         try {
-            Long userId = extractUserIdFromToken(token);
+            Long userId = currentUser.id();
             log.info("Profile summary request received for user ID: {}", userId);
 
             UserProfileSummaryDTO summary = profileService.getUserProfileSummary(userId);
@@ -249,11 +311,11 @@ public class ProfileController {
     @GetMapping("/{userId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER', 'NUTRITIONIST')")
     public ResponseEntity<ApiResponse<ProfileResponseDTO>> getUserProfileById(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser currentUser,
             @PathVariable Long userId) {
 
         try {
-            Long requestingUserId = extractUserIdFromToken(token);
+            Long requestingUserId = currentUser.id();
             log.info("Profile retrieval request for user ID: {} by user ID: {}", userId, requestingUserId);
 
             ProfileResponseDTO profile = profileService.getUserProfile(userId);
@@ -282,10 +344,10 @@ public class ProfileController {
      */
     @GetMapping("/status")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getProfileStatus(
-            @RequestHeader("Authorization") String token) {
+            AuthenticatedUser currentUser) {
 
         try {
-            Long userId = extractUserIdFromToken(token);
+            Long userId = currentUser.id();
             log.info("Profile status request received for user ID: {}", userId);
 
             UserProfileSummaryDTO summary = profileService.getUserProfileSummary(userId);
@@ -364,12 +426,12 @@ public class ProfileController {
      */
     @PatchMapping("/section/{section}")
     public ResponseEntity<ApiResponse<ProfileResponseDTO>> updateProfileSection(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser currentUser,
             @PathVariable String section,
             @RequestBody Map<String, Object> updates) {
 
         try {
-            Long userId = extractUserIdFromToken(token);
+            Long userId = currentUser.id();
             log.info("Profile section update request for section '{}' by user ID: {}", section, userId);
 
             // You can implement section-specific updates in ProfileService
@@ -405,10 +467,10 @@ public class ProfileController {
      */
     @GetMapping("/validate")
     public ResponseEntity<ApiResponse<Map<String, Object>>> validateProfile(
-            @RequestHeader("Authorization") String token) {
+            AuthenticatedUser currentUser) {
 
         try {
-            Long userId = extractUserIdFromToken(token);
+            Long userId = currentUser.id();
             log.info("Profile validation request received for user ID: {}", userId);
 
             ProfileResponseDTO profile = profileService.getUserProfile(userId);
@@ -436,24 +498,6 @@ public class ProfileController {
 
     // Helper Methods
 
-    /**
-     * Extract user ID from JWT token
-     */
-    private Long extractUserIdFromToken(String token) {
-        try {
-            // Remove "Bearer " prefix if present
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-
-            String username = jwtUtil.extractUsername(token);
-            return userService.getUserIdByUsernameOrEmail(username);
-        } catch (Exception e) {
-            log.error("Failed to extract user ID from token", e);
-            throw new BadRequestException("Invalid or expired token");
-        }
-    }
-
     /**
      * Map generic updates to ProfileUpdateRequestDTO based on section
      */
@@ -0,0 +1,35 @@
+package com.sheshape.controller;
+
+import com.sheshape.dto.RecommendationDto;
+import com.sheshape.model.CatalogItemType;
+import com.sheshape.security.AuthenticatedUser;
+import com.sheshape.service.RecommendationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/recommendations")
+public class RecommendationController {
+
+    private final RecommendationService recommendationService;
+
+    public RecommendationController(RecommendationService recommendationService) {
+        this.recommendationService = recommendationService;
+    }
+
+    /**
+     * Gym programs and nutrition plans ranked for the current user's fitness profile and enrollments
+     */
+    @GetMapping
+    public ResponseEntity<List<RecommendationDto>> getRecommendations(
+            @RequestParam(required = false) CatalogItemType type,
+            @RequestParam(defaultValue = "10") int limit,
+            AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(recommendationService.getRecommendations(currentUser.id(), type, limit));
+    }
+}
@@ -0,0 +1,157 @@
+package com.sheshape.controller;
+
+import com.sheshape.controller.support.FileResponses;
+import com.sheshape.dto.GymSessionDto;
+import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.security.AuthenticatedUser;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.FileStorageService.StoredFile;
+import com.sheshape.service.catalog.GymProgramCatalog;
+import com.sheshape.service.catalog.ProgramEntitlements;
+import com.sheshape.service.media.VideoSegmentCache;
+import com.sheshape.service.media.VideoSegmentCache.Segment;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Streams session videos to enrolled users from VideoSegmentCache. A range request gets a partial
+ * response of at most one segment and players simply ask for the next range; a request without a
+ * usable range gets the whole video, written segment by segment so only one is held at a time.
+ * The entitlement check is cached, so a range costs no query.
+ */
+@RestController
+@RequestMapping("/api/gym/programs/{programId}/sessions/{sessionId}/video")
+public class SessionVideoController {
+
+    private final GymProgramCatalog gymProgramCatalog;
+    private final ProgramEntitlements programEntitlements;
+    private final FileStorageService fileStorageService;
+    private final VideoSegmentCache videoSegmentCache;
+
+    public SessionVideoController(GymProgramCatalog gymProgramCatalog,
+                                  ProgramEntitlements programEntitlements,
+                                  FileStorageService fileStorageService,
+                                  VideoSegmentCache videoSegmentCache) {
+        this.gymProgramCatalog = gymProgramCatalog;
+        this.programEntitlements = programEntitlements;
+        this.fileStorageService = fileStorageService;
+        this.videoSegmentCache = videoSegmentCache;
+    }
+
+    @GetMapping
+    public void getVideo(@PathVariable Long programId,
+                         @PathVariable Long sessionId,
+                         AuthenticatedUser currentUser,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        if (!programEntitlements.canWatch(currentUser, programId)) {
+            throw new AccessDeniedException("You are not enrolled in this program");
+        }
+
+        GymSessionDto session = gymProgramCatalog.findSession(programId, sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Session not found with id: " + sessionId));
+        String fileKey = session.getVideoUrl() != null ? fileStorageService.getFileKey(session.getVideoUrl()) : null;
+        if (fileKey == null) {
+            throw new ResourceNotFoundException("Session " + sessionId + " has no video");
+        }
+        StoredFile file = videoSegmentCache.getFileInfo(fileKey)
+                .orElseThrow(() -> new ResourceNotFoundException("Video not found for session: " + sessionId));
+
+        long size = file.size();
+        // Video keys are never overwritten, so key and size identify the content
+        String etag = "\"" + Long.toHexString(size) + "-" + Integer.toHexString(fileKey.hashCode()) + "\"";
+
+        // Private: the response depends on the caller's enrollment
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(file.contentType() != null ? file.contentType() : "video/mp4");
+
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        // HEAD describes the whole video without touching the cache
+        if (size == 0 || "HEAD".equals(request.getMethod())) {
+            response.setContentLengthLong(size);
+            return;
+        }
+
+        HttpRange range = requestedRange(request, etag);
+        if (range == null) {
+            // No usable range, or one for other content: the whole video, a segment at a time
+            response.setContentLengthLong(size);
+            long position = 0;
+            while (position < size) {
+                Segment segment = videoSegmentCache.getSegment(fileKey, position, size);
+                write(response, segment, 0, segment.length());
+                position = segment.offset() + segment.length();
+            }
+            return;
+        }
+
+        long start = range.getRangeStart(size);
+        if (start >= size) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return;
+        }
+
+        Segment segment = videoSegmentCache.getSegment(fileKey, start, size);
+        // Partial responses may be shorter than asked for; the player requests the rest
+        long end = Math.min(range.getRangeEnd(size), segment.offset() + segment.length() - 1);
+        long length = end - start + 1;
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        response.setContentLengthLong(length);
+
+        long from = start - segment.offset();
+        if (segment.bytes() != null) {
+            response.getOutputStream().write(segment.bytes(), (int) from, (int) length);
+        } else {
+            FileResponses.send(request, response, segment.path(), from, from + length - 1);
+        }
+    }
+
+    /**
+     * @return The single range to serve, or null when the whole video should be sent: no Range,
+     * an If-Range that doesn't match the current ETag, or a Range that is malformed or has several parts
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (rangeHeader == null || (ifRange != null && !ifRange.equals(etag))) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static void write(HttpServletResponse response, Segment segment, long from, long length)
+            throws IOException {
+        if (segment.bytes() != null) {
+            response.getOutputStream().write(segment.bytes(), (int) from, (int) length);
+        } else {
+            // Several segments go into one response, so each is written before the next is fetched
+            FileResponses.copy(response, segment.path(), from, from + length - 1);
+        }
+    }
+}
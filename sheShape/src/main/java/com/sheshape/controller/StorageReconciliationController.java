@@ -0,0 +1,32 @@
+package com.sheshape.controller;
+
+import com.sheshape.dto.StorageReconciliationReportDto;
+import com.sheshape.service.StorageReconciliationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/storage/reconciliation")
+@PreAuthorize("hasRole('ADMIN')")
+public class StorageReconciliationController {
+
+    private final StorageReconciliationService storageReconciliationService;
+
+    public StorageReconciliationController(StorageReconciliationService storageReconciliationService) {
+        this.storageReconciliationService = storageReconciliationService;
+    }
+
+    @PostMapping
+    public ResponseEntity<StorageReconciliationReportDto> startReconciliation(
+            @RequestParam(required = false) Boolean dryRun) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(storageReconciliationService.startReconciliation(dryRun));
+    }
+
+    @GetMapping
+    public ResponseEntity<StorageReconciliationReportDto> getLastReport() {
+        return ResponseEntity.ok(storageReconciliationService.getLastReport());
+    }
+}
@@ -0,0 +1,55 @@
+package com.sheshape.controller;
+
+import com.sheshape.dto.VideoUploadStatusDto;
+import com.sheshape.service.VideoUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/uploads/videos")
+@PreAuthorize("hasAnyRole('ADMIN', 'TRAINER')")
+public class VideoUploadController {
+
+    private final VideoUploadService videoUploadService;
+
+    public VideoUploadController(VideoUploadService videoUploadService) {
+        this.videoUploadService = videoUploadService;
+    }
+
+    /**
+     * The request body is the video itself (Content-Type video/*, Content-Length required), so it is
+     * streamed to disk without the multipart size limits that apply to every other endpoint
+     */
+    @PostMapping(consumes = "video/*")
+    public ResponseEntity<VideoUploadStatusDto> startUpload(@RequestParam(required = false) String filename,
+                                                            HttpServletRequest request) throws IOException {
+        try (InputStream body = request.getInputStream()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(videoUploadService.startUpload(body, request.getContentType(),
+                            request.getContentLengthLong(), filename));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<VideoUploadStatusDto> getStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(videoUploadService.getStatus(id));
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<VideoUploadStatusDto> resumeUpload(@PathVariable Long id) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(videoUploadService.resumeUpload(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abortUpload(@PathVariable Long id) {
+        videoUploadService.abortUpload(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -2,7 +2,7 @@ package com.sheshape.controller.order;
 
 import com.sheshape.dto.order.AddToCartRequestDto;
 import com.sheshape.dto.order.CartDto;
-import com.sheshape.service.UserService;
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.service.order.CartService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -18,14 +18,13 @@ import java.util.Map;
 public class CartController {
 
     private final CartService cartService;
-    private final UserService userService;
 
     /**
      * Get current user's cart
      */
     @GetMapping
-    public ResponseEntity<CartDto> getUserCart() {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<CartDto> getUserCart(AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         CartDto cart = cartService.getUserCart(userId);
         return ResponseEntity.ok(cart);
     }
@@ -34,8 +33,10 @@ public class CartController {
      * Add item to cart (requires authentication)
      */
     @PostMapping("/add")
-    public ResponseEntity<CartDto> addToCart(@Valid @RequestBody AddToCartRequestDto request) {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<CartDto> addToCart(
+            @Valid @RequestBody AddToCartRequestDto request,
+            AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         CartDto cart = cartService.addToCart(userId, request);
         return ResponseEntity.ok(cart);
     }
@@ -46,8 +47,9 @@ public class CartController {
     @PutMapping("/items/{productId}")
     public ResponseEntity<CartDto> updateCartItemQuantity(
             @PathVariable Long productId,
-            @RequestParam Integer quantity) {
-        Long userId = userService.getCurrentUser().getId();
+            @RequestParam Integer quantity,
+            AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         CartDto cart = cartService.updateCartItemQuantity(userId, productId, quantity);
         return ResponseEntity.ok(cart);
     }
@@ -56,8 +58,8 @@ public class CartController {
      * Remove item from cart
      */
     @DeleteMapping("/items/{productId}")
-    public ResponseEntity<CartDto> removeFromCart(@PathVariable Long productId) {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<CartDto> removeFromCart(@PathVariable Long productId, AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         CartDto cart = cartService.removeFromCart(userId, productId);
         return ResponseEntity.ok(cart);
     }
@@ -66,8 +68,8 @@ public class CartController {
      * Clear entire cart
      */
     @DeleteMapping("/clear")
-    public ResponseEntity<Map<String, String>> clearCart() {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<Map<String, String>> clearCart(AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         cartService.clearCart(userId);
         return ResponseEntity.ok(Map.of("message", "Cart cleared successfully"));
     }
@@ -76,8 +78,8 @@ public class CartController {
      * Get cart items count
      */
     @GetMapping("/count")
-    public ResponseEntity<Map<String, Integer>> getCartItemsCount() {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<Map<String, Integer>> getCartItemsCount(AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         Integer count = cartService.getCartItemsCount(userId);
         return ResponseEntity.ok(Map.of("count", count));
     }
@@ -86,8 +88,8 @@ public class CartController {
      * Validate cart
      */
     @GetMapping("/validate")
-    public ResponseEntity<Map<String, Boolean>> validateCart() {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<Map<String, Boolean>> validateCart(AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         boolean isValid = cartService.validateCart(userId);
         return ResponseEntity.ok(Map.of("valid", isValid));
     }
@@ -3,7 +3,7 @@ package com.sheshape.controller.order;
 import com.sheshape.dto.order.CheckoutRequestDto;
 import com.sheshape.dto.order.OrderDto;
 import com.sheshape.model.order.Order;
-import com.sheshape.service.UserService;
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.service.order.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -25,14 +25,15 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
-    private final UserService userService;
 
     /**
      * Checkout - Create order from cart
      */
     @PostMapping("/checkout")
-    public ResponseEntity<OrderDto> checkout(@Valid @RequestBody CheckoutRequestDto checkoutRequest) {
-        Long userId = userService.getCurrentUser().getId();
+    public ResponseEntity<OrderDto> checkout(
+            @Valid @RequestBody CheckoutRequestDto checkoutRequest,
+            AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         OrderDto order = orderService.checkout(userId, checkoutRequest);
         return ResponseEntity.status(HttpStatus.CREATED).body(order);
     }
@@ -45,9 +46,10 @@ public class OrderController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            AuthenticatedUser currentUser) {
 
-        Long userId = userService.getCurrentUser().getId();
+        Long userId = currentUser.id();
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ?
                 Sort.Direction.ASC : Sort.Direction.DESC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
@@ -61,8 +63,9 @@ public class OrderController {
      */
     @GetMapping("/my-orders/recent")
     public ResponseEntity<List<OrderDto>> getMyRecentOrders(
-            @RequestParam(defaultValue = "5") int limit) {
-        Long userId = userService.getCurrentUser().getId();
+            @RequestParam(defaultValue = "5") int limit,
+            AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
         List<OrderDto> orders = orderService.getUserRecentOrders(userId, limit);
         return ResponseEntity.ok(orders);
     }
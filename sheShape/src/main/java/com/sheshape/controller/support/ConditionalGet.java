@@ -0,0 +1,48 @@
+package com.sheshape.controller.support;
+
+import com.sheshape.service.catalog.CatalogVersions;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.function.Supplier;
+
+/**
+ * Answers If-None-Match / If-Modified-Since with 304 based on the aggregate version,
+ * before the body is loaded or serialized.
+ */
+public final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    public static <T> ResponseEntity<T> respond(WebRequest request, CatalogVersions versions,
+                                                CatalogVersions.Aggregate aggregate, Supplier<T> body) {
+        String etag = versions.etag(aggregate);
+        long lastModified = versions.lastModified(aggregate);
+
+        if (request.checkNotModified(etag, lastModified)) {
+            // Keep the response revalidatable; Spring Security would otherwise add no-store to the 304
+            setNoCache(request);
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(body.get());
+    }
+
+    private static void setNoCache(WebRequest request) {
+        if (request instanceof NativeWebRequest nativeRequest) {
+            HttpServletResponse response = nativeRequest.getNativeResponse(HttpServletResponse.class);
+            if (response != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+            }
+        }
+    }
+}
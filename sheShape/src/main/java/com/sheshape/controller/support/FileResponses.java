@@ -0,0 +1,62 @@
+package com.sheshape.controller.support;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes file contents to the response. With Tomcat's sendfile the kernel sends the file and
+ * nothing passes through the heap; otherwise FileChannel.transferTo copies it into the servlet
+ * output stream through a small reused buffer, so a file is never held in memory whole.
+ */
+public final class FileResponses {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileResponses() {
+    }
+
+    /**
+     * Send bytes start to end (inclusive) of the file. With sendfile the file is only opened after
+     * the handler returns, so it must still exist by then.
+     */
+    public static void send(HttpServletRequest request, HttpServletResponse response, Path file,
+                            long start, long end) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file with sendfile once this handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        copy(response, file, start, end);
+    }
+
+    /**
+     * Write bytes start to end (inclusive) of the file before returning, for responses made of
+     * several files. The servlet stream is not a file channel, so this goes through a heap buffer.
+     */
+    public static void copy(HttpServletResponse response, Path file, long start, long end) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long transferred = channel.transferTo(position, end + 1 - position, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+}
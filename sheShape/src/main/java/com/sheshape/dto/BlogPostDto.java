@@ -7,6 +7,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -22,6 +24,10 @@ public class BlogPostDto {
     private String content;
     
     private String imageUrl;
+
+    private List<ImageVariantDto> imageVariants = new ArrayList<>();
+
+    private String imageSrcset;
     
     @NotBlank(message = "Category is required")
     private String category;
@@ -44,6 +50,8 @@ public class BlogPostDto {
         this.title = blogPost.getTitle();
         this.content = blogPost.getContent();
         this.imageUrl = blogPost.getImageUrl();
+        this.imageVariants = ImageVariantDto.from(blogPost.getImageVariants());
+        this.imageSrcset = ImageVariantDto.srcset(blogPost.getImageVariants());
         this.category = blogPost.getCategory();
         this.isPublished = blogPost.getIsPublished();
         this.publishedAt = blogPost.getPublishedAt();
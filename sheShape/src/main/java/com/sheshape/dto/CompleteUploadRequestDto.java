@@ -0,0 +1,20 @@
+package com.sheshape.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompleteUploadRequestDto {
+
+    @NotBlank(message = "File key is required")
+    private String fileKey;
+
+    // Only used when completing a product image
+    @JsonProperty("isMain")
+    private boolean main;
+}
@@ -72,4 +72,14 @@ public class GymProgramDto {
                     .collect(Collectors.toList());
         }
     }
-}
\ No newline at end of file
+
+    // Deep copy, so a cached instance can be handed to callers that may modify it
+    public GymProgramDto(GymProgramDto other) {
+        this(other.id, other.title, other.description, other.difficultyLevel, other.durationDays, other.price,
+                other.isActive, other.trainerId, other.trainer != null ? new UserDto(other.trainer) : null,
+                other.sessions != null
+                        ? other.sessions.stream().map(GymSessionDto::new).collect(Collectors.toList())
+                        : new ArrayList<>(),
+                other.createdAt, other.updatedAt);
+    }
+}
@@ -0,0 +1,22 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One keyset page of program summaries. Pass nextCursor back as {@code after} to get the next
+ * page; it is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GymProgramPageDto {
+
+    private List<GymProgramSummaryDto> programs = new ArrayList<>();
+
+    private Long nextCursor;
+}
@@ -0,0 +1,40 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight gym program representation for catalog listings: session count and total length
+ * instead of the sessions themselves. Use GymProgramDto for the program detail page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GymProgramSummaryDto {
+
+    private Long id;
+
+    private String title;
+
+    private String description;
+
+    private String difficultyLevel;
+
+    private Integer durationDays;
+
+    private BigDecimal price;
+
+    private Long trainerId;
+
+    private String trainerUsername;
+
+    private Long sessionCount;
+
+    private Long totalMinutes;
+
+    private LocalDateTime createdAt;
+}
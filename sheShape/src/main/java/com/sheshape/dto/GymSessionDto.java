@@ -1,5 +1,6 @@
 package com.sheshape.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.sheshape.model.GymSession;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -22,6 +23,9 @@ public class GymSessionDto {
     
     private String description;
     
+    // Accepted from admins but never returned: the stored video is only reachable through videoPath,
+    // which checks enrollment. Editors read it from the program's sessions/video-urls endpoint
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String videoUrl;
     
     @Min(value = 1, message = "Duration must be at least 1 minute")
@@ -37,6 +41,17 @@ public class GymSessionDto {
     
     private LocalDateTime updatedAt;
     
+    /**
+     * @return The endpoint that streams this session's video to enrolled users, or null if it has none
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public String getVideoPath() {
+        if (videoUrl == null || programId == null || id == null) {
+            return null;
+        }
+        return "/api/gym/programs/" + programId + "/sessions/" + id + "/video";
+    }
+
     // Constructor from GymSession entity
     public GymSessionDto(GymSession session) {
         this.id = session.getId();
@@ -49,4 +64,10 @@ public class GymSessionDto {
         this.createdAt = session.getCreatedAt();
         this.updatedAt = session.getUpdatedAt();
     }
-}
\ No newline at end of file
+
+    // Copy constructor
+    public GymSessionDto(GymSessionDto other) {
+        this(other.id, other.title, other.description, other.videoUrl, other.durationMinutes,
+                other.sessionOrder, other.programId, other.createdAt, other.updatedAt);
+    }
+}
@@ -0,0 +1,46 @@
+package com.sheshape.dto;
+
+import com.sheshape.model.ImageVariant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageVariantDto {
+
+    private String format;
+
+    private Integer width;
+
+    private String url;
+
+    public ImageVariantDto(ImageVariant variant) {
+        this.format = variant.getFormat();
+        this.width = variant.getWidth();
+        this.url = variant.getUrl();
+    }
+
+    public static List<ImageVariantDto> from(List<ImageVariant> variants) {
+        return variants.stream()
+                .map(ImageVariantDto::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Build an img srcset value ("url 320w, url 640w") from the variants
+     * @return The srcset, or null when there are no variants yet
+     */
+    public static String srcset(List<ImageVariant> variants) {
+        if (variants == null || variants.isEmpty()) {
+            return null;
+        }
+        return variants.stream()
+                .map(variant -> variant.getUrl() + " " + variant.getWidth() + "w")
+                .collect(Collectors.joining(", "));
+    }
+}
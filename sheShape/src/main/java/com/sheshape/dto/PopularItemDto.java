@@ -0,0 +1,25 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A gym program or nutrition plan in a popularity ranking, for "most popular" lists and badges
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PopularItemDto {
+
+    // 1 for the most enrolled-in item
+    private Integer rank;
+
+    private Long id;
+
+    private String title;
+
+    private Long enrollments;
+
+    private Long activeEnrollments;
+}
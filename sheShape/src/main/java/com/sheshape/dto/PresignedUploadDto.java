@@ -0,0 +1,26 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PresignedUploadDto {
+
+    private String fileKey;
+
+    private String uploadUrl;
+
+    private String method = "PUT";
+
+    // Headers the client must send with the upload; they are part of the signature
+    private Map<String, String> headers = new HashMap<>();
+
+    private LocalDateTime expiresAt;
+}
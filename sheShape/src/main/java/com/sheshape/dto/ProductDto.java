@@ -78,9 +78,23 @@ public class ProductDto {
                         imageDto.setMain(image.isMain());
                         imageDto.setPosition(image.getPosition());
                         imageDto.setCreatedAt(image.getCreatedAt());
+                        imageDto.applyVariants(image.getVariants());
                         return imageDto;
                     })
                     .collect(Collectors.toList());
         }
     }
+
+    /**
+     * Index of the image that should become main: the first one flagged main, or the first image
+     * if none is. A product can only have one main image.
+     */
+    public int mainImageIndex() {
+        for (int i = 0; i < images.size(); i++) {
+            if (images.get(i).isMain()) {
+                return i;
+            }
+        }
+        return 0;
+    }
 }
\ No newline at end of file
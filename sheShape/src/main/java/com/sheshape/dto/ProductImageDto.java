@@ -2,11 +2,14 @@
 package com.sheshape.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.sheshape.model.ImageVariant;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -27,4 +30,14 @@ public class ProductImageDto {
     private Integer position;
     
     private LocalDateTime createdAt;
+
+    private List<ImageVariantDto> variants = new ArrayList<>();
+
+    // Ready to drop into <img srcset>; null until variants have been generated
+    private String srcset;
+
+    public void applyVariants(List<ImageVariant> imageVariants) {
+        this.variants = ImageVariantDto.from(imageVariants);
+        this.srcset = ImageVariantDto.srcset(imageVariants);
+    }
 }
\ No newline at end of file
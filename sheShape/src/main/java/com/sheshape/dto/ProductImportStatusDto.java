@@ -0,0 +1,43 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportStatusDto {
+
+    private String jobId;
+
+    private String status;
+
+    private String format;
+
+    private String filename;
+
+    private long rowsRead;
+
+    private long rowsImported;
+
+    private long rowsFailed;
+
+    // Capped; rowsFailed holds the full count
+    private List<RowError> errors = new ArrayList<>();
+
+    private String failureMessage;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    public record RowError(long line, String message) {
+    }
+}
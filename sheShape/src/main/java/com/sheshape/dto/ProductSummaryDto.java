@@ -0,0 +1,75 @@
+package com.sheshape.dto;
+
+import com.sheshape.model.Product;
+import com.sheshape.model.ProductImage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Lightweight product representation for catalog listings: carries only the main image.
+ * Use ProductDto for the product detail page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSummaryDto {
+
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    private BigDecimal price;
+
+    private BigDecimal discountPrice;
+
+    private Integer inventoryCount;
+
+    private Set<String> categories = new HashSet<>();
+
+    private ProductImageDto mainImage;
+
+    private Boolean isActive;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    // Categories and main image are passed in pre-fetched so the product's lazy collections are never touched;
+    // main image variants are batch-loaded (@BatchSize) across the page
+    public ProductSummaryDto(Product product, Set<String> categories, ProductImage mainImage) {
+        this.id = product.getId();
+        this.name = product.getName();
+        this.description = product.getDescription();
+        this.price = product.getPrice();
+        this.discountPrice = product.getDiscountPrice();
+        this.inventoryCount = product.getInventoryCount();
+        this.isActive = product.getIsActive();
+        this.createdAt = product.getCreatedAt();
+        this.updatedAt = product.getUpdatedAt();
+
+        if (categories != null) {
+            this.categories = new HashSet<>(categories);
+        }
+
+        if (mainImage != null) {
+            ProductImageDto imageDto = new ProductImageDto();
+            imageDto.setId(mainImage.getId());
+            imageDto.setProductId(product.getId());
+            imageDto.setImageUrl(mainImage.getImageUrl());
+            imageDto.setFileKey(mainImage.getFileKey());
+            imageDto.setMain(true);
+            imageDto.setPosition(mainImage.getPosition());
+            imageDto.setCreatedAt(mainImage.getCreatedAt());
+            imageDto.applyVariants(mainImage.getVariants());
+            this.mainImage = imageDto;
+        }
+    }
+}
@@ -41,4 +41,10 @@ public class ProfileDto {
         this.createdAt = profile.getCreatedAt();
         this.updatedAt = profile.getUpdatedAt();
     }
-}
\ No newline at end of file
+
+    // Copy constructor
+    public ProfileDto(ProfileDto other) {
+        this(other.id, other.userId, other.firstName, other.lastName, other.bio, other.profileImage,
+                other.phoneNumber, other.createdAt, other.updatedAt);
+    }
+}
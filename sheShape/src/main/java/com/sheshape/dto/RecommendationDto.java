@@ -0,0 +1,35 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A recommended gym program or nutrition plan. Score is only meaningful for ordering within one
+ * response.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecommendationDto {
+
+    // GYM_PROGRAM or NUTRITION_PLAN
+    private String type;
+
+    private Long id;
+
+    private String title;
+
+    private String description;
+
+    // Gym programs only
+    private String difficultyLevel;
+
+    private Integer durationDays;
+
+    private BigDecimal price;
+
+    private Double score;
+}
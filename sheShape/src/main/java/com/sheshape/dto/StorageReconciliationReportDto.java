@@ -0,0 +1,43 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StorageReconciliationReportDto {
+
+    private String id;
+
+    // RUNNING, COMPLETED, FAILED or SKIPPED (another node was running one)
+    private String status;
+
+    // In a dry run orphans are only reported, never deleted
+    private boolean dryRun;
+
+    private long filesListed;
+
+    // Files old enough to be considered; newer ones may belong to uploads still in progress
+    private long candidates;
+
+    private long orphans;
+
+    private long orphanBytes;
+
+    private long deleted;
+
+    // The first orphans found, for checking a dry run
+    private List<String> sampleOrphanKeys = new ArrayList<>();
+
+    private String failureMessage;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
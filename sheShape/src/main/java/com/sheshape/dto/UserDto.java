@@ -53,4 +53,10 @@ public class UserDto {
             this.profile = new ProfileDto(user.getProfile());
         }
     }
-}
\ No newline at end of file
+
+    // Copy constructor
+    public UserDto(UserDto other) {
+        this(other.id, other.username, other.email, other.password, other.role, other.isActive,
+                other.createdAt, other.updatedAt, other.profile != null ? new ProfileDto(other.profile) : null);
+    }
+}
@@ -0,0 +1,61 @@
+package com.sheshape.dto;
+
+import com.sheshape.model.VideoUpload;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VideoUploadStatusDto {
+
+    private Long id;
+
+    private String status;
+
+    private String filename;
+
+    private String fileKey;
+
+    // Set once the upload has completed; use it as the session's videoUrl
+    private String url;
+
+    private long sizeBytes;
+
+    private long uploadedBytes;
+
+    private int partCount;
+
+    private int partsUploaded;
+
+    // 0-100
+    private double progress;
+
+    private String failureMessage;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+
+    public static VideoUploadStatusDto from(VideoUpload upload) {
+        VideoUploadStatusDto dto = new VideoUploadStatusDto();
+        dto.setId(upload.getId());
+        dto.setStatus(upload.getStatus().name());
+        dto.setFilename(upload.getFilename());
+        dto.setFileKey(upload.getFileKey());
+        dto.setUrl(upload.getUrl());
+        dto.setSizeBytes(upload.getSizeBytes());
+        dto.setUploadedBytes(upload.getUploadedBytes());
+        dto.setPartCount(upload.getPartCount());
+        dto.setPartsUploaded(upload.getParts().size());
+        dto.setProgress(upload.getSizeBytes() == 0 ? 100
+                : Math.min(100, 100.0 * dto.getUploadedBytes() / upload.getSizeBytes()));
+        dto.setFailureMessage(upload.getFailureMessage());
+        dto.setCreatedAt(upload.getCreatedAt());
+        dto.setCompletedAt(upload.getCompletedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,36 @@
+package com.sheshape.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Playback position in a gym session. Sent by the player as a heartbeat (positionSeconds and
+ * percentComplete only) and returned when resuming a program.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WatchProgressDto {
+
+    private Long programId;
+
+    private Long sessionId;
+
+    @NotNull(message = "Position is required")
+    @Min(value = 0, message = "Position cannot be negative")
+    private Integer positionSeconds;
+
+    @NotNull(message = "Percent complete is required")
+    @DecimalMin(value = "0.0", message = "Percent complete cannot be negative")
+    @DecimalMax(value = "100.0", message = "Percent complete cannot exceed 100")
+    private Double percentComplete;
+
+    private LocalDateTime updatedAt;
+}
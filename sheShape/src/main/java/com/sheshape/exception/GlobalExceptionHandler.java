@@ -1,5 +1,9 @@
 package com.sheshape.exception;
 
+import com.sheshape.model.ProductImage;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -13,6 +17,7 @@ import org.springframework.web.context.request.WebRequest;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 @ControllerAdvice
@@ -58,6 +63,32 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
     }
     
+    // Handle unavailable dependencies (open circuit, full bulkhead)
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<?> serviceUnavailableException(ServiceUnavailableException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorDetails);
+    }
+    
+    // Handle rate-limited clients
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<?> tooManyRequestsException(TooManyRequestsException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorDetails);
+    }
+    
     // Handle validation exceptions
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> validationException(MethodArgumentNotValidException ex, WebRequest request) {
@@ -105,6 +136,22 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorDetails, HttpStatus.FORBIDDEN);
     }
     
+    // Handle constraint violations; two concurrent requests making different images main is a conflict,
+    // anything else is still a server error
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<?> dataIntegrityViolationException(DataIntegrityViolationException ex, WebRequest request) {
+        if (!violates(ex, ProductImage.MAIN_IMAGE_CONSTRAINT)) {
+            return globalExceptionHandler(ex, request);
+        }
+
+        ErrorDetails errorDetails = new ErrorDetails(
+                new Date(),
+                "The product's main image was changed by another request. Please reload and try again.",
+                request.getDescription(false));
+
+        return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
+    }
+    
     // Handle global exceptions
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> globalExceptionHandler(Exception ex, WebRequest request) {
@@ -115,4 +162,17 @@ public class GlobalExceptionHandler {
         
         return new ResponseEntity<>(errorDetails, HttpStatus.INTERNAL_SERVER_ERROR);
     }
-}
\ No newline at end of file
+
+    private static boolean violates(DataIntegrityViolationException ex, String constraintName) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                    && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(constraintName)) {
+                return true;
+            }
+        }
+        // Not every driver error is mapped to a named constraint; MySQL names the key in its message
+        String message = ex.getMostSpecificCause().getMessage();
+        return message != null && message.contains(constraintName);
+    }
+}
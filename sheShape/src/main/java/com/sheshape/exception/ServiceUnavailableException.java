@@ -0,0 +1,18 @@
+package com.sheshape.exception;
+
+/**
+ * A downstream dependency (storage, mail) is failing or saturated; the client should retry later
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -14,7 +14,8 @@ import lombok.*;
 public class Authority {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "authorities_seq")
+    @SequenceGenerator(name = "authorities_seq", sequenceName = "authorities_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
@@ -4,10 +4,13 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "blog_posts")
@@ -17,7 +20,8 @@ import java.time.LocalDateTime;
 public class BlogPost {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "blog_posts_seq")
+    @SequenceGenerator(name = "blog_posts_seq", sequenceName = "blog_posts_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -28,6 +32,14 @@ public class BlogPost {
     
     @Column(name = "image_url")
     private String imageUrl;
+
+    // Resized copies of the cover image for srcset
+    @ElementCollection
+    @CollectionTable(name = "blog_post_image_variants",
+            joinColumns = @JoinColumn(name = "blog_post_id"))
+    @OrderBy("width ASC")
+    @BatchSize(size = 50)
+    private List<ImageVariant> imageVariants = new ArrayList<>();
     
     @Column(nullable = false)
     private String category;
@@ -0,0 +1,9 @@
+package com.sheshape.model;
+
+/**
+ * The kinds of purchasable programs users enroll in
+ */
+public enum CatalogItemType {
+    GYM_PROGRAM,
+    NUTRITION_PLAN
+}
@@ -0,0 +1,31 @@
+package com.sheshape.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Shared version of one catalog aggregate (products, gym programs, blog). Every committed write to
+ * the aggregate increments it, so all nodes derive the same HTTP validators. Maintained by
+ * CatalogVersions.
+ */
+@Entity
+@Table(name = "catalog_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogVersion {
+
+    @Id
+    @Column(name = "aggregate", length = 20)
+    private String aggregate;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
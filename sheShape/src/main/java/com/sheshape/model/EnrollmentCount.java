@@ -0,0 +1,50 @@
+package com.sheshape.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Enrollment totals for one gym program or nutrition plan, so popularity never has to be counted
+ * from the enrollment tables. Maintained by EnrollmentCounters, which adds deltas rather than
+ * overwriting, so several nodes can flush into the same row.
+ */
+@Entity
+@Table(name = "enrollment_counts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentCount {
+
+    @EmbeddedId
+    private Key key;
+
+    // Every purchase ever made
+    @Column(name = "enrollments", nullable = false)
+    private Long enrollments;
+
+    // Enrollments currently ACTIVE
+    @Column(name = "active_enrollments", nullable = false)
+    private Long activeEnrollments;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "item_type", length = 20)
+        private CatalogItemType itemType;
+
+        @Column(name = "item_id")
+        private Long itemId;
+    }
+}
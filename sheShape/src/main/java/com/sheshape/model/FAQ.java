@@ -14,7 +14,8 @@ import lombok.NoArgsConstructor;
 public class FAQ {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "faqs_seq")
+    @SequenceGenerator(name = "faqs_seq", sequenceName = "faqs_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
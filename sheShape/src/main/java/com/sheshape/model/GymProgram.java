@@ -15,14 +15,21 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 @Entity
-@Table(name = "gym_programs")
+@Table(name = "gym_programs", indexes = {
+        // Keyset listing (ORDER BY id) with and without the common filters. Price and duration ranges
+        // are checked while walking is_active, id: a range column ahead of id would force a sort
+        @Index(name = "idx_gym_programs_active_difficulty", columnList = "is_active, difficulty_level, id"),
+        @Index(name = "idx_gym_programs_trainer_active", columnList = "trainer_id, is_active, id"),
+        @Index(name = "idx_gym_programs_active_id", columnList = "is_active, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class GymProgram {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gym_programs_seq")
+    @SequenceGenerator(name = "gym_programs_seq", sequenceName = "gym_programs_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
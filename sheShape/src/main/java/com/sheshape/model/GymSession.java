@@ -10,14 +10,16 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 @Entity
-@Table(name = "gym_sessions")
+@Table(name = "gym_sessions",
+        indexes = @Index(name = "idx_gym_sessions_program_order", columnList = "program_id, session_order"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class GymSession {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gym_sessions_seq")
+    @SequenceGenerator(name = "gym_sessions_seq", sequenceName = "gym_sessions_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -0,0 +1,66 @@
+package com.sheshape.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An image stored through the upload endpoints, with the variants generated for it.
+ * Uploads happen before the product image or blog post that uses them exists, so this is
+ * where variants wait until they can be copied onto their owner.
+ */
+@Entity
+@Table(name = "image_uploads", indexes = @Index(name = "idx_image_uploads_url", columnList = "url"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageUpload {
+
+    public enum Status {
+        // Presigned URL issued; the client has not confirmed the direct upload yet
+        AWAITING_UPLOAD,
+        PENDING,
+        READY,
+        FAILED
+    }
+
+    @Id
+    @Column(name = "file_key")
+    private String fileKey;
+
+    @Column(nullable = false)
+    private String url;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    // Username of the uploader; only they may complete a presigned upload
+    @Column(name = "uploaded_by")
+    private String uploadedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @ElementCollection
+    @CollectionTable(name = "image_upload_variants",
+            joinColumns = @JoinColumn(name = "upload_file_key"))
+    @OrderBy("width ASC")
+    private List<ImageVariant> variants = new ArrayList<>();
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
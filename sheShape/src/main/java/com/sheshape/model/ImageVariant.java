@@ -0,0 +1,29 @@
+package com.sheshape.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A resized copy of an uploaded image
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageVariant {
+
+    @Column(nullable = false, length = 10)
+    private String format;
+
+    @Column(nullable = false)
+    private Integer width;
+
+    @Column(name = "file_key", nullable = false)
+    private String fileKey;
+
+    @Column(nullable = false)
+    private String url;
+}
@@ -20,7 +20,8 @@ import org.springframework.data.annotation.LastModifiedDate;
 public class NutritionPlan {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nutrition_plans_seq")
+    @SequenceGenerator(name = "nutrition_plans_seq", sequenceName = "nutrition_plans_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
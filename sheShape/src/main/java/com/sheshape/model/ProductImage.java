@@ -5,18 +5,27 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "product_images")
+@Table(name = "product_images",
+        uniqueConstraints = @UniqueConstraint(name = ProductImage.MAIN_IMAGE_CONSTRAINT,
+                columnNames = "main_product_id"))
 public class ProductImage {
+
+    public static final String MAIN_IMAGE_CONSTRAINT = "uk_product_images_main";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_images_seq")
+    @SequenceGenerator(name = "product_images_seq", sequenceName = "product_images_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -31,9 +40,24 @@ public class ProductImage {
     
     @Column(name = "is_main", nullable = false)
     private boolean isMain = false;
+
+    // Database-maintained: product_id for the main image, NULL otherwise. The unique constraint on it
+    // allows at most one main image per product (see db/product-images-main-guard-mysql.sql)
+    @Column(name = "main_product_id", insertable = false, updatable = false,
+            columnDefinition = "BIGINT GENERATED ALWAYS AS (CASE WHEN is_main THEN product_id END) STORED")
+    private Long mainProductId;
     
     @Column(nullable = false)
     private Integer position = 0;
+
+    // Resized copies for srcset; filled in once the upload's variant job finishes
+    @ElementCollection
+    @CollectionTable(name = "product_image_variants",
+            joinColumns = @JoinColumn(name = "product_image_id"))
+    @OrderBy("width ASC")
+    @BatchSize(size = 50)
+    @Builder.Default
+    private List<ImageVariant> variants = new ArrayList<>();
     
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,51 @@
+package com.sheshape.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * How far a user has watched a gym session: the latest playback position and percent complete.
+ * Written in batches by WatchProgressBuffer rather than through JPA.
+ */
+@Entity
+@Table(name = "session_progress",
+        indexes = @Index(name = "idx_session_progress_user_program", columnList = "user_id, program_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionProgress {
+
+    @EmbeddedId
+    private Key key;
+
+    @Column(name = "program_id", nullable = false)
+    private Long programId;
+
+    @Column(name = "position_seconds", nullable = false)
+    private Integer positionSeconds;
+
+    @Column(name = "percent_complete", nullable = false)
+    private Double percentComplete;
+
+    // When the player reported this position; older reports never overwrite newer ones
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id")
+        private Long userId;
+
+        @Column(name = "session_id")
+        private Long sessionId;
+    }
+}
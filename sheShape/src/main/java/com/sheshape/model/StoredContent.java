@@ -0,0 +1,50 @@
+package com.sheshape.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Index of uploaded file contents by SHA-256, so re-uploading the same bytes resolves to the
+ * already stored file. The reference count tracks how many uploads resolved to the file;
+ * it is only deleted from storage once the last of them is released. Content with references,
+ * or acquired within the reconciler's grace period, is never treated as orphaned.
+ */
+@Entity
+@Table(name = "stored_contents",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stored_contents_file_key", columnNames = "file_key"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredContent {
+
+    // Hex-encoded SHA-256 of the file contents
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "file_key", nullable = false)
+    private String fileKey;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "reference_count", nullable = false)
+    private Integer referenceCount;
+
+    // Last time an upload resolved to this content, which may be long after the file was stored
+    @Column(name = "last_acquired_at")
+    private LocalDateTime lastAcquiredAt;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        lastAcquiredAt = createdAt;
+    }
+}
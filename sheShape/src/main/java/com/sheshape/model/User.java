@@ -7,6 +7,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -18,7 +19,8 @@ import org.springframework.data.annotation.LastModifiedDate;
 public class User {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
@@ -39,6 +41,11 @@ public class User {
 
     @Column(name = "profile_completed")
     private Boolean profileCompleted = false;
+
+    // Carried in every JWT; bumping it invalidates all tokens issued so far
+    @ColumnDefault("0")
+    @Column(name = "token_version", nullable = false)
+    private Integer tokenVersion = 0;
     
     @CreatedDate
     @Column(name = "created_at", updatable = false)
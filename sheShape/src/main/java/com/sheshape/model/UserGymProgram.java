@@ -10,14 +10,16 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 @Entity
-@Table(name = "user_gym_programs")
+@Table(name = "user_gym_programs",
+        indexes = @Index(name = "idx_user_gym_programs_status_expiry", columnList = "status, expiry_date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserGymProgram {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_gym_programs_seq")
+    @SequenceGenerator(name = "user_gym_programs_seq", sequenceName = "user_gym_programs_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
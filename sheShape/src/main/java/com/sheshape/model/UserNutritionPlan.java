@@ -10,14 +10,16 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 @Entity
-@Table(name = "user_nutrition_plans")
+@Table(name = "user_nutrition_plans",
+        indexes = @Index(name = "idx_user_nutrition_plans_status_expiry", columnList = "status, expiry_date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserNutritionPlan {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_nutrition_plans_seq")
+    @SequenceGenerator(name = "user_nutrition_plans_seq", sequenceName = "user_nutrition_plans_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
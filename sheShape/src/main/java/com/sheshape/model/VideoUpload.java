@@ -0,0 +1,94 @@
+package com.sheshape.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A large video being uploaded to storage in parts. Finished parts are recorded as they land,
+ * so a failed or interrupted upload resumes with only the missing parts.
+ */
+@Entity
+@Table(name = "video_uploads")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VideoUpload {
+
+    public enum Status {
+        UPLOADING,
+        // Some parts did not make it; can be resumed while the source file is kept
+        FAILED,
+        COMPLETED,
+        ABORTED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "video_uploads_seq")
+    @SequenceGenerator(name = "video_uploads_seq", sequenceName = "video_uploads_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "file_key", nullable = false)
+    private String fileKey;
+
+    // Id of the multipart upload in the storage backend
+    @Column(name = "storage_upload_id", nullable = false, length = 1024)
+    private String storageUploadId;
+
+    private String filename;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "part_size", nullable = false)
+    private Long partSize;
+
+    @Column(name = "part_count", nullable = false)
+    private Integer partCount;
+
+    // Local copy of the video the parts are read from; removed once the upload completes or is aborted
+    @Column(name = "source_path", length = 1024)
+    private String sourcePath;
+
+    @Column(name = "uploaded_by")
+    private String uploadedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.UPLOADING;
+
+    @Column(name = "failure_message", length = 1000)
+    private String failureMessage;
+
+    private String url;
+
+    @ElementCollection
+    @CollectionTable(name = "video_upload_parts",
+            joinColumns = @JoinColumn(name = "video_upload_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_video_upload_parts_number",
+                    columnNames = {"video_upload_id", "part_number"}))
+    private Set<VideoUploadPart> parts = new HashSet<>();
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public long getUploadedBytes() {
+        return parts.stream().mapToLong(VideoUploadPart::getSizeBytes).sum();
+    }
+}
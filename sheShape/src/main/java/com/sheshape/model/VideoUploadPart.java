@@ -0,0 +1,26 @@
+package com.sheshape.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A part of a multipart video upload that has reached storage
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VideoUploadPart {
+
+    @Column(name = "part_number", nullable = false)
+    private Integer partNumber;
+
+    @Column(nullable = false)
+    private String etag;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+}
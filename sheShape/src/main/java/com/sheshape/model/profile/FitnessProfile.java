@@ -17,7 +17,8 @@ import java.util.List;
 @AllArgsConstructor
 public class FitnessProfile {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fitness_profiles_seq")
+    @SequenceGenerator(name = "fitness_profiles_seq", sequenceName = "fitness_profiles_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false, unique = true)
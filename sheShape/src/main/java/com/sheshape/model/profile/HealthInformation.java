@@ -17,7 +17,8 @@ import java.util.List;
 @AllArgsConstructor
 public class HealthInformation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "health_information_seq")
+    @SequenceGenerator(name = "health_information_seq", sequenceName = "health_information_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false, unique = true)
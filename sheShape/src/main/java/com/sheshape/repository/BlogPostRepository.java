@@ -4,8 +4,11 @@ import com.sheshape.model.BlogPost;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,4 +23,15 @@ public interface BlogPostRepository extends JpaRepository<BlogPost, Long> {
     Page<BlogPost> findByCategoryAndIsPublishedTrue(String category, Pageable pageable);
     
     Page<BlogPost> findByTitleContainingIgnoreCaseAndIsPublishedTrue(String keyword, Pageable pageable);
-}
\ No newline at end of file
+
+    List<BlogPost> findByImageUrl(String imageUrl);
+
+    @Query("SELECT DISTINCT b.imageUrl FROM BlogPost b WHERE b.imageUrl IS NOT NULL")
+    List<String> findAllImageUrls();
+
+    @Query("SELECT DISTINCT b.imageUrl FROM BlogPost b WHERE b.imageUrl IN :urls")
+    List<String> findImageUrlsIn(@Param("urls") Collection<String> urls);
+
+    @Query("SELECT v.fileKey FROM BlogPost b JOIN b.imageVariants v WHERE v.fileKey IN :fileKeys")
+    List<String> findReferencedVariantKeys(@Param("fileKeys") Collection<String> fileKeys);
+}
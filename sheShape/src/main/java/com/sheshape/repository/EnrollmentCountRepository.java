@@ -0,0 +1,9 @@
+package com.sheshape.repository;
+
+import com.sheshape.model.EnrollmentCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EnrollmentCountRepository extends JpaRepository<EnrollmentCount, EnrollmentCount.Key> {
+}
@@ -2,12 +2,15 @@ package com.sheshape.repository;
 
 import com.sheshape.model.GymProgram;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface GymProgramRepository extends JpaRepository<GymProgram, Long> {
+public interface GymProgramRepository extends JpaRepository<GymProgram, Long>, GymProgramRepositoryCustom {
     
     List<GymProgram> findByTrainerId(Long trainerId);
     
@@ -16,4 +19,19 @@ public interface GymProgramRepository extends JpaRepository<GymProgram, Long> {
     List<GymProgram> findByTrainerIdAndIsActiveTrue(Long trainerId);
     
     List<GymProgram> findByDifficultyLevel(GymProgram.DifficultyLevel difficultyLevel);
+
+    /**
+     * Find all programs with their trainer, the trainer's profile and authorities in one query
+     */
+    @Query("SELECT DISTINCT p FROM GymProgram p JOIN FETCH p.trainer t " +
+            "LEFT JOIN FETCH t.profile LEFT JOIN FETCH t.authorities ORDER BY p.id")
+    List<GymProgram> findAllWithTrainer();
+
+    /**
+     * Initialize the sessions of already loaded programs in one query, ordered by session order.
+     * Must run in the same persistence context as the query that loaded the programs.
+     */
+    @Query("SELECT DISTINCT p FROM GymProgram p LEFT JOIN FETCH p.sessions s " +
+            "WHERE p IN :programs ORDER BY s.sessionOrder")
+    List<GymProgram> fetchSessions(@Param("programs") Collection<GymProgram> programs);
 }
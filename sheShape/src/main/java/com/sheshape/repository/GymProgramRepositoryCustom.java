@@ -0,0 +1,27 @@
+package com.sheshape.repository;
+
+import com.sheshape.model.GymProgram;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface GymProgramRepositoryCustom {
+
+    /**
+     * Find active programs matching the filter in id order, one keyset page at a time. Session count
+     * and total minutes are computed in the same query; sessions themselves are not loaded.
+     * @param filter Optional criteria; null fields are left out of the query
+     * @param afterId Return programs with a larger id than this (the last id of the previous page), or null for the first page
+     * @param limit Maximum number of rows
+     * @return Rows of [id, title, description, difficultyLevel, durationDays, price, trainerId, trainerUsername,
+     *         createdAt, sessionCount, totalMinutes]
+     */
+    List<Object[]> findActiveSummaries(Filter filter, Long afterId, int limit);
+
+    /**
+     * Listing criteria, all optional. Price and duration bounds are inclusive.
+     */
+    record Filter(GymProgram.DifficultyLevel difficultyLevel, BigDecimal minPrice, BigDecimal maxPrice,
+                  Integer minDurationDays, Integer maxDurationDays, Long trainerId) {
+    }
+}
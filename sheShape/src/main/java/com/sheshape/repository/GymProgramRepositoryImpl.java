@@ -0,0 +1,63 @@
+package com.sheshape.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class GymProgramRepositoryImpl implements GymProgramRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    GymProgramRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Object[]> findActiveSummaries(Filter filter, Long afterId, int limit) {
+        // Only the criteria actually given become predicates, so each combination can use its index
+        StringBuilder jpql = new StringBuilder(
+                "SELECT p.id, p.title, p.description, p.difficultyLevel, p.durationDays, p.price, t.id, t.username, " +
+                "p.createdAt, " +
+                "(SELECT COUNT(s) FROM GymSession s WHERE s.program = p), " +
+                "(SELECT COALESCE(SUM(s.durationMinutes), 0) FROM GymSession s WHERE s.program = p) " +
+                "FROM GymProgram p JOIN p.trainer t WHERE p.isActive = true");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        if (filter.difficultyLevel() != null) {
+            jpql.append(" AND p.difficultyLevel = :difficultyLevel");
+            parameters.put("difficultyLevel", filter.difficultyLevel());
+        }
+        if (filter.trainerId() != null) {
+            jpql.append(" AND t.id = :trainerId");
+            parameters.put("trainerId", filter.trainerId());
+        }
+        if (filter.minPrice() != null) {
+            jpql.append(" AND p.price >= :minPrice");
+            parameters.put("minPrice", filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            jpql.append(" AND p.price <= :maxPrice");
+            parameters.put("maxPrice", filter.maxPrice());
+        }
+        if (filter.minDurationDays() != null) {
+            jpql.append(" AND p.durationDays >= :minDurationDays");
+            parameters.put("minDurationDays", filter.minDurationDays());
+        }
+        if (filter.maxDurationDays() != null) {
+            jpql.append(" AND p.durationDays <= :maxDurationDays");
+            parameters.put("maxDurationDays", filter.maxDurationDays());
+        }
+        if (afterId != null) {
+            jpql.append(" AND p.id > :afterId");
+            parameters.put("afterId", afterId);
+        }
+        jpql.append(" ORDER BY p.id");
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
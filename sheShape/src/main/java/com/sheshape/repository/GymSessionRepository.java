@@ -2,8 +2,11 @@ package com.sheshape.repository;
 
 import com.sheshape.model.GymSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +15,10 @@ public interface GymSessionRepository extends JpaRepository<GymSession, Long> {
     List<GymSession> findByProgramId(Long programId);
 
     List<GymSession> findByProgramIdOrderBySessionOrderAsc(Long programId);
+
+    @Query("SELECT DISTINCT s.videoUrl FROM GymSession s WHERE s.videoUrl IS NOT NULL")
+    List<String> findAllVideoUrls();
+
+    @Query("SELECT DISTINCT s.videoUrl FROM GymSession s WHERE s.videoUrl IN :urls")
+    List<String> findVideoUrlsIn(@Param("urls") Collection<String> urls);
 }
@@ -0,0 +1,44 @@
+package com.sheshape.repository;
+
+import com.sheshape.model.ImageUpload;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageUploadRepository extends JpaRepository<ImageUpload, String> {
+
+    /**
+     * Find uploads with their variants in one query
+     * @param fileKeys The original file keys
+     * @param status Only uploads in this state
+     * @return Matching uploads with variants initialized
+     */
+    @Query("SELECT DISTINCT u FROM ImageUpload u LEFT JOIN FETCH u.variants " +
+            "WHERE u.fileKey IN :fileKeys AND u.status = :status")
+    List<ImageUpload> findWithVariantsByFileKeyIn(@Param("fileKeys") Collection<String> fileKeys,
+                                                  @Param("status") ImageUpload.Status status);
+
+    Optional<ImageUpload> findFirstByUrl(String url);
+
+    /**
+     * Find an upload with a locking read, so one committed after this transaction's snapshot is seen
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT u FROM ImageUpload u WHERE u.fileKey = :fileKey")
+    Optional<ImageUpload> findByFileKeyForShare(@Param("fileKey") String fileKey);
+
+    /**
+     * Map variant file keys to the file key of the upload they were generated from
+     * @return Rows of [variant file key, original file key]
+     */
+    @Query("SELECT v.fileKey, u.fileKey FROM ImageUpload u JOIN u.variants v WHERE v.fileKey IN :variantKeys")
+    List<Object[]> findVariantOwners(@Param("variantKeys") Collection<String> variantKeys);
+}
@@ -2,13 +2,20 @@
 package com.sheshape.repository;
 
 import com.sheshape.model.ProductImage;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+public interface ProductImageRepository extends JpaRepository<ProductImage, Long>, ProductImageRepositoryCustom {
     
     /**
      * Find all images for a specific product
@@ -24,6 +31,13 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
      */
     ProductImage findByProductIdAndIsMainTrue(Long productId);
     
+    /**
+     * Find every product image that uses a stored file
+     * @param fileKey The file key in storage
+     * @return Images referencing the file
+     */
+    List<ProductImage> findByFileKey(String fileKey);
+    
     /**
      * Delete all images for a specific product
      * @param productId The product ID
@@ -36,4 +50,71 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
      * @return The number of images
      */
     long countByProductId(Long productId);
-}
\ No newline at end of file
+
+    /**
+     * Find the main images for a batch of products in a single query
+     * @param productIds The product IDs
+     * @return The main image of each product that has one
+     */
+    @Query("SELECT i FROM ProductImage i WHERE i.product.id IN :productIds AND i.isMain = true")
+    List<ProductImage> findMainImagesByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Load an image and hold a row lock on it until the transaction ends, so it cannot be
+     * deleted while it is being promoted to main
+     * @param id The image ID
+     * @return The locked image
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM ProductImage i WHERE i.id = :id")
+    Optional<ProductImage> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Make one image the product's main image, clearing the old one in the same statement.
+     * Rows are updated main-first so the one-main-per-product unique index never sees two.
+     * @param productId The product ID
+     * @param imageId The image to make main
+     * @return The number of images of the product
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE product_images SET is_main = (id = :imageId) " +
+            "WHERE product_id = :productId ORDER BY is_main DESC", nativeQuery = true)
+    int setMainImage(@Param("productId") Long productId, @Param("imageId") Long imageId);
+
+    /**
+     * Clear the main flag of a product's images
+     * @param productId The product ID
+     * @return The number of images that were main
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE product_images SET is_main = FALSE " +
+            "WHERE product_id = :productId AND is_main = TRUE", nativeQuery = true)
+    int clearMainImage(@Param("productId") Long productId);
+
+    /**
+     * Make the first image by position the main image; used after the main image was removed
+     * @param productId The product ID
+     * @return 1 if the product still has an image, 0 otherwise
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE product_images SET is_main = TRUE " +
+            "WHERE product_id = :productId ORDER BY position, id LIMIT 1", nativeQuery = true)
+    int promoteFirstImageToMain(@Param("productId") Long productId);
+
+    /**
+     * Find which of the given file keys are the original file of a product image
+     * @param fileKeys Candidate file keys
+     * @return The keys still referenced
+     */
+    @Query("SELECT pi.fileKey FROM ProductImage pi WHERE pi.fileKey IN :fileKeys")
+    List<String> findReferencedFileKeys(@Param("fileKeys") Collection<String> fileKeys);
+
+    @Query("SELECT v.fileKey FROM ProductImage pi JOIN pi.variants v WHERE v.fileKey IN :fileKeys")
+    List<String> findReferencedVariantKeys(@Param("fileKeys") Collection<String> fileKeys);
+
+    @Query("SELECT DISTINCT pi.imageUrl FROM ProductImage pi WHERE pi.imageUrl IS NOT NULL")
+    List<String> findAllImageUrls();
+
+    @Query("SELECT DISTINCT pi.imageUrl FROM ProductImage pi WHERE pi.imageUrl IN :urls")
+    List<String> findImageUrlsIn(@Param("urls") Collection<String> urls);
+}
@@ -0,0 +1,14 @@
+package com.sheshape.repository;
+
+import java.util.Map;
+
+public interface ProductImageRepositoryCustom {
+
+    /**
+     * Apply new positions to several images of one product in a single UPDATE ... CASE statement
+     * @param productId The product ID; images of other products are left untouched
+     * @param positions Map of image IDs to their new positions
+     * @return The number of images updated
+     */
+    int updatePositions(Long productId, Map<Long, Integer> positions);
+}
@@ -0,0 +1,44 @@
+package com.sheshape.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class ProductImageRepositoryImpl implements ProductImageRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    ProductImageRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int updatePositions(Long productId, Map<Long, Integer> positions) {
+        if (positions.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder jpql = new StringBuilder("UPDATE ProductImage i SET i.position = CASE i.id");
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(positions.entrySet());
+        for (int n = 0; n < entries.size(); n++) {
+            jpql.append(" WHEN :id").append(n).append(" THEN :position").append(n);
+        }
+        jpql.append(" ELSE i.position END WHERE i.product.id = :productId AND i.id IN :ids");
+
+        entityManager.flush();
+        Query query = entityManager.createQuery(jpql.toString());
+        for (int n = 0; n < entries.size(); n++) {
+            query.setParameter("id" + n, entries.get(n).getKey());
+            query.setParameter("position" + n, entries.get(n).getValue());
+        }
+        query.setParameter("productId", productId);
+        query.setParameter("ids", positions.keySet());
+
+        int updated = query.executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,4 +24,12 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Updated method to include category check in query
     @Query("SELECT p FROM Product p JOIN p.categories c WHERE p.isActive = true AND p.inventoryCount > :minInventory GROUP BY p")
     List<Product> findByIsActiveTrueAndInventoryCountGreaterThan(int minInventory);
+
+    // One row per (active product, category); category is null for uncategorised products
+    @Query("SELECT p.id, p.inventoryCount, p.price, c FROM Product p LEFT JOIN p.categories c WHERE p.isActive = true")
+    List<Object[]> findActiveCategoryRows();
+
+    // Categories for a whole listing page in one round trip: rows of (productId, category)
+    @Query("SELECT p.id, c FROM Product p JOIN p.categories c WHERE p.id IN :productIds")
+    List<Object[]> findCategoriesByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
\ No newline at end of file
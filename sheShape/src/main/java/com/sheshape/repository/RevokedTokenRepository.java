@@ -0,0 +1,26 @@
+package com.sheshape.repository;
+
+import com.sheshape.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Revocations of tokens that have not expired yet, revoked at or after the given time
+     * @return Rows of [token id, expires at]
+     */
+    @Query("SELECT t.tokenId, t.expiresAt FROM RevokedToken t WHERE t.expiresAt > :now AND t.revokedAt >= :since")
+    List<Object[]> findLiveRevokedSince(@Param("now") LocalDateTime now, @Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,16 @@
+package com.sheshape.repository;
+
+import com.sheshape.model.SessionProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SessionProgressRepository extends JpaRepository<SessionProgress, SessionProgress.Key> {
+
+    @Query("SELECT p FROM SessionProgress p WHERE p.key.userId = :userId AND p.programId = :programId")
+    List<SessionProgress> findByUserIdAndProgramId(@Param("userId") Long userId, @Param("programId") Long programId);
+}
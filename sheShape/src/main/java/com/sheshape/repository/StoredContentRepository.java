@@ -0,0 +1,92 @@
+package com.sheshape.repository;
+
+import com.sheshape.model.StoredContent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredContentRepository extends JpaRepository<StoredContent, String> {
+
+    Optional<StoredContent> findByFileKey(String fileKey);
+
+    boolean existsByFileKey(String fileKey);
+
+    /**
+     * Take another reference to stored content
+     * @return 1 if the content is still live, 0 if it is unknown or its last reference was just released
+     */
+    @Modifying
+    @Query("UPDATE StoredContent c SET c.referenceCount = c.referenceCount + 1, " +
+            "c.lastAcquiredAt = CURRENT_TIMESTAMP " +
+            "WHERE c.contentHash = :contentHash AND c.referenceCount > 0")
+    int acquire(@Param("contentHash") String contentHash);
+
+    /**
+     * Register content about to be stored, with one reference. Waits for a concurrent upload
+     * registering the same content to finish.
+     * @return 1 if registered, 0 if the content was already registered, possibly under another key
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO stored_contents " +
+            "(content_hash, file_key, size_bytes, reference_count, last_acquired_at, created_at) " +
+            "VALUES (:contentHash, :fileKey, :sizeBytes, 1, NOW(), NOW())",
+            nativeQuery = true)
+    int register(@Param("contentHash") String contentHash,
+                 @Param("fileKey") String fileKey,
+                 @Param("sizeBytes") long sizeBytes);
+
+    /**
+     * Read the entry for a content hash with a locking read, so a registration committed after
+     * this transaction's snapshot is seen
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM StoredContent c WHERE c.contentHash = :contentHash")
+    Optional<StoredContent> findByContentHashForUpdate(@Param("contentHash") String contentHash);
+
+    @Modifying
+    @Query("UPDATE StoredContent c SET c.referenceCount = c.referenceCount - 1 " +
+            "WHERE c.fileKey = :fileKey AND c.referenceCount > 0")
+    int release(@Param("fileKey") String fileKey);
+
+    /**
+     * Remove the index entry once nothing references it
+     * @return 1 if the entry was removed and the file may be deleted
+     */
+    @Modifying
+    @Query("DELETE FROM StoredContent c WHERE c.fileKey = :fileKey AND c.referenceCount = 0")
+    int deleteIfUnreferenced(@Param("fileKey") String fileKey);
+
+    /**
+     * Keys of content that is still referenced, or was handed to an upload after the given time and
+     * may be about to be attached
+     */
+    @Query("SELECT c.fileKey FROM StoredContent c WHERE c.fileKey IN :fileKeys " +
+            "AND (c.referenceCount > 0 OR c.lastAcquiredAt > :since)")
+    List<String> findLiveFileKeys(@Param("fileKeys") Collection<String> fileKeys,
+                                  @Param("since") LocalDateTime since);
+
+    /**
+     * Lock the entries for the given keys, so no upload can take a reference to them until the
+     * transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM StoredContent c WHERE c.fileKey IN :fileKeys")
+    List<StoredContent> findByFileKeyInForUpdate(@Param("fileKeys") Collection<String> fileKeys);
+
+    /**
+     * Forget content whose files were removed as orphans, so new uploads store it again
+     */
+    @Modifying
+    @Query("DELETE FROM StoredContent c WHERE c.fileKey IN :fileKeys")
+    int deleteByFileKeyIn(@Param("fileKeys") Collection<String> fileKeys);
+}
@@ -2,8 +2,11 @@ package com.sheshape.repository;
 
 import com.sheshape.model.UserGymProgram;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +22,14 @@ public interface UserGymProgramRepository extends JpaRepository<UserGymProgram,
     List<UserGymProgram> findByUserIdAndStatus(Long userId, UserGymProgram.Status status);
 
     List<UserGymProgram> findByProgramIdAndStatus(Long programId, UserGymProgram.Status status);
+
+    /**
+     * @return Whether the user has an active, unexpired enrollment in the program
+     */
+    @Query("SELECT COUNT(e) > 0 FROM UserGymProgram e WHERE e.user.id = :userId AND e.program.id = :programId " +
+            "AND e.status = com.sheshape.model.UserGymProgram.Status.ACTIVE " +
+            "AND (e.expiryDate IS NULL OR e.expiryDate > :now)")
+    boolean hasActiveEnrollment(@Param("userId") Long userId,
+                                @Param("programId") Long programId,
+                                @Param("now") LocalDateTime now);
 }
@@ -2,6 +2,8 @@ package com.sheshape.repository;
 
 import com.sheshape.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,4 +23,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     List<User> findByIsActiveTrue();
     Optional<User> findByUsernameOrEmail(String username, String email);
+
+    /**
+     * @return Rows of [user id, token version] for every user
+     */
+    @Query("SELECT u.id, u.tokenVersion FROM User u")
+    List<Object[]> findAllTokenVersions();
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
 }
\ No newline at end of file
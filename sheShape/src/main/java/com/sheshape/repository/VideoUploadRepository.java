@@ -0,0 +1,38 @@
+package com.sheshape.repository;
+
+import com.sheshape.model.VideoUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VideoUploadRepository extends JpaRepository<VideoUpload, Long> {
+
+    @Query("SELECT v FROM VideoUpload v LEFT JOIN FETCH v.parts WHERE v.id = :id")
+    Optional<VideoUpload> findWithPartsById(@Param("id") Long id);
+
+    /**
+     * Record a finished part without loading the upload. A part uploaded again on resume
+     * replaces the earlier ETag.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO video_upload_parts (video_upload_id, part_number, etag, size_bytes) " +
+            "VALUES (:uploadId, :partNumber, :etag, :sizeBytes) " +
+            "ON DUPLICATE KEY UPDATE etag = VALUES(etag), size_bytes = VALUES(size_bytes)", nativeQuery = true)
+    void recordPart(@Param("uploadId") Long uploadId,
+                    @Param("partNumber") int partNumber,
+                    @Param("etag") String etag,
+                    @Param("sizeBytes") long sizeBytes);
+
+    /**
+     * Uploads still marked as running after a restart lost their worker; mark them resumable
+     */
+    @Modifying
+    @Query("UPDATE VideoUpload v SET v.status = com.sheshape.model.VideoUpload.Status.FAILED, " +
+            "v.failureMessage = :message WHERE v.status = com.sheshape.model.VideoUpload.Status.UPLOADING")
+    int failInterrupted(@Param("message") String message);
+}
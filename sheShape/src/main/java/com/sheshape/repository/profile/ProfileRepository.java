@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,4 +20,10 @@ public interface ProfileRepository extends JpaRepository<Profile, Long> {
     Optional<Profile> findByUserIdWithUser(@Param("userId") Long userId);
     
     boolean existsByUserId(Long userId);
-}
\ No newline at end of file
+
+    @Query("SELECT p.profilePictureUrl FROM Profile p WHERE p.profilePictureUrl IS NOT NULL")
+    List<String> findAllProfilePictureUrls();
+
+    @Query("SELECT p.profilePictureUrl FROM Profile p WHERE p.profilePictureUrl IN :urls")
+    List<String> findProfilePictureUrlsIn(@Param("urls") Collection<String> urls);
+}
@@ -0,0 +1,50 @@
+package com.sheshape.security;
+
+import com.sheshape.model.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.security.Principal;
+
+/**
+ * The caller of the current request, as established by JwtAuthorizationFilter from the token's claims.
+ * It is the principal of the request's Authentication, so getName() keeps returning the email. Controllers
+ * take it as a method parameter (see AuthenticatedUserArgumentResolver) and pass it on to services, so
+ * finding out who is calling never costs a query.
+ */
+public record AuthenticatedUser(Long id, String email, User.Role role) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean hasRole(User.Role role) {
+        return this.role == role;
+    }
+
+    public boolean isAdmin() {
+        return role == User.Role.ADMIN;
+    }
+
+    /**
+     * @return The caller of the current request, or null if it is anonymous
+     */
+    public static AuthenticatedUser current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user ? user : null;
+    }
+
+    /**
+     * @return The caller of the current request
+     * @throws UsernameNotFoundException If the request is anonymous (answered with 401)
+     */
+    public static AuthenticatedUser require() {
+        AuthenticatedUser user = current();
+        if (user == null) {
+            throw new UsernameNotFoundException("User not authenticated");
+        }
+        return user;
+    }
+}
@@ -0,0 +1,35 @@
+package com.sheshape.security;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Optional;
+
+/**
+ * Resolves controller parameters of type AuthenticatedUser (or Optional&lt;AuthenticatedUser&gt; for
+ * endpoints that also serve anonymous callers) from the request's Authentication, without any lookup.
+ */
+public class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getNestedParameterType() == AuthenticatedUser.class;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        AuthenticatedUser user = AuthenticatedUser.current();
+        if (parameter.getParameterType() == Optional.class) {
+            return Optional.ofNullable(user);
+        }
+        if (user == null) {
+            throw new UsernameNotFoundException("User not authenticated");
+        }
+        return user;
+    }
+}
@@ -2,16 +2,19 @@ package com.sheshape.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sheshape.dto.AuthDTO;
+import com.sheshape.exception.ServiceUnavailableException;
+import com.sheshape.exception.TooManyRequestsException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import java.io.IOException;
@@ -23,11 +26,14 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
 
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final LoginThrottle loginThrottle;
 
 
-    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, JwtUtil jwtUtil,
+                                   LoginThrottle loginThrottle) {
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.loginThrottle = loginThrottle;
         setFilterProcessesUrl("/api/auth/login");
     }
 
@@ -38,15 +44,36 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
             AuthDTO.AuthRequest authRequest = new ObjectMapper()
                     .readValue(request.getInputStream(), AuthDTO.AuthRequest.class);
 
+            // Throttled attempts are turned away before any password hashing
+            loginThrottle.checkAttempt(request.getRemoteAddr(), authRequest.getEmail());
+
             return authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             authRequest.getEmail(),
                             authRequest.getPassword()
                     )
             );
+        } catch (TooManyRequestsException e) {
+            return retryLater(response, HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e.getRetryAfterSeconds());
+        } catch (ServiceUnavailableException e) {
+            return retryLater(response, HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e.getRetryAfterSeconds());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Returning null from attemptAuthentication ends the request with this response
+    private Authentication retryLater(HttpServletResponse response, HttpStatus status, String message,
+                                      long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        try {
+            response.getWriter().write(new ObjectMapper().writeValueAsString(Map.of("message", message)));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        return null;
     }
 
     @Override
@@ -54,7 +81,7 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
                                             FilterChain chain, Authentication authResult) 
             throws IOException, ServletException {
         
-        UserDetails userDetails = (UserDetails) authResult.getPrincipal();
+        SecurityUser userDetails = (SecurityUser) authResult.getPrincipal();
         String token = jwtUtil.generateToken(userDetails);
         
         // Get user authorities (roles)
@@ -1,13 +1,11 @@
 package com.sheshape.security;
 
-import com.sheshape.service.UserDetailsServiceImpl;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -19,11 +17,14 @@ import java.io.IOException;
 public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final TokenVersionStore tokenVersionStore;
+    private final TokenRevocationStore tokenRevocationStore;
 
-    public JwtAuthorizationFilter(JwtUtil jwtUtil, UserDetailsServiceImpl userDetailsService) {
+    public JwtAuthorizationFilter(JwtUtil jwtUtil, TokenVersionStore tokenVersionStore,
+                                  TokenRevocationStore tokenRevocationStore) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.tokenVersionStore = tokenVersionStore;
+        this.tokenRevocationStore = tokenRevocationStore;
     }
 
     @Override
@@ -31,23 +32,18 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = getJwtFromRequest(request);
-            System.out.println("Here is the jwt: " + jwt);
 
             if (StringUtils.hasText(jwt)) {
-                // Extract username first without validation
-                String username = jwtUtil.extractUsername(jwt);
+                // The token carries the user's authorities; only its version and revocation are checked
+                VerifiedToken token = jwtUtil.verify(jwt);
+                AuthenticatedUser user = token.user();
 
-                // Only proceed if we can extract a username
-                if (username != null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                    // Now validate the token with the actual user details
-                    if (userDetails != null && jwtUtil.validateToken(jwt, userDetails)) {
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    }
+                if (user != null && tokenVersionStore.isCurrent(user.id(), token.tokenVersion())
+                        && !tokenRevocationStore.isRevoked(token.tokenId())) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            user, null, token.authorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             }
         } catch (Exception e) {
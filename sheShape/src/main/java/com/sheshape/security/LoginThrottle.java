@@ -0,0 +1,96 @@
+package com.sheshape.security;
+
+import com.sheshape.exception.TooManyRequestsException;
+import com.sheshape.service.resilience.RateLimiter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-IP and per-email token buckets in front of password checks. Rejected attempts fail before any
+ * hashing is done, so a credential-stuffing burst costs a map lookup per request instead of a BCrypt
+ * round. Buckets that have refilled completely are dropped periodically, and past max-tracked-keys
+ * new keys share one overflow bucket, so the maps stay bounded under attack from many addresses.
+ * The trade-off is that while the maps are full, clients not already tracked are throttled together
+ * at the rate of a single key until idle buckets are dropped.
+ *
+ * <p>The address is the servlet remote address, which only identifies the client behind a load
+ * balancer when forwarded headers are honoured (server.forward-headers-strategy).
+ */
+@Component
+public class LoginThrottle {
+
+    private static final String OVERFLOW_KEY = "";
+
+    private final double ipPermitsPerSecond;
+    private final int ipBurst;
+    private final double emailPermitsPerSecond;
+    private final int emailBurst;
+    private final int maxTrackedKeys;
+
+    private final ConcurrentHashMap<String, RateLimiter> ipBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RateLimiter> emailBuckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    public LoginThrottle(@Value("${auth.login.ip-attempts-per-minute:30}") int ipAttemptsPerMinute,
+                         @Value("${auth.login.email-attempts-per-minute:10}") int emailAttemptsPerMinute,
+                         @Value("${auth.login.max-tracked-keys:100000}") int maxTrackedKeys) {
+        this.ipPermitsPerSecond = ipAttemptsPerMinute / 60.0;
+        this.ipBurst = ipAttemptsPerMinute;
+        this.emailPermitsPerSecond = emailAttemptsPerMinute / 60.0;
+        this.emailBurst = emailAttemptsPerMinute;
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("login-throttle-"));
+        executor.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Count a login attempt against the client address and the account
+     * @throws TooManyRequestsException If either has run out of attempts
+     */
+    public void checkAttempt(String remoteAddress, String email) {
+        RateLimiter ipBucket = bucket(ipBuckets, remoteAddress, ipPermitsPerSecond, ipBurst);
+        if (!ipBucket.tryAcquire()) {
+            throw new TooManyRequestsException("Too many login attempts from this address. Please try again later.",
+                    ipBucket.retryAfterSeconds());
+        }
+
+        if (email != null) {
+            RateLimiter emailBucket = bucket(emailBuckets, email.trim().toLowerCase(Locale.ROOT),
+                    emailPermitsPerSecond, emailBurst);
+            if (!emailBucket.tryAcquire()) {
+                throw new TooManyRequestsException("Too many login attempts for this account. Please try again later.",
+                        emailBucket.retryAfterSeconds());
+            }
+        }
+    }
+
+    private RateLimiter bucket(ConcurrentHashMap<String, RateLimiter> buckets, String key,
+                               double permitsPerSecond, int burst) {
+        RateLimiter bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxTrackedKeys) {
+            key = OVERFLOW_KEY;
+        }
+        return buckets.computeIfAbsent(key, k -> new RateLimiter(permitsPerSecond, burst));
+    }
+
+    private void evictIdle() {
+        ipBuckets.values().removeIf(RateLimiter::isIdle);
+        emailBuckets.values().removeIf(RateLimiter::isIdle);
+    }
+}
@@ -0,0 +1,37 @@
+package com.sheshape.security;
+
+import com.sheshape.model.User;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * UserDetails that also carries what a JWT needs to authorize requests on its own: the user id,
+ * role and token version. Only used at login; later requests carry an AuthenticatedUser instead.
+ */
+public class SecurityUser extends org.springframework.security.core.userdetails.User {
+
+    private final Long id;
+    private final User.Role role;
+    private final int tokenVersion;
+
+    public SecurityUser(Long id, String email, String password, boolean enabled, User.Role role,
+                        int tokenVersion, Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, enabled, true, true, true, authorities);
+        this.id = id;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+}
@@ -0,0 +1,212 @@
+package com.sheshape.security;
+
+import com.sheshape.model.RevokedToken;
+import com.sheshape.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ids of JWTs revoked before their expiry (logout), checked by JwtAuthorizationFilter on every request.
+ *
+ * <p>Almost every token checked is not revoked, so lookups go to a Bloom filter first and only its
+ * rare positives reach the exact set. Both lookups hash the id in place, so the check allocates
+ * nothing. An entry is only kept until its token would have expired anyway. The periodic sweep drops
+ * expired entries and rebuilds the filter for the entries left, so memory follows the number of live
+ * revocations rather than growing with every logout.
+ *
+ * <p>Revocations are written to revoked_tokens, which is loaded on startup and polled for rows added
+ * by other instances.
+ */
+@Component
+@Slf4j
+public class TokenRevocationStore {
+
+    // Bloom filter false-positive rate at its design capacity
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 1024;
+
+    // Overlap between polls so rows committed late by other instances are not missed
+    private static final long SYNC_OVERLAP_SECONDS = 30;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long syncSeconds;
+    private final long sweepSeconds;
+    private final ScheduledExecutorService executor;
+
+    // Token id -> expiry in epoch millis
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter = new BloomFilter(MIN_CAPACITY);
+    private volatile LocalDateTime lastSync = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${jwt.revocation.sync-seconds:30}") long syncSeconds,
+                                @Value("${jwt.revocation.sweep-seconds:300}") long sweepSeconds) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.syncSeconds = syncSeconds;
+        this.sweepSeconds = sweepSeconds;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("token-revocation-"));
+    }
+
+    // Loaded before the web server takes requests, so revoked tokens are never let through after a restart
+    @PostConstruct
+    public void start() {
+        sync();
+        executor.scheduleWithFixedDelay(this::sync, syncSeconds, syncSeconds, TimeUnit.SECONDS);
+        executor.scheduleWithFixedDelay(this::sweep, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    /**
+     * Revoke a token until it expires
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+
+        RevokedToken row = new RevokedToken(tokenId, toLocalDateTime(expiresAt), LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> revokedTokenRepository.save(row));
+        add(tokenId, expiresAt.toEpochMilli());
+    }
+
+    private synchronized void add(String tokenId, long expiresAt) {
+        if (revoked.put(tokenId, expiresAt) != null) {
+            return;
+        }
+        if (revoked.size() > filter.capacity) {
+            rebuild();
+        } else {
+            filter.add(tokenId);
+        }
+    }
+
+    private void sync() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> rows = revokedTokenRepository.findLiveRevokedSince(now, lastSync);
+            for (Object[] row : rows) {
+                add((String) row[0], ((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            lastSync = now.minusSeconds(SYNC_OVERLAP_SECONDS);
+        } catch (RuntimeException e) {
+            log.warn("Failed to sync revoked tokens", e);
+        }
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+            rebuild();
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    revokedTokenRepository.deleteExpired(LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge expired revoked tokens", e);
+        }
+    }
+
+    // Callers hold the lock, so no revocation can slip in between copying the set and publishing the filter
+    private void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(MIN_CAPACITY, revoked.size() * 2));
+        revoked.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    }
+
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    /**
+     * Fixed-size Bloom filter over strings. Probe positions come from two 64-bit hashes of the
+     * string's chars (double hashing), computed without allocating.
+     */
+    static final class BloomFilter {
+
+        private final int capacity;
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int capacity) {
+            this.capacity = capacity;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+            int words = (int) ((optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        void add(String value) {
+            long h1 = hash(value, 0x9E3779B97F4A7C15L);
+            long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long h1 = hash(value, 0x9E3779B97F4A7C15L);
+            long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String value, long seed) {
+            long h = seed ^ value.length();
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001B3L;
+            }
+            // Final avalanche (from MurmurHash3's fmix64)
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.sheshape.security;
+
+import com.sheshape.model.User;
+import com.sheshape.repository.UserRepository;
+import com.sheshape.service.support.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Current token version per user id, so JwtAuthorizationFilter can reject revoked tokens without
+ * loading the user. Versions only ever grow: a password change or deactivation bumps the user's
+ * version, which invalidates every token issued before it.
+ *
+ * <p>The whole table of versions is loaded on startup and reloaded periodically so bumps made by
+ * other instances are picked up; a user not seen yet is looked up once and cached. Deleted users
+ * are cached with a version no token can carry.
+ */
+@Component
+@Slf4j
+public class TokenVersionStore {
+
+    private static final int REVOKED = Integer.MAX_VALUE;
+
+    private final UserRepository userRepository;
+    private final long refreshSeconds;
+    private final ScheduledExecutorService executor;
+
+    private volatile ConcurrentHashMap<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public TokenVersionStore(UserRepository userRepository,
+                             @Value("${jwt.token-version-refresh-seconds:60}") long refreshSeconds) {
+        this.userRepository = userRepository;
+        this.refreshSeconds = refreshSeconds;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("token-versions-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload();
+        executor.scheduleWithFixedDelay(this::reload, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return Whether a token issued with this version is still valid for the user
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer current = versions.get(userId);
+        if (current == null) {
+            current = userRepository.findTokenVersionById(userId).orElse(REVOKED);
+            versions.merge(userId, current, Math::max);
+        }
+        return current == tokenVersion;
+    }
+
+    /**
+     * Invalidate every token issued to the user so far. The caller saves the user; the new
+     * version takes effect here once the transaction commits.
+     */
+    public void revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        Long userId = user.getId();
+        int version = user.getTokenVersion();
+        AfterCommit.run(() -> versions.merge(userId, version, Math::max));
+    }
+
+    public void onUserDeleted(Long userId) {
+        AfterCommit.run(() -> versions.put(userId, REVOKED));
+    }
+
+    private void reload() {
+        try {
+            List<Object[]> rows = userRepository.findAllTokenVersions();
+            ConcurrentHashMap<Long, Integer> reloaded = new ConcurrentHashMap<>(rows.size() * 4 / 3 + 1);
+            for (Object[] row : rows) {
+                reloaded.put((Long) row[0], (Integer) row[1]);
+            }
+
+            // A bump committed after the query ran must not be rolled back by it
+            ConcurrentHashMap<Long, Integer> previous = versions;
+            previous.forEach((userId, version) -> reloaded.computeIfPresent(userId, (id, loaded) -> Math.max(loaded, version)));
+            versions = reloaded;
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload token versions; keeping the previous ones", e);
+        }
+    }
+}
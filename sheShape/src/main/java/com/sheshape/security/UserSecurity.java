@@ -1,29 +1,12 @@
 package com.sheshape.security;
 
-import com.sheshape.service.UserService;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 @Component("userSecurity")
 public class UserSecurity {
 
-    private final UserService userService;
-
-    public UserSecurity(UserService userService) {
-        this.userService = userService;
-    }
-
     public boolean isCurrentUser(Long userId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return false;
-        }
-        
-        String username = authentication.getName();
-        Long currentUserId = userService.getUserIdByUsername(username);
-        
-        return currentUserId != null && currentUserId.equals(userId);
+        AuthenticatedUser currentUser = AuthenticatedUser.current();
+        return currentUser != null && currentUser.id().equals(userId);
     }
 }
\ No newline at end of file
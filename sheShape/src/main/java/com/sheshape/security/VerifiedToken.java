@@ -0,0 +1,17 @@
+package com.sheshape.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A JWT whose signature and expiry have been checked, with its claims already decoded
+ *
+ * @param tokenId The jti, used to revoke the token; null for tokens issued before ids were added
+ * @param user The user the token was issued to, or null for tokens issued before user claims were added
+ * @param tokenVersion The user's token version when the token was issued
+ */
+public record VerifiedToken(String tokenId, AuthenticatedUser user, int tokenVersion,
+                            List<GrantedAuthority> authorities, Instant issuedAt, Instant expiresAt) {
+}
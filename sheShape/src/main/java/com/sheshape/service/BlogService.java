@@ -1,6 +1,7 @@
 package com.sheshape.service;
 
 import com.sheshape.dto.BlogPostDto;
+import com.sheshape.security.AuthenticatedUser;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -12,7 +13,7 @@ public interface BlogService {
     
     Page<BlogPostDto> getAllPosts(Pageable pageable);
     
-    BlogPostDto getPostById(Long id);
+    BlogPostDto getPostById(Long id, AuthenticatedUser currentUser);
     
     List<BlogPostDto> getPostsByAuthor(Long authorId);
     
@@ -20,13 +21,13 @@ public interface BlogService {
     
     Page<BlogPostDto> searchPosts(String keyword, Pageable pageable);
     
-    BlogPostDto createPost(BlogPostDto blogPostDto);
+    BlogPostDto createPost(BlogPostDto blogPostDto, AuthenticatedUser currentUser);
     
-    BlogPostDto updatePost(Long id, BlogPostDto blogPostDto);
+    BlogPostDto updatePost(Long id, BlogPostDto blogPostDto, AuthenticatedUser currentUser);
     
-    BlogPostDto publishPost(Long id);
+    BlogPostDto publishPost(Long id, AuthenticatedUser currentUser);
     
-    BlogPostDto unpublishPost(Long id);
+    BlogPostDto unpublishPost(Long id, AuthenticatedUser currentUser);
     
-    void deletePost(Long id);
+    void deletePost(Long id, AuthenticatedUser currentUser);
 }
\ No newline at end of file
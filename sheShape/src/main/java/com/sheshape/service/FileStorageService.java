@@ -3,8 +3,87 @@ package com.sheshape.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 public interface FileStorageService {
     String uploadFile(MultipartFile file, String directory);
+    void uploadFile(String fileKey, byte[] content, String contentType);
+    void uploadFile(String fileKey, Path source, String contentType);
     void deleteFile(String fileKey);
+
+    /**
+     * Delete many files with as few backend calls as possible
+     * @return The number of files deleted
+     */
+    int deleteFiles(Collection<String> fileKeys);
+
     String getFileUrl(String fileKey);
-}
\ No newline at end of file
+
+    /**
+     * Inverse of getFileUrl
+     * @return The file key, or null if the URL does not point into this storage
+     */
+    String getFileKey(String fileUrl);
+
+    /**
+     * List stored files under a prefix, one page at a time, in an order that stays the same between
+     * pages (key order on S3, directory order on the local backend)
+     * @param pageToken Token from the previous page, or null for the first page
+     * @return The page; its nextPageToken is null on the last page
+     */
+    FilePage listFiles(String prefix, String pageToken, int pageSize);
+
+    /**
+     * Create a short-lived URL the client can PUT the file to directly, bypassing the API.
+     * The upload must send the same Content-Type and Content-Length.
+     */
+    String presignUpload(String fileKey, String contentType, long contentLength, Duration expiry);
+
+    /**
+     * @return Size and content type of a stored file, or empty if it does not exist
+     */
+    Optional<StoredFile> getFileInfo(String fileKey);
+
+    void downloadFile(String fileKey, Path target);
+
+    /**
+     * Download {@code length} bytes of a stored file starting at {@code offset}, replacing target
+     */
+    void downloadRange(String fileKey, long offset, long length, Path target);
+
+    /**
+     * Start a multipart upload; parts can then be uploaded concurrently and in any order
+     * @return The upload id to pass to the other multipart calls
+     */
+    String createMultipartUpload(String fileKey, String contentType);
+
+    /**
+     * Upload {@code length} bytes of {@code source} starting at {@code offset} as one part
+     * @param partNumber 1-based part number; parts are assembled in this order
+     * @return Completes with the part's ETag, needed to complete the upload
+     */
+    CompletableFuture<String> uploadPart(String fileKey, String uploadId, int partNumber,
+                                         Path source, long offset, long length);
+
+    void completeMultipartUpload(String fileKey, String uploadId, List<UploadedPart> parts);
+
+    void abortMultipartUpload(String fileKey, String uploadId);
+
+    record StoredFile(long size, String contentType) {
+    }
+
+    record UploadedPart(int partNumber, String etag) {
+    }
+
+    record ListedFile(String fileKey, long size, Instant lastModified) {
+    }
+
+    record FilePage(List<ListedFile> files, String nextPageToken) {
+    }
+}
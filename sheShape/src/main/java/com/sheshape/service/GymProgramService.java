@@ -1,10 +1,16 @@
 package com.sheshape.service;
 
 import com.sheshape.dto.GymProgramDto;
+import com.sheshape.dto.GymProgramPageDto;
 import com.sheshape.dto.GymSessionDto;
+import com.sheshape.dto.PopularItemDto;
 import com.sheshape.dto.UserGymProgramDto;
+import com.sheshape.dto.WatchProgressDto;
+import com.sheshape.repository.GymProgramRepositoryCustom;
+import com.sheshape.security.AuthenticatedUser;
 
 import java.util.List;
+import java.util.Map;
 
 public interface GymProgramService {
     
@@ -12,36 +18,54 @@ public interface GymProgramService {
     List<GymProgramDto> getAllGymPrograms();
     
     List<GymProgramDto> getActiveGymPrograms();
+
+    GymProgramPageDto getActiveGymProgramPage(GymProgramRepositoryCustom.Filter filter, Long afterId, int size);
     
     GymProgramDto getGymProgramById(Long id);
     
     List<GymProgramDto> getGymProgramsByTrainer(Long trainerId);
     
-    GymProgramDto createGymProgram(GymProgramDto gymProgramDto);
+    GymProgramDto createGymProgram(GymProgramDto gymProgramDto, AuthenticatedUser currentUser);
     
-    GymProgramDto updateGymProgram(Long id, GymProgramDto gymProgramDto);
+    GymProgramDto updateGymProgram(Long id, GymProgramDto gymProgramDto, AuthenticatedUser currentUser);
     
-    void deleteGymProgram(Long id);
+    void deleteGymProgram(Long id, AuthenticatedUser currentUser);
     
     // Session management
     List<GymSessionDto> getSessionsByProgramId(Long programId);
     
     GymSessionDto getSessionById(Long sessionId);
     
-    GymSessionDto createSession(Long programId, GymSessionDto sessionDto);
+    /**
+     * Stored video URLs of a program's sessions, which session responses never include.
+     * Only for the program's trainer and admins, who edit them.
+     * @return Video URL by session id, for sessions that have a video
+     */
+    Map<Long, String> getSessionVideoUrls(Long programId, AuthenticatedUser currentUser);
+    
+    GymSessionDto createSession(Long programId, GymSessionDto sessionDto, AuthenticatedUser currentUser);
     
-    GymSessionDto updateSession(Long sessionId, GymSessionDto sessionDto);
+    GymSessionDto updateSession(Long sessionId, GymSessionDto sessionDto, AuthenticatedUser currentUser);
     
-    void deleteSession(Long sessionId);
+    void deleteSession(Long sessionId, AuthenticatedUser currentUser);
     
     // User-Program association
     List<UserGymProgramDto> getUserGymPrograms(Long userId);
     
     List<UserGymProgramDto> getUsersForGymProgram(Long programId);
+
+    /**
+     * @return Up to limit active programs with the most enrollments, from the in-memory counters
+     */
+    List<PopularItemDto> getPopularGymPrograms(int limit);
     
     UserGymProgramDto purchaseGymProgram(Long userId, Long programId);
     
     UserGymProgramDto updateUserGymProgramStatus(Long userId, Long programId, String status);
     
     UserGymProgramDto updateLastWatchedSession(Long userId, Long programId, Long sessionId);
+
+    void recordWatchProgress(Long userId, Long programId, Long sessionId, WatchProgressDto progress);
+
+    List<WatchProgressDto> getWatchProgress(Long userId, Long programId);
 }
\ No newline at end of file
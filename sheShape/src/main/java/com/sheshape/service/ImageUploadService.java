@@ -0,0 +1,62 @@
+package com.sheshape.service;
+
+import com.sheshape.dto.PresignedUploadDto;
+import com.sheshape.model.ImageUpload;
+import com.sheshape.model.ImageVariant;
+import com.sheshape.service.media.UploadPurpose;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ImageUploadService {
+
+    /**
+     * Store an uploaded image and queue generation of its resized variants.
+     * If the same content was uploaded before, the existing upload is returned with another reference taken.
+     * @param file The image file
+     * @param directory Storage directory, e.g. "product-images/"
+     * @return The stored upload; variants are added asynchronously
+     */
+    ImageUpload uploadImage(MultipartFile file, String directory);
+
+    /**
+     * Drop a reference to a stored file. Shared content is deleted, with its variants,
+     * only when the last reference goes; unshared files are deleted right away.
+     * @param fileKey The file key
+     */
+    void release(String fileKey);
+
+    /**
+     * Issue a short-lived URL for uploading an image straight to storage
+     * @param purpose Decides the storage directory and size limit
+     * @param contentType The image MIME type the client will send
+     * @param contentLength The exact size in bytes the client will send
+     * @return The upload URL, the file key to complete with and the headers to send
+     */
+    PresignedUploadDto presignUpload(UploadPurpose purpose, String contentType, long contentLength);
+
+    /**
+     * Verify that a presigned upload landed in storage as declared and register it.
+     * Only the user who requested the upload URL can complete it.
+     * @param fileKey The key returned by presignUpload
+     * @param purpose Must match the purpose the URL was issued for
+     * @return The registered upload; variants are added asynchronously
+     */
+    ImageUpload completeUpload(String fileKey, UploadPurpose purpose);
+
+    /**
+     * Get the generated variants of several uploads in one query
+     * @param fileKeys Original file keys
+     * @return Variants per file key, for uploads whose variants are ready
+     */
+    Map<String, List<ImageVariant>> getVariants(Collection<String> fileKeys);
+
+    /**
+     * Get the generated variants of the upload served at a URL
+     * @param url The original image URL
+     * @return The variants, empty if none are ready
+     */
+    List<ImageVariant> getVariantsByUrl(String url);
+}
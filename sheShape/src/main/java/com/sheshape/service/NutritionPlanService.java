@@ -1,7 +1,9 @@
 package com.sheshape.service;
 
 import com.sheshape.dto.NutritionPlanDto;
+import com.sheshape.dto.PopularItemDto;
 import com.sheshape.dto.UserNutritionPlanDto;
+import com.sheshape.security.AuthenticatedUser;
 
 import java.util.List;
 
@@ -15,16 +17,21 @@ public interface NutritionPlanService {
     
     List<NutritionPlanDto> getNutritionPlansByNutritionist(Long nutritionistId);
     
-    NutritionPlanDto createNutritionPlan(NutritionPlanDto nutritionPlanDto);
+    NutritionPlanDto createNutritionPlan(NutritionPlanDto nutritionPlanDto, AuthenticatedUser currentUser);
     
-    NutritionPlanDto updateNutritionPlan(Long id, NutritionPlanDto nutritionPlanDto);
+    NutritionPlanDto updateNutritionPlan(Long id, NutritionPlanDto nutritionPlanDto, AuthenticatedUser currentUser);
     
-    void deleteNutritionPlan(Long id);
+    void deleteNutritionPlan(Long id, AuthenticatedUser currentUser);
     
     // Methods for user-nutrition plan association
     List<UserNutritionPlanDto> getUserNutritionPlans(Long userId);
     
     List<UserNutritionPlanDto> getUsersForNutritionPlan(Long planId);
+
+    /**
+     * @return Up to limit active plans with the most enrollments, from the in-memory counters
+     */
+    List<PopularItemDto> getPopularNutritionPlans(int limit);
     
     UserNutritionPlanDto purchaseNutritionPlan(Long userId, Long planId);
     
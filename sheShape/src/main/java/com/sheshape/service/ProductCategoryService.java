@@ -1,6 +1,6 @@
 package com.sheshape.service;
 
-import com.sheshape.dto.ProductDto;
+import com.sheshape.dto.ProductSummaryDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -27,7 +27,7 @@ public interface ProductCategoryService {
      * @param pageable Pagination information
      * @return Paginated list of products
      */
-    Page<ProductDto> getProductsByCategory(String category, Pageable pageable);
+    Page<ProductSummaryDto> getProductsByCategory(String category, Pageable pageable);
     
     /**
      * Get category statistics
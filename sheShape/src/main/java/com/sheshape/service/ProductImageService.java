@@ -60,10 +60,11 @@ public interface ProductImageService {
     ProductImage setMainImage(Long imageId);
     
     /**
-     * Update the positions of multiple product images
-     * @param updatedImages Map of image IDs to their new positions
+     * Update the positions of multiple product images, optionally switching the main image
+     * @param productId The product ID the images must belong to
+     * @param updatedImages Images carrying their ID, new position and main flag
      */
-    void updateImagePositions(List<ProductImage> updatedImages);
+    void updateImagePositions(Long productId, List<ProductImage> updatedImages);
     
     /**
      * Delete all images for a product
@@ -0,0 +1,17 @@
+package com.sheshape.service;
+
+import com.sheshape.dto.ProductImportStatusDto;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface ProductImportService {
+
+    /**
+     * Queue an import of the uploaded CSV or NDJSON file
+     *
+     * @param format csv or ndjson; derived from the file extension when null
+     * @return Initial job status, including the id to poll
+     */
+    ProductImportStatusDto startImport(MultipartFile file, String format);
+
+    ProductImportStatusDto getImportStatus(String jobId);
+}
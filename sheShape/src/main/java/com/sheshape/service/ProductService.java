@@ -1,6 +1,7 @@
 package com.sheshape.service;
 
 import com.sheshape.dto.ProductDto;
+import com.sheshape.dto.ProductSummaryDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -8,17 +9,17 @@ import java.util.List;
 
 public interface ProductService {
     
-    Page<ProductDto> getAllActiveProducts(Pageable pageable);
+    Page<ProductSummaryDto> getAllActiveProducts(Pageable pageable);
     
     Page<ProductDto> getAllProducts(Pageable pageable);
     
     ProductDto getProductById(Long id);
     
-    Page<ProductDto> getProductsByCategory(String category, Pageable pageable);
+    Page<ProductSummaryDto> getProductsByCategory(String category, Pageable pageable);
     
-    Page<ProductDto> searchProducts(String keyword, Pageable pageable);
+    Page<ProductSummaryDto> searchProducts(String keyword, Pageable pageable);
     
-    List<ProductDto> getProductsInStock();
+    List<ProductSummaryDto> getProductsInStock();
     
     ProductDto createProduct(ProductDto productDto);
     
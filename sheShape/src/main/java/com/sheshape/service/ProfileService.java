@@ -3,10 +3,13 @@ package com.sheshape.service;
 import com.sheshape.dto.profile.*;
 import com.sheshape.exception.ResourceNotFoundException;
 import com.sheshape.exception.BadRequestException;
+import com.sheshape.exception.ServiceUnavailableException;
+import com.sheshape.model.ImageUpload;
 import com.sheshape.model.User;
 import com.sheshape.model.profile.*;
 import com.sheshape.repository.UserRepository;
 import com.sheshape.repository.profile.*;
+import com.sheshape.service.recommendation.RecommendationEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -29,6 +32,8 @@ public class ProfileService {
     private final HealthInformationRepository healthInformationRepository;
     private final UserPreferencesRepository userPreferencesRepository;
     private final FileStorageService fileStorageService;
+    private final ImageUploadService imageUploadService;
+    private final RecommendationEngine recommendationEngine;
 
     // CRITICAL: Profile picture directory for S3
     private static final String PROFILE_PICTURES_DIRECTORY = "profile-pictures/";
@@ -110,30 +115,24 @@ public class ProfileService {
                     return profileRepository.save(newProfile);
                 });
 
-        // Delete old profile picture if exists
-        if (profile.getProfilePictureUrl() != null && !profile.getProfilePictureUrl().isEmpty()) {
-            try {
-                // Extract file key from URL to delete from S3
-                String oldFileKey = extractFileKeyFromUrl(profile.getProfilePictureUrl());
-                if (oldFileKey != null) {
-                    fileStorageService.deleteFile(oldFileKey);
-                    log.info("Deleted old profile picture for user ID: {}", userId);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to delete old profile picture for user ID: {}", userId, e);
-                // Continue with upload even if delete fails
-            }
-        }
+        String oldFileKey = extractFileKeyFromUrl(profile.getProfilePictureUrl());
 
         try {
-            // Upload new profile picture to S3
-            String fileKey = fileStorageService.uploadFile(file, PROFILE_PICTURES_DIRECTORY);
-            String fileUrl = fileStorageService.getFileUrl(fileKey);
+            // Store through the de-duplicating upload path, which also generates variants
+            ImageUpload upload = imageUploadService.uploadImage(file, PROFILE_PICTURES_DIRECTORY);
+            String fileKey = upload.getFileKey();
+            String fileUrl = upload.getUrl();
 
             // Update profile with new picture URL
             profile.setProfilePictureUrl(fileUrl);
             profile = profileRepository.save(profile);
 
+            // Release the old picture only once the new one is in place; its file is deleted after commit.
+            // Re-uploading the same picture took a second reference to it, so that one is released too.
+            if (oldFileKey != null) {
+                imageUploadService.release(oldFileKey);
+            }
+
             log.info("Profile picture uploaded successfully for user ID: {} with URL: {}", userId, fileUrl);
 
             // CRITICAL FIX: Return the complete ProfilePictureResponseDTO
@@ -145,44 +144,54 @@ public class ProfileService {
                     .uploadedAt(LocalDateTime.now().toString())
                     .build();
 
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to upload profile picture for user ID: {}", userId, e);
             throw new BadRequestException("Failed to upload profile picture: " + e.getMessage());
         }
     }
 
-    // Also add the missing extractFileKeyFromUrl method if it's not complete:
+    /**
+     * Point the profile at a picture uploaded directly to storage and verified by ImageUploadService
+     */
+    @Transactional
+    public ProfilePictureResponseDTO setProfilePicture(Long userId, ImageUpload upload) {
+        log.info("Setting directly uploaded profile picture for user ID: {}", userId);
+
+        User user = getUserById(userId);
+
+        Profile profile = profileRepository.findByUserId(userId)
+                .orElseGet(() -> {
+                    Profile newProfile = new Profile();
+                    newProfile.setUser(user);
+                    return profileRepository.save(newProfile);
+                });
+
+        String oldFileKey = extractFileKeyFromUrl(profile.getProfilePictureUrl());
+
+        profile.setProfilePictureUrl(upload.getUrl());
+        profileRepository.save(profile);
+
+        // The old file is deleted only after the new picture is committed
+        if (oldFileKey != null && !oldFileKey.equals(upload.getFileKey())) {
+            imageUploadService.release(oldFileKey);
+        }
+
+        return ProfilePictureResponseDTO.builder()
+                .profilePictureUrl(upload.getUrl())
+                .fileName(upload.getFileKey())
+                .fileSize(upload.getSizeBytes())
+                .contentType(upload.getContentType())
+                .uploadedAt(LocalDateTime.now().toString())
+                .build();
+    }
+
     private String extractFileKeyFromUrl(String fileUrl) {
         if (fileUrl == null || fileUrl.isEmpty()) {
             return null;
         }
-
-        try {
-            // Extract file key from S3 URL
-            // Format: https://sheshape-gym.s3.eu-north-1.amazonaws.com/profile-pictures/filename
-            String[] parts = fileUrl.split("/");
-            if (parts.length >= 2) {
-                // Get the directory and filename parts
-                StringBuilder keyBuilder = new StringBuilder();
-                boolean foundBucket = false;
-                for (int i = 0; i < parts.length; i++) {
-                    if (parts[i].contains("sheshape-gym") || parts[i].contains("s3")) {
-                        foundBucket = true;
-                        continue;
-                    }
-                    if (foundBucket) {
-                        if (keyBuilder.length() > 0) {
-                            keyBuilder.append("/");
-                        }
-                        keyBuilder.append(parts[i]);
-                    }
-                }
-                return keyBuilder.toString();
-            }
-        } catch (Exception e) {
-            log.warn("Failed to extract file key from URL: {}", fileUrl, e);
-        }
-        return null;
+        return fileStorageService.getFileKey(fileUrl);
     }
 
     @Transactional(readOnly = true)
@@ -379,7 +388,9 @@ public class ProfileService {
             fitnessProfile.setPreferredWorkoutTimes(request.getPreferredWorkoutTimes());
         }
 
-        return fitnessProfileRepository.save(fitnessProfile);
+        FitnessProfile saved = fitnessProfileRepository.save(fitnessProfile);
+        recommendationEngine.profileChanged(userId);
+        return saved;
     }
 
     private FitnessProfile updateFitnessProfile(Long userId, ProfileUpdateRequestDTO request) {
@@ -395,7 +406,9 @@ public class ProfileService {
         if (request.getPreferredWorkoutDays() != null) fitnessProfile.setPreferredWorkoutDays(request.getPreferredWorkoutDays());
         if (request.getPreferredWorkoutTimes() != null) fitnessProfile.setPreferredWorkoutTimes(request.getPreferredWorkoutTimes());
 
-        return fitnessProfileRepository.save(fitnessProfile);
+        FitnessProfile saved = fitnessProfileRepository.save(fitnessProfile);
+        recommendationEngine.profileChanged(userId);
+        return saved;
     }
 
     // CRITICAL FIX: Handle health information (create or update)
@@ -551,7 +564,7 @@ public class ProfileService {
                 // Extract file key from URL to delete from S3
                 String fileKey = extractFileKeyFromUrl(currentProfilePictureUrl);
                 if (fileKey != null) {
-                    fileStorageService.deleteFile(fileKey);
+                    imageUploadService.release(fileKey);
                     log.info("Deleted profile picture file from S3 for user ID: {}", userId);
                 }
             } catch (Exception e) {
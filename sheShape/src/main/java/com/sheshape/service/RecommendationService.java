@@ -0,0 +1,15 @@
+package com.sheshape.service;
+
+import com.sheshape.dto.RecommendationDto;
+import com.sheshape.model.CatalogItemType;
+
+import java.util.List;
+
+public interface RecommendationService {
+
+    /**
+     * @param type Only recommend this type of item, or null for gym programs and nutrition plans alike
+     * @return Up to limit items the user is not enrolled in, best match first
+     */
+    List<RecommendationDto> getRecommendations(Long userId, CatalogItemType type, int limit);
+}
@@ -0,0 +1,19 @@
+package com.sheshape.service;
+
+import com.sheshape.dto.StorageReconciliationReportDto;
+
+public interface StorageReconciliationService {
+
+    /**
+     * Queue a pass that finds stored files no longer referenced by any product, blog post, profile
+     * or gym session, and deletes them unless it is a dry run
+     * @param dryRun Only report orphans; null uses the configured default
+     * @return The initial report of the queued run
+     */
+    StorageReconciliationReportDto startReconciliation(Boolean dryRun);
+
+    /**
+     * @return The report of the current or most recent run
+     */
+    StorageReconciliationReportDto getLastReport();
+}
@@ -2,6 +2,7 @@ package com.sheshape.service;
 
 import com.sheshape.model.User;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.security.SecurityUser;
 import jakarta.transaction.Transactional;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -42,14 +43,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                     authorities.add(new SimpleGrantedAuthority(authority.getName())));
         }
 
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail())
-                .password(user.getPassword())
-                .authorities(authorities)
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(!user.getIsActive())
-                .build();
+        return new SecurityUser(user.getId(), user.getEmail(), user.getPassword(), user.getIsActive(),
+                user.getRole(), user.getTokenVersion(), authorities);
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.sheshape.service;
+
+import com.sheshape.dto.VideoUploadStatusDto;
+import java.io.InputStream;
+
+public interface VideoUploadService {
+
+    /**
+     * Store a session video in storage as a multipart upload, sending parts concurrently in the background
+     * @param body The video bytes, streamed to a work file before this returns
+     * @param contentType The video MIME type
+     * @param contentLength The exact size in bytes of the body
+     * @param filename The original file name, optional
+     * @return The upload's initial status; poll getStatus for progress
+     */
+    VideoUploadStatusDto startUpload(InputStream body, String contentType, long contentLength, String filename);
+
+    /**
+     * Get the progress of an upload. Only the uploader or an admin can see it.
+     * @param id The upload id
+     * @return The current status
+     */
+    VideoUploadStatusDto getStatus(Long id);
+
+    /**
+     * Continue a failed upload, sending only the parts that did not reach storage
+     * @param id The upload id
+     * @return The status after the upload was requeued
+     */
+    VideoUploadStatusDto resumeUpload(Long id);
+
+    /**
+     * Cancel an unfinished upload and discard its parts
+     * @param id The upload id
+     */
+    void abortUpload(Long id);
+}
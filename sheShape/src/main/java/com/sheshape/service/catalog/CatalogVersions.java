@@ -0,0 +1,171 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.service.support.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-aggregate versions used as HTTP validators for catalog reads, so an ETag can be derived
+ * without loading or serializing the response body.
+ *
+ * <p>Versions live in the catalog_versions table, shared by all nodes. A write increments its
+ * aggregate's row inside the writing transaction, so the version moves exactly when the data
+ * does. Each node caches the rows and re-reads them after its own commits and every poll-millis,
+ * so a write on another node is seen within one poll interval. Components holding state derived
+ * from an aggregate can register to be told about changes made by other nodes.
+ */
+@Component
+@Slf4j
+public class CatalogVersions {
+
+    public enum Aggregate {
+        PRODUCTS,
+        GYM_PROGRAMS,
+        BLOG
+    }
+
+    private static final String INCREMENT =
+            "INSERT INTO catalog_versions (aggregate, version, updated_at) VALUES (?, 1, ?) " +
+            "ON DUPLICATE KEY UPDATE version = version + 1, updated_at = VALUES(updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long pollMillis;
+    private final ScheduledExecutorService executor;
+
+    private final Map<Aggregate, State> states = new EnumMap<>(Aggregate.class);
+
+    public CatalogVersions(JdbcTemplate jdbcTemplate,
+                           @Value("${catalog.versions.poll-millis:2000}") long pollMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pollMillis = pollMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("catalog-versions-"));
+        for (Aggregate aggregate : Aggregate.values()) {
+            states.put(aggregate, new State());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Every node then reports the same Last-Modified for an aggregate nobody has written yet
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Aggregate aggregate : Aggregate.values()) {
+            jdbcTemplate.update(
+                    "INSERT IGNORE INTO catalog_versions (aggregate, version, updated_at) VALUES (?, 0, ?)",
+                    aggregate.name(), now);
+        }
+        refresh();
+        executor.scheduleWithFixedDelay(this::refreshSafely, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Mark an aggregate as changed. Inside a transaction the shared version moves when it commits;
+     * this node's cached version follows right after.
+     */
+    public void bump(Aggregate aggregate) {
+        jdbcTemplate.update(INCREMENT, aggregate.name(), Timestamp.valueOf(LocalDateTime.now()));
+        AfterCommit.run(() -> {
+            states.get(aggregate).localBumps.incrementAndGet();
+            refreshSafely();
+        });
+    }
+
+    /**
+     * Run the listener on the polling thread whenever the aggregate is seen to have been changed by
+     * another node. Changes made on this node are left to the caller to apply.
+     */
+    public void onExternalChange(Aggregate aggregate, Runnable listener) {
+        states.get(aggregate).listeners.add(listener);
+    }
+
+    public String etag(Aggregate aggregate) {
+        State state = states.get(aggregate);
+        // The timestamp keeps validators from a reset table from matching new content
+        return "\"" + aggregate.name().toLowerCase() + "-" + Long.toString(state.lastModified, 36) + "-"
+                + state.version + "\"";
+    }
+
+    /**
+     * @return A counter that changes whenever the aggregate does, for keying in-memory snapshots
+     */
+    public long version(Aggregate aggregate) {
+        return states.get(aggregate).version;
+    }
+
+    public long lastModified(Aggregate aggregate) {
+        return states.get(aggregate).lastModified;
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule; the next poll tries again
+            log.warn("Failed to refresh catalog versions: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void refresh() {
+        // Bumps counted before the query are already in the rows it returns
+        Map<Aggregate, Long> localBumps = new EnumMap<>(Aggregate.class);
+        states.forEach((aggregate, state) -> localBumps.put(aggregate, state.localBumps.get()));
+
+        String sql = "SELECT aggregate, version, updated_at FROM catalog_versions";
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            Aggregate aggregate;
+            try {
+                aggregate = Aggregate.valueOf(rs.getString(1));
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            State state = states.get(aggregate);
+            long version = rs.getLong(2);
+            long local = localBumps.get(aggregate);
+            boolean loaded = state.loaded;
+            boolean external = loaded && version - state.version > local;
+            state.localBumps.addAndGet(-local);
+            state.loaded = true;
+            if (loaded && version == state.version) {
+                return;
+            }
+
+            // HTTP dates have one-second resolution
+            state.lastModified = rs.getTimestamp(3).getTime() / 1000 * 1000;
+            state.version = version;
+            if (external) {
+                state.listeners.forEach(executor::execute);
+            }
+        });
+    }
+
+    private static final class State {
+        private volatile long version;
+        private volatile long lastModified = System.currentTimeMillis() / 1000 * 1000;
+        private boolean loaded;
+        // Commits made on this node since the version was last read
+        private final AtomicLong localBumps = new AtomicLong();
+        private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    }
+}
@@ -0,0 +1,194 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.model.Product;
+import com.sheshape.repository.ProductRepository;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
+import com.sheshape.service.support.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory per-category aggregates (product count, in-stock count, total stock, price sum)
+ * over active products. Rebuilt from a single projection query on startup and kept up to
+ * date incrementally by ProductServiceImpl, so category endpoints never load the catalog.
+ * Product writes on other nodes are picked up by a rebuild once CatalogVersions sees them; stock
+ * sold on other nodes does not move the catalog version and is only picked up by the next rebuild.
+ */
+@Component
+@Slf4j
+public class CategoryAggregateStore {
+
+    private final ProductRepository productRepository;
+
+    // What each active product currently contributes, so an update can subtract its old values
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+
+    private final ConcurrentHashMap<String, CategoryAggregate> aggregates = new ConcurrentHashMap<>();
+
+    private volatile int activeProductCount;
+
+    // Serializes rebuilds, so only one of them records changes committed while it queries
+    private final Object rebuildLock = new Object();
+
+    // Changes applied while a rebuild queries, replayed over its result; null when no rebuild runs
+    private Map<Long, Contribution> changedDuringRebuild;
+
+    public CategoryAggregateStore(ProductRepository productRepository, CatalogVersions catalogVersions) {
+        this.productRepository = productRepository;
+        catalogVersions.onExternalChange(Aggregate.PRODUCTS, this::rebuildSafely);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new HashMap<>();
+            }
+            try {
+                Map<Long, Contribution> rebuilt = loadContributions();
+
+                synchronized (this) {
+                    contributions.clear();
+                    aggregates.clear();
+                    rebuilt.forEach(this::apply);
+                    // The query may predate these commits; each entry is the latest state of its product
+                    changedDuringRebuild.forEach(this::replaceLocked);
+                    activeProductCount = contributions.size();
+                }
+            } finally {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+            }
+        }
+
+        log.info("Category aggregates rebuilt: {} categories over {} active products",
+                aggregates.size(), activeProductCount);
+    }
+
+    private Map<Long, Contribution> loadContributions() {
+        Map<Long, Contribution> rebuilt = new HashMap<>();
+
+        for (Object[] row : productRepository.findActiveCategoryRows()) {
+            Long productId = (Long) row[0];
+            Integer inventoryCount = (Integer) row[1];
+            BigDecimal price = (BigDecimal) row[2];
+            String category = (String) row[3];
+
+            Contribution contribution = rebuilt.computeIfAbsent(productId,
+                    id -> new Contribution(new HashSet<>(), inventoryCount, price));
+            if (category != null) {
+                contribution.categories().add(category);
+            }
+        }
+        return rebuilt;
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Keep serving the current aggregates; the next external change rebuilds again
+            log.warn("Failed to rebuild category aggregates", e);
+        }
+    }
+
+    /**
+     * Record the current state of a product. Deferred until commit when called inside a transaction.
+     */
+    public void onProductSaved(Product product) {
+        Long productId = product.getId();
+        Contribution contribution = Boolean.TRUE.equals(product.getIsActive())
+                ? new Contribution(new HashSet<>(product.getCategories()), product.getInventoryCount(), product.getPrice())
+                : null;
+
+        AfterCommit.run(() -> replace(productId, contribution));
+    }
+
+    public void onProductDeleted(Long productId) {
+        AfterCommit.run(() -> replace(productId, null));
+    }
+
+    /**
+     * @return Snapshot of all categories and their aggregates
+     */
+    public Map<String, CategoryAggregate> snapshot() {
+        return new HashMap<>(aggregates);
+    }
+
+    public int getActiveProductCount() {
+        return activeProductCount;
+    }
+
+    private synchronized void replace(Long productId, Contribution contribution) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(productId, contribution);
+        }
+        replaceLocked(productId, contribution);
+    }
+
+    private void replaceLocked(Long productId, Contribution contribution) {
+        Contribution previous = contributions.remove(productId);
+        if (previous != null) {
+            for (String category : previous.categories()) {
+                aggregates.computeIfPresent(category, (key, aggregate) -> aggregate.minus(previous));
+            }
+        }
+
+        if (contribution != null) {
+            apply(productId, contribution);
+        }
+
+        activeProductCount = contributions.size();
+    }
+
+    private void apply(Long productId, Contribution contribution) {
+        contributions.put(productId, contribution);
+        for (String category : contribution.categories()) {
+            aggregates.merge(category, CategoryAggregate.of(contribution), CategoryAggregate::plus);
+        }
+    }
+
+    private record Contribution(Set<String> categories, int inventoryCount, BigDecimal price) {
+    }
+
+    public record CategoryAggregate(long productCount, long inStockCount, long totalStock, BigDecimal priceSum) {
+
+        static CategoryAggregate of(Contribution contribution) {
+            return new CategoryAggregate(1,
+                    contribution.inventoryCount() > 0 ? 1 : 0,
+                    contribution.inventoryCount(),
+                    contribution.price());
+        }
+
+        CategoryAggregate plus(CategoryAggregate other) {
+            return new CategoryAggregate(
+                    productCount + other.productCount,
+                    inStockCount + other.inStockCount,
+                    totalStock + other.totalStock,
+                    priceSum.add(other.priceSum));
+        }
+
+        // Returns null once the last product leaves the category so computeIfPresent drops it
+        CategoryAggregate minus(Contribution contribution) {
+            if (productCount <= 1) {
+                return null;
+            }
+            return new CategoryAggregate(
+                    productCount - 1,
+                    inStockCount - (contribution.inventoryCount() > 0 ? 1 : 0),
+                    totalStock - contribution.inventoryCount(),
+                    priceSum.subtract(contribution.price()));
+        }
+
+        public double averagePrice() {
+            return productCount == 0 ? 0 : priceSum.doubleValue() / productCount;
+        }
+    }
+}
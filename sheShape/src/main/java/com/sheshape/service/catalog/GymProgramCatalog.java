@@ -0,0 +1,151 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.dto.GymProgramDto;
+import com.sheshape.dto.GymSessionDto;
+import com.sheshape.model.GymProgram;
+import com.sheshape.repository.GymProgramRepository;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory snapshot of every gym program as a DTO, with trainer and sessions. Loaded in two
+ * queries (programs with trainers, then all their sessions) instead of two per program, and
+ * reused until a program or session write bumps the GYM_PROGRAMS catalog version.
+ *
+ * <p>Trainer details are copied into the snapshot, so a trainer's profile edits show up on the
+ * next program write or after max-age at the latest. Callers get copies of the snapshot's DTOs,
+ * which they are free to modify.
+ */
+@Component
+@Slf4j
+public class GymProgramCatalog {
+
+    private final GymProgramRepository gymProgramRepository;
+    private final CatalogVersions catalogVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final long maxAgeNanos;
+
+    private volatile Snapshot snapshot;
+
+    public GymProgramCatalog(GymProgramRepository gymProgramRepository,
+                             CatalogVersions catalogVersions,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${gym.catalog.max-age-seconds:300}") long maxAgeSeconds) {
+        this.gymProgramRepository = gymProgramRepository;
+        this.catalogVersions = catalogVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.maxAgeNanos = Duration.ofSeconds(maxAgeSeconds).toNanos();
+    }
+
+    public List<GymProgramDto> getAllPrograms() {
+        return copies(current().all());
+    }
+
+    public List<GymProgramDto> getActivePrograms() {
+        return copies(current().active());
+    }
+
+    public Optional<GymProgramDto> findProgram(Long programId) {
+        return Optional.ofNullable(current().programs().get(programId)).map(GymProgramDto::new);
+    }
+
+    /**
+     * @return The program's trainer id, without copying the program
+     */
+    public Optional<Long> findTrainerId(Long programId) {
+        return Optional.ofNullable(current().programs().get(programId)).map(GymProgramDto::getTrainerId);
+    }
+
+    /**
+     * @return The session, if it exists and belongs to the program
+     */
+    public Optional<GymSessionDto> findSession(Long programId, Long sessionId) {
+        return Optional.ofNullable(sessionOf(programId, sessionId)).map(GymSessionDto::new);
+    }
+
+    /**
+     * @return Whether the session exists and belongs to the program
+     */
+    public boolean containsSession(Long programId, Long sessionId) {
+        return sessionOf(programId, sessionId) != null;
+    }
+
+    private GymSessionDto sessionOf(Long programId, Long sessionId) {
+        GymSessionDto session = current().sessions().get(sessionId);
+        return session != null && programId.equals(session.getProgramId()) ? session : null;
+    }
+
+    private static List<GymProgramDto> copies(List<GymProgramDto> programs) {
+        return programs.stream()
+                .map(GymProgramDto::new)
+                .collect(Collectors.toList());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            if (!isFresh(current)) {
+                current = load();
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private boolean isFresh(Snapshot snapshot) {
+        return snapshot != null
+                && snapshot.version() == catalogVersions.version(Aggregate.GYM_PROGRAMS)
+                && System.nanoTime() - snapshot.loadedAt() < maxAgeNanos;
+    }
+
+    private Snapshot load() {
+        // Read the version first: a write committing mid-load leaves the snapshot already stale
+        long version = catalogVersions.version(Aggregate.GYM_PROGRAMS);
+        long loadedAt = System.nanoTime();
+
+        List<GymProgramDto> all = transactionTemplate.execute(status -> {
+            List<GymProgram> programs = gymProgramRepository.findAllWithTrainer();
+            if (!programs.isEmpty()) {
+                gymProgramRepository.fetchSessions(programs);
+            }
+            return programs.stream()
+                    .map(GymProgramDto::new)
+                    .toList();
+        });
+
+        List<GymProgramDto> active = all.stream()
+                .filter(program -> Boolean.TRUE.equals(program.getIsActive()))
+                .toList();
+
+        Map<Long, GymProgramDto> programs = new HashMap<>();
+        Map<Long, GymSessionDto> sessions = new HashMap<>();
+        for (GymProgramDto program : all) {
+            programs.put(program.getId(), program);
+            program.getSessions().forEach(session -> sessions.put(session.getId(), session));
+        }
+
+        log.debug("Gym program snapshot loaded: {} programs, {} active", all.size(), active.size());
+        return new Snapshot(version, loadedAt, all, active, programs, sessions);
+    }
+
+    private record Snapshot(long version, long loadedAt, List<GymProgramDto> all, List<GymProgramDto> active,
+                            Map<Long, GymProgramDto> programs, Map<Long, GymSessionDto> sessions) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.dto.ProductDto;
+import com.sheshape.dto.ProductImageDto;
+import com.sheshape.model.ImageVariant;
+import com.sheshape.model.Product;
+import com.sheshape.model.ProductImage;
+import com.sheshape.service.ImageUploadService;
+import com.sheshape.service.support.EntityIdAllocator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes validated products straight through JDBC batches: one multi-row insert each for
+ * products, categories and images per batch, instead of the per-entity inserts (and
+ * persistence-context growth) a JPA save loop would cost.
+ * Must be called inside a transaction so a failed batch leaves nothing behind.
+ */
+@Component
+public class ProductBatchWriter {
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (id, name, description, price, discount_price, inventory_count, is_active, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CATEGORY =
+            "INSERT INTO product_categories (product_id, category) VALUES (?, ?)";
+
+    private static final String INSERT_IMAGE =
+            "INSERT INTO product_images (id, product_id, image_url, file_key, is_main, position, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_IMAGE_VARIANT =
+            "INSERT INTO product_image_variants (product_image_id, format, width, file_key, url) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityIdAllocator entityIdAllocator;
+    private final ImageUploadService imageUploadService;
+
+    public ProductBatchWriter(JdbcTemplate jdbcTemplate, EntityIdAllocator entityIdAllocator,
+                              ImageUploadService imageUploadService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityIdAllocator = entityIdAllocator;
+        this.imageUploadService = imageUploadService;
+    }
+
+    /**
+     * Insert a batch of products with their categories and images
+     *
+     * @return Product ids, in the order of the input list
+     */
+    public List<Long> insert(List<ProductDto> products) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids = entityIdAllocator.allocate(Product.class, products.size());
+
+        List<Object[]> productRows = new ArrayList<>(products.size());
+        List<Object[]> categoryRows = new ArrayList<>();
+        List<Object[]> imageRows = new ArrayList<>();
+
+        for (int i = 0; i < products.size(); i++) {
+            ProductDto product = products.get(i);
+            Long productId = ids.get(i);
+
+            productRows.add(new Object[]{
+                    productId,
+                    product.getName(),
+                    product.getDescription(),
+                    product.getPrice(),
+                    product.getDiscountPrice(),
+                    product.getInventoryCount(),
+                    product.getIsActive() == null || product.getIsActive(),
+                    now,
+                    now
+            });
+
+            for (String category : product.getCategories()) {
+                categoryRows.add(new Object[]{productId, category});
+            }
+
+            int mainIndex = product.mainImageIndex();
+            for (int position = 0; position < product.getImages().size(); position++) {
+                ProductImageDto image = product.getImages().get(position);
+                imageRows.add(new Object[]{
+                        null,
+                        productId,
+                        image.getImageUrl(),
+                        image.getFileKey(),
+                        position == mainIndex,
+                        image.getPosition() != null ? image.getPosition() : position,
+                        now
+                });
+            }
+        }
+
+        List<Long> imageIds = entityIdAllocator.allocate(ProductImage.class, imageRows.size());
+        Map<String, List<ImageVariant>> variants = imageUploadService.getVariants(
+                imageRows.stream().map(row -> (String) row[3]).collect(Collectors.toList()));
+
+        List<Object[]> variantRows = new ArrayList<>();
+        for (int i = 0; i < imageRows.size(); i++) {
+            Object[] imageRow = imageRows.get(i);
+            imageRow[0] = imageIds.get(i);
+            for (ImageVariant variant : variants.getOrDefault((String) imageRow[3], List.of())) {
+                variantRows.add(new Object[]{imageRow[0], variant.getFormat(), variant.getWidth(),
+                        variant.getFileKey(), variant.getUrl()});
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, productRows);
+        if (!categoryRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CATEGORY, categoryRows);
+        }
+        if (!imageRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, imageRows);
+        }
+        if (!variantRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE_VARIANT, variantRows);
+        }
+
+        return ids;
+    }
+}
@@ -0,0 +1,32 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.exception.BadRequestException;
+
+import java.util.Locale;
+
+public enum ProductImportFormat {
+    CSV,
+    NDJSON;
+
+    /**
+     * Resolve the format from an explicit request parameter, falling back to the file extension
+     */
+    public static ProductImportFormat resolve(String format, String filename) {
+        if (format != null && !format.isBlank()) {
+            try {
+                return valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unsupported import format: " + format);
+            }
+        }
+
+        String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new BadRequestException("Cannot determine import format; pass format=csv or format=ndjson");
+    }
+}
@@ -0,0 +1,91 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.dto.ProductImportStatusDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of one bulk import. Written by the single worker running the import and read by
+ * status requests, so every accessor is synchronized.
+ */
+public class ProductImportJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final ProductImportFormat format;
+    private final String filename;
+    private final int maxErrors;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private Status status = Status.QUEUED;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsFailed;
+    private final List<ProductImportStatusDto.RowError> errors = new ArrayList<>();
+    private String failureMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public ProductImportJob(String id, ProductImportFormat format, String filename, int maxErrors) {
+        this.id = id;
+        this.format = format;
+        this.filename = filename;
+        this.maxErrors = maxErrors;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public synchronized void start() {
+        status = Status.RUNNING;
+        startedAt = LocalDateTime.now();
+    }
+
+    public synchronized void rowRead() {
+        rowsRead++;
+    }
+
+    public synchronized void imported(int count) {
+        rowsImported += count;
+    }
+
+    /**
+     * Count a rejected row; only the first maxErrors messages are kept so a bad file cannot exhaust memory
+     */
+    public synchronized void rowFailed(long lineNumber, String message) {
+        rowsFailed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new ProductImportStatusDto.RowError(lineNumber, message));
+        }
+    }
+
+    public synchronized void complete() {
+        status = Status.COMPLETED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    public synchronized void fail(String message) {
+        status = Status.FAILED;
+        failureMessage = message;
+        finishedAt = LocalDateTime.now();
+    }
+
+    public synchronized boolean isFinishedBefore(LocalDateTime cutoff) {
+        return finishedAt != null && finishedAt.isBefore(cutoff);
+    }
+
+    public synchronized ProductImportStatusDto toDto() {
+        return new ProductImportStatusDto(id, status.name(), format.name(), filename,
+                rowsRead, rowsImported, rowsFailed, new ArrayList<>(errors), failureMessage,
+                createdAt, startedAt, finishedAt);
+    }
+}
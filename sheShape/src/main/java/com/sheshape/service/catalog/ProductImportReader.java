@@ -0,0 +1,220 @@
+package com.sheshape.service.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sheshape.dto.ProductDto;
+import com.sheshape.dto.ProductImageDto;
+import com.sheshape.service.FileStorageService;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Streams products out of an import file one row at a time, so memory use is bounded by the
+ * batch size rather than the file size.
+ * <p>
+ * CSV files need a header row. Recognised columns are name, description, price, discountPrice,
+ * inventoryCount, isActive, categories and images; categories and images are '|'-separated,
+ * and images are storage file keys with the first one becoming the main image.
+ * NDJSON files hold one ProductDto-shaped JSON object per line.
+ */
+public class ProductImportReader implements Closeable {
+
+    private static final String LIST_SEPARATOR = "\\|";
+
+    private final BufferedReader reader;
+    private final ProductImportFormat format;
+    private final ObjectMapper objectMapper;
+    private final FileStorageService fileStorageService;
+
+    private Map<String, Integer> header;
+    private long lineNumber;
+
+    public ProductImportReader(Path file, ProductImportFormat format,
+                               ObjectMapper objectMapper, FileStorageService fileStorageService) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.fileStorageService = fileStorageService;
+    }
+
+    /**
+     * A parsed row; exactly one of product and error is set
+     */
+    public record Row(long lineNumber, ProductDto product, String error) {
+    }
+
+    /**
+     * @return The next non-blank row, or null at end of input
+     */
+    public Row next() throws IOException {
+        return format == ProductImportFormat.CSV ? nextCsv() : nextJson();
+    }
+
+    private Row nextJson() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                return new Row(lineNumber, objectMapper.readValue(line, ProductDto.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        return null;
+    }
+
+    private Row nextCsv() throws IOException {
+        if (header == null) {
+            List<String> names = readRecord();
+            if (names == null) {
+                return null;
+            }
+            header = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                header.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!header.containsKey("name") || !header.containsKey("price") || !header.containsKey("inventorycount")) {
+                throw new IOException("CSV header must contain name, price and inventoryCount columns");
+            }
+        }
+
+        List<String> values;
+        long startLine;
+        do {
+            startLine = lineNumber + 1;
+            values = readRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.get(0).isBlank());
+
+        try {
+            return new Row(startLine, toProduct(values), null);
+        } catch (NumberFormatException e) {
+            return new Row(startLine, null, "Invalid number: " + e.getMessage());
+        }
+    }
+
+    private ProductDto toProduct(List<String> values) {
+        ProductDto product = new ProductDto();
+        product.setName(column(values, "name"));
+        product.setDescription(column(values, "description"));
+        product.setPrice(decimal(column(values, "price")));
+        product.setDiscountPrice(decimal(column(values, "discountprice")));
+
+        String inventory = column(values, "inventorycount");
+        product.setInventoryCount(inventory != null ? Integer.valueOf(inventory) : null);
+
+        String active = column(values, "isactive");
+        product.setIsActive(active != null ? Boolean.valueOf(active) : null);
+
+        String categories = column(values, "categories");
+        if (categories != null) {
+            for (String category : categories.split(LIST_SEPARATOR)) {
+                if (!category.isBlank()) {
+                    product.getCategories().add(category.trim());
+                }
+            }
+        }
+
+        String images = column(values, "images");
+        if (images != null) {
+            for (String fileKey : images.split(LIST_SEPARATOR)) {
+                if (fileKey.isBlank()) {
+                    continue;
+                }
+                ProductImageDto image = new ProductImageDto();
+                image.setFileKey(fileKey.trim());
+                image.setImageUrl(fileStorageService.getFileUrl(fileKey.trim()));
+                image.setPosition(product.getImages().size());
+                image.setMain(product.getImages().isEmpty());
+                product.getImages().add(image);
+            }
+        }
+
+        return product;
+    }
+
+    private String column(List<String> values, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal decimal(String value) {
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    /**
+     * Read one RFC 4180 record; quoted fields may contain separators, escaped quotes and line breaks
+     */
+    private List<String> readRecord() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        lineNumber++;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+
+            if (!quoted) {
+                break;
+            }
+
+            // Quoted field continues on the next physical line
+            line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Unterminated quoted field starting before line " + lineNumber);
+            }
+            lineNumber++;
+            field.append('\n');
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
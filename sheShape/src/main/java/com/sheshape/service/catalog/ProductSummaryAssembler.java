@@ -0,0 +1,61 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.dto.ProductSummaryDto;
+import com.sheshape.model.Product;
+import com.sheshape.model.ProductImage;
+import com.sheshape.repository.ProductImageRepository;
+import com.sheshape.repository.ProductRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Builds listing DTOs for a page of products with a fixed number of queries:
+ * one IN query for categories and one for main images, regardless of page size.
+ */
+@Component
+public class ProductSummaryAssembler {
+
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+
+    public ProductSummaryAssembler(ProductRepository productRepository,
+                                   ProductImageRepository productImageRepository) {
+        this.productRepository = productRepository;
+        this.productImageRepository = productImageRepository;
+    }
+
+    public Page<ProductSummaryDto> toSummaries(Page<Product> products) {
+        return new PageImpl<>(toSummaries(products.getContent()), products.getPageable(), products.getTotalElements());
+    }
+
+    public List<ProductSummaryDto> toSummaries(List<Product> products) {
+        if (products.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> productIds = products.stream()
+                .map(Product::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, Set<String>> categoriesByProduct = new HashMap<>();
+        for (Object[] row : productRepository.findCategoriesByProductIdIn(productIds)) {
+            categoriesByProduct.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+
+        Map<Long, ProductImage> mainImageByProduct = new HashMap<>();
+        for (ProductImage image : productImageRepository.findMainImagesByProductIdIn(productIds)) {
+            mainImageByProduct.putIfAbsent(image.getProduct().getId(), image);
+        }
+
+        return products.stream()
+                .map(product -> new ProductSummaryDto(
+                        product,
+                        categoriesByProduct.get(product.getId()),
+                        mainImageByProduct.get(product.getId())))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,96 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.repository.UserGymProgramRepository;
+import com.sheshape.security.AuthenticatedUser;
+import com.sheshape.service.support.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers "may this user watch this program's videos" with at most one query per user, program and
+ * ttl. Video players issue a range request every few seconds, so the enrollment lookup is cached;
+ * enrollment changes made through GymProgramService invalidate the entry on commit, and anything
+ * else (expiry) is picked up within ttl-seconds.
+ */
+@Component
+public class ProgramEntitlements {
+
+    private final UserGymProgramRepository userGymProgramRepository;
+    private final GymProgramCatalog gymProgramCatalog;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    public ProgramEntitlements(UserGymProgramRepository userGymProgramRepository,
+                               GymProgramCatalog gymProgramCatalog,
+                               @Value("${gym.entitlements.ttl-seconds:60}") long ttlSeconds,
+                               @Value("${gym.entitlements.max-entries:100000}") int maxEntries) {
+        this.userGymProgramRepository = userGymProgramRepository;
+        this.gymProgramCatalog = gymProgramCatalog;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.maxEntries = maxEntries;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("entitlements-"));
+        executor.scheduleWithFixedDelay(this::evictExpired, ttlSeconds, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Admins and the program's trainer always may; everyone else needs an active enrollment
+     */
+    public boolean canWatch(AuthenticatedUser user, Long programId) {
+        if (user.isAdmin()) {
+            return true;
+        }
+        Long trainerId = gymProgramCatalog.findTrainerId(programId).orElse(null);
+        if (user.id().equals(trainerId)) {
+            return true;
+        }
+
+        Key key = new Key(user.id(), programId);
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.checkedAt() < ttlNanos) {
+            return entry.entitled();
+        }
+
+        boolean entitled = userGymProgramRepository.hasActiveEnrollment(user.id(), programId, LocalDateTime.now());
+        if (entries.size() < maxEntries || entries.containsKey(key)) {
+            entries.put(key, new Entry(entitled, now));
+        }
+        return entitled;
+    }
+
+    /**
+     * Forget the cached answer once the current transaction commits
+     */
+    public void invalidate(Long userId, Long programId) {
+        Key key = new Key(userId, programId);
+        AfterCommit.run(() -> entries.remove(key));
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.checkedAt() >= ttlNanos);
+    }
+
+    private record Key(Long userId, Long programId) {
+    }
+
+    private record Entry(boolean entitled, long checkedAt) {
+    }
+}
@@ -0,0 +1,273 @@
+package com.sheshape.service.enrollment;
+
+import com.sheshape.model.CatalogItemType;
+import com.sheshape.model.EnrollmentCount;
+import com.sheshape.repository.EnrollmentCountRepository;
+import com.sheshape.service.support.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Enrollment totals and popularity rankings per gym program and nutrition plan, without counting
+ * rows in the enrollment tables.
+ *
+ * <p>Purchases and status changes only add to striped LongAdders once their transaction commits.
+ * Every flush-interval-seconds the accumulated deltas are added to enrollment_counts in one JDBC
+ * batch and applied to the in-memory totals, re-positioning just the changed items in a sorted
+ * ranking per item type. Readers never lock. Every reload-minutes totals and rankings are reloaded
+ * from the table to pick up other nodes' flushes.
+ */
+@Component
+@Slf4j
+public class EnrollmentCounters {
+
+    private static final String ADD_COUNTS =
+            "INSERT INTO enrollment_counts (item_type, item_id, enrollments, active_enrollments, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "enrollments = enrollments + VALUES(enrollments), " +
+            "active_enrollments = active_enrollments + VALUES(active_enrollments), " +
+            "updated_at = VALUES(updated_at)";
+
+    // Most enrollments first, ties by id so every item has exactly one position
+    private static final Comparator<Position> RANKING = Comparator.comparingLong(Position::enrollments).reversed()
+            .thenComparingLong(Position::itemId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EnrollmentCountRepository enrollmentCountRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Key, Delta> pending = new ConcurrentHashMap<>();
+    // Replaced on reload, otherwise only modified by flush
+    private volatile State state;
+    private final ScheduledExecutorService executor;
+
+    public EnrollmentCounters(JdbcTemplate jdbcTemplate,
+                              EnrollmentCountRepository enrollmentCountRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${enrollment.counts.flush-interval-seconds:10}") long flushIntervalSeconds,
+                              @Value("${enrollment.counts.reload-minutes:10}") long reloadMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enrollmentCountRepository = enrollmentCountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("enrollment-counts-"));
+        executor.scheduleWithFixedDelay(this::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+        executor.scheduleWithFixedDelay(this::reload, reloadMinutes, reloadMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Write out whatever changed since the last scheduled flush
+        flush();
+    }
+
+    /**
+     * Count a new ACTIVE enrollment once the current transaction commits
+     */
+    public void enrolled(CatalogItemType type, Long itemId) {
+        Key key = new Key(type, itemId);
+        AfterCommit.run(() -> {
+            Delta delta = delta(key);
+            delta.enrollments.increment();
+            delta.activeEnrollments.increment();
+        });
+    }
+
+    /**
+     * Adjust the active count for an enrollment moving into or out of ACTIVE, once the current
+     * transaction commits
+     */
+    public void statusChanged(CatalogItemType type, Long itemId, boolean wasActive, boolean isActive) {
+        if (wasActive != isActive) {
+            Key key = new Key(type, itemId);
+            AfterCommit.run(() -> delta(key).activeEnrollments.add(isActive ? 1 : -1));
+        }
+    }
+
+    /**
+     * Remove count enrollments from the active count once the current transaction commits
+     */
+    public void expired(CatalogItemType type, Long itemId, long count) {
+        Key key = new Key(type, itemId);
+        AfterCommit.run(() -> delta(key).activeEnrollments.add(-count));
+    }
+
+    /**
+     * @return Totals as of the last flush, or empty if the item has never been enrolled in
+     */
+    public Optional<Ranked> get(CatalogItemType type, Long itemId) {
+        return Optional.ofNullable(current().totals().get(new Key(type, itemId)));
+    }
+
+    /**
+     * Items by enrollments, most first, as of the last flush. The stream is lazy, so taking the
+     * first few never walks the whole ranking.
+     */
+    public Stream<Ranked> ranking(CatalogItemType type) {
+        State current = current();
+        return current.rankings().get(type).stream()
+                .map(position -> current.totals().get(new Key(type, position.itemId())))
+                .filter(Objects::nonNull);
+    }
+
+    private Delta delta(Key key) {
+        return pending.computeIfAbsent(key, k -> new Delta());
+    }
+
+    private State current() {
+        State current = state;
+        if (current == null) {
+            reload();
+            current = state;
+        }
+        return current;
+    }
+
+    synchronized void flush() {
+        // Entries stay in the map (one per item) so an increment can never land on a removed adder
+        List<Change> changes = new ArrayList<>();
+        pending.forEach((key, delta) -> {
+            long enrollments = delta.enrollments.sumThenReset();
+            long activeEnrollments = delta.activeEnrollments.sumThenReset();
+            if (enrollments != 0 || activeEnrollments != 0) {
+                changes.add(new Change(key, enrollments, activeEnrollments));
+            }
+        });
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = changes.stream()
+                .map(change -> new Object[]{change.key().type().name(), change.key().itemId(),
+                        change.enrollments(), change.activeEnrollments(), now})
+                .toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ADD_COUNTS, rows));
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} enrollment count changes, retrying next flush: {}",
+                    changes.size(), e.getMessage());
+            changes.forEach(change -> {
+                Delta delta = delta(change.key());
+                delta.enrollments.add(change.enrollments());
+                delta.activeEnrollments.add(change.activeEnrollments());
+            });
+            return;
+        }
+
+        State current = state;
+        if (current != null) {
+            changes.forEach(change -> current.apply(change));
+        }
+    }
+
+    synchronized void reload() {
+        try {
+            // Flush first so the reloaded totals include everything counted here
+            flush();
+            State loaded = new State();
+            for (EnrollmentCount count : enrollmentCountRepository.findAll()) {
+                Key key = new Key(count.getKey().getItemType(), count.getKey().getItemId());
+                loaded.apply(new Change(key, count.getEnrollments(), count.getActiveEnrollments()));
+            }
+            state = loaded;
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            log.warn("Failed to reload enrollment counts: {}", e.getMessage());
+            if (state == null) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * An item's totals, which is also its entry in the ranking
+     */
+    public record Ranked(CatalogItemType type, Long itemId, long enrollments, long activeEnrollments) {
+    }
+
+    private record Key(CatalogItemType type, Long itemId) {
+    }
+
+    private record Change(Key key, long enrollments, long activeEnrollments) {
+    }
+
+    private record Position(long enrollments, long itemId) {
+    }
+
+    private static final class Delta {
+        private final LongAdder enrollments = new LongAdder();
+        private final LongAdder activeEnrollments = new LongAdder();
+    }
+
+    private static final class State {
+
+        private final ConcurrentHashMap<Key, Ranked> totals = new ConcurrentHashMap<>();
+        private final Map<CatalogItemType, ConcurrentSkipListSet<Position>> rankings =
+                new EnumMap<>(CatalogItemType.class);
+
+        State() {
+            for (CatalogItemType type : CatalogItemType.values()) {
+                rankings.put(type, new ConcurrentSkipListSet<>(RANKING));
+            }
+        }
+
+        ConcurrentHashMap<Key, Ranked> totals() {
+            return totals;
+        }
+
+        Map<CatalogItemType, ConcurrentSkipListSet<Position>> rankings() {
+            return rankings;
+        }
+
+        /**
+         * Add a change and move the item to its new position. Only called by one thread at a time.
+         */
+        void apply(Change change) {
+            Key key = change.key();
+            Ranked previous = totals.get(key);
+            Ranked updated = new Ranked(key.type(), key.itemId(),
+                    (previous != null ? previous.enrollments() : 0) + change.enrollments(),
+                    (previous != null ? previous.activeEnrollments() : 0) + change.activeEnrollments());
+
+            totals.put(key, updated);
+            if (previous == null || previous.enrollments() != updated.enrollments()) {
+                ConcurrentSkipListSet<Position> ranking = rankings.get(key.type());
+                // Add before removing, so a concurrent reader sees the item at least once
+                ranking.add(new Position(updated.enrollments(), key.itemId()));
+                if (previous != null) {
+                    ranking.remove(new Position(previous.enrollments(), key.itemId()));
+                }
+            }
+        }
+    }
+}
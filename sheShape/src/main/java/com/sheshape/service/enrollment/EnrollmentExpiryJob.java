@@ -0,0 +1,167 @@
+package com.sheshape.service.enrollment;
+
+import com.sheshape.model.CatalogItemType;
+import com.sheshape.service.support.DatabaseLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks gym program and nutrition plan enrollments EXPIRED once their expiry date has passed.
+ *
+ * <p>Rows are flipped in chunks of at most batch-size, driven by the (status, expiry_date) index:
+ * each chunk locks its rows with SELECT ... FOR UPDATE (which also tells EnrollmentCounters which
+ * items lose active enrollments) and flips them with one UPDATE ... WHERE id IN, in its own short
+ * transaction. A MySQL named lock makes sure only one node runs the job at a time; the others skip
+ * that round.
+ */
+@Component
+@Slf4j
+public class EnrollmentExpiryJob {
+
+    private static final String LOCK_NAME = "sheshape.enrollment-expiry";
+
+    private static final Table GYM_PROGRAMS =
+            new Table(CatalogItemType.GYM_PROGRAM, "user_gym_programs", "program_id");
+    private static final Table NUTRITION_PLANS =
+            new Table(CatalogItemType.NUTRITION_PLAN, "user_nutrition_plans", "plan_id");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DatabaseLock databaseLock;
+    private final EnrollmentCounters enrollmentCounters;
+    private final int batchSize;
+
+    private final Counter gymProgramsExpired;
+    private final Counter nutritionPlansExpired;
+    private final Counter runsSkipped;
+    private final Timer runTimer;
+    private final ScheduledExecutorService executor;
+
+    public EnrollmentExpiryJob(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               DatabaseLock databaseLock,
+                               EnrollmentCounters enrollmentCounters,
+                               MeterRegistry meterRegistry,
+                               @Value("${enrollment.expiry.enabled:true}") boolean enabled,
+                               @Value("${enrollment.expiry.interval-seconds:300}") long intervalSeconds,
+                               @Value("${enrollment.expiry.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.databaseLock = databaseLock;
+        this.enrollmentCounters = enrollmentCounters;
+        this.batchSize = batchSize;
+
+        this.gymProgramsExpired = Counter.builder("enrollment.expired")
+                .description("Enrollments marked expired")
+                .tag("type", "gym_program")
+                .register(meterRegistry);
+        this.nutritionPlansExpired = Counter.builder("enrollment.expired")
+                .description("Enrollments marked expired")
+                .tag("type", "nutrition_plan")
+                .register(meterRegistry);
+        this.runsSkipped = Counter.builder("enrollment.expiry.skipped")
+                .description("Expiry runs skipped because another node held the lock")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("enrollment.expiry.duration")
+                .description("Time taken by expiry runs")
+                .register(meterRegistry);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("enrollment-expiry-"));
+        if (enabled) {
+            executor.scheduleWithFixedDelay(this::runSafely, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            if (!databaseLock.runExclusively(LOCK_NAME, () -> runTimer.record(this::expireAll))) {
+                runsSkipped.increment();
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            log.error("Enrollment expiry run failed", e);
+        }
+    }
+
+    void expireAll() {
+        // One cut-off for the whole run, so chunks don't chase rows expiring while it runs
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int gymPrograms = expire(GYM_PROGRAMS, now);
+        gymProgramsExpired.increment(gymPrograms);
+        int nutritionPlans = expire(NUTRITION_PLANS, now);
+        nutritionPlansExpired.increment(nutritionPlans);
+
+        if (gymPrograms > 0 || nutritionPlans > 0) {
+            log.info("Expired {} gym program and {} nutrition plan enrollments", gymPrograms, nutritionPlans);
+        }
+    }
+
+    private int expire(Table table, Timestamp now) {
+        int total = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> expireChunk(table, now));
+            total += updated;
+        } while (updated == batchSize);
+        return total;
+    }
+
+    private int expireChunk(Table table, Timestamp now) {
+        List<Long> ids = new ArrayList<>();
+        Map<Long, Long> expiredPerItem = new HashMap<>();
+        jdbcTemplate.query(table.selectExpired(), (RowCallbackHandler) rs -> {
+            ids.add(rs.getLong(1));
+            expiredPerItem.merge(rs.getLong(2), 1L, Long::sum);
+        }, now, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(now);
+        args.addAll(ids);
+        jdbcTemplate.update(table.expireByIds(placeholders), args.toArray());
+
+        expiredPerItem.forEach((itemId, count) -> enrollmentCounters.expired(table.type(), itemId, count));
+        return ids.size();
+    }
+
+    private record Table(CatalogItemType type, String name, String itemColumn) {
+
+        String selectExpired() {
+            return "SELECT id, " + itemColumn + " FROM " + name +
+                    " WHERE status = 'ACTIVE' AND expiry_date < ? ORDER BY expiry_date LIMIT ? FOR UPDATE";
+        }
+
+        String expireByIds(String placeholders) {
+            return "UPDATE " + name + " SET status = 'EXPIRED', updated_at = ? WHERE id IN (" + placeholders + ")";
+        }
+    }
+}
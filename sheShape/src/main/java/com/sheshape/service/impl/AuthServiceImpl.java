@@ -13,14 +13,18 @@ import com.sheshape.repository.AuthorityRepository;
 import com.sheshape.repository.profile.ProfileRepository;
 import com.sheshape.repository.UserRepository;
 import com.sheshape.security.JwtUtil;
+import com.sheshape.security.SecurityUser;
+import com.sheshape.security.TokenRevocationStore;
+import com.sheshape.security.TokenVersionStore;
+import com.sheshape.security.VerifiedToken;
 import com.sheshape.service.AuthService;
+import io.jsonwebtoken.JwtException;
 import jakarta.transaction.Transactional;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -37,6 +41,8 @@ public class AuthServiceImpl implements AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final TokenVersionStore tokenVersionStore;
+    private final TokenRevocationStore tokenRevocationStore;
 
     public AuthServiceImpl(
             UserRepository userRepository,
@@ -44,13 +50,17 @@ public class AuthServiceImpl implements AuthService {
             AuthorityRepository authorityRepository,
             PasswordEncoder passwordEncoder,
             AuthenticationManager authenticationManager,
-            JwtUtil jwtUtil) {
+            JwtUtil jwtUtil,
+            TokenVersionStore tokenVersionStore,
+            TokenRevocationStore tokenRevocationStore) {
         this.userRepository = userRepository;
         this.profileRepository = profileRepository;
         this.authorityRepository = authorityRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.tokenVersionStore = tokenVersionStore;
+        this.tokenRevocationStore = tokenRevocationStore;
     }
 
     @Override
@@ -121,7 +131,7 @@ public class AuthServiceImpl implements AuthService {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        SecurityUser userDetails = (SecurityUser) authentication.getPrincipal();
         
         String jwt = jwtUtil.generateToken(userDetails);
         
@@ -144,9 +154,18 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public void logout(String token) {
-        // In a real implementation, you might want to blacklist the token
-        // or remove it from a token store
-        // This is a simple implementation
+        if (token == null) {
+            return;
+        }
+
+        VerifiedToken verified;
+        try {
+            verified = jwtUtil.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Invalid or already expired; nothing to revoke
+            return;
+        }
+        tokenRevocationStore.revoke(verified.tokenId(), verified.expiresAt());
     }
 
     @Override
@@ -162,6 +181,9 @@ public class AuthServiceImpl implements AuthService {
         
         // Update to new password
         user.setPassword(passwordEncoder.encode(newPassword));
+
+        // Sessions elsewhere must sign in again with the new password
+        tokenVersionStore.revokeTokens(user);
         
         User updatedUser = userRepository.save(user);
         
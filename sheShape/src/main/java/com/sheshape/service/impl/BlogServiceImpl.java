@@ -6,13 +6,16 @@ import com.sheshape.model.BlogPost;
 import com.sheshape.model.User;
 import com.sheshape.repository.BlogPostRepository;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.service.BlogService;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.ImageUploadService;
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -24,10 +27,18 @@ public class BlogServiceImpl implements BlogService {
 
     private final BlogPostRepository blogPostRepository;
     private final UserRepository userRepository;
+    private final CatalogVersions catalogVersions;
+    private final ImageUploadService imageUploadService;
+    private final FileStorageService fileStorageService;
 
-    public BlogServiceImpl(BlogPostRepository blogPostRepository, UserRepository userRepository) {
+    public BlogServiceImpl(BlogPostRepository blogPostRepository, UserRepository userRepository,
+                           CatalogVersions catalogVersions, ImageUploadService imageUploadService,
+                           FileStorageService fileStorageService) {
         this.blogPostRepository = blogPostRepository;
         this.userRepository = userRepository;
+        this.catalogVersions = catalogVersions;
+        this.imageUploadService = imageUploadService;
+        this.fileStorageService = fileStorageService;
     }
 
     @Override
@@ -43,19 +54,15 @@ public class BlogServiceImpl implements BlogService {
     }
 
     @Override
-    public BlogPostDto getPostById(Long id) {
+    public BlogPostDto getPostById(Long id, AuthenticatedUser currentUser) {
         BlogPost post = blogPostRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
 
         // If post is not published, only author or admin can see it
         if (!post.getIsPublished()) {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User currentUser = userRepository.findByEmail(authentication.getName())
-                    .orElse(null);
-
             if (currentUser == null ||
-                    (!post.getAuthor().getId().equals(currentUser.getId()) &&
-                            currentUser.getRole() != User.Role.ADMIN)) {
+                    (!post.getAuthor().getId().equals(currentUser.id()) &&
+                            !currentUser.isAdmin())) {
                 throw new AccessDeniedException("You do not have permission to view this post");
             }
         }
@@ -84,16 +91,11 @@ public class BlogServiceImpl implements BlogService {
 
     @Override
     @Transactional
-    public BlogPostDto createPost(BlogPostDto blogPostDto) {
-        // Get current user as author
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User author = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
+    public BlogPostDto createPost(BlogPostDto blogPostDto, AuthenticatedUser currentUser) {
         // Ensure the user is an admin, trainer, or nutritionist
-        if (author.getRole() != User.Role.ADMIN &&
-                author.getRole() != User.Role.TRAINER &&
-                author.getRole() != User.Role.NUTRITIONIST) {
+        if (!currentUser.isAdmin() &&
+                !currentUser.hasRole(User.Role.TRAINER) &&
+                !currentUser.hasRole(User.Role.NUTRITIONIST)) {
             throw new AccessDeniedException("You do not have permission to create blog posts");
         }
 
@@ -102,33 +104,30 @@ public class BlogServiceImpl implements BlogService {
         post.setTitle(blogPostDto.getTitle());
         post.setContent(blogPostDto.getContent());
         post.setImageUrl(blogPostDto.getImageUrl());
+        post.setImageVariants(imageUploadService.getVariantsByUrl(blogPostDto.getImageUrl()));
         post.setCategory(blogPostDto.getCategory());
         post.setIsPublished(blogPostDto.getIsPublished() != null ? blogPostDto.getIsPublished() : false);
-        post.setAuthor(author);
+        post.setAuthor(userRepository.getReferenceById(currentUser.id()));
 
         if (Boolean.TRUE.equals(post.getIsPublished())) {
             post.setPublishedAt(LocalDateTime.now());
         }
 
         BlogPost savedPost = blogPostRepository.save(post);
+        catalogVersions.bump(Aggregate.BLOG);
 
         return new BlogPostDto(savedPost);
     }
 
     @Override
     @Transactional
-    public BlogPostDto updatePost(Long id, BlogPostDto blogPostDto) {
+    public BlogPostDto updatePost(Long id, BlogPostDto blogPostDto, AuthenticatedUser currentUser) {
         BlogPost post = blogPostRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
 
-        // Get current user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         // Ensure the user is the author or an admin
-        if (!post.getAuthor().getId().equals(currentUser.getId()) &&
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!post.getAuthor().getId().equals(currentUser.id()) &&
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You do not have permission to update this post");
         }
 
@@ -141,8 +140,11 @@ public class BlogServiceImpl implements BlogService {
             post.setContent(blogPostDto.getContent());
         }
 
-        if (blogPostDto.getImageUrl() != null) {
+        String replacedImageUrl = null;
+        if (blogPostDto.getImageUrl() != null && !blogPostDto.getImageUrl().equals(post.getImageUrl())) {
+            replacedImageUrl = post.getImageUrl();
             post.setImageUrl(blogPostDto.getImageUrl());
+            post.setImageVariants(imageUploadService.getVariantsByUrl(blogPostDto.getImageUrl()));
         }
 
         if (blogPostDto.getCategory() != null) {
@@ -160,24 +162,21 @@ public class BlogServiceImpl implements BlogService {
         }
 
         BlogPost updatedPost = blogPostRepository.save(post);
+        releaseImage(replacedImageUrl);
+        catalogVersions.bump(Aggregate.BLOG);
 
         return new BlogPostDto(updatedPost);
     }
 
     @Override
     @Transactional
-    public BlogPostDto publishPost(Long id) {
+    public BlogPostDto publishPost(Long id, AuthenticatedUser currentUser) {
         BlogPost post = blogPostRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
 
-        // Get current user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         // Ensure the user is the author or an admin
-        if (!post.getAuthor().getId().equals(currentUser.getId()) &&
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!post.getAuthor().getId().equals(currentUser.id()) &&
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You do not have permission to publish this post");
         }
 
@@ -185,51 +184,52 @@ public class BlogServiceImpl implements BlogService {
         post.setPublishedAt(LocalDateTime.now());
 
         BlogPost publishedPost = blogPostRepository.save(post);
+        catalogVersions.bump(Aggregate.BLOG);
 
         return new BlogPostDto(publishedPost);
     }
 
     @Override
     @Transactional
-    public BlogPostDto unpublishPost(Long id) {
+    public BlogPostDto unpublishPost(Long id, AuthenticatedUser currentUser) {
         BlogPost post = blogPostRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
 
-        // Get current user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         // Ensure the user is the author or an admin
-        if (!post.getAuthor().getId().equals(currentUser.getId()) &&
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!post.getAuthor().getId().equals(currentUser.id()) &&
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You do not have permission to unpublish this post");
         }
 
         post.setIsPublished(false);
 
         BlogPost unpublishedPost = blogPostRepository.save(post);
+        catalogVersions.bump(Aggregate.BLOG);
 
         return new BlogPostDto(unpublishedPost);
     }
 
     @Override
     @Transactional
-    public void deletePost(Long id) {
+    public void deletePost(Long id, AuthenticatedUser currentUser) {
         BlogPost post = blogPostRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
 
-        // Get current user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         // Ensure the user is the author or an admin
-        if (!post.getAuthor().getId().equals(currentUser.getId()) &&
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!post.getAuthor().getId().equals(currentUser.id()) &&
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You do not have permission to delete this post");
         }
 
         blogPostRepository.delete(post);
+        releaseImage(post.getImageUrl());
+        catalogVersions.bump(Aggregate.BLOG);
+    }
+
+    // Drop the post's reference to its image; the file goes once nothing else holds it
+    private void releaseImage(String imageUrl) {
+        if (imageUrl != null) {
+            imageUploadService.release(fileStorageService.getFileKey(imageUrl));
+        }
     }
 }
\ No newline at end of file
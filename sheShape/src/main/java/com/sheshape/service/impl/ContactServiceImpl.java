@@ -6,9 +6,9 @@ import com.sheshape.dto.FAQDto;
 import com.sheshape.model.FAQ;
 import com.sheshape.repository.FAQRepository;
 import com.sheshape.service.ContactService;
+import com.sheshape.service.mail.MailOutbox;
 import lombok.RequiredArgsConstructor;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,12 +17,12 @@ import java.util.stream.Collectors;
 @Service
 public class ContactServiceImpl implements ContactService {
 
-    private final JavaMailSender mailSender;
+    private final MailOutbox mailOutbox;
     private final FAQRepository faqRepository;
     private final String supportEmail = "support@sheshape.com";
 
-    public ContactServiceImpl(JavaMailSender mailSender, FAQRepository faqRepository) {
-        this.mailSender = mailSender;
+    public ContactServiceImpl(MailOutbox mailOutbox, FAQRepository faqRepository) {
+        this.mailOutbox = mailOutbox;
         this.faqRepository = faqRepository;
     }
 
@@ -39,7 +39,7 @@ public class ContactServiceImpl implements ContactService {
             "Message: \n" + contactForm.getMessage()
         );
 
-        mailSender.send(message);
+        mailOutbox.send(message);
 
         // Create and send confirmation email to the user
         SimpleMailMessage confirmationMessage = new SimpleMailMessage();
@@ -54,7 +54,7 @@ public class ContactServiceImpl implements ContactService {
             "The SheShape Team"
         );
 
-        mailSender.send(confirmationMessage);
+        mailOutbox.send(confirmationMessage);
 
         // Here you might also want to save the contact form to a database
         // for record keeping or further processing
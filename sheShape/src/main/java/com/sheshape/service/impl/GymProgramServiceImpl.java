@@ -1,59 +1,137 @@
 package com.sheshape.service.impl;
 
 import com.sheshape.dto.GymProgramDto;
+import com.sheshape.dto.GymProgramPageDto;
+import com.sheshape.dto.GymProgramSummaryDto;
 import com.sheshape.dto.GymSessionDto;
+import com.sheshape.dto.PopularItemDto;
 import com.sheshape.dto.UserGymProgramDto;
+import com.sheshape.dto.WatchProgressDto;
 import com.sheshape.exception.BadRequestException;
 import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.model.CatalogItemType;
 import com.sheshape.model.GymProgram;
 import com.sheshape.model.GymSession;
+import com.sheshape.model.SessionProgress;
 import com.sheshape.model.User;
 import com.sheshape.model.UserGymProgram;
 import com.sheshape.repository.GymProgramRepository;
+import com.sheshape.repository.GymProgramRepositoryCustom;
 import com.sheshape.repository.GymSessionRepository;
+import com.sheshape.repository.SessionProgressRepository;
 import com.sheshape.repository.UserGymProgramRepository;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.service.GymProgramService;
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
+import com.sheshape.service.catalog.GymProgramCatalog;
+import com.sheshape.service.catalog.ProgramEntitlements;
+import com.sheshape.service.enrollment.EnrollmentCounters;
+import com.sheshape.service.progress.WatchProgressBuffer;
+import com.sheshape.service.recommendation.RecommendationEngine;
+import com.sheshape.service.recommendation.RecommendationEngine.ItemRef;
 import jakarta.transaction.Transactional;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class GymProgramServiceImpl implements GymProgramService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final GymProgramRepository gymProgramRepository;
     private final GymSessionRepository gymSessionRepository;
     private final UserRepository userRepository;
     private final UserGymProgramRepository userGymProgramRepository;
+    private final CatalogVersions catalogVersions;
+    private final GymProgramCatalog gymProgramCatalog;
+    private final SessionProgressRepository sessionProgressRepository;
+    private final WatchProgressBuffer watchProgressBuffer;
+    private final ProgramEntitlements programEntitlements;
+    private final RecommendationEngine recommendationEngine;
+    private final EnrollmentCounters enrollmentCounters;
 
     public GymProgramServiceImpl(
             GymProgramRepository gymProgramRepository,
             GymSessionRepository gymSessionRepository,
             UserRepository userRepository,
-            UserGymProgramRepository userGymProgramRepository) {
+            UserGymProgramRepository userGymProgramRepository,
+            CatalogVersions catalogVersions,
+            GymProgramCatalog gymProgramCatalog,
+            SessionProgressRepository sessionProgressRepository,
+            WatchProgressBuffer watchProgressBuffer,
+            ProgramEntitlements programEntitlements,
+            RecommendationEngine recommendationEngine,
+            EnrollmentCounters enrollmentCounters) {
         this.gymProgramRepository = gymProgramRepository;
         this.gymSessionRepository = gymSessionRepository;
         this.userRepository = userRepository;
         this.userGymProgramRepository = userGymProgramRepository;
+        this.catalogVersions = catalogVersions;
+        this.gymProgramCatalog = gymProgramCatalog;
+        this.sessionProgressRepository = sessionProgressRepository;
+        this.watchProgressBuffer = watchProgressBuffer;
+        this.programEntitlements = programEntitlements;
+        this.recommendationEngine = recommendationEngine;
+        this.enrollmentCounters = enrollmentCounters;
     }
 
     @Override
     public List<GymProgramDto> getAllGymPrograms() {
-        return gymProgramRepository.findAll().stream()
-                .map(GymProgramDto::new)
-                .collect(Collectors.toList());
+        return gymProgramCatalog.getAllPrograms();
     }
 
     @Override
     public List<GymProgramDto> getActiveGymPrograms() {
-        return gymProgramRepository.findByIsActiveTrue().stream()
-                .map(GymProgramDto::new)
-                .collect(Collectors.toList());
+        return gymProgramCatalog.getActivePrograms();
+    }
+
+    @Override
+    public GymProgramPageDto getActiveGymProgramPage(GymProgramRepositoryCustom.Filter filter, Long afterId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (filter.minPrice() != null && filter.maxPrice() != null && filter.minPrice().compareTo(filter.maxPrice()) > 0) {
+            throw new BadRequestException("minPrice cannot be greater than maxPrice");
+        }
+        if (filter.minDurationDays() != null && filter.maxDurationDays() != null
+                && filter.minDurationDays() > filter.maxDurationDays()) {
+            throw new BadRequestException("minDurationDays cannot be greater than maxDurationDays");
+        }
+
+        // One extra row tells whether another page follows
+        List<Object[]> rows = gymProgramRepository.findActiveSummaries(filter, afterId, size + 1);
+        boolean hasMore = rows.size() > size;
+
+        List<GymProgramSummaryDto> programs = new ArrayList<>(Math.min(rows.size(), size));
+        for (Object[] row : rows.subList(0, Math.min(rows.size(), size))) {
+            programs.add(new GymProgramSummaryDto(
+                    (Long) row[0],
+                    (String) row[1],
+                    (String) row[2],
+                    ((GymProgram.DifficultyLevel) row[3]).name(),
+                    (Integer) row[4],
+                    (BigDecimal) row[5],
+                    (Long) row[6],
+                    (String) row[7],
+                    ((Number) row[9]).longValue(),
+                    ((Number) row[10]).longValue(),
+                    (LocalDateTime) row[8]));
+        }
+
+        Long nextCursor = hasMore ? programs.get(programs.size() - 1).getId() : null;
+        return new GymProgramPageDto(programs, nextCursor);
     }
 
     @Override
@@ -73,14 +151,9 @@ public class GymProgramServiceImpl implements GymProgramService {
 
     @Override
     @Transactional
-    public GymProgramDto createGymProgram(GymProgramDto gymProgramDto) {
-        // Get current authenticated user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User trainer = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
+    public GymProgramDto createGymProgram(GymProgramDto gymProgramDto, AuthenticatedUser currentUser) {
         // Ensure the user is a trainer
-        if (trainer.getRole() != User.Role.TRAINER && trainer.getRole() != User.Role.ADMIN) {
+        if (!currentUser.hasRole(User.Role.TRAINER) && !currentUser.isAdmin()) {
             throw new AccessDeniedException("Only trainers can create gym programs");
         }
 
@@ -99,27 +172,23 @@ public class GymProgramServiceImpl implements GymProgramService {
         program.setDurationDays(gymProgramDto.getDurationDays());
         program.setPrice(gymProgramDto.getPrice());
         program.setIsActive(gymProgramDto.getIsActive() != null ? gymProgramDto.getIsActive() : true);
-        program.setTrainer(trainer);
+        program.setTrainer(userRepository.getReferenceById(currentUser.id()));
 
         GymProgram savedProgram = gymProgramRepository.save(program);
+        catalogVersions.bump(Aggregate.GYM_PROGRAMS);
 
         return new GymProgramDto(savedProgram);
     }
 
     @Override
     @Transactional
-    public GymProgramDto updateGymProgram(Long id, GymProgramDto gymProgramDto) {
+    public GymProgramDto updateGymProgram(Long id, GymProgramDto gymProgramDto, AuthenticatedUser currentUser) {
         GymProgram program = gymProgramRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Gym program not found with id: " + id));
 
-        // Get current authenticated user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         // Ensure the user is the trainer who created the program or an admin
-        if (!program.getTrainer().getId().equals(currentUser.getId()) &&
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!program.getTrainer().getId().equals(currentUser.id()) &&
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You cannot update this gym program");
         }
 
@@ -153,24 +222,20 @@ public class GymProgramServiceImpl implements GymProgramService {
         }
 
         GymProgram updatedProgram = gymProgramRepository.save(program);
+        catalogVersions.bump(Aggregate.GYM_PROGRAMS);
 
         return new GymProgramDto(updatedProgram);
     }
 
     @Override
     @Transactional
-    public void deleteGymProgram(Long id) {
+    public void deleteGymProgram(Long id, AuthenticatedUser currentUser) {
         GymProgram program = gymProgramRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Gym program not found with id: " + id));
 
-        // Get current authenticated user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         // Ensure the user is the trainer who created the program or an admin
-        if (!program.getTrainer().getId().equals(currentUser.getId()) &&
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!program.getTrainer().getId().equals(currentUser.id()) &&
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You cannot delete this gym program");
         }
 
@@ -183,6 +248,7 @@ public class GymProgramServiceImpl implements GymProgramService {
         }
 
         gymProgramRepository.delete(program);
+        catalogVersions.bump(Aggregate.GYM_PROGRAMS);
     }
 
     @Override
@@ -201,19 +267,34 @@ public class GymProgramServiceImpl implements GymProgramService {
     }
 
     @Override
-    @Transactional
-    public GymSessionDto createSession(Long programId, GymSessionDto sessionDto) {
+    public Map<Long, String> getSessionVideoUrls(Long programId, AuthenticatedUser currentUser) {
         GymProgram program = gymProgramRepository.findById(programId)
                 .orElseThrow(() -> new ResourceNotFoundException("Gym program not found with id: " + programId));
 
-        // Get current authenticated user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        // Ensure the user is the trainer who created the program or an admin
+        if (!program.getTrainer().getId().equals(currentUser.id()) &&
+                !currentUser.isAdmin()) {
+            throw new AccessDeniedException("You cannot manage sessions of this gym program");
+        }
+
+        Map<Long, String> videoUrls = new HashMap<>();
+        for (GymSession session : gymSessionRepository.findByProgramIdOrderBySessionOrderAsc(programId)) {
+            if (session.getVideoUrl() != null) {
+                videoUrls.put(session.getId(), session.getVideoUrl());
+            }
+        }
+        return videoUrls;
+    }
+
+    @Override
+    @Transactional
+    public GymSessionDto createSession(Long programId, GymSessionDto sessionDto, AuthenticatedUser currentUser) {
+        GymProgram program = gymProgramRepository.findById(programId)
+                .orElseThrow(() -> new ResourceNotFoundException("Gym program not found with id: " + programId));
 
         // Ensure the user is the trainer who created the program or an admin
-        if (!program.getTrainer().getId().equals(currentUser.getId()) &&
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!program.getTrainer().getId().equals(currentUser.id()) &&
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You cannot add sessions to this gym program");
         }
 
@@ -227,24 +308,20 @@ public class GymProgramServiceImpl implements GymProgramService {
         session.setProgram(program);
 
         GymSession savedSession = gymSessionRepository.save(session);
+        catalogVersions.bump(Aggregate.GYM_PROGRAMS);
 
         return new GymSessionDto(savedSession);
     }
 
     @Override
     @Transactional
-    public GymSessionDto updateSession(Long sessionId, GymSessionDto sessionDto) {
+    public GymSessionDto updateSession(Long sessionId, GymSessionDto sessionDto, AuthenticatedUser currentUser) {
         GymSession session = gymSessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Gym session not found with id: " + sessionId));
 
-        // Get current authenticated user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         // Ensure the user is the trainer who created the program or an admin
-        if (!session.getProgram().getTrainer().getId().equals(currentUser.getId()) &&
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!session.getProgram().getTrainer().getId().equals(currentUser.id()) &&
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You cannot update this gym session");
         }
 
@@ -270,28 +347,25 @@ public class GymProgramServiceImpl implements GymProgramService {
         }
 
         GymSession updatedSession = gymSessionRepository.save(session);
+        catalogVersions.bump(Aggregate.GYM_PROGRAMS);
 
         return new GymSessionDto(updatedSession);
     }
 
     @Override
     @Transactional
-    public void deleteSession(Long sessionId) {
+    public void deleteSession(Long sessionId, AuthenticatedUser currentUser) {
         GymSession session = gymSessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Gym session not found with id: " + sessionId));
 
-        // Get current authenticated user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         // Ensure the user is the trainer who created the program or an admin
-        if (!session.getProgram().getTrainer().getId().equals(currentUser.getId()) &&
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!session.getProgram().getTrainer().getId().equals(currentUser.id()) &&
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You cannot delete this gym session");
         }
 
         gymSessionRepository.delete(session);
+        catalogVersions.bump(Aggregate.GYM_PROGRAMS);
     }
 
     @Override
@@ -308,6 +382,27 @@ public class GymProgramServiceImpl implements GymProgramService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<PopularItemDto> getPopularGymPrograms(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        List<PopularItemDto> popular = new ArrayList<>(limit);
+        enrollmentCounters.ranking(CatalogItemType.GYM_PROGRAM)
+                .map(ranked -> gymProgramCatalog.findProgram(ranked.itemId())
+                        .filter(program -> Boolean.TRUE.equals(program.getIsActive()))
+                        .map(program -> new PopularItemDto(null, program.getId(), program.getTitle(),
+                                ranked.enrollments(), ranked.activeEnrollments())))
+                .flatMap(Optional::stream)
+                .limit(limit)
+                .forEach(item -> {
+                    item.setRank(popular.size() + 1);
+                    popular.add(item);
+                });
+        return popular;
+    }
+
     @Override
     @Transactional
     public UserGymProgramDto purchaseGymProgram(Long userId, Long programId) {
@@ -342,6 +437,9 @@ public class GymProgramServiceImpl implements GymProgramService {
         userProgram.setStatus(UserGymProgram.Status.ACTIVE);
 
         UserGymProgram savedUserProgram = userGymProgramRepository.save(userProgram);
+        programEntitlements.invalidate(userId, programId);
+        recommendationEngine.enrolled(userId, new ItemRef(CatalogItemType.GYM_PROGRAM, programId));
+        enrollmentCounters.enrolled(CatalogItemType.GYM_PROGRAM, programId);
 
         return new UserGymProgramDto(savedUserProgram);
     }
@@ -354,6 +452,7 @@ public class GymProgramServiceImpl implements GymProgramService {
                         "User-program association not found for user id: " + userId + " and program id: " + programId));
 
         // Update status
+        UserGymProgram.Status previousStatus = userProgram.getStatus();
         try {
             UserGymProgram.Status newStatus = UserGymProgram.Status.valueOf(status.toUpperCase());
             userProgram.setStatus(newStatus);
@@ -362,6 +461,10 @@ public class GymProgramServiceImpl implements GymProgramService {
         }
 
         UserGymProgram updatedUserProgram = userGymProgramRepository.save(userProgram);
+        programEntitlements.invalidate(userId, programId);
+        enrollmentCounters.statusChanged(CatalogItemType.GYM_PROGRAM, programId,
+                previousStatus == UserGymProgram.Status.ACTIVE,
+                updatedUserProgram.getStatus() == UserGymProgram.Status.ACTIVE);
 
         return new UserGymProgramDto(updatedUserProgram);
     }
@@ -389,4 +492,32 @@ public class GymProgramServiceImpl implements GymProgramService {
 
         return new UserGymProgramDto(updatedUserProgram);
     }
+
+    @Override
+    public void recordWatchProgress(Long userId, Long programId, Long sessionId, WatchProgressDto progress) {
+        // Checked against the program snapshot; enrollment is checked when the buffer is written out
+        if (!gymProgramCatalog.containsSession(programId, sessionId)) {
+            throw new ResourceNotFoundException(
+                    "Gym session not found with id: " + sessionId + " in program id: " + programId);
+        }
+
+        watchProgressBuffer.record(userId, programId, sessionId,
+                progress.getPositionSeconds(), progress.getPercentComplete());
+    }
+
+    @Override
+    public List<WatchProgressDto> getWatchProgress(Long userId, Long programId) {
+        Map<Long, WatchProgressDto> progress = new HashMap<>();
+        for (SessionProgress row : sessionProgressRepository.findByUserIdAndProgramId(userId, programId)) {
+            progress.put(row.getKey().getSessionId(), new WatchProgressDto(programId, row.getKey().getSessionId(),
+                    row.getPositionSeconds(), row.getPercentComplete(), row.getUpdatedAt()));
+        }
+
+        // Heartbeats not yet written are newer than what the table holds
+        progress.putAll(watchProgressBuffer.pendingFor(userId, programId));
+
+        return progress.values().stream()
+                .sorted(Comparator.comparing(WatchProgressDto::getSessionId))
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,333 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.dto.PresignedUploadDto;
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.exception.ServiceUnavailableException;
+import com.sheshape.model.ImageUpload;
+import com.sheshape.model.ImageVariant;
+import com.sheshape.repository.ImageUploadRepository;
+import com.sheshape.repository.StoredContentRepository;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.ImageUploadService;
+import com.sheshape.service.media.ImageResizer;
+import com.sheshape.service.media.ImageVariantPipeline;
+import com.sheshape.service.media.UploadPurpose;
+import com.sheshape.service.support.AfterCommit;
+import com.sheshape.service.support.AfterRollback;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+@Slf4j
+public class ImageUploadServiceImpl implements ImageUploadService {
+
+    // Image types that can be uploaded directly, with the extension used for their key
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/gif", ".gif",
+            "image/webp", ".webp");
+
+    private final FileStorageService fileStorageService;
+    private final ImageUploadRepository imageUploadRepository;
+    private final StoredContentRepository storedContentRepository;
+    private final ImageVariantPipeline imageVariantPipeline;
+
+    private final long maxImageBytes;
+    private final long maxProfilePictureBytes;
+    private final long maxImagePixels;
+    private final Duration presignExpiry;
+
+    public ImageUploadServiceImpl(FileStorageService fileStorageService,
+                                  ImageUploadRepository imageUploadRepository,
+                                  StoredContentRepository storedContentRepository,
+                                  ImageVariantPipeline imageVariantPipeline,
+                                  @Value("${media.upload.max-image-bytes:10485760}") long maxImageBytes,
+                                  @Value("${media.upload.max-profile-picture-bytes:5242880}") long maxProfilePictureBytes,
+                                  @Value("${media.upload.max-image-pixels:40000000}") long maxImagePixels,
+                                  @Value("${media.upload.presign-expiry-minutes:10}") long presignExpiryMinutes) {
+        this.fileStorageService = fileStorageService;
+        this.imageUploadRepository = imageUploadRepository;
+        this.storedContentRepository = storedContentRepository;
+        this.imageVariantPipeline = imageVariantPipeline;
+        this.maxImageBytes = maxImageBytes;
+        this.maxProfilePictureBytes = maxProfilePictureBytes;
+        this.maxImagePixels = maxImagePixels;
+        this.presignExpiry = Duration.ofMinutes(presignExpiryMinutes);
+    }
+
+    @Override
+    @Transactional
+    public ImageUpload uploadImage(MultipartFile file, String directory) {
+        if (file.isEmpty()) {
+            throw new BadRequestException("File cannot be empty");
+        }
+
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new BadRequestException("Only image files are allowed");
+        }
+        long maxBytes = UploadPurpose.PROFILE_PICTURE.getDirectory().equals(directory)
+                ? maxProfilePictureBytes
+                : maxImageBytes;
+        if (file.getSize() > maxBytes) {
+            throw new BadRequestException("Image exceeds the maximum size of " + maxBytes + " bytes");
+        }
+
+        // The multipart temp file is removed when the request ends, so the worker gets its own copy.
+        // The content is hashed on the way through, so the upload is read only once.
+        Path source;
+        String contentHash;
+        try {
+            source = Files.createTempFile("image-upload-", null);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, source, StandardCopyOption.REPLACE_EXISTING);
+            }
+            contentHash = HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new BadRequestException("Failed to read uploaded image: " + e.getMessage(), e);
+        }
+
+        // A small file can still decode to a huge bitmap; only the header is read here
+        long pixels;
+        try {
+            pixels = ImageResizer.pixelCount(source);
+        } catch (IOException e) {
+            deleteQuietly(source);
+            throw new BadRequestException("Failed to read uploaded image: " + e.getMessage(), e);
+        }
+        if (pixels > maxImagePixels) {
+            deleteQuietly(source);
+            throw new BadRequestException("Image exceeds the maximum of " + maxImagePixels + " pixels");
+        }
+
+        // Same bytes uploaded before: hand back the stored file and its variants
+        Optional<ImageUpload> existing = storedContentRepository.findById(contentHash)
+                .flatMap(content -> imageUploadRepository.findById(content.getFileKey()))
+                .filter(found -> storedContentRepository.acquire(contentHash) == 1);
+        if (existing.isPresent()) {
+            deleteQuietly(source);
+            return existing.get();
+        }
+
+        String fileKey = directory + contentHash + extension(file.getOriginalFilename());
+        // Registering before storing holds the content's row lock until commit, so a concurrent upload
+        // of the same bytes waits here instead of storing or deleting the file alongside this one
+        if (storedContentRepository.register(contentHash, fileKey, file.getSize()) == 0) {
+            deleteQuietly(source);
+            return acquireRegistered(contentHash);
+        }
+
+        // The pipeline only takes the temp file once this commits, and the stored file is unreferenced
+        AfterRollback.run(() -> {
+            deleteQuietly(source);
+            deleteUnregistered(fileKey);
+        });
+        fileStorageService.uploadFile(fileKey, source, contentType);
+
+        // An upload row left behind without its content entry; the new reference is for it
+        ImageUpload savedUpload = imageUploadRepository.findById(fileKey).orElse(null);
+        if (savedUpload != null) {
+            deleteQuietly(source);
+            return savedUpload;
+        }
+
+        ImageUpload upload = new ImageUpload();
+        upload.setFileKey(fileKey);
+        upload.setUrl(fileStorageService.getFileUrl(fileKey));
+        upload.setContentType(contentType);
+        upload.setSizeBytes(file.getSize());
+        upload.setUploadedBy(currentUsername());
+        savedUpload = imageUploadRepository.save(upload);
+
+        AfterCommit.run(() -> imageVariantPipeline.submit(fileKey, source));
+        return savedUpload;
+    }
+
+    // The same bytes were registered by an upload that committed after this one first looked
+    private ImageUpload acquireRegistered(String contentHash) {
+        return storedContentRepository.findByContentHashForUpdate(contentHash)
+                .flatMap(content -> imageUploadRepository.findByFileKeyForShare(content.getFileKey()))
+                .filter(found -> storedContentRepository.acquire(contentHash) == 1)
+                .orElseThrow(() -> new ServiceUnavailableException(
+                        "The same image is being uploaded or removed concurrently", 1));
+    }
+
+    @Override
+    @Transactional
+    public void release(String fileKey) {
+        if (fileKey == null) {
+            return;
+        }
+
+        // Files stored before de-duplication, and direct uploads, are not shared
+        if (!storedContentRepository.existsByFileKey(fileKey)) {
+            deleteAfterCommit(List.of(fileKey), false);
+            return;
+        }
+
+        storedContentRepository.release(fileKey);
+        if (storedContentRepository.deleteIfUnreferenced(fileKey) == 0) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>();
+        keys.add(fileKey);
+        imageUploadRepository.findById(fileKey).ifPresent(upload -> {
+            upload.getVariants().forEach(variant -> keys.add(variant.getFileKey()));
+            imageUploadRepository.delete(upload);
+        });
+        deleteAfterCommit(keys, true);
+    }
+
+    @Override
+    public PresignedUploadDto presignUpload(UploadPurpose purpose, String contentType, long contentLength) {
+        String extension = EXTENSIONS.get(contentType);
+        if (extension == null) {
+            throw new BadRequestException("Unsupported image type: " + contentType);
+        }
+        if (contentLength > maxBytes(purpose)) {
+            throw new BadRequestException("Image exceeds the maximum size of " + maxBytes(purpose) + " bytes");
+        }
+
+        String fileKey = purpose.getDirectory() + UUID.randomUUID() + extension;
+
+        ImageUpload upload = new ImageUpload();
+        upload.setFileKey(fileKey);
+        upload.setUrl(fileStorageService.getFileUrl(fileKey));
+        upload.setContentType(contentType);
+        upload.setSizeBytes(contentLength);
+        upload.setUploadedBy(currentUsername());
+        upload.setStatus(ImageUpload.Status.AWAITING_UPLOAD);
+        imageUploadRepository.save(upload);
+
+        PresignedUploadDto response = new PresignedUploadDto();
+        response.setFileKey(fileKey);
+        response.setUploadUrl(fileStorageService.presignUpload(fileKey, contentType, contentLength, presignExpiry));
+        response.getHeaders().put("Content-Type", contentType);
+        response.setExpiresAt(LocalDateTime.now().plus(presignExpiry));
+        return response;
+    }
+
+    @Override
+    @Transactional(dontRollbackOn = BadRequestException.class)
+    public ImageUpload completeUpload(String fileKey, UploadPurpose purpose) {
+        ImageUpload upload = imageUploadRepository.findById(fileKey)
+                .filter(found -> Objects.equals(found.getUploadedBy(), currentUsername()))
+                .filter(found -> fileKey.startsWith(purpose.getDirectory()))
+                .orElseThrow(() -> new ResourceNotFoundException("Upload not found with key: " + fileKey));
+
+        // Completing twice is harmless; the client may retry after a timeout
+        if (upload.getStatus() != ImageUpload.Status.AWAITING_UPLOAD) {
+            return upload;
+        }
+
+        FileStorageService.StoredFile stored = fileStorageService.getFileInfo(fileKey)
+                .orElseThrow(() -> new BadRequestException("File has not been uploaded yet"));
+
+        if (stored.size() != upload.getSizeBytes() || !Objects.equals(stored.contentType(), upload.getContentType())) {
+            fileStorageService.deleteFile(fileKey);
+            upload.setStatus(ImageUpload.Status.FAILED);
+            throw new BadRequestException("Uploaded file does not match the requested size and type");
+        }
+
+        upload.setStatus(ImageUpload.Status.PENDING);
+        AfterCommit.run(() -> imageVariantPipeline.submitStored(fileKey));
+        return upload;
+    }
+
+    @Override
+    public Map<String, List<ImageVariant>> getVariants(Collection<String> fileKeys) {
+        Set<String> keys = new HashSet<>(fileKeys);
+        keys.remove(null);
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<String, List<ImageVariant>> variants = new HashMap<>();
+        for (ImageUpload upload : imageUploadRepository.findWithVariantsByFileKeyIn(keys, ImageUpload.Status.READY)) {
+            variants.put(upload.getFileKey(), new ArrayList<>(upload.getVariants()));
+        }
+        return variants;
+    }
+
+    @Override
+    public List<ImageVariant> getVariantsByUrl(String url) {
+        if (url == null) {
+            return new ArrayList<>();
+        }
+        return imageUploadRepository.findFirstByUrl(url)
+                .filter(upload -> upload.getStatus() == ImageUpload.Status.READY)
+                .map(upload -> new ArrayList<>(upload.getVariants()))
+                .orElseGet(ArrayList::new);
+    }
+
+    // Storage deletes can't be rolled back, so they wait for the commit and never fail the caller
+    private void deleteAfterCommit(List<String> keys, boolean shared) {
+        AfterCommit.run(() -> {
+            // Re-uploaded in the meantime; the content is live again
+            if (shared && storedContentRepository.existsByFileKey(keys.get(0))) {
+                return;
+            }
+            try {
+                fileStorageService.deleteFiles(keys);
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete released files {}", keys, e);
+            }
+        });
+    }
+
+    // A later upload of the same bytes may have registered the key again after the rollback
+    private void deleteUnregistered(String fileKey) {
+        try {
+            if (!storedContentRepository.existsByFileKey(fileKey)) {
+                fileStorageService.deleteFile(fileKey);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete file {} stored by a rolled back upload", fileKey, e);
+        }
+    }
+
+    private static String extension(String originalFilename) {
+        if (originalFilename != null && originalFilename.contains(".")) {
+            return originalFilename.substring(originalFilename.lastIndexOf(".")).toLowerCase();
+        }
+        return "";
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}", file, e);
+        }
+    }
+
+    private long maxBytes(UploadPurpose purpose) {
+        return purpose == UploadPurpose.PROFILE_PICTURE ? maxProfilePictureBytes : maxImageBytes;
+    }
+
+    private static String currentUsername() {
+        return SecurityContextHolder.getContext().getAuthentication() != null
+                ? SecurityContextHolder.getContext().getAuthentication().getName()
+                : null;
+    }
+}
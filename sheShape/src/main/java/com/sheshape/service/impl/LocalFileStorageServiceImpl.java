@@ -0,0 +1,543 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.config.ResilienceConfig;
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.service.FileStorageService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Stores files on the local filesystem for deployments without S3. Files are laid out as
+ * {@code <root>/<directory>/<ab>/<cd>/<name>}, where {@code ab/cd} are the first bytes of the
+ * SHA-256 of the name, so no single directory grows unbounded. Keys are never rewritten with
+ * different content, which lets LocalFileController serve them with long cache lifetimes.
+ */
+// Wrapped by ResilientFileStorageService, see ResilienceConfig
+@Service(ResilienceConfig.FILE_STORAGE_BACKEND)
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+@Slf4j
+public class LocalFileStorageServiceImpl implements FileStorageService {
+
+    private static final long TRANSFER_CHUNK_BYTES = 8L * 1024 * 1024;
+
+    // Session videos are only streamed to enrolled users, through SessionVideoController
+    private static final String PRIVATE_DIRECTORY = "session-videos/";
+
+    @Value("${storage.local.root:./data/files}")
+    private String rootDirectory;
+
+    // Base the file keys are appended to, e.g. https://api.example.com/api/files/
+    @Value("${storage.local.public-url:/api/files/}")
+    private String publicUrl;
+
+    // Signs upload URLs handed out by presignUpload; must be the same on every node
+    @Value("${storage.local.signing-secret:}")
+    private String signingSecret;
+
+    private Path root;
+    private Path tempDirectory;
+    private Path privateDirectory;
+    private byte[] signingKey;
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(rootDirectory).toAbsolutePath().normalize();
+        // Temp files live under the root so the final move is an atomic rename on the same filesystem
+        tempDirectory = Files.createDirectories(root.resolve(".tmp"));
+        privateDirectory = root.resolve(PRIVATE_DIRECTORY);
+
+        // A per-process key would break presigned URLs across restarts and nodes
+        if (signingSecret.isBlank()) {
+            throw new IllegalStateException("storage.local.signing-secret must be set when storage.backend=local");
+        }
+        signingKey = signingSecret.getBytes(StandardCharsets.UTF_8);
+
+        log.info("Local file storage at {}", root);
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file, String directory) {
+        String originalFilename = file.getOriginalFilename();
+        String extension = "";
+        if (originalFilename != null && originalFilename.contains(".")) {
+            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        }
+
+        String fileKey = directory + UUID.randomUUID() + extension;
+
+        Path temp = null;
+        try (InputStream in = file.getInputStream()) {
+            temp = Files.createTempFile(tempDirectory, "upload-", ".part");
+            write(Channels.newChannel(in), temp);
+            moveIntoPlace(temp, resolve(fileKey));
+            return fileKey;
+        } catch (IOException ex) {
+            deleteQuietly(temp);
+            throw new RuntimeException("Failed to store file locally", ex);
+        }
+    }
+
+    @Override
+    public void uploadFile(String fileKey, byte[] content, String contentType) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(tempDirectory, "upload-", ".part");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            moveIntoPlace(temp, resolve(fileKey));
+        } catch (IOException ex) {
+            deleteQuietly(temp);
+            throw new RuntimeException("Failed to store file locally", ex);
+        }
+    }
+
+    @Override
+    public void uploadFile(String fileKey, Path source, String contentType) {
+        Path temp = null;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            temp = Files.createTempFile(tempDirectory, "upload-", ".part");
+            write(in, temp);
+            moveIntoPlace(temp, resolve(fileKey));
+        } catch (IOException ex) {
+            deleteQuietly(temp);
+            throw new RuntimeException("Failed to store file locally", ex);
+        }
+    }
+
+    /**
+     * Store a request body uploaded to a presigned URL. At most {@code contentLength} bytes are read;
+     * a shorter body is rejected. A key is written once: replaying the URL cannot change content
+     * that has already been served as immutable.
+     *
+     * @return false if a file is already stored under the key
+     */
+    public boolean storeUpload(String fileKey, InputStream body, long contentLength) {
+        Path target = resolve(fileKey);
+        if (Files.exists(target)) {
+            return false;
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(tempDirectory, "upload-", ".part");
+            long written = write(Channels.newChannel(body), temp, contentLength);
+            if (written != contentLength) {
+                throw new BadRequestException("Upload ended after " + written + " of " + contentLength + " bytes");
+            }
+
+            // Linking fails if the target appeared meanwhile, where a rename would replace it
+            Files.createDirectories(target.getParent());
+            try {
+                Files.createLink(target, temp);
+            } catch (FileAlreadyExistsException ex) {
+                return false;
+            } finally {
+                deleteQuietly(temp);
+            }
+            return true;
+        } catch (IOException ex) {
+            deleteQuietly(temp);
+            throw new RuntimeException("Failed to store file locally", ex);
+        } catch (RuntimeException ex) {
+            deleteQuietly(temp);
+            throw ex;
+        }
+    }
+
+    @Override
+    public void deleteFile(String fileKey) {
+        try {
+            Files.deleteIfExists(resolve(fileKey));
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to delete local file", ex);
+        }
+    }
+
+    @Override
+    public int deleteFiles(Collection<String> fileKeys) {
+        int deleted = 0;
+        for (String fileKey : fileKeys) {
+            try {
+                if (Files.deleteIfExists(resolve(fileKey))) {
+                    deleted++;
+                }
+            } catch (IOException ex) {
+                log.warn("Failed to delete local file {}", fileKey, ex);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public String getFileUrl(String fileKey) {
+        return publicUrl.endsWith("/") ? publicUrl + fileKey : publicUrl + "/" + fileKey;
+    }
+
+    @Override
+    public String getFileKey(String fileUrl) {
+        String base = publicUrl.endsWith("/") ? publicUrl : publicUrl + "/";
+        return fileUrl != null && fileUrl.startsWith(base) ? fileUrl.substring(base.length()) : null;
+    }
+
+    /**
+     * Walks the tree under the prefix depth-first in name order (directory, shard, name). The page
+     * token is the path of the previous page's last file, and each page resumes right after it by
+     * skipping whole subtrees that sort before it, so a full listing walks the tree only once.
+     */
+    @Override
+    public FilePage listFiles(String prefix, String pageToken, int pageSize) {
+        String directory = prefix.substring(0, prefix.lastIndexOf('/') + 1);
+        Path start = root.resolve(directory).normalize();
+        if (!start.startsWith(root) || !Files.isDirectory(start)) {
+            return new FilePage(List.of(), null);
+        }
+
+        List<String> resumeAfter = pageToken == null ? List.of() : List.of(pageToken.split("/"));
+        List<Path> paths = new ArrayList<>(pageSize + 1);
+        List<ListedFile> files = new ArrayList<>(pageSize + 1);
+        try {
+            walk(start, resumeAfter, prefix, pageSize + 1, paths, files);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to list local files", ex);
+        }
+
+        if (files.size() <= pageSize) {
+            return new FilePage(files, null);
+        }
+        files.remove(pageSize);
+        Path last = start.relativize(paths.get(pageSize - 1));
+        StringBuilder token = new StringBuilder();
+        for (Path name : last) {
+            token.append(token.isEmpty() ? "" : "/").append(name);
+        }
+        return new FilePage(files, token.toString());
+    }
+
+    /**
+     * Collect files under the directory that sort after resumeAfter (its names relative to the
+     * directory, one per level; empty to take everything)
+     * @return Whether limit files were collected
+     */
+    private boolean walk(Path directory, List<String> resumeAfter, String prefix, int limit,
+                         List<Path> paths, List<ListedFile> files) throws IOException {
+        List<Path> children;
+        try (Stream<Path> list = Files.list(directory)) {
+            children = list
+                    .filter(path -> !path.startsWith(tempDirectory))
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList();
+        } catch (NoSuchFileException ex) {
+            // Removed while listing
+            return false;
+        }
+
+        String resume = resumeAfter.isEmpty() ? null : resumeAfter.get(0);
+        for (Path child : children) {
+            int order = resume == null ? 1 : child.getFileName().toString().compareTo(resume);
+            if (order < 0) {
+                continue;
+            }
+            if (Files.isDirectory(child)) {
+                List<String> rest = order == 0 ? resumeAfter.subList(1, resumeAfter.size()) : List.of();
+                if (walk(child, rest, prefix, limit, paths, files)) {
+                    return true;
+                }
+            } else if (order > 0 && Files.isRegularFile(child)) {
+                ListedFile file = toListedFile(child);
+                if (file != null && file.fileKey().startsWith(prefix)) {
+                    paths.add(child);
+                    files.add(file);
+                    if (files.size() == limit) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Local presigned URLs point back at LocalFileController, signed with an HMAC over the key,
+     * content type, length and expiry.
+     */
+    @Override
+    public String presignUpload(String fileKey, String contentType, long contentLength, Duration expiry) {
+        resolve(fileKey);
+        long expires = Instant.now().plus(expiry).getEpochSecond();
+
+        return UriComponentsBuilder.fromUriString(getFileUrl(fileKey))
+                .queryParam("contentType", contentType)
+                .queryParam("contentLength", contentLength)
+                .queryParam("expires", expires)
+                .queryParam("signature", sign(fileKey, contentType, contentLength, expires))
+                .encode()
+                .toUriString();
+    }
+
+    public boolean verifyUploadSignature(String fileKey, String contentType, long contentLength,
+                                         long expires, String signature) {
+        if (Instant.now().getEpochSecond() > expires) {
+            return false;
+        }
+        String expected = sign(fileKey, contentType, contentLength, expires);
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public Optional<StoredFile> getFileInfo(String fileKey) {
+        Path path = resolve(fileKey);
+        try {
+            return Optional.of(new StoredFile(Files.size(path), contentTypeOf(fileKey)));
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to read local file", ex);
+        }
+    }
+
+    @Override
+    public void downloadFile(String fileKey, Path target) {
+        try {
+            Files.copy(resolve(fileKey), target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to copy local file", ex);
+        }
+    }
+
+    @Override
+    public void downloadRange(String fileKey, long offset, long length, Path target) {
+        try (FileChannel source = FileChannel.open(resolve(fileKey), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = offset;
+            long end = Math.min(offset + length, source.size());
+            while (position < end) {
+                long transferred = source.transferTo(position, end - position, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to copy local file range", ex);
+        }
+    }
+
+    /**
+     * Parts are written straight into their place in a file under the temp directory, which
+     * survives restarts so an interrupted upload can be resumed. Writes are synchronous.
+     */
+    @Override
+    public String createMultipartUpload(String fileKey, String contentType) {
+        resolve(fileKey);
+        String uploadId = UUID.randomUUID().toString();
+        try {
+            Files.createFile(multipartFile(uploadId));
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to start local multipart upload", ex);
+        }
+        return uploadId;
+    }
+
+    @Override
+    public CompletableFuture<String> uploadPart(String fileKey, String uploadId, int partNumber,
+                                                Path source, long offset, long length) {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(multipartFile(uploadId), StandardOpenOption.WRITE)) {
+            long position = 0;
+            while (position < length) {
+                long transferred = in.transferTo(offset + position, length - position, out.position(offset + position));
+                if (transferred <= 0) {
+                    throw new IOException("Source ended before part " + partNumber + " was complete");
+                }
+                position += transferred;
+            }
+            return CompletableFuture.completedFuture(partNumber + "-" + length);
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    @Override
+    public void completeMultipartUpload(String fileKey, String uploadId, List<UploadedPart> parts) {
+        try {
+            Path assembled = multipartFile(uploadId);
+            try (FileChannel channel = FileChannel.open(assembled, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            }
+            moveIntoPlace(assembled, resolve(fileKey));
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to complete local multipart upload", ex);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String fileKey, String uploadId) {
+        deleteQuietly(multipartFile(uploadId));
+    }
+
+    /**
+     * Map a file key to its sharded location under the storage root.
+     *
+     * @throws BadRequestException if the key is empty or would escape the root
+     */
+    public Path resolve(String fileKey) {
+        if (fileKey == null || fileKey.isBlank() || fileKey.endsWith("/") || fileKey.contains("\\")) {
+            throw new BadRequestException("Invalid file key");
+        }
+
+        int slash = fileKey.lastIndexOf('/');
+        String directory = fileKey.substring(0, slash + 1);
+        String name = fileKey.substring(slash + 1);
+        String hash = sha256Hex(name);
+
+        Path path = root.resolve(directory)
+                .resolve(hash.substring(0, 2))
+                .resolve(hash.substring(2, 4))
+                .resolve(name)
+                .normalize();
+
+        if (!path.startsWith(root) || path.startsWith(tempDirectory)) {
+            throw new BadRequestException("Invalid file key");
+        }
+        return path;
+    }
+
+    /**
+     * @return Whether a resolved file may be served to anyone holding its URL
+     */
+    public boolean isPublic(Path path) {
+        return !path.startsWith(privateDirectory);
+    }
+
+    public String contentTypeOf(String fileKey) {
+        return MediaTypeFactory.getMediaType(fileKey)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+    }
+
+    private long write(ReadableByteChannel source, Path target) throws IOException {
+        return write(source, target, Long.MAX_VALUE);
+    }
+
+    private long write(ReadableByteChannel source, Path target, long limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            long position = 0;
+            while (position < limit) {
+                long transferred = channel.transferFrom(source, position, Math.min(TRANSFER_CHUNK_BYTES, limit - position));
+                if (transferred == 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            channel.force(false);
+            return position;
+        }
+    }
+
+    private void moveIntoPlace(Path temp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // <root>/<directory>/<ab>/<cd>/<name> -> <directory><name>
+    private ListedFile toListedFile(Path path) {
+        Path relative = root.relativize(path);
+        int count = relative.getNameCount();
+        if (count < 3) {
+            return null;
+        }
+
+        StringBuilder fileKey = new StringBuilder();
+        for (int i = 0; i < count - 3; i++) {
+            fileKey.append(relative.getName(i)).append('/');
+        }
+        fileKey.append(relative.getName(count - 1));
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new ListedFile(fileKey.toString(), attributes.size(), attributes.lastModifiedTime().toInstant());
+        } catch (IOException ex) {
+            // Deleted while listing
+            return null;
+        }
+    }
+
+    private Path multipartFile(String uploadId) {
+        // Round-trip through UUID so the id cannot name anything outside the temp directory
+        return tempDirectory.resolve("multipart-" + UUID.fromString(uploadId) + ".part");
+    }
+
+    private String sign(String fileKey, String contentType, long contentLength, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signingKey, "HmacSHA256"));
+            String payload = fileKey + "\n" + contentType + "\n" + contentLength + "\n" + expires;
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HmacSHA256 not available", ex);
+        }
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("Could not delete temp file {}", path, ex);
+        }
+    }
+}
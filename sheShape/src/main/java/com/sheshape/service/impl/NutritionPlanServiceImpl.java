@@ -1,40 +1,56 @@
 package com.sheshape.service.impl;
 
 import com.sheshape.dto.NutritionPlanDto;
+import com.sheshape.dto.PopularItemDto;
 import com.sheshape.dto.UserNutritionPlanDto;
 import com.sheshape.exception.BadRequestException;
 import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.model.CatalogItemType;
 import com.sheshape.model.NutritionPlan;
 import com.sheshape.model.User;
 import com.sheshape.model.UserNutritionPlan;
 import com.sheshape.repository.NutritionPlanRepository;
 import com.sheshape.repository.UserNutritionPlanRepository;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.service.NutritionPlanService;
+import com.sheshape.service.enrollment.EnrollmentCounters;
+import com.sheshape.service.recommendation.RecommendationEngine;
+import com.sheshape.service.recommendation.RecommendationEngine.ItemRef;
 import jakarta.transaction.Transactional;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class NutritionPlanServiceImpl implements NutritionPlanService {
 
+    private static final int MAX_LIMIT = 100;
+
     private final NutritionPlanRepository nutritionPlanRepository;
     private final UserRepository userRepository;
     private final UserNutritionPlanRepository userNutritionPlanRepository;
+    private final RecommendationEngine recommendationEngine;
+    private final EnrollmentCounters enrollmentCounters;
 
     public NutritionPlanServiceImpl(
             NutritionPlanRepository nutritionPlanRepository,
             UserRepository userRepository,
-            UserNutritionPlanRepository userNutritionPlanRepository) {
+            UserNutritionPlanRepository userNutritionPlanRepository,
+            RecommendationEngine recommendationEngine,
+            EnrollmentCounters enrollmentCounters) {
         this.nutritionPlanRepository = nutritionPlanRepository;
         this.userRepository = userRepository;
         this.userNutritionPlanRepository = userNutritionPlanRepository;
+        this.recommendationEngine = recommendationEngine;
+        this.enrollmentCounters = enrollmentCounters;
     }
 
     @Override
@@ -68,14 +84,9 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
 
     @Override
     @Transactional
-    public NutritionPlanDto createNutritionPlan(NutritionPlanDto nutritionPlanDto) {
-        // Get current authenticated user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User nutritionist = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
+    public NutritionPlanDto createNutritionPlan(NutritionPlanDto nutritionPlanDto, AuthenticatedUser currentUser) {
         // Ensure the user is a nutritionist
-        if (nutritionist.getRole() != User.Role.NUTRITIONIST && nutritionist.getRole() != User.Role.ADMIN) {
+        if (!currentUser.hasRole(User.Role.NUTRITIONIST) && !currentUser.isAdmin()) {
             throw new AccessDeniedException("Only nutritionists can create nutrition plans");
         }
         
@@ -86,7 +97,7 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
         plan.setDurationDays(nutritionPlanDto.getDurationDays());
         plan.setPrice(nutritionPlanDto.getPrice());
         plan.setIsActive(nutritionPlanDto.getIsActive() != null ? nutritionPlanDto.getIsActive() : true);
-        plan.setNutritionist(nutritionist);
+        plan.setNutritionist(userRepository.getReferenceById(currentUser.id()));
         
         NutritionPlan savedPlan = nutritionPlanRepository.save(plan);
         
@@ -95,18 +106,13 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
 
     @Override
     @Transactional
-    public NutritionPlanDto updateNutritionPlan(Long id, NutritionPlanDto nutritionPlanDto) {
+    public NutritionPlanDto updateNutritionPlan(Long id, NutritionPlanDto nutritionPlanDto, AuthenticatedUser currentUser) {
         NutritionPlan plan = nutritionPlanRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Nutrition plan not found with id: " + id));
         
-        // Get current authenticated user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
         // Ensure the user is the nutritionist who created the plan or an admin
-        if (!plan.getNutritionist().getId().equals(currentUser.getId()) && 
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!plan.getNutritionist().getId().equals(currentUser.id()) && 
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You cannot update this nutrition plan");
         }
         
@@ -138,18 +144,13 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
 
     @Override
     @Transactional
-    public void deleteNutritionPlan(Long id) {
+    public void deleteNutritionPlan(Long id, AuthenticatedUser currentUser) {
         NutritionPlan plan = nutritionPlanRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Nutrition plan not found with id: " + id));
         
-        // Get current authenticated user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
         // Ensure the user is the nutritionist who created the plan or an admin
-        if (!plan.getNutritionist().getId().equals(currentUser.getId()) && 
-                currentUser.getRole() != User.Role.ADMIN) {
+        if (!plan.getNutritionist().getId().equals(currentUser.id()) && 
+                !currentUser.isAdmin()) {
             throw new AccessDeniedException("You cannot delete this nutrition plan");
         }
         
@@ -178,6 +179,36 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<PopularItemDto> getPopularNutritionPlans(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        // Walk the ranking a limit at a time, loading only those plans by id to skip inactive ones
+        List<PopularItemDto> popular = new ArrayList<>(limit);
+        Iterator<EnrollmentCounters.Ranked> ranking =
+                enrollmentCounters.ranking(CatalogItemType.NUTRITION_PLAN).iterator();
+        while (popular.size() < limit && ranking.hasNext()) {
+            List<EnrollmentCounters.Ranked> batch = new ArrayList<>(limit);
+            while (batch.size() < limit && ranking.hasNext()) {
+                batch.add(ranking.next());
+            }
+
+            Map<Long, NutritionPlan> plans = nutritionPlanRepository.findAllById(
+                            batch.stream().map(EnrollmentCounters.Ranked::itemId).toList()).stream()
+                    .collect(Collectors.toMap(NutritionPlan::getId, Function.identity()));
+            for (EnrollmentCounters.Ranked ranked : batch) {
+                NutritionPlan plan = plans.get(ranked.itemId());
+                if (plan != null && Boolean.TRUE.equals(plan.getIsActive()) && popular.size() < limit) {
+                    popular.add(new PopularItemDto(popular.size() + 1, plan.getId(), plan.getTitle(),
+                            ranked.enrollments(), ranked.activeEnrollments()));
+                }
+            }
+        }
+        return popular;
+    }
+
     @Override
     @Transactional
     public UserNutritionPlanDto purchaseNutritionPlan(Long userId, Long planId) {
@@ -212,6 +243,8 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
         userPlan.setStatus(UserNutritionPlan.Status.ACTIVE);
         
         UserNutritionPlan savedUserPlan = userNutritionPlanRepository.save(userPlan);
+        recommendationEngine.enrolled(userId, new ItemRef(CatalogItemType.NUTRITION_PLAN, planId));
+        enrollmentCounters.enrolled(CatalogItemType.NUTRITION_PLAN, planId);
         
         return new UserNutritionPlanDto(savedUserPlan);
     }
@@ -224,6 +257,7 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
                         "User-nutrition plan association not found for user id: " + userId + " and plan id: " + planId));
         
         // Update status
+        UserNutritionPlan.Status previousStatus = userPlan.getStatus();
         try {
             UserNutritionPlan.Status newStatus = UserNutritionPlan.Status.valueOf(status.toUpperCase());
             userPlan.setStatus(newStatus);
@@ -232,6 +266,9 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
         }
         
         UserNutritionPlan updatedUserPlan = userNutritionPlanRepository.save(userPlan);
+        enrollmentCounters.statusChanged(CatalogItemType.NUTRITION_PLAN, planId,
+                previousStatus == UserNutritionPlan.Status.ACTIVE,
+                updatedUserPlan.getStatus() == UserNutritionPlan.Status.ACTIVE);
         
         return new UserNutritionPlanDto(updatedUserPlan);
     }
@@ -1,9 +1,11 @@
 package com.sheshape.service.impl;
 
-import com.sheshape.dto.ProductDto;
-import com.sheshape.model.Product;
+import com.sheshape.dto.ProductSummaryDto;
 import com.sheshape.repository.ProductRepository;
 import com.sheshape.service.ProductCategoryService;
+import com.sheshape.service.catalog.CategoryAggregateStore;
+import com.sheshape.service.catalog.CategoryAggregateStore.CategoryAggregate;
+import com.sheshape.service.catalog.ProductSummaryAssembler;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -15,100 +17,80 @@ import java.util.stream.Collectors;
 public class ProductCategoryServiceImpl implements ProductCategoryService {
 
     private final ProductRepository productRepository;
+    private final CategoryAggregateStore categoryAggregateStore;
+    private final ProductSummaryAssembler productSummaryAssembler;
 
-    public ProductCategoryServiceImpl(ProductRepository productRepository) {
+    public ProductCategoryServiceImpl(ProductRepository productRepository,
+                                      CategoryAggregateStore categoryAggregateStore,
+                                      ProductSummaryAssembler productSummaryAssembler) {
         this.productRepository = productRepository;
+        this.categoryAggregateStore = categoryAggregateStore;
+        this.productSummaryAssembler = productSummaryAssembler;
     }
 
     @Override
     public List<String> getAllCategories() {
-        List<Product> activeProducts = productRepository.findByIsActiveTrue(Pageable.unpaged()).getContent();
-        
-        return activeProducts.stream()
-                .flatMap(product -> product.getCategories().stream())
-                .distinct()
+        return categoryAggregateStore.snapshot().keySet().stream()
                 .sorted()
                 .collect(Collectors.toList());
     }
 
     @Override
     public Map<String, Long> getCategoriesWithProductCounts() {
-        List<Product> activeProducts = productRepository.findByIsActiveTrue(Pageable.unpaged()).getContent();
-        
-        Map<String, Long> categoryCount = new HashMap<>();
-        
-        for (Product product : activeProducts) {
-            for (String category : product.getCategories()) {
-                categoryCount.merge(category, 1L, Long::sum);
-            }
-        }
-        
         // Sort by count descending, then by name ascending
-        return categoryCount.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
-                        .thenComparing(Map.Entry.comparingByKey()))
+        return categoryAggregateStore.snapshot().entrySet().stream()
+                .sorted(Comparator.<Map.Entry<String, CategoryAggregate>>comparingLong(
+                                entry -> entry.getValue().productCount()).reversed()
+                        .thenComparing(Map.Entry::getKey))
                 .collect(Collectors.toMap(
                         Map.Entry::getKey,
-                        Map.Entry::getValue,
+                        entry -> entry.getValue().productCount(),
                         (e1, e2) -> e1,
                         LinkedHashMap::new
                 ));
     }
 
     @Override
-    public Page<ProductDto> getProductsByCategory(String category, Pageable pageable) {
-        return productRepository.findByCategoryAndIsActiveTrue(category, pageable)
-                .map(ProductDto::new);
+    public Page<ProductSummaryDto> getProductsByCategory(String category, Pageable pageable) {
+        return productSummaryAssembler.toSummaries(
+                productRepository.findByCategoryAndIsActiveTrue(category, pageable));
     }
 
     @Override
     public Map<String, Object> getCategoryStatistics() {
-        List<Product> activeProducts = productRepository.findByIsActiveTrue(Pageable.unpaged()).getContent();
-        
+        Map<String, CategoryAggregate> aggregates = categoryAggregateStore.snapshot();
+
         Map<String, Long> categoryCount = new HashMap<>();
         Map<String, Long> categoryStockCount = new HashMap<>();
         Map<String, Double> categoryAvgPrice = new HashMap<>();
-        
-        for (Product product : activeProducts) {
-            for (String category : product.getCategories()) {
-                // Count products in category
-                categoryCount.merge(category, 1L, Long::sum);
-                
-                // Count stock in category
-                categoryStockCount.merge(category, (long) product.getInventoryCount(), Long::sum);
-                
-                // Calculate average price (we'll compute this after collecting all data)
-                categoryAvgPrice.merge(category, product.getPrice().doubleValue(), Double::sum);
-            }
-        }
-        
-        // Calculate actual average prices
-        Map<String, Double> actualAvgPrices = new HashMap<>();
-        for (String category : categoryCount.keySet()) {
-            actualAvgPrices.put(category, categoryAvgPrice.get(category) / categoryCount.get(category));
-        }
-        
+
+        aggregates.forEach((category, aggregate) -> {
+            categoryCount.put(category, aggregate.productCount());
+            categoryStockCount.put(category, aggregate.totalStock());
+            categoryAvgPrice.put(category, aggregate.averagePrice());
+        });
+
         // Find most popular category
         String mostPopularCategory = categoryCount.entrySet().stream()
                 .max(Map.Entry.comparingByValue())
                 .map(Map.Entry::getKey)
                 .orElse(null);
-        
+
         // Find category with highest total stock
         String highestStockCategory = categoryStockCount.entrySet().stream()
                 .max(Map.Entry.comparingByValue())
                 .map(Map.Entry::getKey)
                 .orElse(null);
-        
+
         Map<String, Object> statistics = new HashMap<>();
         statistics.put("totalCategories", categoryCount.size());
         statistics.put("categoriesWithCounts", categoryCount);
         statistics.put("categoryStockCounts", categoryStockCount);
-        statistics.put("categoryAveragePrices", actualAvgPrices);
+        statistics.put("categoryAveragePrices", categoryAvgPrice);
         statistics.put("mostPopularCategory", mostPopularCategory);
         statistics.put("highestStockCategory", highestStockCategory);
-        statistics.put("totalActiveProducts", activeProducts.size());
-        
+        statistics.put("totalActiveProducts", categoryAggregateStore.getActiveProductCount());
+
         return statistics;
     }
 
@@ -133,24 +115,15 @@ public class ProductCategoryServiceImpl implements ProductCategoryService {
 
     @Override
     public List<String> getCategoriesWithStock() {
-        List<Product> productsInStock = productRepository.findByIsActiveTrueAndInventoryCountGreaterThan(0);
-        
-        return productsInStock.stream()
-                .flatMap(product -> product.getCategories().stream())
-                .distinct()
+        return categoryAggregateStore.snapshot().entrySet().stream()
+                .filter(entry -> entry.getValue().inStockCount() > 0)
+                .map(Map.Entry::getKey)
                 .sorted()
                 .collect(Collectors.toList());
     }
-    // Add this method to your ProductServiceImpl class
 
     @Override
     public List<String> getProductCategories() {
-        List<Product> activeProducts = productRepository.findByIsActiveTrue(Pageable.unpaged()).getContent();
-
-        return activeProducts.stream()
-                .flatMap(product -> product.getCategories().stream())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return getAllCategories();
     }
 }
\ No newline at end of file
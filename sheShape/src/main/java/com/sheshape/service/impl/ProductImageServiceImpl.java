@@ -1,28 +1,41 @@
 // com.sheshape.service.impl.ProductImageServiceImpl.java
 package com.sheshape.service.impl;
 
+import com.sheshape.exception.BadRequestException;
 import com.sheshape.exception.ResourceNotFoundException;
 import com.sheshape.model.Product;
 import com.sheshape.model.ProductImage;
 import com.sheshape.repository.ProductImageRepository;
 import com.sheshape.repository.ProductRepository;
+import com.sheshape.service.ImageUploadService;
 import com.sheshape.service.ProductImageService;
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ProductImageServiceImpl implements ProductImageService {
 
     private final ProductImageRepository productImageRepository;
     private final ProductRepository productRepository;
+    private final CatalogVersions catalogVersions;
+    private final ImageUploadService imageUploadService;
     
     public ProductImageServiceImpl(
             ProductImageRepository productImageRepository,
-            ProductRepository productRepository) {
+            ProductRepository productRepository,
+            CatalogVersions catalogVersions,
+            ImageUploadService imageUploadService) {
         this.productImageRepository = productImageRepository;
         this.productRepository = productRepository;
+        this.catalogVersions = catalogVersions;
+        this.imageUploadService = imageUploadService;
     }
 
     @Override
@@ -47,21 +60,25 @@ public class ProductImageServiceImpl implements ProductImageService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
         
-        // If this is set as main, reset all other main images
-        if (isMain) {
-            resetMainImages(productId);
-        }
-        
         // Determine position (add at the end)
         int position = (int) productImageRepository.countByProductId(productId);
+
+        // The first image is always main so a product with images never lacks one
+        boolean main = isMain || position == 0;
+        if (main && position > 0) {
+            productImageRepository.clearMainImage(productId);
+        }
         
         ProductImage image = new ProductImage();
         image.setProduct(product);
         image.setImageUrl(imageUrl);
         image.setFileKey(fileKey);
-        image.setMain(isMain);
+        image.setMain(main);
         image.setPosition(position);
+        image.setVariants(imageUploadService.getVariants(List.of(fileKey))
+                .getOrDefault(fileKey, new ArrayList<>()));
         
+        catalogVersions.bump(Aggregate.PRODUCTS);
         return productImageRepository.save(image);
     }
 
@@ -69,106 +86,100 @@ public class ProductImageServiceImpl implements ProductImageService {
     @Transactional
     public ProductImage updateProductImage(Long imageId, boolean isMain, Integer position) {
         ProductImage image = getProductImageById(imageId);
-        
-        // If this is set as main, reset all other main images
+        Long productId = image.getProduct().getId();
+
+        if (position != null && !position.equals(image.getPosition())) {
+            productImageRepository.updatePositions(productId, Map.of(imageId, position));
+        }
+
         if (isMain && !image.isMain()) {
-            resetMainImages(image.getProduct().getId());
+            return setMainImage(imageId);
         }
-        
-        image.setMain(isMain);
-        if (position != null) {
-            image.setPosition(position);
+        if (!isMain && image.isMain()) {
+            // Hand the main flag to the first other image; an only image stays main
+            productImageRepository.findByProductIdOrderByPositionAsc(productId).stream()
+                    .filter(img -> !img.getId().equals(imageId))
+                    .findFirst()
+                    .ifPresent(next -> productImageRepository.setMainImage(productId, next.getId()));
         }
-        
-        return productImageRepository.save(image);
+
+        catalogVersions.bump(Aggregate.PRODUCTS);
+        return getProductImageById(imageId);
     }
 
     @Override
     @Transactional
     public void deleteProductImage(Long imageId) {
-        ProductImage image = getProductImageById(imageId);
+        ProductImage image = productImageRepository.findByIdForUpdate(imageId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product image not found with id: " + imageId));
+        Long productId = image.getProduct().getId();
+        boolean wasMain = image.isMain();
         
-        // If this was the main image, pick another one as main (if any exists)
-        if (image.isMain()) {
-            List<ProductImage> images = productImageRepository.findByProductIdOrderByPositionAsc(
-                    image.getProduct().getId());
-            
-            // Find another image to set as main (first one that's not the current image)
-            images.stream()
-                    .filter(img -> !img.getId().equals(imageId))
-                    .findFirst()
-                    .ifPresent(newMain -> {
-                        newMain.setMain(true);
-                        productImageRepository.save(newMain);
-                    });
+        productImageRepository.delete(image);
+        imageUploadService.release(image.getFileKey());
+
+        // If this was the main image, the first remaining image takes over
+        if (wasMain) {
+            productImageRepository.promoteFirstImageToMain(productId);
         }
-        
-        productImageRepository.deleteById(imageId);
+
+        catalogVersions.bump(Aggregate.PRODUCTS);
     }
 
     @Override
     @Transactional
     public ProductImage setMainImage(Long imageId) {
-        ProductImage image = getProductImageById(imageId);
-        
-        // Reset all main images for this product
-        resetMainImages(image.getProduct().getId());
-        
-        // Set this image as main
-        image.setMain(true);
-        return productImageRepository.save(image);
+        // Row lock keeps the image from being deleted before the flag lands on it
+        ProductImage image = productImageRepository.findByIdForUpdate(imageId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product image not found with id: " + imageId));
+
+        if (!image.isMain()) {
+            productImageRepository.setMainImage(image.getProduct().getId(), imageId);
+            image.setMain(true);
+            catalogVersions.bump(Aggregate.PRODUCTS);
+        }
+
+        return image;
     }
 
     @Override
     @Transactional
-    public void updateImagePositions(List<ProductImage> updatedImages) {
+    public void updateImagePositions(Long productId, List<ProductImage> updatedImages) {
+        Map<Long, Integer> positions = new HashMap<>();
+        Long mainImageId = null;
+
         for (ProductImage image : updatedImages) {
-            ProductImage existingImage = productImageRepository.findById(image.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product image not found with id: " + image.getId()));
-            
-            existingImage.setPosition(image.getPosition());
-            if (image.isMain() && !existingImage.isMain()) {
-                // Reset main images if this one is becoming main
-                resetMainImages(existingImage.getProduct().getId());
-                existingImage.setMain(true);
-            } else if (!image.isMain() && existingImage.isMain()) {
-                // If we're unsetting the main, ensure another image becomes main
-                List<ProductImage> otherImages = productImageRepository.findByProductIdOrderByPositionAsc(
-                        existingImage.getProduct().getId());
-                ProductImage newMain = otherImages.stream()
-                        .filter(img -> !img.getId().equals(existingImage.getId()))
-                        .findFirst()
-                        .orElse(null);
-                
-                if (newMain != null) {
-                    newMain.setMain(true);
-                    productImageRepository.save(newMain);
-                } else {
-                    // If no other images, keep this one as main
-                    continue;
+            if (image.getId() == null || image.getPosition() == null) {
+                throw new BadRequestException("Every image needs an id and a position");
+            }
+            positions.put(image.getId(), image.getPosition());
+            if (image.isMain()) {
+                if (mainImageId != null) {
+                    throw new BadRequestException("Only one image can be main");
                 }
+                mainImageId = image.getId();
             }
-            
-            productImageRepository.save(existingImage);
         }
+
+        int updated = productImageRepository.updatePositions(productId, positions);
+        if (updated != positions.size()) {
+            throw new ResourceNotFoundException("Some images do not exist for product with id: " + productId);
+        }
+
+        // Clearing the main flag is ignored: a product always keeps exactly one main image
+        if (mainImageId != null) {
+            setMainImage(mainImageId);
+        }
+
+        catalogVersions.bump(Aggregate.PRODUCTS);
     }
 
     @Override
     @Transactional
     public void deleteAllProductImages(Long productId) {
-        productImageRepository.deleteByProductId(productId);
-    }
-    
-    /**
-     * Helper method to reset all main images for a product
-     */
-    private void resetMainImages(Long productId) {
         List<ProductImage> images = productImageRepository.findByProductIdOrderByPositionAsc(productId);
-        for (ProductImage img : images) {
-            if (img.isMain()) {
-                img.setMain(false);
-                productImageRepository.save(img);
-            }
-        }
+        productImageRepository.deleteByProductId(productId);
+        images.forEach(image -> imageUploadService.release(image.getFileKey()));
+        catalogVersions.bump(Aggregate.PRODUCTS);
     }
-}
\ No newline at end of file
+}
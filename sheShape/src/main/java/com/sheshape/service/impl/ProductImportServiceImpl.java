@@ -0,0 +1,252 @@
+package com.sheshape.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sheshape.dto.ProductDto;
+import com.sheshape.dto.ProductImportStatusDto;
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.exception.ServiceUnavailableException;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.ProductImportService;
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
+import com.sheshape.service.catalog.CategoryAggregateStore;
+import com.sheshape.service.catalog.ProductBatchWriter;
+import com.sheshape.service.catalog.ProductImportFormat;
+import com.sheshape.service.catalog.ProductImportJob;
+import com.sheshape.service.catalog.ProductImportReader;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private final ProductBatchWriter productBatchWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final FileStorageService fileStorageService;
+    private final CategoryAggregateStore categoryAggregateStore;
+    private final CatalogVersions catalogVersions;
+
+    private final int batchSize;
+    private final int maxErrors;
+    private final long jobRetentionHours;
+
+    private final Map<String, ProductImportJob> jobs = new ConcurrentHashMap<>();
+    // Each accepted job holds a temp copy of its file until it runs, so the queue is bounded
+    private final ThreadPoolExecutor executor;
+
+    public ProductImportServiceImpl(ProductBatchWriter productBatchWriter,
+                                    PlatformTransactionManager transactionManager,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    FileStorageService fileStorageService,
+                                    CategoryAggregateStore categoryAggregateStore,
+                                    CatalogVersions catalogVersions,
+                                    @Value("${product.import.batch-size:500}") int batchSize,
+                                    @Value("${product.import.max-errors:1000}") int maxErrors,
+                                    @Value("${product.import.max-concurrent-jobs:1}") int maxConcurrentJobs,
+                                    @Value("${product.import.max-queued-jobs:4}") int maxQueuedJobs,
+                                    @Value("${product.import.job-retention-hours:24}") long jobRetentionHours) {
+        this.productBatchWriter = productBatchWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.fileStorageService = fileStorageService;
+        this.categoryAggregateStore = categoryAggregateStore;
+        this.catalogVersions = catalogVersions;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+        this.jobRetentionHours = jobRetentionHours;
+        this.executor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedJobs), new CustomizableThreadFactory("product-import-"));
+    }
+
+    @Override
+    public ProductImportStatusDto startImport(MultipartFile file, String format) {
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("Import file is empty");
+        }
+
+        ProductImportFormat importFormat = ProductImportFormat.resolve(format, file.getOriginalFilename());
+
+        // Turn the import away before copying the file when it could not be queued anyway
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw busy();
+        }
+
+        // The multipart temp file is removed when the request ends, so keep our own copy for the worker
+        Path copy;
+        try {
+            copy = Files.createTempFile("product-import-", "." + importFormat.name().toLowerCase());
+            file.transferTo(copy);
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to store import file: " + e.getMessage(), e);
+        }
+
+        evictFinishedJobs();
+
+        ProductImportJob job = new ProductImportJob(UUID.randomUUID().toString(), importFormat,
+                file.getOriginalFilename(), maxErrors);
+        try {
+            executor.execute(() -> run(job, copy, importFormat));
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(copy);
+            throw busy();
+        }
+        jobs.put(job.getId(), job);
+
+        return job.toDto();
+    }
+
+    private static ServiceUnavailableException busy() {
+        return new ServiceUnavailableException("Too many imports are waiting. Please try again later.", 60);
+    }
+
+    @Override
+    public ProductImportStatusDto getImportStatus(String jobId) {
+        ProductImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job not found with id: " + jobId);
+        }
+        return job.toDto();
+    }
+
+    private void run(ProductImportJob job, Path file, ProductImportFormat format) {
+        job.start();
+        long imported = 0;
+
+        try (ProductImportReader reader = new ProductImportReader(file, format, objectMapper, fileStorageService)) {
+            List<ProductImportReader.Row> pending = new ArrayList<>(batchSize);
+
+            ProductImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                job.rowRead();
+
+                String error = row.error() != null ? row.error() : validate(row.product());
+                if (error != null) {
+                    job.rowFailed(row.lineNumber(), error);
+                    continue;
+                }
+
+                pending.add(row);
+                if (pending.size() >= batchSize) {
+                    imported += flush(job, pending);
+                }
+            }
+            imported += flush(job, pending);
+
+            job.complete();
+            log.info("Product import {} finished: {} imported", job.getId(), imported);
+        } catch (IOException | RuntimeException e) {
+            log.error("Product import {} aborted", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(file);
+
+            if (imported > 0) {
+                categoryAggregateStore.rebuild();
+                catalogVersions.bump(Aggregate.PRODUCTS);
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", file, e);
+        }
+    }
+
+    /**
+     * Insert the pending rows as one batch. If the database rejects the batch, retry row by row
+     * so only the offending rows are reported and the rest still land.
+     */
+    private int flush(ProductImportJob job, List<ProductImportReader.Row> pending) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<ProductDto> products = pending.stream()
+                .map(ProductImportReader.Row::product)
+                .collect(Collectors.toList());
+
+        int inserted = 0;
+        try {
+            transactionTemplate.executeWithoutResult(status -> productBatchWriter.insert(products));
+            inserted = products.size();
+        } catch (DataAccessException batchFailure) {
+            for (ProductImportReader.Row row : pending) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> productBatchWriter.insert(List.of(row.product())));
+                    inserted++;
+                } catch (DataAccessException e) {
+                    job.rowFailed(row.lineNumber(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                }
+            }
+        }
+
+        job.imported(inserted);
+        pending.clear();
+        return inserted;
+    }
+
+    private String validate(ProductDto product) {
+        Set<ConstraintViolation<ProductDto>> violations = validator.validate(product);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        if (product.getDiscountPrice() != null && product.getDiscountPrice().signum() < 0) {
+            return "Discount price cannot be negative";
+        }
+        boolean missingImageKey = product.getImages().stream()
+                .anyMatch(image -> image.getImageUrl() == null || image.getFileKey() == null);
+        if (missingImageKey) {
+            return "Every image needs an imageUrl and fileKey";
+        }
+        return null;
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(jobRetentionHours);
+        jobs.values().removeIf(job -> job.isFinishedBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
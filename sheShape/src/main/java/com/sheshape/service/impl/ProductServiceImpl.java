@@ -2,13 +2,20 @@ package com.sheshape.service.impl;
 
 import com.sheshape.dto.ProductDto;
 import com.sheshape.dto.ProductImageDto;
+import com.sheshape.dto.ProductSummaryDto;
 import com.sheshape.exception.BadRequestException;
 import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.model.ImageVariant;
 import com.sheshape.model.Product;
 import com.sheshape.model.ProductImage;
 import com.sheshape.repository.ProductImageRepository;
 import com.sheshape.repository.ProductRepository;
+import com.sheshape.service.ImageUploadService;
 import com.sheshape.service.ProductService;
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
+import com.sheshape.service.catalog.CategoryAggregateStore;
+import com.sheshape.service.catalog.ProductSummaryAssembler;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -16,6 +23,9 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,16 +33,28 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final ProductImageRepository productImageRepository;
-
-    public ProductServiceImpl(ProductRepository productRepository,ProductImageRepository productImageRepository) {
+    private final CategoryAggregateStore categoryAggregateStore;
+    private final ProductSummaryAssembler productSummaryAssembler;
+    private final CatalogVersions catalogVersions;
+    private final ImageUploadService imageUploadService;
+
+    public ProductServiceImpl(ProductRepository productRepository,
+                              ProductImageRepository productImageRepository,
+                              CategoryAggregateStore categoryAggregateStore,
+                              ProductSummaryAssembler productSummaryAssembler,
+                              CatalogVersions catalogVersions,
+                              ImageUploadService imageUploadService) {
         this.productRepository = productRepository;
         this.productImageRepository = productImageRepository;
+        this.categoryAggregateStore = categoryAggregateStore;
+        this.productSummaryAssembler = productSummaryAssembler;
+        this.catalogVersions = catalogVersions;
+        this.imageUploadService = imageUploadService;
     }
 
     @Override
-    public Page<ProductDto> getAllActiveProducts(Pageable pageable) {
-        return productRepository.findByIsActiveTrue(pageable)
-                .map(ProductDto::new);
+    public Page<ProductSummaryDto> getAllActiveProducts(Pageable pageable) {
+        return productSummaryAssembler.toSummaries(productRepository.findByIsActiveTrue(pageable));
     }
 
     @Override
@@ -50,22 +72,21 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public Page<ProductDto> getProductsByCategory(String category, Pageable pageable) {
-        return productRepository.findByCategoryAndIsActiveTrue(category, pageable)
-                .map(ProductDto::new);
+    public Page<ProductSummaryDto> getProductsByCategory(String category, Pageable pageable) {
+        return productSummaryAssembler.toSummaries(
+                productRepository.findByCategoryAndIsActiveTrue(category, pageable));
     }
 
     @Override
-    public Page<ProductDto> searchProducts(String keyword, Pageable pageable) {
-        return productRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(keyword, pageable)
-                .map(ProductDto::new);
+    public Page<ProductSummaryDto> searchProducts(String keyword, Pageable pageable) {
+        return productSummaryAssembler.toSummaries(
+                productRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(keyword, pageable));
     }
 
     @Override
-    public List<ProductDto> getProductsInStock() {
-        return productRepository.findByIsActiveTrueAndInventoryCountGreaterThan(0).stream()
-                .map(ProductDto::new)
-                .collect(Collectors.toList());
+    public List<ProductSummaryDto> getProductsInStock() {
+        return productSummaryAssembler.toSummaries(
+                productRepository.findByIsActiveTrueAndInventoryCountGreaterThan(0));
     }
 
     @Override
@@ -92,12 +113,9 @@ public class ProductServiceImpl implements ProductService {
         if (productDto.getImages() != null && !productDto.getImages().isEmpty()) {
             List<ProductImage> productImages = new ArrayList<>();
 
-            // Flag to ensure at least one image is main
-            boolean hasMainImage = productDto.getImages().stream()
-                    .anyMatch(ProductImageDto::isMain);
-
-            // If no image is marked as main, make the first one main
-            boolean makeFirstMain = !hasMainImage && !productDto.getImages().isEmpty();
+            // Exactly one image is main
+            int mainIndex = productDto.mainImageIndex();
+            Map<String, List<ImageVariant>> variants = getUploadVariants(productDto);
 
             for (int i = 0; i < productDto.getImages().size(); i++) {
                 ProductImageDto imageDto = productDto.getImages().get(i);
@@ -106,7 +124,8 @@ public class ProductServiceImpl implements ProductService {
                 image.setProduct(savedProduct);
                 image.setImageUrl(imageDto.getImageUrl());
                 image.setFileKey(imageDto.getFileKey());
-                image.setMain(imageDto.isMain() || (makeFirstMain && i == 0));
+                image.setMain(i == mainIndex);
+                image.setVariants(variants.getOrDefault(imageDto.getFileKey(), new ArrayList<>()));
                 image.setPosition(imageDto.getPosition() != null ? imageDto.getPosition() : i);
 
                 productImages.add(image);
@@ -116,6 +135,10 @@ public class ProductServiceImpl implements ProductService {
             savedProduct = productRepository.save(savedProduct);
         }
 
+        categoryAggregateStore.onProductSaved(savedProduct);
+
+        catalogVersions.bump(Aggregate.PRODUCTS);
+
         return convertToDto(savedProduct);
     }
 
@@ -157,15 +180,29 @@ public class ProductServiceImpl implements ProductService {
 
         // Handle image updates if provided
         if (productDto.getImages() != null) {
+            // Drop the old main flag first: Hibernate flushes inserts before updates, so a new main
+            // image would otherwise collide with the old one on the one-main-per-product index
+            product.getImages().forEach(image -> image.setMain(false));
+            productRepository.flush();
+
+            // Files the new list no longer uses lose their reference once this commits
+            Set<String> keptKeys = productDto.getImages().stream()
+                    .map(ProductImageDto::getFileKey)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            List<String> removedKeys = product.getImages().stream()
+                    .map(ProductImage::getFileKey)
+                    .filter(fileKey -> fileKey != null && !keptKeys.contains(fileKey))
+                    .distinct()
+                    .toList();
+
             // First clear existing images if we're setting new ones
             product.getImages().clear();
+            removedKeys.forEach(imageUploadService::release);
 
-            // Flag to ensure at least one image is main
-            boolean hasMainImage = productDto.getImages().stream()
-                    .anyMatch(ProductImageDto::isMain);
-
-            // If no image is marked as main, make the first one main
-            boolean makeFirstMain = !hasMainImage && !productDto.getImages().isEmpty();
+            // Exactly one image is main
+            int mainIndex = productDto.mainImageIndex();
+            Map<String, List<ImageVariant>> variants = getUploadVariants(productDto);
 
             for (int i = 0; i < productDto.getImages().size(); i++) {
                 ProductImageDto imageDto = productDto.getImages().get(i);
@@ -177,10 +214,14 @@ public class ProductServiceImpl implements ProductService {
                             .orElse(new ProductImage());
                 }
 
+                if (image.getId() == null || !Objects.equals(image.getFileKey(), imageDto.getFileKey())) {
+                    image.setVariants(variants.getOrDefault(imageDto.getFileKey(), new ArrayList<>()));
+                }
+
                 image.setProduct(product);
                 image.setImageUrl(imageDto.getImageUrl());
                 image.setFileKey(imageDto.getFileKey());
-                image.setMain(imageDto.isMain() || (makeFirstMain && i == 0));
+                image.setMain(i == mainIndex);
                 image.setPosition(imageDto.getPosition() != null ? imageDto.getPosition() : i);
 
                 product.getImages().add(image);
@@ -188,6 +229,8 @@ public class ProductServiceImpl implements ProductService {
         }
 
         Product updatedProduct = productRepository.save(product);
+        categoryAggregateStore.onProductSaved(updatedProduct);
+        catalogVersions.bump(Aggregate.PRODUCTS);
         return convertToDto(updatedProduct);
     }
 
@@ -199,6 +242,8 @@ public class ProductServiceImpl implements ProductService {
         
         product.setIsActive(true);
         Product activatedProduct = productRepository.save(product);
+        categoryAggregateStore.onProductSaved(activatedProduct);
+        catalogVersions.bump(Aggregate.PRODUCTS);
         
         return new ProductDto(activatedProduct);
     }
@@ -211,6 +256,8 @@ public class ProductServiceImpl implements ProductService {
         
         product.setIsActive(false);
         Product deactivatedProduct = productRepository.save(product);
+        categoryAggregateStore.onProductSaved(deactivatedProduct);
+        catalogVersions.bump(Aggregate.PRODUCTS);
         
         return new ProductDto(deactivatedProduct);
     }
@@ -221,7 +268,22 @@ public class ProductServiceImpl implements ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         
+        List<String> imageKeys = product.getImages().stream()
+                .map(ProductImage::getFileKey)
+                .toList();
         productRepository.delete(product);
+        imageKeys.forEach(imageUploadService::release);
+        categoryAggregateStore.onProductDeleted(id);
+        catalogVersions.bump(Aggregate.PRODUCTS);
+    }
+
+    /**
+     * Look up variants already generated for the images' uploads, in one query
+     */
+    private Map<String, List<ImageVariant>> getUploadVariants(ProductDto productDto) {
+        return imageUploadService.getVariants(productDto.getImages().stream()
+                .map(ProductImageDto::getFileKey)
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -236,6 +298,9 @@ public class ProductServiceImpl implements ProductService {
         
         product.setInventoryCount(product.getInventoryCount() - quantity);
         productRepository.save(product);
+        // Stock is kept out of the catalog version: bumping it here would lock the shared
+        // catalog_versions row for every checkout and invalidate every listing on each sale
+        categoryAggregateStore.onProductSaved(product);
         
         return true;
     }
@@ -266,6 +331,7 @@ public class ProductServiceImpl implements ProductService {
                         imageDto.setMain(image.isMain());
                         imageDto.setPosition(image.getPosition());
                         imageDto.setCreatedAt(image.getCreatedAt());
+                        imageDto.applyVariants(image.getVariants());
                         return imageDto;
                     })
                     .collect(Collectors.toList());
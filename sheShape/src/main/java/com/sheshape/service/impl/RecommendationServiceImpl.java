@@ -0,0 +1,39 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.dto.RecommendationDto;
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.model.CatalogItemType;
+import com.sheshape.service.RecommendationService;
+import com.sheshape.service.recommendation.RecommendationEngine;
+import com.sheshape.service.recommendation.RecommendationEngine.Item;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class RecommendationServiceImpl implements RecommendationService {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final RecommendationEngine recommendationEngine;
+
+    public RecommendationServiceImpl(RecommendationEngine recommendationEngine) {
+        this.recommendationEngine = recommendationEngine;
+    }
+
+    @Override
+    public List<RecommendationDto> getRecommendations(Long userId, CatalogItemType type, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        return recommendationEngine.recommend(userId, type, limit).stream()
+                .map(recommendation -> {
+                    Item item = recommendation.item();
+                    return new RecommendationDto(item.ref().type().name(), item.ref().id(), item.title(),
+                            item.description(), item.difficultyLevel(), item.durationDays(), item.price(),
+                            recommendation.score());
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,110 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.resilience.IoGuard;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs every storage call that does I/O through the storage IoGuard, so a degraded backend
+ * fails fast with 503 instead of holding request threads. Registered as the primary
+ * FileStorageService by ResilienceConfig, wrapping whichever backend is active.
+ */
+public class ResilientFileStorageService implements FileStorageService {
+
+    private final FileStorageService delegate;
+    private final IoGuard guard;
+
+    public ResilientFileStorageService(FileStorageService delegate, IoGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file, String directory) {
+        return guard.call(() -> delegate.uploadFile(file, directory));
+    }
+
+    @Override
+    public void uploadFile(String fileKey, byte[] content, String contentType) {
+        guard.run(() -> delegate.uploadFile(fileKey, content, contentType));
+    }
+
+    @Override
+    public void uploadFile(String fileKey, Path source, String contentType) {
+        guard.run(() -> delegate.uploadFile(fileKey, source, contentType));
+    }
+
+    @Override
+    public void deleteFile(String fileKey) {
+        guard.run(() -> delegate.deleteFile(fileKey));
+    }
+
+    @Override
+    public int deleteFiles(Collection<String> fileKeys) {
+        return guard.call(() -> delegate.deleteFiles(fileKeys));
+    }
+
+    @Override
+    public String getFileUrl(String fileKey) {
+        return delegate.getFileUrl(fileKey);
+    }
+
+    @Override
+    public String getFileKey(String fileUrl) {
+        return delegate.getFileKey(fileUrl);
+    }
+
+    @Override
+    public FilePage listFiles(String prefix, String pageToken, int pageSize) {
+        return guard.call(() -> delegate.listFiles(prefix, pageToken, pageSize));
+    }
+
+    // Signing happens locally, without calling the backend
+    @Override
+    public String presignUpload(String fileKey, String contentType, long contentLength, Duration expiry) {
+        return delegate.presignUpload(fileKey, contentType, contentLength, expiry);
+    }
+
+    @Override
+    public Optional<StoredFile> getFileInfo(String fileKey) {
+        return guard.call(() -> delegate.getFileInfo(fileKey));
+    }
+
+    @Override
+    public void downloadFile(String fileKey, Path target) {
+        guard.run(() -> delegate.downloadFile(fileKey, target));
+    }
+
+    @Override
+    public void downloadRange(String fileKey, long offset, long length, Path target) {
+        guard.run(() -> delegate.downloadRange(fileKey, offset, length, target));
+    }
+
+    @Override
+    public String createMultipartUpload(String fileKey, String contentType) {
+        return guard.call(() -> delegate.createMultipartUpload(fileKey, contentType));
+    }
+
+    @Override
+    public CompletableFuture<String> uploadPart(String fileKey, String uploadId, int partNumber,
+                                                Path source, long offset, long length) {
+        return guard.callAsync(() -> delegate.uploadPart(fileKey, uploadId, partNumber, source, offset, length));
+    }
+
+    @Override
+    public void completeMultipartUpload(String fileKey, String uploadId, List<UploadedPart> parts) {
+        guard.run(() -> delegate.completeMultipartUpload(fileKey, uploadId, parts));
+    }
+
+    @Override
+    public void abortMultipartUpload(String fileKey, String uploadId) {
+        guard.run(() -> delegate.abortMultipartUpload(fileKey, uploadId));
+    }
+}
@@ -1,23 +1,68 @@
 // com.sheshape.service.impl.S3FileStorageServiceImpl.java
 package com.sheshape.service.impl;
 
+import com.sheshape.config.ResilienceConfig;
 import com.sheshape.exception.BadRequestException;
 import com.sheshape.service.FileStorageService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
-@Service
+// Wrapped by ResilientFileStorageService, see ResilienceConfig
+@Service(ResilienceConfig.FILE_STORAGE_BACKEND)
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+@Slf4j
 public class S3FileStorageServiceImpl implements FileStorageService {
 
+    private static final int DELETE_BATCH_SIZE = 1000;
+
     private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
+    private final S3Presigner s3Presigner;
     
     @Value("${aws.s3.bucket}")
     private String bucketName;
@@ -26,9 +71,26 @@ public class S3FileStorageServiceImpl implements FileStorageService {
     private String s3Endpoint;
     @Value("${aws.region}")  // Add this line
     private String region;
+
+    // Public base for object URLs when not served from AWS (e.g. http://localhost:9000/bucket/)
+    @Value("${aws.s3.public-url:}")
+    private String publicUrl;
+
+    // Uploads carry whole originals, so they get a longer bound than the client's default for other calls
+    private final AwsRequestOverrideConfiguration uploadTimeouts;
     
-    public S3FileStorageServiceImpl(S3Client s3Client) {
+    public S3FileStorageServiceImpl(S3Client s3Client, S3AsyncClient s3AsyncClient, S3Presigner s3Presigner,
+                                    @Value("${aws.s3.upload.api-call-timeout-seconds:600}")
+                                    long uploadCallTimeoutSeconds,
+                                    @Value("${aws.s3.upload.api-call-attempt-timeout-seconds:300}")
+                                    long uploadAttemptTimeoutSeconds) {
         this.s3Client = s3Client;
+        this.s3AsyncClient = s3AsyncClient;
+        this.s3Presigner = s3Presigner;
+        this.uploadTimeouts = AwsRequestOverrideConfiguration.builder()
+                .apiCallTimeout(Duration.ofSeconds(uploadCallTimeoutSeconds))
+                .apiCallAttemptTimeout(Duration.ofSeconds(uploadAttemptTimeoutSeconds))
+                .build();
     }
 
     @Override
@@ -48,6 +110,7 @@ public class S3FileStorageServiceImpl implements FileStorageService {
                     .bucket(bucketName)
                     .key(fileKey)
                     .contentType(file.getContentType())
+                    .overrideConfiguration(uploadTimeouts)
                     .build();
             
             s3Client.putObject(putObjectRequest, 
@@ -59,6 +122,30 @@ public class S3FileStorageServiceImpl implements FileStorageService {
         }
     }
 
+    @Override
+    public void uploadFile(String fileKey, byte[] content, String contentType) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .contentType(contentType)
+                .overrideConfiguration(uploadTimeouts)
+                .build();
+
+        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(content));
+    }
+
+    @Override
+    public void uploadFile(String fileKey, Path source, String contentType) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .contentType(contentType)
+                .overrideConfiguration(uploadTimeouts)
+                .build();
+
+        s3Client.putObject(putObjectRequest, RequestBody.fromFile(source));
+    }
+
     @Override
     public void deleteFile(String fileKey) {
         DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
@@ -69,9 +156,204 @@ public class S3FileStorageServiceImpl implements FileStorageService {
         s3Client.deleteObject(deleteObjectRequest);
     }
 
+    // DeleteObjects takes at most 1000 keys per request
+    @Override
+    public int deleteFiles(Collection<String> fileKeys) {
+        List<String> keys = new ArrayList<>(fileKeys);
+        int deleted = 0;
+
+        for (int from = 0; from < keys.size(); from += DELETE_BATCH_SIZE) {
+            List<ObjectIdentifier> objects = keys.subList(from, Math.min(from + DELETE_BATCH_SIZE, keys.size()))
+                    .stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build());
+
+            // Quiet mode only reports the keys that failed
+            response.errors().forEach(error ->
+                    log.warn("Failed to delete {} from S3: {} {}", error.key(), error.code(), error.message()));
+            deleted += objects.size() - response.errors().size();
+        }
+        return deleted;
+    }
+
     @Override
     public String getFileUrl(String fileKey) {
+        if (!publicUrl.isBlank()) {
+            return publicUrl.endsWith("/") ? publicUrl + fileKey : publicUrl + "/" + fileKey;
+        }
         // Simple approach - construct URL manually
         return "https://" + bucketName + ".s3.eu-north-1.amazonaws.com/" + fileKey;
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getFileKey(String fileUrl) {
+        if (fileUrl == null) {
+            return null;
+        }
+        if (!publicUrl.isBlank()) {
+            String base = publicUrl.endsWith("/") ? publicUrl : publicUrl + "/";
+            if (fileUrl.startsWith(base)) {
+                return fileUrl.substring(base.length());
+            }
+        }
+
+        // Virtual-hosted style, also used for URLs stored before a public URL was configured: https://<bucket>.s3.<region>.amazonaws.com/<key>
+        try {
+            URI uri = URI.create(fileUrl);
+            if (uri.getHost() != null && uri.getHost().startsWith(bucketName + ".s3") && uri.getPath() != null
+                    && uri.getPath().length() > 1) {
+                return uri.getPath().substring(1);
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a URL we produced
+        }
+        return null;
+    }
+
+    @Override
+    public FilePage listFiles(String prefix, String pageToken, int pageSize) {
+        ListObjectsV2Response response = s3Client.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .continuationToken(pageToken)
+                .maxKeys(pageSize)
+                .build());
+
+        List<ListedFile> files = response.contents().stream()
+                .map(object -> new ListedFile(object.key(), object.size(), object.lastModified()))
+                .toList();
+        return new FilePage(files, Boolean.TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null);
+    }
+
+    @Override
+    public String presignUpload(String fileKey, String contentType, long contentLength, Duration expiry) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .contentType(contentType)
+                .contentLength(contentLength)
+                .build();
+
+        PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
+                .signatureDuration(expiry)
+                .putObjectRequest(putObjectRequest)
+                .build();
+
+        return s3Presigner.presignPutObject(presignRequest).url().toString();
+    }
+
+    @Override
+    public Optional<StoredFile> getFileInfo(String fileKey) {
+        try {
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(fileKey)
+                    .build());
+            return Optional.of(new StoredFile(head.contentLength(), head.contentType()));
+        } catch (S3Exception e) {
+            // HEAD responses have no body, so a missing key may surface as a bare 404
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void downloadFile(String fileKey, Path target) {
+        try {
+            Files.deleteIfExists(target);
+            s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(fileKey)
+                    .build(), target);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to download file from S3", ex);
+        }
+    }
+
+    @Override
+    public void downloadRange(String fileKey, long offset, long length, Path target) {
+        try {
+            Files.deleteIfExists(target);
+            s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(fileKey)
+                    .range("bytes=" + offset + "-" + (offset + length - 1))
+                    .build(), target);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to download file range from S3", ex);
+        }
+    }
+
+    @Override
+    public String createMultipartUpload(String fileKey, String contentType) {
+        return s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .contentType(contentType)
+                .build()).uploadId();
+    }
+
+    @Override
+    public CompletableFuture<String> uploadPart(String fileKey, String uploadId, int partNumber,
+                                                Path source, long offset, long length) {
+        // The part is read on the calling thread; the async client only does the network I/O
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(length));
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        buffer.flip();
+
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) buffer.remaining())
+                .build();
+
+        return s3AsyncClient.uploadPart(request, AsyncRequestBody.fromByteBuffer(buffer))
+                .thenApply(UploadPartResponse::eTag);
+    }
+
+    @Override
+    public void completeMultipartUpload(String fileKey, String uploadId, List<UploadedPart> parts) {
+        List<CompletedPart> completedParts = parts.stream()
+                .sorted(Comparator.comparingInt(UploadedPart::partNumber))
+                .map(part -> CompletedPart.builder()
+                        .partNumber(part.partNumber())
+                        .eTag(part.etag())
+                        .build())
+                .toList();
+
+        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                // S3 may take minutes to assemble a large object
+                .overrideConfiguration(uploadTimeouts)
+                .build());
+    }
+
+    @Override
+    public void abortMultipartUpload(String fileKey, String uploadId) {
+        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .uploadId(uploadId)
+                .build());
+    }
+}
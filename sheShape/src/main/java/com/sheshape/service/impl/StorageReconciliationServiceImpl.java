@@ -0,0 +1,394 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.dto.StorageReconciliationReportDto;
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.model.ImageUpload;
+import com.sheshape.model.StoredContent;
+import com.sheshape.repository.BlogPostRepository;
+import com.sheshape.repository.GymSessionRepository;
+import com.sheshape.repository.ImageUploadRepository;
+import com.sheshape.repository.ProductImageRepository;
+import com.sheshape.repository.StoredContentRepository;
+import com.sheshape.repository.profile.ProfileRepository;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.FileStorageService.FilePage;
+import com.sheshape.service.FileStorageService.ListedFile;
+import com.sheshape.service.StorageReconciliationService;
+import com.sheshape.service.media.UploadPurpose;
+import com.sheshape.service.resilience.RateLimiter;
+import com.sheshape.service.support.DatabaseLock;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Finds stored files that nothing references any more and removes them in batches.
+ *
+ * <p>Each storage directory is listed page by page. Files younger than the grace period are skipped,
+ * since they may belong to an upload that has not been attached yet. The rest are collected into
+ * batches of up to {@code batch-size} keys, which are checked against the database with IN queries
+ * just before deletion and then removed with one bulk delete per batch. Stored URLs are also loaded
+ * once up front and matched on every path suffix, so files referenced under an older base URL are
+ * kept too. De-duplicated content counts as referenced while it has references or was handed to an
+ * upload within the grace period; its index entries stay locked while the files are deleted, so an
+ * upload cannot take a reference to content that is going away. Listing and deletion are both rate
+ * limited so a run never competes with live traffic. A MySQL named lock keeps runs on different
+ * nodes from overlapping; a node that finds it taken reports its run as skipped.
+ */
+@Service
+@Slf4j
+public class StorageReconciliationServiceImpl implements StorageReconciliationService {
+
+    private static final List<String> DIRECTORIES = List.of(
+            UploadPurpose.PRODUCT_IMAGE.getDirectory(),
+            UploadPurpose.BLOG_IMAGE.getDirectory(),
+            UploadPurpose.PROFILE_PICTURE.getDirectory(),
+            "session-videos/");
+
+    private static final int SAMPLE_SIZE = 100;
+
+    private static final String LOCK_NAME = "sheshape.storage-reconciliation";
+
+    private final FileStorageService fileStorageService;
+    private final ProductImageRepository productImageRepository;
+    private final BlogPostRepository blogPostRepository;
+    private final ProfileRepository profileRepository;
+    private final GymSessionRepository gymSessionRepository;
+    private final ImageUploadRepository imageUploadRepository;
+    private final StoredContentRepository storedContentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DatabaseLock databaseLock;
+
+    private final boolean defaultDryRun;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final double listRequestsPerSecond;
+    private final double deletesPerSecond;
+
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Run lastRun;
+
+    public StorageReconciliationServiceImpl(FileStorageService fileStorageService,
+                                            ProductImageRepository productImageRepository,
+                                            BlogPostRepository blogPostRepository,
+                                            ProfileRepository profileRepository,
+                                            GymSessionRepository gymSessionRepository,
+                                            ImageUploadRepository imageUploadRepository,
+                                            StoredContentRepository storedContentRepository,
+                                            PlatformTransactionManager transactionManager,
+                                            DatabaseLock databaseLock,
+                                            @Value("${storage.reconciler.enabled:false}") boolean enabled,
+                                            @Value("${storage.reconciler.dry-run:true}") boolean defaultDryRun,
+                                            @Value("${storage.reconciler.interval-hours:24}") long intervalHours,
+                                            @Value("${storage.reconciler.grace-hours:24}") long graceHours,
+                                            @Value("${storage.reconciler.batch-size:1000}") int batchSize,
+                                            @Value("${storage.reconciler.list-requests-per-second:5}") double listRequestsPerSecond,
+                                            @Value("${storage.reconciler.deletes-per-second:500}") double deletesPerSecond) {
+        this.fileStorageService = fileStorageService;
+        this.productImageRepository = productImageRepository;
+        this.blogPostRepository = blogPostRepository;
+        this.profileRepository = profileRepository;
+        this.gymSessionRepository = gymSessionRepository;
+        this.imageUploadRepository = imageUploadRepository;
+        this.storedContentRepository = storedContentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.databaseLock = databaseLock;
+        this.defaultDryRun = defaultDryRun;
+        this.gracePeriod = Duration.ofHours(graceHours);
+        // DeleteObjects takes at most 1000 keys
+        this.batchSize = Math.max(1, Math.min(batchSize, 1000));
+        this.listRequestsPerSecond = listRequestsPerSecond;
+        this.deletesPerSecond = deletesPerSecond;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("storage-reconciler-"));
+
+        if (enabled) {
+            executor.scheduleWithFixedDelay(() -> {
+                if (running.compareAndSet(false, true)) {
+                    run(new Run(defaultDryRun));
+                }
+            }, intervalHours, intervalHours, TimeUnit.HOURS);
+        }
+    }
+
+    @Override
+    public StorageReconciliationReportDto startReconciliation(Boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("A storage reconciliation is already running");
+        }
+
+        Run run = new Run(dryRun != null ? dryRun : defaultDryRun);
+        lastRun = run;
+        executor.execute(() -> run(run));
+        return run.toDto();
+    }
+
+    @Override
+    public StorageReconciliationReportDto getLastReport() {
+        Run run = lastRun;
+        if (run == null) {
+            StorageReconciliationReportDto report = new StorageReconciliationReportDto();
+            report.setStatus("NEVER_RUN");
+            report.setDryRun(defaultDryRun);
+            return report;
+        }
+        return run.toDto();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Run run) {
+        lastRun = run;
+        try {
+            // Other nodes would list and delete the same files, so only one runs at a time
+            if (!databaseLock.runExclusively(LOCK_NAME, () -> reconcile(run))) {
+                log.info("Storage reconciliation {} skipped: another node is running one", run.id);
+                run.finish("SKIPPED", "Another node is running a storage reconciliation");
+            }
+        } catch (RuntimeException e) {
+            log.error("Storage reconciliation {} failed", run.id, e);
+            run.finish("FAILED", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void reconcile(Run run) {
+        log.info("Storage reconciliation {} started (dry run: {})", run.id, run.dryRun);
+        try {
+            RateLimiter listLimiter = new RateLimiter(listRequestsPerSecond);
+            RateLimiter deleteLimiter = new RateLimiter(deletesPerSecond);
+            Set<String> urlReferences = loadUrlReferences();
+            Instant cutoff = Instant.now().minus(gracePeriod);
+            LocalDateTime acquiredCutoff = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+
+            for (String directory : DIRECTORIES) {
+                List<ListedFile> batch = new ArrayList<>(batchSize);
+                String pageToken = null;
+                do {
+                    listLimiter.acquire(1);
+                    FilePage page = fileStorageService.listFiles(directory, pageToken, batchSize);
+                    for (ListedFile file : page.files()) {
+                        run.filesListed++;
+                        if (file.lastModified().isAfter(cutoff) || urlReferences.contains(file.fileKey())) {
+                            continue;
+                        }
+                        run.candidates++;
+                        batch.add(file);
+                        if (batch.size() == batchSize) {
+                            processBatch(run, batch, urlReferences, acquiredCutoff, deleteLimiter);
+                            batch.clear();
+                        }
+                    }
+                    pageToken = page.nextPageToken();
+                } while (pageToken != null);
+
+                if (!batch.isEmpty()) {
+                    processBatch(run, batch, urlReferences, acquiredCutoff, deleteLimiter);
+                }
+            }
+            run.finish("COMPLETED", null);
+            log.info("Storage reconciliation {} finished: {} listed, {} orphans ({} bytes), {} deleted",
+                    run.id, run.filesListed, run.orphans, run.orphanBytes, run.deleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.finish("FAILED", "Interrupted");
+        } catch (RuntimeException e) {
+            log.error("Storage reconciliation {} failed", run.id, e);
+            run.finish("FAILED", e.getMessage());
+        }
+    }
+
+    private void processBatch(Run run, List<ListedFile> batch, Set<String> urlReferences,
+                              LocalDateTime acquiredCutoff, RateLimiter deleteLimiter) throws InterruptedException {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        batch.forEach(file -> sizes.put(file.fileKey(), file.size()));
+
+        // Re-checked against the database just before deleting, so references added since the run started count
+        Set<String> referenced = findReferenced(sizes.keySet(), acquiredCutoff);
+
+        // Variants live as long as the image they were generated from
+        Map<String, String> owners = new HashMap<>();
+        for (Object[] row : imageUploadRepository.findVariantOwners(sizes.keySet())) {
+            owners.put((String) row[0], (String) row[1]);
+        }
+        Set<String> unresolvedOwners = new HashSet<>();
+        for (String owner : owners.values()) {
+            if (!urlReferences.contains(owner) && !referenced.contains(owner)) {
+                unresolvedOwners.add(owner);
+            }
+        }
+        Set<String> referencedOwners = unresolvedOwners.isEmpty()
+                ? Set.of()
+                : findReferenced(unresolvedOwners, acquiredCutoff);
+        owners.forEach((variant, owner) -> {
+            if (urlReferences.contains(owner) || referenced.contains(owner) || referencedOwners.contains(owner)) {
+                referenced.add(variant);
+            }
+        });
+
+        List<String> orphans = sizes.keySet().stream()
+                .filter(key -> !referenced.contains(key))
+                .toList();
+        if (orphans.isEmpty()) {
+            return;
+        }
+
+        run.recordOrphans(orphans, orphans.stream().mapToLong(sizes::get).sum());
+        if (run.dryRun) {
+            return;
+        }
+
+        deleteLimiter.acquire(orphans.size());
+        Integer deleted = transactionTemplate.execute(status -> {
+            // An upload may have resolved to the content since it was checked; the lock stops any more
+            Set<String> live = new HashSet<>();
+            for (StoredContent content : storedContentRepository.findByFileKeyInForUpdate(orphans)) {
+                LocalDateTime lastAcquiredAt = content.getLastAcquiredAt();
+                if (content.getReferenceCount() > 0
+                        || (lastAcquiredAt != null && lastAcquiredAt.isAfter(acquiredCutoff))) {
+                    live.add(content.getFileKey());
+                }
+            }
+            List<String> deletable = orphans.stream()
+                    .filter(key -> !live.contains(key) && !live.contains(owners.get(key)))
+                    .toList();
+            if (deletable.isEmpty()) {
+                return 0;
+            }
+
+            int count = fileStorageService.deleteFiles(deletable);
+            storedContentRepository.deleteByFileKeyIn(deletable);
+            List<ImageUpload> uploads = imageUploadRepository.findAllById(deletable);
+            imageUploadRepository.deleteAll(uploads);
+            return count;
+        });
+        run.deleted += deleted != null ? deleted : 0;
+    }
+
+    private Set<String> findReferenced(Collection<String> fileKeys, LocalDateTime acquiredCutoff) {
+        Set<String> referenced = new HashSet<>();
+        referenced.addAll(storedContentRepository.findLiveFileKeys(fileKeys, acquiredCutoff));
+        referenced.addAll(productImageRepository.findReferencedFileKeys(fileKeys));
+        referenced.addAll(productImageRepository.findReferencedVariantKeys(fileKeys));
+        referenced.addAll(blogPostRepository.findReferencedVariantKeys(fileKeys));
+
+        Map<String, String> keysByUrl = new HashMap<>();
+        fileKeys.forEach(key -> keysByUrl.put(fileStorageService.getFileUrl(key), key));
+        List<String> urls = new ArrayList<>(keysByUrl.keySet());
+
+        List<String> referencedUrls = new ArrayList<>();
+        referencedUrls.addAll(productImageRepository.findImageUrlsIn(urls));
+        referencedUrls.addAll(blogPostRepository.findImageUrlsIn(urls));
+        referencedUrls.addAll(profileRepository.findProfilePictureUrlsIn(urls));
+        referencedUrls.addAll(gymSessionRepository.findVideoUrlsIn(urls));
+        referencedUrls.forEach(url -> referenced.add(keysByUrl.get(url)));
+        return referenced;
+    }
+
+    /**
+     * Every path suffix of every stored URL. A key is referenced if it equals one of them, whatever
+     * base URL the reference was stored under.
+     */
+    private Set<String> loadUrlReferences() {
+        List<String> urls = new ArrayList<>();
+        urls.addAll(productImageRepository.findAllImageUrls());
+        urls.addAll(blogPostRepository.findAllImageUrls());
+        urls.addAll(profileRepository.findAllProfilePictureUrls());
+        urls.addAll(gymSessionRepository.findAllVideoUrls());
+
+        Set<String> references = new HashSet<>();
+        for (String url : urls) {
+            String path;
+            try {
+                path = URI.create(url).getPath();
+            } catch (IllegalArgumentException e) {
+                path = url;
+            }
+            if (path == null) {
+                continue;
+            }
+            for (int slash = path.indexOf('/'); slash >= 0; slash = path.indexOf('/', slash + 1)) {
+                references.add(path.substring(slash + 1));
+            }
+            references.add(path);
+        }
+        return references;
+    }
+
+    private static class Run {
+
+        private final String id = UUID.randomUUID().toString();
+        private final boolean dryRun;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+
+        // Written by the reconciler thread only; read for reports
+        private volatile long filesListed;
+        private volatile long candidates;
+        private volatile long orphans;
+        private volatile long orphanBytes;
+        private volatile long deleted;
+        private final List<String> sampleOrphanKeys = Collections.synchronizedList(new ArrayList<>());
+        private volatile String status = "RUNNING";
+        private volatile String failureMessage;
+        private volatile LocalDateTime finishedAt;
+
+        Run(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        void recordOrphans(List<String> keys, long bytes) {
+            orphans += keys.size();
+            orphanBytes += bytes;
+            for (String key : keys) {
+                if (sampleOrphanKeys.size() >= SAMPLE_SIZE) {
+                    break;
+                }
+                sampleOrphanKeys.add(key);
+            }
+        }
+
+        void finish(String status, String failureMessage) {
+            this.failureMessage = failureMessage;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        StorageReconciliationReportDto toDto() {
+            StorageReconciliationReportDto dto = new StorageReconciliationReportDto();
+            dto.setId(id);
+            dto.setStatus(status);
+            dto.setDryRun(dryRun);
+            dto.setFilesListed(filesListed);
+            dto.setCandidates(candidates);
+            dto.setOrphans(orphans);
+            dto.setOrphanBytes(orphanBytes);
+            dto.setDeleted(deleted);
+            synchronized (sampleOrphanKeys) {
+                dto.setSampleOrphanKeys(new ArrayList<>(sampleOrphanKeys));
+            }
+            dto.setFailureMessage(failureMessage);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            return dto;
+        }
+    }
+}
@@ -6,10 +6,10 @@ import com.sheshape.exception.BadRequestException;
 import com.sheshape.exception.ResourceNotFoundException;
 import com.sheshape.model.User;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.security.AuthenticatedUser;
+import com.sheshape.security.TokenVersionStore;
 import com.sheshape.service.UserService;
 import jakarta.transaction.Transactional;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -22,23 +22,20 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionStore tokenVersionStore;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           TokenVersionStore tokenVersionStore) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenVersionStore = tokenVersionStore;
     }
 
     @Override
     public UserDto getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new UsernameNotFoundException("User not authenticated");
-        }
-        
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        Long userId = AuthenticatedUser.require().id();
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
         
         return new UserDto(user);
     }
@@ -83,13 +80,22 @@ public class UserServiceImpl implements UserService {
             user.setUsername(userDto.getUsername());
         }
         
+        // Tokens name the user by email, so a new email or a deactivation invalidates them
+        boolean revokeTokens = false;
+
         if (userDto.getEmail() != null) {
+            revokeTokens = !userDto.getEmail().equals(user.getEmail());
             user.setEmail(userDto.getEmail());
         }
         
         if (userDto.getIsActive() != null) {
+            revokeTokens |= user.getIsActive() && !userDto.getIsActive();
             user.setIsActive(userDto.getIsActive());
         }
+
+        if (revokeTokens) {
+            tokenVersionStore.revokeTokens(user);
+        }
         
         // Save updated user
         User updatedUser = userRepository.save(user);
@@ -104,6 +110,7 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         
         userRepository.delete(user);
+        tokenVersionStore.onUserDeleted(id);
     }
 
     @Override
@@ -175,6 +182,9 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
 
+        if (user.getIsActive() && !isActive) {
+            tokenVersionStore.revokeTokens(user);
+        }
         user.setIsActive(isActive);
 
         User updatedUser = userRepository.save(user);
@@ -0,0 +1,397 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.dto.VideoUploadStatusDto;
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.model.VideoUpload;
+import com.sheshape.model.VideoUploadPart;
+import com.sheshape.repository.VideoUploadRepository;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.VideoUploadService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class VideoUploadServiceImpl implements VideoUploadService {
+
+    private static final String SESSION_VIDEOS_DIRECTORY = "session-videos/";
+
+    // S3 rejects parts under 5 MB (other than the last) and uploads of more than 10,000 parts
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    private final FileStorageService fileStorageService;
+    private final VideoUploadRepository videoUploadRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long partSize;
+    private final int partConcurrency;
+    private final long maxBytes;
+    private final Path workDirectory;
+
+    // Uploads with a worker attached, so a double resume cannot run the same upload twice
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+
+    public VideoUploadServiceImpl(FileStorageService fileStorageService,
+                                  VideoUploadRepository videoUploadRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${media.video.part-size-mb:16}") long partSizeMb,
+                                  @Value("${media.video.part-concurrency:4}") int partConcurrency,
+                                  @Value("${media.video.max-concurrent-uploads:2}") int maxConcurrentUploads,
+                                  @Value("${media.video.max-bytes:2147483648}") long maxBytes,
+                                  @Value("${media.video.work-dir:${java.io.tmpdir}/sheshape-video-uploads}") String workDirectory) {
+        this.fileStorageService = fileStorageService;
+        this.videoUploadRepository = videoUploadRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partSize = Math.max(MIN_PART_SIZE, partSizeMb * 1024 * 1024);
+        this.partConcurrency = partConcurrency;
+        this.maxBytes = maxBytes;
+        this.workDirectory = Paths.get(workDirectory);
+        this.executor = Executors.newFixedThreadPool(maxConcurrentUploads,
+                new CustomizableThreadFactory("video-upload-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedUploads() {
+        Integer interrupted = transactionTemplate.execute(status ->
+                videoUploadRepository.failInterrupted("Interrupted by a restart; resume to continue"));
+        if (interrupted != null && interrupted > 0) {
+            log.info("Marked {} interrupted video uploads as resumable", interrupted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public VideoUploadStatusDto startUpload(InputStream body, String contentType, long contentLength,
+                                            String originalFilename) {
+        if (contentType == null || !contentType.startsWith("video/")) {
+            throw new BadRequestException("Only video files are allowed");
+        }
+        if (contentLength <= 0) {
+            throw new BadRequestException("Content-Length is required and cannot be zero");
+        }
+        if (contentLength > maxBytes) {
+            throw new BadRequestException("Video exceeds the maximum size of " + maxBytes + " bytes");
+        }
+
+        String extension = "";
+        if (originalFilename != null && originalFilename.contains(".")) {
+            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+            // The extension ends up in the storage key
+            if (!extension.matches("\\.[A-Za-z0-9]{1,10}")) {
+                extension = "";
+            }
+        }
+
+        // Kept until the upload completes so failed parts can be re-sent. Streamed straight from the
+        // request body, so the video is never parsed as multipart or held in memory.
+        Path source = null;
+        try {
+            Files.createDirectories(workDirectory);
+            source = Files.createTempFile(workDirectory, "video-", extension);
+            long written;
+            try (OutputStream out = Files.newOutputStream(source)) {
+                written = body.transferTo(out);
+            }
+            if (written != contentLength) {
+                throw new BadRequestException("Upload ended after " + written + " of " + contentLength + " bytes");
+            }
+        } catch (IOException e) {
+            deleteQuietly(source);
+            throw new BadRequestException("Failed to store uploaded video: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            deleteQuietly(source);
+            throw e;
+        }
+
+        long size = contentLength;
+        long uploadPartSize = Math.max(partSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+        String fileKey = SESSION_VIDEOS_DIRECTORY + UUID.randomUUID() + extension;
+
+        String storageUploadId;
+        try {
+            storageUploadId = fileStorageService.createMultipartUpload(fileKey, contentType);
+        } catch (RuntimeException e) {
+            deleteQuietly(source);
+            throw e;
+        }
+
+        VideoUpload upload = new VideoUpload();
+        upload.setFileKey(fileKey);
+        upload.setStorageUploadId(storageUploadId);
+        upload.setFilename(originalFilename);
+        upload.setContentType(contentType);
+        upload.setSizeBytes(size);
+        upload.setPartSize(uploadPartSize);
+        upload.setPartCount((int) Math.max(1, (size + uploadPartSize - 1) / uploadPartSize));
+        upload.setSourcePath(source.toString());
+        upload.setUploadedBy(currentUsername());
+        VideoUpload savedUpload = videoUploadRepository.save(upload);
+
+        submit(savedUpload.getId());
+        return VideoUploadStatusDto.from(savedUpload);
+    }
+
+    @Override
+    public VideoUploadStatusDto getStatus(Long id) {
+        return VideoUploadStatusDto.from(findAccessible(id));
+    }
+
+    @Override
+    public VideoUploadStatusDto resumeUpload(Long id) {
+        VideoUpload upload = findAccessible(id);
+
+        if (upload.getStatus() != VideoUpload.Status.FAILED) {
+            throw new BadRequestException("Only failed uploads can be resumed");
+        }
+        if (running.contains(id)) {
+            throw new BadRequestException("Upload is still stopping; try again shortly");
+        }
+        if (upload.getSourcePath() == null || !Files.exists(Paths.get(upload.getSourcePath()))) {
+            throw new BadRequestException("The source video is no longer available; start a new upload");
+        }
+
+        upload.setStatus(VideoUpload.Status.UPLOADING);
+        upload.setFailureMessage(null);
+        VideoUpload savedUpload = videoUploadRepository.save(upload);
+
+        submit(id);
+        return VideoUploadStatusDto.from(savedUpload);
+    }
+
+    @Override
+    public void abortUpload(Long id) {
+        VideoUpload upload = findAccessible(id);
+
+        if (upload.getStatus() == VideoUpload.Status.COMPLETED) {
+            throw new BadRequestException("Upload has already completed");
+        }
+        if (running.contains(id)) {
+            throw new BadRequestException("Upload is still running; abort it once it has failed");
+        }
+
+        try {
+            fileStorageService.abortMultipartUpload(upload.getFileKey(), upload.getStorageUploadId());
+        } catch (RuntimeException e) {
+            log.warn("Failed to abort multipart upload {} in storage", upload.getFileKey(), e);
+        }
+        if (upload.getSourcePath() != null) {
+            deleteQuietly(Paths.get(upload.getSourcePath()));
+        }
+
+        upload.setStatus(VideoUpload.Status.ABORTED);
+        upload.setSourcePath(null);
+        videoUploadRepository.save(upload);
+    }
+
+    private void submit(Long id) {
+        if (!running.add(id)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                run(id);
+            } catch (RuntimeException e) {
+                log.error("Video upload {} failed", id, e);
+                fail(id, e);
+            } finally {
+                running.remove(id);
+            }
+        });
+    }
+
+    /**
+     * Send every part not yet recorded, at most partConcurrency at a time. The async client's
+     * callbacks only queue results; recording them happens on this thread, so the client's
+     * I/O threads never block on the database.
+     */
+    private void run(Long id) {
+        VideoUpload upload = videoUploadRepository.findWithPartsById(id).orElse(null);
+        if (upload == null || upload.getStatus() != VideoUpload.Status.UPLOADING) {
+            return;
+        }
+
+        Path source = Paths.get(upload.getSourcePath());
+        Set<Integer> uploadedParts = upload.getParts().stream()
+                .map(VideoUploadPart::getPartNumber)
+                .collect(Collectors.toSet());
+
+        BlockingQueue<PartResult> finished = new LinkedBlockingQueue<>();
+        Semaphore permits = new Semaphore(partConcurrency);
+        int inFlight = 0;
+        Throwable failure = null;
+
+        try {
+            for (int partNumber = 1; partNumber <= upload.getPartCount() && failure == null; partNumber++) {
+                if (uploadedParts.contains(partNumber)) {
+                    continue;
+                }
+
+                permits.acquire();
+                PartResult result;
+                while (failure == null && (result = finished.poll()) != null) {
+                    inFlight--;
+                    failure = record(id, result);
+                }
+                if (failure != null) {
+                    permits.release();
+                    break;
+                }
+
+                int number = partNumber;
+                long offset = (number - 1) * upload.getPartSize();
+                long length = Math.min(upload.getPartSize(), upload.getSizeBytes() - offset);
+
+                uploadPart(upload, number, source, offset, length).whenComplete((etag, error) -> {
+                    finished.add(new PartResult(number, length, etag, error));
+                    permits.release();
+                });
+                inFlight++;
+            }
+
+            // Let the parts already sent finish, so their progress is not lost on failure
+            while (inFlight > 0) {
+                Throwable partFailure = record(id, finished.take());
+                inFlight--;
+                if (failure == null) {
+                    failure = partFailure;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(id, new IllegalStateException("Interrupted by shutdown; resume to continue"));
+            return;
+        }
+
+        if (failure != null) {
+            fail(id, failure);
+            return;
+        }
+
+        complete(id, source);
+    }
+
+    private CompletableFuture<String> uploadPart(VideoUpload upload, int partNumber, Path source,
+                                                 long offset, long length) {
+        try {
+            return fileStorageService.uploadPart(upload.getFileKey(), upload.getStorageUploadId(),
+                    partNumber, source, offset, length);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Throwable record(Long id, PartResult result) {
+        if (result.error() != null) {
+            return result.error();
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                videoUploadRepository.recordPart(id, result.partNumber(), result.etag(), result.length()));
+        return null;
+    }
+
+    private void complete(Long id, Path source) {
+        VideoUpload upload = videoUploadRepository.findWithPartsById(id).orElseThrow();
+        if (upload.getParts().size() != upload.getPartCount()) {
+            fail(id, new IllegalStateException("Only " + upload.getParts().size() + " of "
+                    + upload.getPartCount() + " parts were recorded"));
+            return;
+        }
+
+        List<FileStorageService.UploadedPart> parts = upload.getParts().stream()
+                .map(part -> new FileStorageService.UploadedPart(part.getPartNumber(), part.getEtag()))
+                .toList();
+        fileStorageService.completeMultipartUpload(upload.getFileKey(), upload.getStorageUploadId(), parts);
+
+        String url = fileStorageService.getFileUrl(upload.getFileKey());
+        transactionTemplate.executeWithoutResult(status -> videoUploadRepository.findById(id).ifPresent(found -> {
+            found.setStatus(VideoUpload.Status.COMPLETED);
+            found.setUrl(url);
+            found.setSourcePath(null);
+            found.setCompletedAt(LocalDateTime.now());
+        }));
+        deleteQuietly(source);
+
+        log.info("Video upload {} completed: {} bytes in {} parts", id, upload.getSizeBytes(), upload.getPartCount());
+    }
+
+    private void fail(Long id, Throwable cause) {
+        Throwable rootCause = NestedExceptionUtils.getMostSpecificCause(cause);
+        String message = rootCause.getMessage() != null ? rootCause.getMessage() : rootCause.getClass().getSimpleName();
+        String failureMessage = message.length() > 1000 ? message.substring(0, 1000) : message;
+
+        log.warn("Video upload {} failed: {}", id, failureMessage);
+        transactionTemplate.executeWithoutResult(status -> videoUploadRepository.findById(id).ifPresent(found -> {
+            found.setStatus(VideoUpload.Status.FAILED);
+            found.setFailureMessage(failureMessage);
+        }));
+    }
+
+    private VideoUpload findAccessible(Long id) {
+        return videoUploadRepository.findWithPartsById(id)
+                .filter(upload -> isAdmin() || Objects.equals(upload.getUploadedBy(), currentUsername()))
+                .orElseThrow(() -> new ResourceNotFoundException("Video upload not found with id: " + id));
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete video source {}", file, e);
+        }
+    }
+
+    private static boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
+    private static String currentUsername() {
+        return SecurityContextHolder.getContext().getAuthentication() != null
+                ? SecurityContextHolder.getContext().getAuthentication().getName()
+                : null;
+    }
+
+    private record PartResult(int partNumber, long length, String etag, Throwable error) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.sheshape.service.mail;
+
+import com.sheshape.exception.ServiceUnavailableException;
+import com.sheshape.service.resilience.IoGuard;
+import com.sheshape.service.support.AfterCommit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends mail from a bounded in-memory queue on background workers, so a slow or unreachable
+ * SMTP server never holds request threads. Sends go through the mail IoGuard; while its circuit
+ * is open, messages wait in the queue instead of failing. Failed sends are retried with a
+ * growing delay up to mail.outbox.max-attempts. Queued mail does not survive a restart.
+ */
+@Component
+@Slf4j
+public class MailOutbox {
+
+    private final JavaMailSender mailSender;
+    private final IoGuard mailGuard;
+    private final BlockingQueue<PendingMail> queue;
+    private final int maxAttempts;
+    private final ExecutorService workers;
+
+    public MailOutbox(JavaMailSender mailSender,
+                      @Qualifier("mailGuard") IoGuard mailGuard,
+                      MeterRegistry meterRegistry,
+                      @Value("${mail.outbox.capacity:1000}") int capacity,
+                      @Value("${mail.outbox.workers:2}") int workerCount,
+                      @Value("${mail.outbox.max-attempts:5}") int maxAttempts) {
+        this.mailSender = mailSender;
+        this.mailGuard = mailGuard;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxAttempts = maxAttempts;
+
+        Gauge.builder("mail.outbox.size", queue, BlockingQueue::size)
+                .description("Messages waiting to be sent")
+                .register(meterRegistry);
+
+        this.workers = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("mail-outbox-"));
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+    }
+
+    /**
+     * Queue a message. Inside a transaction it is queued only once the transaction commits.
+     *
+     * @throws ServiceUnavailableException if the queue is full (outside a transaction)
+     */
+    public void send(SimpleMailMessage message) {
+        PendingMail pending = new PendingMail(message, 0);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The commit has already happened by then, so a full queue can only be logged
+            AfterCommit.run(() -> {
+                if (!queue.offer(pending)) {
+                    log.error("Mail queue full, dropping message to {}", recipients(message));
+                }
+            });
+            return;
+        }
+
+        if (!queue.offer(pending)) {
+            throw new ServiceUnavailableException("Mail cannot be sent right now. Please try again shortly.",
+                    mailGuard.retryAfterSeconds());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        if (!queue.isEmpty()) {
+            log.warn("Discarding {} unsent messages on shutdown", queue.size());
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                PendingMail pending = queue.take();
+
+                // Hold mail while the circuit is open rather than spending its attempts
+                while (!mailGuard.isCallPermitted()) {
+                    TimeUnit.SECONDS.sleep(mailGuard.retryAfterSeconds());
+                }
+
+                try {
+                    mailGuard.run(() -> mailSender.send(pending.message()));
+                } catch (ServiceUnavailableException e) {
+                    // Bulkhead full or circuit just opened; not the message's fault
+                    TimeUnit.SECONDS.sleep(1);
+                    requeue(pending);
+                } catch (MailException e) {
+                    if (pending.attempts() + 1 >= maxAttempts) {
+                        log.error("Giving up on mail to {} after {} attempts",
+                                recipients(pending.message()), maxAttempts, e);
+                        continue;
+                    }
+                    log.warn("Mail to {} failed, retrying: {}", recipients(pending.message()), e.getMessage());
+                    TimeUnit.SECONDS.sleep(2L << pending.attempts());
+                    requeue(new PendingMail(pending.message(), pending.attempts() + 1));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void requeue(PendingMail pending) {
+        if (!queue.offer(pending)) {
+            log.error("Mail queue full, dropping message to {}", recipients(pending.message()));
+        }
+    }
+
+    private static String recipients(SimpleMailMessage message) {
+        return message.getTo() != null ? Arrays.toString(message.getTo()) : "[]";
+    }
+
+    private record PendingMail(SimpleMailMessage message, int attempts) {
+    }
+}
@@ -0,0 +1,203 @@
+package com.sheshape.service.media;
+
+import com.sheshape.model.BlogPost;
+import com.sheshape.model.ImageUpload;
+import com.sheshape.model.ImageVariant;
+import com.sheshape.model.ProductImage;
+import com.sheshape.repository.BlogPostRepository;
+import com.sheshape.repository.ImageUploadRepository;
+import com.sheshape.repository.ProductImageRepository;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates resized variants of uploaded images on a bounded worker pool, off the request thread.
+ * When the queue is full the upload simply keeps serving its original; nothing blocks the caller.
+ */
+@Component
+@Slf4j
+public class ImageVariantPipeline {
+
+    private static final String VARIANT_FORMAT = "jpeg";
+
+    private final FileStorageService fileStorageService;
+    private final ImageUploadRepository imageUploadRepository;
+    private final ProductImageRepository productImageRepository;
+    private final BlogPostRepository blogPostRepository;
+    private final CatalogVersions catalogVersions;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int[] widths;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    public ImageVariantPipeline(FileStorageService fileStorageService,
+                                ImageUploadRepository imageUploadRepository,
+                                ProductImageRepository productImageRepository,
+                                BlogPostRepository blogPostRepository,
+                                CatalogVersions catalogVersions,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${media.variants.widths:320,640,1024,1600}") int[] widths,
+                                @Value("${media.variants.jpeg-quality:0.82}") float jpegQuality,
+                                @Value("${media.upload.max-image-pixels:40000000}") long maxPixels,
+                                @Value("${media.variants.workers:2}") int workers,
+                                @Value("${media.variants.queue-capacity:100}") int queueCapacity) {
+        this.fileStorageService = fileStorageService;
+        this.imageUploadRepository = imageUploadRepository;
+        this.productImageRepository = productImageRepository;
+        this.blogPostRepository = blogPostRepository;
+        this.catalogVersions = catalogVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.widths = widths;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("image-variants-"));
+    }
+
+    /**
+     * Queue variant generation for an upload. Takes ownership of the source file and deletes it when done.
+     */
+    public void submit(String fileKey, Path source) {
+        try {
+            executor.execute(() -> process(fileKey, source));
+        } catch (RejectedExecutionException e) {
+            log.warn("Variant queue full, serving original only for {}", fileKey);
+            deleteQuietly(source);
+            markFailed(fileKey);
+        }
+    }
+
+    /**
+     * Queue variant generation for a file that was uploaded straight to storage; the worker
+     * downloads it first so the request thread never touches the bytes
+     */
+    public void submitStored(String fileKey) {
+        try {
+            executor.execute(() -> {
+                Path source = null;
+                try {
+                    source = Files.createTempFile("image-variant-", null);
+                    fileStorageService.downloadFile(fileKey, source);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Failed to fetch {} for variant generation", fileKey, e);
+                    if (source != null) {
+                        deleteQuietly(source);
+                    }
+                    markFailed(fileKey);
+                    return;
+                }
+                process(fileKey, source);
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Variant queue full, serving original only for {}", fileKey);
+            markFailed(fileKey);
+        }
+    }
+
+    private void process(String fileKey, Path source) {
+        try {
+            // Direct uploads reach here without the upload-time check, so the limit applies again
+            BufferedImage original = ImageResizer.read(source, maxPixels);
+            if (original == null) {
+                log.info("No ImageIO reader for {}, skipping variants", fileKey);
+                markFailed(fileKey);
+                return;
+            }
+
+            List<ImageVariant> variants = new ArrayList<>();
+            for (int width : widths) {
+                // Never upscale
+                if (width >= original.getWidth()) {
+                    continue;
+                }
+                byte[] encoded = ImageResizer.encodeJpeg(ImageResizer.resize(original, width), jpegQuality);
+                String variantKey = variantKey(fileKey, width);
+                fileStorageService.uploadFile(variantKey, encoded, "image/jpeg");
+                variants.add(new ImageVariant(VARIANT_FORMAT, width, variantKey, fileStorageService.getFileUrl(variantKey)));
+            }
+
+            transactionTemplate.executeWithoutResult(status -> record(fileKey, variants));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to generate variants for {}", fileKey, e);
+            markFailed(fileKey);
+        } finally {
+            deleteQuietly(source);
+        }
+    }
+
+    /**
+     * Store the variants on the upload and copy them onto any product images or blog posts
+     * that already reference it
+     */
+    private void record(String fileKey, List<ImageVariant> variants) {
+        ImageUpload upload = imageUploadRepository.findById(fileKey).orElse(null);
+        if (upload == null) {
+            return;
+        }
+        upload.setStatus(ImageUpload.Status.READY);
+        upload.setVariants(new ArrayList<>(variants));
+
+        List<ProductImage> productImages = productImageRepository.findByFileKey(fileKey);
+        for (ProductImage image : productImages) {
+            image.setVariants(new ArrayList<>(variants));
+        }
+        if (!productImages.isEmpty()) {
+            catalogVersions.bump(Aggregate.PRODUCTS);
+        }
+
+        List<BlogPost> posts = blogPostRepository.findByImageUrl(upload.getUrl());
+        for (BlogPost post : posts) {
+            post.setImageVariants(new ArrayList<>(variants));
+        }
+        if (!posts.isEmpty()) {
+            catalogVersions.bump(Aggregate.BLOG);
+        }
+    }
+
+    private void markFailed(String fileKey) {
+        transactionTemplate.executeWithoutResult(status -> imageUploadRepository.findById(fileKey)
+                .ifPresent(upload -> upload.setStatus(ImageUpload.Status.FAILED)));
+    }
+
+    // product-images/abc.png -> product-images/abc-640w.jpg
+    static String variantKey(String fileKey, int width) {
+        int slash = fileKey.lastIndexOf('/');
+        int dot = fileKey.lastIndexOf('.');
+        String base = dot > slash ? fileKey.substring(0, dot) : fileKey;
+        return base + "-" + width + "w.jpg";
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}", file, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,20 @@
+package com.sheshape.service.media;
+
+/**
+ * What an image upload is for; decides its storage directory and size limit
+ */
+public enum UploadPurpose {
+    PRODUCT_IMAGE("product-images/"),
+    BLOG_IMAGE("blog-images/"),
+    PROFILE_PICTURE("profile-pictures/");
+
+    private final String directory;
+
+    UploadPurpose(String directory) {
+        this.directory = directory;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,257 @@
+package com.sheshape.service.media;
+
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.FileStorageService.StoredFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches stored videos in fixed-size segments (file key + segment index), so seeking around a
+ * popular session video is served locally instead of going back to storage for every range.
+ *
+ * <p>Two LRU tiers: a small heap tier for the hottest segments and a disk tier that responses are
+ * sent from with sendfile. Segments evicted from disk are deleted a minute later rather than right
+ * away, because sendfile opens the file only after the handler returns. Concurrent misses on the
+ * same segment share one storage download. The disk tier lives in a directory created per instance
+ * and removed on shutdown.
+ */
+@Component
+@Slf4j
+public class VideoSegmentCache {
+
+    private static final long RETIRED_FILE_GRACE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int MAX_TRACKED_FILES = 10_000;
+
+    private final FileStorageService fileStorageService;
+    private final long segmentSize;
+    private final long maxDiskBytes;
+    private final long maxMemoryBytes;
+    private final Path directory;
+
+    // Both guarded by this
+    private final LinkedHashMap<SegmentKey, DiskSegment> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<SegmentKey, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+    private long memoryBytes;
+
+    private final ConcurrentHashMap<SegmentKey, CompletableFuture<DiskSegment>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, StoredFile> fileInfo = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<RetiredFile> retired = new ConcurrentLinkedQueue<>();
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+    private final ScheduledExecutorService executor;
+
+    public VideoSegmentCache(FileStorageService fileStorageService,
+                             MeterRegistry meterRegistry,
+                             @Value("${gym.video.segment-size-kb:2048}") long segmentSizeKb,
+                             @Value("${gym.video.disk-cache-mb:2048}") long diskCacheMb,
+                             @Value("${gym.video.memory-cache-mb:64}") long memoryCacheMb,
+                             @Value("${gym.video.cache-dir:${java.io.tmpdir}}") String cacheDirectory)
+            throws IOException {
+        this.fileStorageService = fileStorageService;
+        this.segmentSize = segmentSizeKb * 1024;
+        this.maxDiskBytes = diskCacheMb * 1024 * 1024;
+        this.maxMemoryBytes = memoryCacheMb * 1024 * 1024;
+
+        // Nothing on disk is indexed after a restart, so each instance starts from a fresh directory of
+        // its own rather than clearing one that other processes may be using
+        Path parent = Files.createDirectories(Paths.get(cacheDirectory));
+        this.directory = Files.createTempDirectory(parent, "sheshape-video-cache-");
+
+        this.memoryHits = Counter.builder("gym.video.cache").tag("result", "memory").register(meterRegistry);
+        this.diskHits = Counter.builder("gym.video.cache").tag("result", "disk").register(meterRegistry);
+        this.misses = Counter.builder("gym.video.cache").tag("result", "miss").register(meterRegistry);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("video-cache-"));
+        executor.scheduleWithFixedDelay(this::deleteRetired, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            FileSystemUtils.deleteRecursively(directory);
+        } catch (IOException e) {
+            log.warn("Failed to delete video cache directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * @return Size and content type of the stored file, looked up in storage once per file
+     */
+    public Optional<StoredFile> getFileInfo(String fileKey) {
+        StoredFile cached = fileInfo.get(fileKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<StoredFile> info = fileStorageService.getFileInfo(fileKey);
+        if (info.isPresent()) {
+            if (fileInfo.size() >= MAX_TRACKED_FILES) {
+                fileInfo.clear();
+            }
+            fileInfo.put(fileKey, info.get());
+        }
+        return info;
+    }
+
+    /**
+     * Get the segment containing {@code position}, downloading it from storage on a miss
+     * @param fileSize Size of the whole file, which bounds the last segment
+     */
+    public Segment getSegment(String fileKey, long position, long fileSize) {
+        long index = position / segmentSize;
+        long offset = index * segmentSize;
+        long length = Math.min(segmentSize, fileSize - offset);
+        SegmentKey key = new SegmentKey(fileKey, index);
+
+        synchronized (this) {
+            byte[] bytes = memory.get(key);
+            if (bytes != null) {
+                memoryHits.increment();
+                return new Segment(offset, length, bytes, null);
+            }
+            DiskSegment cached = disk.get(key);
+            if (cached != null) {
+                diskHits.increment();
+                return new Segment(offset, length, null, cached.path());
+            }
+        }
+
+        CompletableFuture<DiskSegment> download = new CompletableFuture<>();
+        CompletableFuture<DiskSegment> existing = inFlight.putIfAbsent(key, download);
+        if (existing != null) {
+            return new Segment(offset, length, null, await(existing).path());
+        }
+
+        misses.increment();
+        try {
+            DiskSegment segment = download(key, offset, length);
+            download.complete(segment);
+            return new Segment(offset, length, null, segment.path());
+        } catch (RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, download);
+        }
+    }
+
+    private DiskSegment download(SegmentKey key, long offset, long length) {
+        Path path = directory.resolve(UUID.randomUUID() + ".seg");
+        fileStorageService.downloadRange(key.fileKey(), offset, length, path);
+        DiskSegment segment = new DiskSegment(path, length);
+
+        byte[] bytes = null;
+        if (length <= maxMemoryBytes) {
+            try {
+                bytes = Files.readAllBytes(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read cached video segment", e);
+            }
+        }
+
+        synchronized (this) {
+            DiskSegment replaced = disk.put(key, segment);
+            diskBytes += length - (replaced != null ? replaced.size() : 0);
+            if (replaced != null) {
+                retire(replaced);
+            }
+            while (diskBytes > maxDiskBytes && disk.size() > 1) {
+                Iterator<Map.Entry<SegmentKey, DiskSegment>> eldest = disk.entrySet().iterator();
+                DiskSegment evicted = eldest.next().getValue();
+                eldest.remove();
+                diskBytes -= evicted.size();
+                retire(evicted);
+            }
+
+            if (bytes != null) {
+                byte[] previous = memory.put(key, bytes);
+                memoryBytes += bytes.length - (previous != null ? previous.length : 0);
+                while (memoryBytes > maxMemoryBytes && !memory.isEmpty()) {
+                    Iterator<Map.Entry<SegmentKey, byte[]>> eldest = memory.entrySet().iterator();
+                    memoryBytes -= eldest.next().getValue().length;
+                    eldest.remove();
+                }
+            }
+        }
+        return segment;
+    }
+
+    private static DiskSegment await(CompletableFuture<DiskSegment> download) {
+        try {
+            return download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for video segment", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to load video segment", e.getCause());
+        }
+    }
+
+    private void retire(DiskSegment segment) {
+        retired.add(new RetiredFile(segment.path(), System.nanoTime()));
+    }
+
+    private void deleteRetired() {
+        long now = System.nanoTime();
+        RetiredFile file;
+        while ((file = retired.peek()) != null && now - file.retiredAt() >= RETIRED_FILE_GRACE_NANOS) {
+            retired.poll();
+            try {
+                Files.deleteIfExists(file.path());
+            } catch (IOException e) {
+                log.warn("Failed to delete evicted video segment {}: {}", file.path(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A cached part of a file: {@code length} bytes starting at {@code offset}, held either in
+     * memory (bytes) or in a local file (path) that starts at the segment's first byte
+     */
+    public record Segment(long offset, long length, byte[] bytes, Path path) {
+    }
+
+    private record SegmentKey(String fileKey, long index) {
+    }
+
+    private record DiskSegment(Path path, long size) {
+    }
+
+    private record RetiredFile(Path path, long retiredAt) {
+    }
+}
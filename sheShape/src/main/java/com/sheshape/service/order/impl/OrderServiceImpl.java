@@ -16,6 +16,7 @@ import com.sheshape.repository.UserRepository;
 import com.sheshape.repository.order.CartRepository;
 import com.sheshape.repository.order.OrderRepository;
 import com.sheshape.service.ProductService;
+import com.sheshape.service.mail.MailOutbox;
 import com.sheshape.service.order.CartService;
 import com.sheshape.service.order.OrderService;
 import lombok.RequiredArgsConstructor;
@@ -26,7 +27,6 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -48,7 +48,7 @@ public class OrderServiceImpl implements OrderService {
     private final CartService cartService;
     private final ProductService productService;
     private final UserRepository userRepository;
-    private final JavaMailSender mailSender;
+    private final MailOutbox mailOutbox;
 
     // Use the configured Gmail address as the support email
     @Value("${spring.mail.username}")
@@ -311,9 +311,10 @@ public class OrderServiceImpl implements OrderService {
             message.setSubject(subject);
             message.setText(emailBody);
 
-            mailSender.send(message);
+            // Queued; delivered in the background once the order has committed
+            mailOutbox.send(message);
 
-            log.info("Order confirmation email sent successfully for order: {}", order.getOrderNumber());
+            log.info("Order confirmation email queued for order: {}", order.getOrderNumber());
 
         } catch (Exception e) {
             log.error("Failed to send order confirmation email for order ID: {}", orderId, e);
@@ -0,0 +1,255 @@
+package com.sheshape.service.progress;
+
+import com.sheshape.dto.WatchProgressDto;
+import com.sheshape.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces watch-progress heartbeats in memory and writes them out periodically. Only the latest
+ * report per user and session is kept, so a viewer sending a heartbeat every few seconds costs one
+ * row write per flush interval instead of one per request, and all writes of a flush go out as JDBC
+ * batches.
+ *
+ * <p>Reports are upserted only for users with an active enrollment in the program (checked by the
+ * INSERT ... SELECT itself, so heartbeats never query the database), and an older report never
+ * overwrites a newer one. The latest session per user and program also becomes the enrollment's
+ * last watched session. Reports not yet flushed are lost on a crash, at most one interval's worth.
+ * A report whose write fails is retried on the following flushes, up to max-write-attempts, and
+ * then dropped.
+ *
+ * <p>Pending reports are grouped by user and program, which is how the progress endpoints read them.
+ */
+@Component
+@Slf4j
+public class WatchProgressBuffer {
+
+    private static final String UPSERT_PROGRESS =
+            "INSERT INTO session_progress (user_id, session_id, program_id, position_seconds, percent_complete, updated_at) " +
+            "SELECT ?, ?, ?, ?, ?, ? FROM user_gym_programs e " +
+            "WHERE e.user_id = ? AND e.program_id = ? AND e.status = 'ACTIVE' LIMIT 1 " +
+            "ON DUPLICATE KEY UPDATE " +
+            // Assignments apply left to right, so updated_at must be compared before it is replaced
+            "position_seconds = IF(VALUES(updated_at) >= session_progress.updated_at, " +
+            "VALUES(position_seconds), session_progress.position_seconds), " +
+            "percent_complete = IF(VALUES(updated_at) >= session_progress.updated_at, " +
+            "VALUES(percent_complete), session_progress.percent_complete), " +
+            "program_id = VALUES(program_id), " +
+            "updated_at = GREATEST(session_progress.updated_at, VALUES(updated_at))";
+
+    private static final String UPDATE_LAST_WATCHED =
+            "UPDATE user_gym_programs SET last_watched_session_id = ?, updated_at = ? " +
+            "WHERE user_id = ? AND program_id = ? AND status = 'ACTIVE'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxPending;
+    private final int maxWriteAttempts;
+
+    // Latest report per session, grouped by enrollment; inner maps are only touched inside compute
+    private final ConcurrentHashMap<Enrollment, Map<Long, Report>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Counter received;
+    private final Counter written;
+    private final Counter dropped;
+    private final ScheduledExecutorService executor;
+
+    public WatchProgressBuffer(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${gym.progress.flush-interval-ms:5000}") long flushIntervalMs,
+                               @Value("${gym.progress.batch-size:500}") int batchSize,
+                               @Value("${gym.progress.max-pending:100000}") int maxPending,
+                               @Value("${gym.progress.max-write-attempts:5}") int maxWriteAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.maxWriteAttempts = maxWriteAttempts;
+
+        Gauge.builder("gym.progress.pending", pendingCount, AtomicInteger::get)
+                .description("Watch-progress reports waiting to be written")
+                .register(meterRegistry);
+        this.received = Counter.builder("gym.progress.heartbeats")
+                .description("Watch-progress heartbeats received")
+                .register(meterRegistry);
+        this.written = Counter.builder("gym.progress.rows_written")
+                .description("Watch-progress rows written after coalescing")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("gym.progress.rows_dropped")
+                .description("Watch-progress reports given up on after max-write-attempts failed writes")
+                .register(meterRegistry);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("watch-progress-"));
+        executor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Write out whatever arrived since the last scheduled flush
+        flush();
+    }
+
+    /**
+     * Record the player's position, replacing any report for the same session not yet written
+     * @throws ServiceUnavailableException If max-pending sessions are already waiting to be written
+     */
+    public void record(Long userId, Long programId, Long sessionId, int positionSeconds, double percentComplete) {
+        Report report = new Report(positionSeconds, percentComplete, LocalDateTime.now(), 0);
+        pending.compute(new Enrollment(userId, programId), (enrollment, sessions) -> {
+            Map<Long, Report> merged = sessions != null ? sessions : new HashMap<>();
+            if (!merged.containsKey(sessionId)) {
+                if (pendingCount.get() >= maxPending) {
+                    throw new ServiceUnavailableException(
+                            "Progress cannot be saved right now. Please try again shortly.", 5);
+                }
+                pendingCount.incrementAndGet();
+            }
+            merged.merge(sessionId, report, Report::newer);
+            return merged;
+        });
+        received.increment();
+    }
+
+    /**
+     * @return Reports for the user's sessions in the program that have not been written yet, by session id
+     */
+    public Map<Long, WatchProgressDto> pendingFor(Long userId, Long programId) {
+        Map<Long, WatchProgressDto> result = new HashMap<>();
+        pending.computeIfPresent(new Enrollment(userId, programId), (enrollment, sessions) -> {
+            sessions.forEach((sessionId, report) -> result.put(sessionId, new WatchProgressDto(programId,
+                    sessionId, report.positionSeconds(), report.percentComplete(), report.reportedAt())));
+            return sessions;
+        });
+        return result;
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Take each enrollment out whole; a heartbeat arriving meanwhile starts a fresh entry for the next flush
+        List<Pending> drained = new ArrayList<>();
+        for (Enrollment enrollment : pending.keySet()) {
+            Map<Long, Report> sessions = pending.remove(enrollment);
+            if (sessions != null) {
+                pendingCount.addAndGet(-sessions.size());
+                sessions.forEach((sessionId, report) -> drained.add(new Pending(enrollment, sessionId, report)));
+            }
+        }
+
+        for (int from = 0; from < drained.size(); from += batchSize) {
+            List<Pending> chunk = drained.subList(from, Math.min(from + batchSize, drained.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(chunk));
+                written.increment(chunk.size());
+            } catch (RuntimeException e) {
+                requeue(chunk, e);
+            }
+        }
+    }
+
+    private void requeue(List<Pending> chunk, RuntimeException failure) {
+        int retried = 0;
+        for (Pending entry : chunk) {
+            Report report = entry.report().failed();
+            if (report.failedAttempts() >= maxWriteAttempts) {
+                continue;
+            }
+            retried++;
+            // Put it back unless a newer report has arrived in the meantime
+            pending.compute(entry.enrollment(), (enrollment, sessions) -> {
+                Map<Long, Report> merged = sessions != null ? sessions : new HashMap<>();
+                if (!merged.containsKey(entry.sessionId())) {
+                    pendingCount.incrementAndGet();
+                }
+                merged.merge(entry.sessionId(), report, Report::newer);
+                return merged;
+            });
+        }
+
+        int given = chunk.size() - retried;
+        if (given > 0) {
+            dropped.increment(given);
+            log.error("Dropping {} watch-progress reports after {} failed writes: {}",
+                    given, maxWriteAttempts, failure.getMessage());
+        }
+        if (retried > 0) {
+            log.warn("Failed to write {} watch-progress reports, retrying next flush: {}",
+                    retried, failure.getMessage());
+        }
+    }
+
+    private void write(List<Pending> chunk) {
+        List<Object[]> progressRows = new ArrayList<>(chunk.size());
+        // Latest session per enrollment
+        Map<Enrollment, Pending> latest = new HashMap<>();
+
+        for (Pending entry : chunk) {
+            Enrollment enrollment = entry.enrollment();
+            Report report = entry.report();
+            progressRows.add(new Object[]{
+                    enrollment.userId(), entry.sessionId(), enrollment.programId(), report.positionSeconds(),
+                    report.percentComplete(), Timestamp.valueOf(report.reportedAt()),
+                    enrollment.userId(), enrollment.programId()
+            });
+            latest.merge(enrollment, entry,
+                    (a, b) -> a.report().reportedAt().isAfter(b.report().reportedAt()) ? a : b);
+        }
+
+        List<Object[]> lastWatchedRows = new ArrayList<>(latest.size());
+        latest.forEach((enrollment, entry) -> lastWatchedRows.add(new Object[]{
+                entry.sessionId(), Timestamp.valueOf(entry.report().reportedAt()),
+                enrollment.userId(), enrollment.programId()
+        }));
+
+        jdbcTemplate.batchUpdate(UPSERT_PROGRESS, progressRows);
+        jdbcTemplate.batchUpdate(UPDATE_LAST_WATCHED, lastWatchedRows);
+    }
+
+    private record Enrollment(Long userId, Long programId) {
+    }
+
+    private record Pending(Enrollment enrollment, Long sessionId, Report report) {
+    }
+
+    private record Report(int positionSeconds, double percentComplete, LocalDateTime reportedAt, int failedAttempts) {
+
+        Report newer(Report other) {
+            return other.reportedAt.isBefore(reportedAt) ? this : other;
+        }
+
+        Report failed() {
+            return new Report(positionSeconds, percentComplete, reportedAt, failedAttempts + 1);
+        }
+    }
+}
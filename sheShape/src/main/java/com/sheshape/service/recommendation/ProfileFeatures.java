@@ -0,0 +1,188 @@
+package com.sheshape.service.recommendation;
+
+import com.sheshape.dto.GymProgramDto;
+import com.sheshape.dto.GymSessionDto;
+import com.sheshape.model.NutritionPlan;
+import com.sheshape.model.profile.FitnessProfile;
+import com.sheshape.model.profile.FitnessProfile.ActivityType;
+import com.sheshape.model.profile.FitnessProfile.FitnessGoal;
+import com.sheshape.model.profile.FitnessProfile.FitnessLevel;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maps fitness profiles and catalog items onto the same small feature space so they can be
+ * compared with a dot product: fitness level, then one dimension per FitnessGoal, then one per
+ * ActivityType. Profiles fill it from their fields; items from keywords in their title and
+ * description (and session titles), since programs and plans carry no goal or activity tags.
+ * Vectors are L2-normalized, so the dot product is the cosine similarity.
+ */
+final class ProfileFeatures {
+
+    private static final FitnessLevel[] LEVELS = FitnessLevel.values();
+    private static final FitnessGoal[] GOALS = FitnessGoal.values();
+    private static final ActivityType[] ACTIVITIES = ActivityType.values();
+
+    private static final int GOAL_OFFSET = LEVELS.length;
+    private static final int ACTIVITY_OFFSET = GOAL_OFFSET + GOALS.length;
+    static final int DIMENSIONS = ACTIVITY_OFFSET + ACTIVITIES.length;
+
+    private static final float SECONDARY_GOAL_WEIGHT = 0.5f;
+    private static final float ADJACENT_LEVEL_WEIGHT = 0.5f;
+
+    private static final Map<FitnessGoal, List<String>> GOAL_KEYWORDS = new EnumMap<>(Map.of(
+            FitnessGoal.WEIGHT_LOSS, List.of("weight loss", "fat", "slim", "lean", "calorie", "deficit"),
+            FitnessGoal.MUSCLE_GAIN, List.of("muscle", "bulk", "hypertrophy", "protein", "mass", "toning"),
+            FitnessGoal.STRENGTH_BUILDING, List.of("strength", "strong", "power", "lifting"),
+            FitnessGoal.ENDURANCE, List.of("endurance", "stamina", "marathon", "conditioning"),
+            FitnessGoal.FLEXIBILITY, List.of("flexib", "stretch", "mobility", "yoga"),
+            FitnessGoal.GENERAL_FITNESS, List.of("fitness", "full body", "healthy", "wellness", "balanced"),
+            FitnessGoal.STRESS_RELIEF, List.of("stress", "relax", "mindful", "calm", "breath"),
+            FitnessGoal.REHABILITATION,
+            List.of("rehab", "recovery", "injury", "postnatal", "postpartum", "low impact")));
+
+    private static final Map<ActivityType, List<String>> ACTIVITY_KEYWORDS = new EnumMap<>(Map.ofEntries(
+            Map.entry(ActivityType.CARDIO, List.of("cardio", "aerobic")),
+            Map.entry(ActivityType.STRENGTH_TRAINING,
+                    List.of("strength", "weights", "dumbbell", "resistance", "kettlebell")),
+            Map.entry(ActivityType.YOGA, List.of("yoga")),
+            Map.entry(ActivityType.PILATES, List.of("pilates")),
+            Map.entry(ActivityType.HIIT, List.of("hiit", "interval", "tabata")),
+            Map.entry(ActivityType.DANCING, List.of("dance", "zumba")),
+            Map.entry(ActivityType.OUTDOOR, List.of("outdoor", "hiking")),
+            Map.entry(ActivityType.SWIMMING, List.of("swim", "aqua")),
+            Map.entry(ActivityType.RUNNING, List.of("running", "run ", "jog")),
+            Map.entry(ActivityType.CYCLING, List.of("cycling", "bike", "spin")),
+            Map.entry(ActivityType.WALKING, List.of("walk"))));
+
+    private ProfileFeatures() {
+    }
+
+    static float[] forProfile(FitnessProfile profile) {
+        float[] vector = new float[DIMENSIONS];
+        if (profile == null) {
+            return vector;
+        }
+
+        if (profile.getFitnessLevel() != null) {
+            int level = profile.getFitnessLevel().ordinal();
+            vector[level] = 1;
+            // Programs one step easier or harder are still a reasonable fit
+            if (level > 0) {
+                vector[level - 1] = ADJACENT_LEVEL_WEIGHT;
+            }
+            if (level < LEVELS.length - 1) {
+                vector[level + 1] = ADJACENT_LEVEL_WEIGHT;
+            }
+        }
+
+        for (String goal : profile.getSecondaryGoals()) {
+            matchTerm(goal, GOALS, GOAL_KEYWORDS, vector, GOAL_OFFSET, SECONDARY_GOAL_WEIGHT);
+        }
+        if (profile.getPrimaryGoal() != null) {
+            vector[GOAL_OFFSET + profile.getPrimaryGoal().ordinal()] = 1;
+        }
+        for (String activity : profile.getPreferredActivityTypes()) {
+            matchTerm(activity, ACTIVITIES, ACTIVITY_KEYWORDS, vector, ACTIVITY_OFFSET, 1);
+        }
+        return normalize(vector);
+    }
+
+    static float[] forGymProgram(GymProgramDto program) {
+        float[] vector = new float[DIMENSIONS];
+        if (program.getDifficultyLevel() != null) {
+            // BEGINNER, INTERMEDIATE and ADVANCED line up with the first fitness levels
+            try {
+                vector[FitnessLevel.valueOf(program.getDifficultyLevel()).ordinal()] = 1;
+            } catch (IllegalArgumentException ignored) {
+                // Unknown level: no level signal
+            }
+        }
+
+        StringBuilder text = new StringBuilder()
+                .append(Objects.toString(program.getTitle(), "")).append(' ')
+                .append(Objects.toString(program.getDescription(), ""));
+        for (GymSessionDto session : program.getSessions()) {
+            text.append(' ').append(Objects.toString(session.getTitle(), ""));
+        }
+        matchText(text.toString(), vector);
+        return normalize(vector);
+    }
+
+    static float[] forNutritionPlan(NutritionPlan plan) {
+        float[] vector = new float[DIMENSIONS];
+        matchText(Objects.toString(plan.getTitle(), "") + " " + Objects.toString(plan.getDescription(), ""), vector);
+        return normalize(vector);
+    }
+
+    static double similarity(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static void matchText(String text, float[] vector) {
+        String lower = " " + text.toLowerCase(Locale.ROOT) + " ";
+        GOAL_KEYWORDS.forEach((goal, keywords) -> {
+            if (containsAny(lower, keywords)) {
+                vector[GOAL_OFFSET + goal.ordinal()] = 1;
+            }
+        });
+        ACTIVITY_KEYWORDS.forEach((activity, keywords) -> {
+            if (containsAny(lower, keywords)) {
+                vector[ACTIVITY_OFFSET + activity.ordinal()] = 1;
+            }
+        });
+    }
+
+    /**
+     * Profiles store goals and activities as free text from the frontend: use the enum constant if
+     * the term names one ("Weight Loss" -> WEIGHT_LOSS), otherwise its keywords
+     */
+    private static <E extends Enum<E>> void matchTerm(String term, E[] constants, Map<E, List<String>> keywords,
+                                                      float[] vector, int offset, float weight) {
+        String normalized = term.trim().toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]+", "_");
+        for (E constant : constants) {
+            if (constant.name().equals(normalized)) {
+                vector[offset + constant.ordinal()] = Math.max(vector[offset + constant.ordinal()], weight);
+                return;
+            }
+        }
+
+        String lower = " " + term.toLowerCase(Locale.ROOT) + " ";
+        keywords.forEach((constant, words) -> {
+            if (containsAny(lower, words)) {
+                vector[offset + constant.ordinal()] = Math.max(vector[offset + constant.ordinal()], weight);
+            }
+        });
+    }
+
+    private static boolean containsAny(String text, List<String> keywords) {
+        for (String keyword : keywords) {
+            if (text.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,360 @@
+package com.sheshape.service.recommendation;
+
+import com.sheshape.dto.GymProgramDto;
+import com.sheshape.model.CatalogItemType;
+import com.sheshape.model.NutritionPlan;
+import com.sheshape.repository.NutritionPlanRepository;
+import com.sheshape.repository.profile.FitnessProfileRepository;
+import com.sheshape.service.catalog.GymProgramCatalog;
+import com.sheshape.service.support.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranks active gym programs and nutrition plans for a user entirely in memory.
+ *
+ * <p>A score blends three signals: how well the item's feature vector matches the user's fitness
+ * profile (see ProfileFeatures), how often the item was enrolled in together with the user's own
+ * enrollments (co-enrollment, cosine-normalized), and overall popularity. The top K come out of a
+ * bounded heap over the catalog, skipping items the user already has.
+ *
+ * <p>Item vectors are rebuilt every refresh-seconds from the gym program snapshot and the active
+ * nutrition plans. Co-enrollment counts are rebuilt from the enrollment tables every
+ * rebuild-minutes and updated incrementally when an enrollment is made on this node in between.
+ * The first build runs in the background after startup; until it finishes, scores use the profile
+ * match alone.
+ * User vectors and enrollments are loaded on first use and dropped when the profile or
+ * enrollments change, or after user-ttl-minutes for changes made on other nodes.
+ */
+@Component
+@Slf4j
+public class RecommendationEngine {
+
+    // Co-enrollment pairs grow with the square of a user's enrollments; count only the first ones
+    private static final int MAX_ITEMS_PER_USER = 50;
+
+    private static final String ALL_ENROLLMENTS =
+            "SELECT user_id, 'G', program_id FROM user_gym_programs " +
+            "UNION ALL SELECT user_id, 'N', plan_id FROM user_nutrition_plans ORDER BY 1";
+
+    // Stands in until the first build, so scores come from the profile match alone
+    private static final CoEnrollments NO_CO_ENROLLMENTS = new CoEnrollments();
+
+    private static final String USER_ENROLLMENTS =
+            "SELECT 'G', program_id FROM user_gym_programs WHERE user_id = ? " +
+            "UNION ALL SELECT 'N', plan_id FROM user_nutrition_plans WHERE user_id = ?";
+
+    public record ItemRef(CatalogItemType type, Long id) {
+    }
+
+    public record Item(ItemRef ref, String title, String description, String difficultyLevel,
+                       Integer durationDays, BigDecimal price, float[] features) {
+    }
+
+    public record Recommendation(Item item, double score) {
+    }
+
+    private final GymProgramCatalog gymProgramCatalog;
+    private final NutritionPlanRepository nutritionPlanRepository;
+    private final FitnessProfileRepository fitnessProfileRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double profileWeight;
+    private final double coEnrollmentWeight;
+    private final double popularityWeight;
+    private final long userTtlNanos;
+    private final int maxUsers;
+
+    private volatile List<Item> items;
+    // Replaced on rebuild, otherwise only modified on the executor thread
+    private volatile CoEnrollments coEnrollments;
+    private final ConcurrentHashMap<Long, UserState> users = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    public RecommendationEngine(GymProgramCatalog gymProgramCatalog,
+                                NutritionPlanRepository nutritionPlanRepository,
+                                FitnessProfileRepository fitnessProfileRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${recommendations.profile-weight:0.6}") double profileWeight,
+                                @Value("${recommendations.co-enrollment-weight:0.3}") double coEnrollmentWeight,
+                                @Value("${recommendations.popularity-weight:0.1}") double popularityWeight,
+                                @Value("${recommendations.refresh-seconds:60}") long refreshSeconds,
+                                @Value("${recommendations.rebuild-minutes:60}") long rebuildMinutes,
+                                @Value("${recommendations.user-ttl-minutes:30}") long userTtlMinutes,
+                                @Value("${recommendations.max-users:100000}") int maxUsers) {
+        this.gymProgramCatalog = gymProgramCatalog;
+        this.nutritionPlanRepository = nutritionPlanRepository;
+        this.fitnessProfileRepository = fitnessProfileRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.profileWeight = profileWeight;
+        this.coEnrollmentWeight = coEnrollmentWeight;
+        this.popularityWeight = popularityWeight;
+        this.userTtlNanos = Duration.ofMinutes(userTtlMinutes).toNanos();
+        this.maxUsers = maxUsers;
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("recommendations-"));
+        executor.scheduleWithFixedDelay(() -> safely("refresh items", this::refreshItems),
+                refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        executor.scheduleWithFixedDelay(() -> safely("rebuild co-enrollments", this::rebuildCoEnrollments),
+                rebuildMinutes, rebuildMinutes, TimeUnit.MINUTES);
+        executor.scheduleWithFixedDelay(this::evictExpiredUsers, userTtlMinutes, userTtlMinutes, TimeUnit.MINUTES);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(() -> safely("build co-enrollments", this::rebuildCoEnrollments));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param type Only recommend items of this type, or null for both
+     * @return Up to limit items the user is not enrolled in, best first
+     */
+    public List<Recommendation> recommend(Long userId, CatalogItemType type, int limit) {
+        ensureLoaded();
+        List<Item> catalog = items;
+        CoEnrollments co = coEnrollments != null ? coEnrollments : NO_CO_ENROLLMENTS;
+        UserState user = user(userId);
+
+        // Min-heap of the best limit items seen so far
+        PriorityQueue<Recommendation> best = new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble(Recommendation::score));
+        for (Item item : catalog) {
+            if ((type != null && item.ref().type() != type) || user.enrolled().contains(item.ref())) {
+                continue;
+            }
+            double score = profileWeight * ProfileFeatures.similarity(user.features(), item.features())
+                    + coEnrollmentWeight * co.affinity(user.enrolled(), item.ref())
+                    + popularityWeight * co.popularity(item.ref());
+            if (best.size() < limit) {
+                best.add(new Recommendation(item, score));
+            } else if (score > best.peek().score()) {
+                best.poll();
+                best.add(new Recommendation(item, score));
+            }
+        }
+
+        List<Recommendation> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Recommendation::score).reversed());
+        return result;
+    }
+
+    /**
+     * Rebuild the user's profile vector on next use, once the current transaction commits
+     */
+    public void profileChanged(Long userId) {
+        AfterCommit.run(() -> users.remove(userId));
+    }
+
+    /**
+     * Count a new enrollment towards co-enrollment, once the current transaction commits
+     */
+    public void enrolled(Long userId, ItemRef item) {
+        AfterCommit.run(() -> {
+            users.remove(userId);
+            executor.execute(() -> safely("record enrollment", () -> recordEnrollment(userId, item)));
+        });
+    }
+
+    private UserState user(Long userId) {
+        long now = System.nanoTime();
+        UserState state = users.get(userId);
+        if (state != null && now - state.loadedAt() < userTtlNanos) {
+            return state;
+        }
+
+        float[] features = transactionTemplate.execute(status -> ProfileFeatures.forProfile(
+                fitnessProfileRepository.findByUserId(userId).orElse(null)));
+        state = new UserState(features, new HashSet<>(enrollmentsOf(userId)), now);
+        if (users.size() < maxUsers || users.containsKey(userId)) {
+            users.put(userId, state);
+        }
+        return state;
+    }
+
+    private void recordEnrollment(Long userId, ItemRef item) {
+        CoEnrollments co = coEnrollments;
+        if (co == null) {
+            // Not built yet; the first build reads this enrollment from the table
+            return;
+        }
+        List<ItemRef> enrollments = enrollmentsOf(userId);
+        // A repeat purchase of the same item adds no new pairs
+        if (enrollments.stream().filter(item::equals).count() > 1) {
+            return;
+        }
+        Set<ItemRef> others = new HashSet<>(enrollments);
+        others.remove(item);
+        co.add(limit(others), item);
+    }
+
+    private List<ItemRef> enrollmentsOf(Long userId) {
+        return jdbcTemplate.query(USER_ENROLLMENTS, (rs, rowNum) -> itemRef(rs.getString(1), rs.getLong(2)),
+                userId, userId);
+    }
+
+    private void ensureLoaded() {
+        if (items != null) {
+            return;
+        }
+        synchronized (this) {
+            if (items == null) {
+                refreshItems();
+            }
+        }
+    }
+
+    private void refreshItems() {
+        List<Item> loaded = new ArrayList<>();
+        for (GymProgramDto program : gymProgramCatalog.getActivePrograms()) {
+            loaded.add(new Item(new ItemRef(CatalogItemType.GYM_PROGRAM, program.getId()), program.getTitle(),
+                    program.getDescription(), program.getDifficultyLevel(), program.getDurationDays(),
+                    program.getPrice(), ProfileFeatures.forGymProgram(program)));
+        }
+        List<NutritionPlan> plans = transactionTemplate.execute(status -> nutritionPlanRepository.findByIsActiveTrue());
+        for (NutritionPlan plan : plans) {
+            loaded.add(new Item(new ItemRef(CatalogItemType.NUTRITION_PLAN, plan.getId()), plan.getTitle(),
+                    plan.getDescription(), null, plan.getDurationDays(), plan.getPrice(),
+                    ProfileFeatures.forNutritionPlan(plan)));
+        }
+        items = List.copyOf(loaded);
+    }
+
+    private void rebuildCoEnrollments() {
+        CoEnrollments rebuilt = new CoEnrollments();
+        Long[] currentUser = {null};
+        Set<ItemRef> userItems = new HashSet<>();
+
+        // Rows arrive grouped by user; each user's items are paired as they are seen. Connector/J only
+        // streams rows with this fetch size; otherwise it buffers the whole result before the first one
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ALL_ENROLLMENTS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            Long userId = rs.getLong(1);
+            if (!userId.equals(currentUser[0])) {
+                currentUser[0] = userId;
+                userItems.clear();
+            }
+            ItemRef item = itemRef(rs.getString(2), rs.getLong(3));
+            if (userItems.size() < MAX_ITEMS_PER_USER && userItems.add(item)) {
+                rebuilt.add(userItems, item);
+            }
+        });
+
+        coEnrollments = rebuilt;
+        log.debug("Co-enrollments rebuilt: {} items", rebuilt.counts.size());
+    }
+
+    private void evictExpiredUsers() {
+        long now = System.nanoTime();
+        users.values().removeIf(state -> now - state.loadedAt() >= userTtlNanos);
+    }
+
+    private static ItemRef itemRef(String type, long id) {
+        return new ItemRef("G".equals(type) ? CatalogItemType.GYM_PROGRAM : CatalogItemType.NUTRITION_PLAN, id);
+    }
+
+    private static Set<ItemRef> limit(Set<ItemRef> items) {
+        if (items.size() <= MAX_ITEMS_PER_USER) {
+            return items;
+        }
+        return new HashSet<>(List.copyOf(items).subList(0, MAX_ITEMS_PER_USER));
+    }
+
+    private static void safely(String task, Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            log.warn("Recommendations: failed to {}: {}", task, e.getMessage());
+        }
+    }
+
+    private record UserState(float[] features, Set<ItemRef> enrolled, long loadedAt) {
+    }
+
+    /**
+     * Enrollment counts per item and per pair of items enrolled in by the same user
+     */
+    private static final class CoEnrollments {
+
+        private final ConcurrentHashMap<ItemRef, Integer> counts = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<ItemRef, ConcurrentHashMap<ItemRef, Integer>> pairs = new ConcurrentHashMap<>();
+        private volatile int maxCount;
+
+        /**
+         * Count an enrollment in item by a user already enrolled in others (which may contain item)
+         */
+        void add(Set<ItemRef> others, ItemRef item) {
+            int count = counts.merge(item, 1, Integer::sum);
+            maxCount = Math.max(maxCount, count);
+            for (ItemRef other : others) {
+                if (!other.equals(item)) {
+                    pairs.computeIfAbsent(item, key -> new ConcurrentHashMap<>()).merge(other, 1, Integer::sum);
+                    pairs.computeIfAbsent(other, key -> new ConcurrentHashMap<>()).merge(item, 1, Integer::sum);
+                }
+            }
+        }
+
+        /**
+         * @return Average cosine co-enrollment between item and the user's items, 0 to 1
+         */
+        double affinity(Set<ItemRef> enrolled, ItemRef item) {
+            ConcurrentHashMap<ItemRef, Integer> row = pairs.get(item);
+            if (row == null || enrolled.isEmpty()) {
+                return 0;
+            }
+            double itemCount = counts.getOrDefault(item, 1);
+            double sum = 0;
+            for (ItemRef other : enrolled) {
+                Integer together = row.get(other);
+                if (together != null) {
+                    sum += together / Math.sqrt(itemCount * counts.getOrDefault(other, 1));
+                }
+            }
+            return sum / enrolled.size();
+        }
+
+        /**
+         * @return Enrollments on a log scale relative to the most popular item, 0 to 1
+         */
+        double popularity(ItemRef item) {
+            int max = maxCount;
+            return max == 0 ? 0 : Math.log1p(counts.getOrDefault(item, 0)) / Math.log1p(max);
+        }
+    }
+}
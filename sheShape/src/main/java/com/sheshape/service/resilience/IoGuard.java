@@ -0,0 +1,264 @@
+package com.sheshape.service.resilience;
+
+import com.sheshape.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead plus circuit breaker for one blocking dependency.
+ *
+ * <p>The bulkhead caps concurrent calls so a slow dependency can tie up at most that many threads;
+ * callers wait up to {@code maxWait} for a slot. The breaker tracks the outcome of the last
+ * {@code windowSize} calls and opens once the failure rate reaches the threshold. While open, calls
+ * fail immediately with ServiceUnavailableException; after {@code openDuration} a few trial calls
+ * decide whether it closes again. Timeouts are left to the clients themselves, which surface them
+ * as failures here.
+ *
+ * <p>State, bulkhead headroom and call outcomes are published as {@code io.circuit.state},
+ * {@code io.bulkhead.available} and {@code io.calls}, tagged by dependency.
+ */
+@Slf4j
+public class IoGuard {
+
+    public enum State {
+        CLOSED(0), OPEN(1), HALF_OPEN(2);
+
+        private final int gaugeValue;
+
+        State(int gaugeValue) {
+            this.gaugeValue = gaugeValue;
+        }
+    }
+
+    private final String name;
+    private final Semaphore bulkhead;
+    private final Duration maxWait;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final Predicate<Throwable> recordsFailure;
+
+    // Ring buffer of the last windowSize outcomes; guarded by this
+    private final boolean[] outcomes;
+    private int recorded;
+    private int nextSlot;
+    private int failures;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final Counter successCalls;
+    private final Counter failedCalls;
+    private final Counter rejectedCalls;
+    private final Counter shortCircuitedCalls;
+
+    public IoGuard(String name, Settings settings, Predicate<Throwable> recordsFailure, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.bulkhead = new Semaphore(settings.maxConcurrentCalls(), true);
+        this.maxWait = settings.maxWait();
+        this.windowSize = settings.windowSize();
+        this.minimumCalls = Math.min(settings.minimumCalls(), settings.windowSize());
+        this.failureRatePercent = settings.failureRatePercent();
+        this.openDuration = settings.openDuration();
+        this.halfOpenCalls = settings.halfOpenCalls();
+        this.recordsFailure = recordsFailure;
+        this.outcomes = new boolean[settings.windowSize()];
+
+        Gauge.builder("io.circuit.state", this, guard -> guard.getState().gaugeValue)
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .tag("dependency", name)
+                .register(meterRegistry);
+        Gauge.builder("io.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free concurrent call slots")
+                .tag("dependency", name)
+                .register(meterRegistry);
+        this.successCalls = callCounter(meterRegistry, "success");
+        this.failedCalls = callCounter(meterRegistry, "failure");
+        this.rejectedCalls = callCounter(meterRegistry, "rejected");
+        this.shortCircuitedCalls = callCounter(meterRegistry, "short_circuited");
+    }
+
+    public <T> T call(Supplier<T> action) {
+        acquirePermission();
+        try {
+            if (!bulkhead.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                releasePermission();
+                rejectedCalls.increment();
+                throw unavailable("too many concurrent calls");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releasePermission();
+            throw unavailable("interrupted while waiting");
+        }
+
+        try {
+            T result = action.get();
+            onResult(null);
+            return result;
+        } catch (RuntimeException | Error e) {
+            onResult(e);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Guard a non-blocking call with the breaker only; the caller bounds its own concurrency
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> action) {
+        acquirePermission();
+        CompletableFuture<T> future;
+        try {
+            future = action.get();
+        } catch (RuntimeException e) {
+            onResult(e);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> onResult(error));
+    }
+
+    /**
+     * @return Whether a call would be let through right now, without taking a half-open trial slot
+     */
+    public boolean isCallPermitted() {
+        synchronized (this) {
+            return state != State.OPEN || System.currentTimeMillis() - openedAt >= openDuration.toMillis();
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long retryAfterSeconds() {
+        synchronized (this) {
+            if (state != State.OPEN) {
+                return 1;
+            }
+            long remaining = openDuration.toMillis() - (System.currentTimeMillis() - openedAt);
+            return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(remaining + 999));
+        }
+    }
+
+    private synchronized void acquirePermission() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDuration.toMillis()) {
+                shortCircuitedCalls.increment();
+                throw unavailable("circuit open");
+            }
+            transitionTo(State.HALF_OPEN);
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                shortCircuitedCalls.increment();
+                throw unavailable("circuit half-open, trial calls in progress");
+            }
+            halfOpenPermits--;
+        }
+    }
+
+    // A call that never reached the dependency gives its half-open trial slot back
+    private synchronized void releasePermission() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    private synchronized void onResult(Throwable error) {
+        boolean failed = error != null && recordsFailure.test(error);
+        (failed ? failedCalls : successCalls).increment();
+
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                open();
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                resetWindow();
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+
+        if (recorded == windowSize && outcomes[nextSlot]) {
+            failures--;
+        }
+        outcomes[nextSlot] = failed;
+        if (failed) {
+            failures++;
+        }
+        nextSlot = (nextSlot + 1) % windowSize;
+        recorded = Math.min(recorded + 1, windowSize);
+
+        if (recorded >= minimumCalls && failures * 100 >= failureRatePercent * recorded) {
+            open();
+        }
+    }
+
+    private void open() {
+        openedAt = System.currentTimeMillis();
+        resetWindow();
+        transitionTo(State.OPEN);
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        nextSlot = 0;
+        failures = 0;
+    }
+
+    private void transitionTo(State newState) {
+        if (state != newState) {
+            log.warn("Circuit for {} is now {}", name, newState);
+            state = newState;
+        }
+    }
+
+    private ServiceUnavailableException unavailable(String reason) {
+        return new ServiceUnavailableException(
+                "The " + name + " service is temporarily unavailable (" + reason + "). Please try again shortly.",
+                retryAfterSeconds());
+    }
+
+    private Counter callCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("io.calls")
+                .description("Guarded calls by outcome")
+                .tag("dependency", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public record Settings(int maxConcurrentCalls, Duration maxWait, int windowSize, int minimumCalls,
+                           int failureRatePercent, Duration openDuration, int halfOpenCalls) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.sheshape.service.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket: permits refill continuously at {@code permitsPerSecond} and up to {@code burst}
+ * can be saved up. Callers either wait for permits (acquire) or fail fast (tryAcquire).
+ */
+public class RateLimiter {
+
+    private final double permitsPerSecond;
+    private final double capacity;
+
+    // Guarded by this
+    private double available;
+    private long refilledAt = System.nanoTime();
+
+    /**
+     * A limiter that can save up one second's worth of permits, so short bursts are smoothed rather than rejected
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, Math.max(1, permitsPerSecond));
+    }
+
+    public RateLimiter(double permitsPerSecond, double burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive and burst at least 1");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = burst;
+        this.available = capacity;
+    }
+
+    /**
+     * Take the given number of permits, waiting until the bucket has refilled enough to cover them.
+     * Permits are reserved up front, so concurrent callers queue up behind each other's debt.
+     */
+    public void acquire(int permits) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            available -= permits;
+            waitNanos = available >= 0 ? 0 : nanosToRefill(-available);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Take one permit if one is available right now
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (available < 1) {
+            return false;
+        }
+        available -= 1;
+        return true;
+    }
+
+    /**
+     * @return Seconds until tryAcquire would succeed, at least 1
+     */
+    public synchronized long retryAfterSeconds() {
+        refill();
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanosToRefill(1 - available) + 999_999_999));
+    }
+
+    /**
+     * @return Whether the bucket is full, i.e. unused for long enough that dropping it changes nothing
+     */
+    public synchronized boolean isIdle() {
+        refill();
+        return available >= capacity;
+    }
+
+    private long nanosToRefill(double permits) {
+        return permits <= 0 ? 0 : (long) (permits / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (now - refilledAt) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,28 @@
+package com.sheshape.service.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Undoes side effects the database can't roll back (stored files, temp files) when the
+ * surrounding transaction rolls back. Outside a transaction there is nothing to undo.
+ */
+public final class AfterRollback {
+
+    private AfterRollback() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
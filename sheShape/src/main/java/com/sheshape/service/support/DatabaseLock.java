@@ -0,0 +1,55 @@
+package com.sheshape.service.support;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Cluster-wide mutual exclusion for background jobs, using MySQL named locks. The lock belongs to
+ * the connection that took it, so one pooled connection is held for the whole task; the task's own
+ * statements run on other connections. If the node dies, MySQL releases the lock with the connection.
+ * Must not be called inside a transaction.
+ */
+@Component
+public class DatabaseLock {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseLock(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Run the task if no other node holds the named lock, without waiting for it
+     * @return Whether the lock was taken and the task ran
+     */
+    public boolean runExclusively(String name, Runnable task) {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!query(connection, "SELECT GET_LOCK(?, 0)", name)) {
+                return false;
+            }
+            try {
+                task.run();
+            } finally {
+                query(connection, "SELECT RELEASE_LOCK(?)", name);
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    private static boolean query(Connection connection, String sql, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, name);
+            try (ResultSet result = statement.executeQuery()) {
+                // 1 = taken/released, 0 = held by another connection, NULL = error
+                return result.next() && result.getInt(1) == 1;
+            }
+        }
+    }
+}
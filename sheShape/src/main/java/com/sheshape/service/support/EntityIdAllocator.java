@@ -0,0 +1,44 @@
+package com.sheshape.service.support;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.Generator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out entity ids for rows written with plain JDBC. Ids come from the entity's own
+ * Hibernate generator (and its pooled optimizer), so they never collide with ids Hibernate
+ * assigns to the same table. Must be called inside a transaction.
+ */
+@Component
+public class EntityIdAllocator {
+
+    private final EntityManager entityManager;
+
+    public EntityIdAllocator(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public List<Long> allocate(Class<?> entityType, int count) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        Generator generator = session.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(entityType)
+                .getGenerator();
+
+        if (!(generator instanceof BeforeExecutionGenerator idGenerator)) {
+            throw new IllegalStateException(entityType.getSimpleName() + " ids are not generated before insert");
+        }
+
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(((Number) idGenerator.generate(session, null, null, EventType.INSERT)).longValue());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,24 @@
+-- Seed enrollment_counts from the existing enrollments (MySQL).
+--
+-- The application only adds deltas for enrollments made while it runs, so an existing database
+-- needs its current totals copied in once. Run once against an existing database BEFORE starting
+-- the new build. Safe to re-run: items that already have a row are left untouched.
+
+CREATE TABLE IF NOT EXISTS enrollment_counts (
+    item_type VARCHAR(20) NOT NULL,
+    item_id BIGINT NOT NULL,
+    enrollments BIGINT NOT NULL,
+    active_enrollments BIGINT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (item_type, item_id)
+) ENGINE=InnoDB;
+
+INSERT IGNORE INTO enrollment_counts (item_type, item_id, enrollments, active_enrollments, updated_at)
+SELECT 'GYM_PROGRAM', program_id, COUNT(*), SUM(status = 'ACTIVE'), NOW()
+FROM user_gym_programs
+GROUP BY program_id;
+
+INSERT IGNORE INTO enrollment_counts (item_type, item_id, enrollments, active_enrollments, updated_at)
+SELECT 'NUTRITION_PLAN', plan_id, COUNT(*), SUM(status = 'ACTIVE'), NOW()
+FROM user_nutrition_plans
+GROUP BY plan_id;
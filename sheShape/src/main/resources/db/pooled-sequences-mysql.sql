@@ -0,0 +1,110 @@
+-- Switch entity ids from AUTO_INCREMENT to Hibernate pooled sequences (MySQL).
+--
+-- MySQL has no sequences, so Hibernate emulates each one with a single-row <table>_seq table.
+-- The pooled optimizer reads next_val = V, advances it by the allocation size (50) and hands
+-- out ids (V - 50, V], so each table is seeded one allocation past its current MAX(id).
+--
+-- Run once against an existing database BEFORE starting the new build; otherwise
+-- ddl-auto would create the _seq tables starting at 1 and collide with existing rows.
+-- Safe to re-run: tables that already have a _seq row are left untouched.
+-- The AUTO_INCREMENT attribute on the id columns can stay; Hibernate always supplies the id.
+
+CREATE TABLE IF NOT EXISTS authorities_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO authorities_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM authorities) s
+WHERE NOT EXISTS (SELECT 1 FROM authorities_seq);
+
+CREATE TABLE IF NOT EXISTS blog_posts_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO blog_posts_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM blog_posts) s
+WHERE NOT EXISTS (SELECT 1 FROM blog_posts_seq);
+
+CREATE TABLE IF NOT EXISTS cart_items_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO cart_items_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM cart_items) s
+WHERE NOT EXISTS (SELECT 1 FROM cart_items_seq);
+
+CREATE TABLE IF NOT EXISTS carts_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO carts_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM carts) s
+WHERE NOT EXISTS (SELECT 1 FROM carts_seq);
+
+CREATE TABLE IF NOT EXISTS faqs_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO faqs_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM faqs) s
+WHERE NOT EXISTS (SELECT 1 FROM faqs_seq);
+
+CREATE TABLE IF NOT EXISTS fitness_profiles_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO fitness_profiles_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM fitness_profiles) s
+WHERE NOT EXISTS (SELECT 1 FROM fitness_profiles_seq);
+
+CREATE TABLE IF NOT EXISTS gym_programs_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO gym_programs_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM gym_programs) s
+WHERE NOT EXISTS (SELECT 1 FROM gym_programs_seq);
+
+CREATE TABLE IF NOT EXISTS gym_sessions_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO gym_sessions_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM gym_sessions) s
+WHERE NOT EXISTS (SELECT 1 FROM gym_sessions_seq);
+
+CREATE TABLE IF NOT EXISTS health_information_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO health_information_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM health_information) s
+WHERE NOT EXISTS (SELECT 1 FROM health_information_seq);
+
+CREATE TABLE IF NOT EXISTS nutrition_plans_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO nutrition_plans_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM nutrition_plans) s
+WHERE NOT EXISTS (SELECT 1 FROM nutrition_plans_seq);
+
+CREATE TABLE IF NOT EXISTS order_items_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO order_items_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM order_items) s
+WHERE NOT EXISTS (SELECT 1 FROM order_items_seq);
+
+CREATE TABLE IF NOT EXISTS orders_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO orders_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM orders) s
+WHERE NOT EXISTS (SELECT 1 FROM orders_seq);
+
+CREATE TABLE IF NOT EXISTS physical_attributes_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO physical_attributes_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM physical_attributes) s
+WHERE NOT EXISTS (SELECT 1 FROM physical_attributes_seq);
+
+CREATE TABLE IF NOT EXISTS product_images_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO product_images_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM product_images) s
+WHERE NOT EXISTS (SELECT 1 FROM product_images_seq);
+
+CREATE TABLE IF NOT EXISTS products_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO products_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM products) s
+WHERE NOT EXISTS (SELECT 1 FROM products_seq);
+
+CREATE TABLE IF NOT EXISTS profiles_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO profiles_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM profiles) s
+WHERE NOT EXISTS (SELECT 1 FROM profiles_seq);
+
+CREATE TABLE IF NOT EXISTS user_gym_programs_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO user_gym_programs_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM user_gym_programs) s
+WHERE NOT EXISTS (SELECT 1 FROM user_gym_programs_seq);
+
+CREATE TABLE IF NOT EXISTS user_nutrition_plans_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO user_nutrition_plans_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM user_nutrition_plans) s
+WHERE NOT EXISTS (SELECT 1 FROM user_nutrition_plans_seq);
+
+CREATE TABLE IF NOT EXISTS user_preferences_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO user_preferences_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM user_preferences) s
+WHERE NOT EXISTS (SELECT 1 FROM user_preferences_seq);
+
+CREATE TABLE IF NOT EXISTS users_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO users_seq (next_val)
+SELECT seed FROM (SELECT COALESCE(MAX(id), 0) + 51 AS seed FROM users) s
+WHERE NOT EXISTS (SELECT 1 FROM users_seq);
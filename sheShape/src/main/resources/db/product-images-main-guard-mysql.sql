@@ -0,0 +1,29 @@
+-- Guarantee at most one main image per product (MySQL).
+--
+-- main_product_id is a stored generated column holding product_id for the main image and NULL
+-- for every other image; a unique index on it rejects a second main image, while NULLs never
+-- conflict. Run once against an existing database before starting the new build.
+
+-- Normalise existing data: keep the first main image by position, or promote the first image
+-- of products that have none. The choice is materialised first: MySQL rejects an UPDATE whose
+-- subqueries read the table being updated (error 1093), and may merge a derived table into one.
+CREATE TEMPORARY TABLE product_main_images AS
+SELECT p.product_id,
+       COALESCE(
+           (SELECT m.id FROM product_images m
+            WHERE m.product_id = p.product_id AND m.is_main = TRUE
+            ORDER BY m.position, m.id LIMIT 1),
+           (SELECT f.id FROM product_images f
+            WHERE f.product_id = p.product_id
+            ORDER BY f.position, f.id LIMIT 1)) AS main_id
+FROM (SELECT DISTINCT product_id FROM product_images) p;
+
+UPDATE product_images i
+JOIN product_main_images chosen ON chosen.product_id = i.product_id
+SET i.is_main = (i.id = chosen.main_id);
+
+DROP TEMPORARY TABLE product_main_images;
+
+ALTER TABLE product_images
+    ADD COLUMN main_product_id BIGINT GENERATED ALWAYS AS (CASE WHEN is_main THEN product_id END) STORED,
+    ADD CONSTRAINT uk_product_images_main UNIQUE (main_product_id);
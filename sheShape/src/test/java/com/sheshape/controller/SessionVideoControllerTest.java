@@ -0,0 +1,109 @@
+package com.sheshape.controller;
+
+import com.sheshape.dto.GymSessionDto;
+import com.sheshape.security.AuthenticatedUser;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.FileStorageService.StoredFile;
+import com.sheshape.service.catalog.GymProgramCatalog;
+import com.sheshape.service.catalog.ProgramEntitlements;
+import com.sheshape.service.media.VideoSegmentCache;
+import com.sheshape.service.media.VideoSegmentCache.Segment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionVideoControllerTest {
+
+    private static final String FILE_KEY = "session-videos/intro.mp4";
+    private static final int SEGMENT_SIZE = 4;
+
+    private final GymProgramCatalog gymProgramCatalog = mock(GymProgramCatalog.class);
+    private final ProgramEntitlements programEntitlements = mock(ProgramEntitlements.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final VideoSegmentCache videoSegmentCache = mock(VideoSegmentCache.class);
+    private final SessionVideoController controller = new SessionVideoController(
+            gymProgramCatalog, programEntitlements, fileStorageService, videoSegmentCache);
+
+    private final byte[] video = "0123456789".getBytes();
+
+    @BeforeEach
+    void setUp() {
+        GymSessionDto session = new GymSessionDto();
+        session.setVideoUrl("http://files/" + FILE_KEY);
+        when(programEntitlements.canWatch(any(), eq(1L))).thenReturn(true);
+        when(gymProgramCatalog.findSession(1L, 2L)).thenReturn(Optional.of(session));
+        when(fileStorageService.getFileKey(session.getVideoUrl())).thenReturn(FILE_KEY);
+        when(videoSegmentCache.getFileInfo(FILE_KEY))
+                .thenReturn(Optional.of(new StoredFile(video.length, "video/mp4")));
+        when(videoSegmentCache.getSegment(eq(FILE_KEY), anyLong(), eq((long) video.length))).thenAnswer(invocation -> {
+            long offset = invocation.getArgument(1, Long.class) / SEGMENT_SIZE * SEGMENT_SIZE;
+            int end = (int) Math.min(offset + SEGMENT_SIZE, video.length);
+            byte[] bytes = Arrays.copyOfRange(video, (int) offset, end);
+            return new Segment(offset, bytes.length, bytes, null);
+        });
+    }
+
+    @Test
+    void sendsTheWholeVideoWithoutARange() throws Exception {
+        MockHttpServletResponse response = get(new MockHttpServletRequest("GET", "/video"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+        assertThat(response.getContentLengthLong()).isEqualTo(video.length);
+        assertThat(response.getContentAsByteArray()).isEqualTo(video);
+    }
+
+    @Test
+    void sendsTheWholeVideoWhenIfRangeDoesNotMatch() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/video");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(video);
+    }
+
+    @Test
+    void sendsOneSegmentForARange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/video");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-");
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 5-7/10");
+        assertThat(response.getContentAsString()).isEqualTo("567");
+    }
+
+    @Test
+    void rejectsARangePastTheEnd() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/video");
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AuthenticatedUser user = new AuthenticatedUser(7L, "member@example.com", null);
+        controller.getVideo(1L, 2L, user, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,86 @@
+package com.sheshape.controller.support;
+
+import com.sheshape.service.catalog.CatalogVersions;
+import com.sheshape.service.catalog.CatalogVersions.Aggregate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConditionalGetTest {
+
+    private static final String ETAG = "\"products-abc-7\"";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    private final CatalogVersions versions = mock(CatalogVersions.class);
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final AtomicInteger bodyLoads = new AtomicInteger();
+    private final Supplier<String> body = () -> {
+        bodyLoads.incrementAndGet();
+        return "body";
+    };
+
+    @BeforeEach
+    void setUp() {
+        when(versions.etag(Aggregate.PRODUCTS)).thenReturn(ETAG);
+        when(versions.lastModified(Aggregate.PRODUCTS)).thenReturn(LAST_MODIFIED);
+    }
+
+    @Test
+    void sendsBodyWithValidatorsWhenUnconditional() {
+        ResponseEntity<String> result = respond();
+
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(result.getBody()).isEqualTo("body");
+        assertThat(result.getHeaders().getETag()).isEqualTo(ETAG);
+        assertThat(result.getHeaders().getLastModified()).isEqualTo(LAST_MODIFIED);
+        assertThat(result.getHeaders().getCacheControl()).isEqualTo("no-cache");
+    }
+
+    @Test
+    void answersMatchingEtagWithNotModifiedWithoutLoadingBody() {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+        ResponseEntity<String> result = respond();
+
+        assertThat(result).isNull();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache");
+        assertThat(bodyLoads).hasValue(0);
+    }
+
+    @Test
+    void answersUnchangedDateWithNotModified() {
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED);
+
+        assertThat(respond()).isNull();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(bodyLoads).hasValue(0);
+    }
+
+    @Test
+    void sendsBodyWhenEtagIsStale() {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"products-abc-6\"");
+
+        ResponseEntity<String> result = respond();
+
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(bodyLoads).hasValue(1);
+    }
+
+    private ResponseEntity<String> respond() {
+        return ConditionalGet.respond(new ServletWebRequest(request, response), versions, Aggregate.PRODUCTS, body);
+    }
+}
@@ -0,0 +1,37 @@
+package com.sheshape.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final WebRequest request = new ServletWebRequest(new MockHttpServletRequest("PUT", "/api/products/1"));
+
+    @Test
+    void secondMainImageIsAConflict() {
+        SQLIntegrityConstraintViolationException sqlException = new SQLIntegrityConstraintViolationException(
+                "Duplicate entry '1' for key 'product_images.uk_product_images_main'");
+        DataIntegrityViolationException ex = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sqlException,
+                        "product_images.uk_product_images_main"));
+
+        assertThat(handler.dataIntegrityViolationException(ex, request).getStatusCode().value()).isEqualTo(409);
+    }
+
+    @Test
+    void otherViolationsStayServerErrors() {
+        DataIntegrityViolationException ex = new DataIntegrityViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Column 'name' cannot be null"));
+
+        assertThat(handler.dataIntegrityViolationException(ex, request).getStatusCode().value()).isEqualTo(500);
+    }
+}
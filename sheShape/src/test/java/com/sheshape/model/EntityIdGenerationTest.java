@@ -0,0 +1,55 @@
+package com.sheshape.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.SequenceGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * IDENTITY ids make Hibernate insert each row on its own as soon as it is persisted, which silently
+ * turns off JDBC insert batching. Generated ids must come from pooled sequences instead.
+ */
+class EntityIdGenerationTest {
+
+    @Test
+    void generatedIdsUsePooledSequences() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+        Set<BeanDefinition> entities = scanner.findCandidateComponents("com.sheshape.model");
+        assertThat(entities).isNotEmpty();
+
+        List<String> problems = new ArrayList<>();
+        int generatedIds = 0;
+        for (BeanDefinition definition : entities) {
+            Class<?> entity = ClassUtils.forName(definition.getBeanClassName(), getClass().getClassLoader());
+            for (Field field : entity.getDeclaredFields()) {
+                GeneratedValue generatedValue = field.getAnnotation(GeneratedValue.class);
+                if (generatedValue == null) {
+                    continue;
+                }
+                generatedIds++;
+                SequenceGenerator sequence = field.getAnnotation(SequenceGenerator.class);
+                if (generatedValue.strategy() != GenerationType.SEQUENCE || sequence == null) {
+                    problems.add(entity.getSimpleName() + " does not use a sequence");
+                } else if (sequence.allocationSize() <= 1) {
+                    problems.add(entity.getSimpleName() + " allocates one id per round trip");
+                }
+            }
+        }
+
+        assertThat(generatedIds).isPositive();
+        assertThat(problems).isEmpty();
+    }
+}
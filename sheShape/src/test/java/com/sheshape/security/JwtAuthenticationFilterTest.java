@@ -0,0 +1,104 @@
+package com.sheshape.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+    private LoginThrottle throttle;
+
+    @AfterEach
+    void shutdown() {
+        throttle.shutdown();
+    }
+
+    @Test
+    void rejectsThrottledLoginsBeforeCheckingThePassword() throws Exception {
+        throttle = new LoginThrottle(1, 100, 1000);
+        JwtAuthenticationFilter filter =
+                new JwtAuthenticationFilter(authenticationManager, mock(JwtUtil.class), throttle);
+        throttle.checkAttempt("10.0.0.1", "other@example.com");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(filter.attemptAuthentication(login("10.0.0.1", "user@example.com"), response)).isNull();
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+        assertThat(response.getContentAsString()).contains("Too many login attempts");
+        verify(authenticationManager, never()).authenticate(any());
+    }
+
+    @Test
+    void passwordChecksStayBoundedUnderACredentialStuffingBurst() throws Exception {
+        throttle = new LoginThrottle(30, 10, 100_000);
+        JwtAuthenticationFilter filter =
+                new JwtAuthenticationFilter(authenticationManager, mock(JwtUtil.class), throttle);
+        AtomicInteger passwordChecks = new AtomicInteger();
+        when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+            passwordChecks.incrementAndGet();
+            throw new BadCredentialsException("Bad credentials");
+        });
+
+        // 2000 attempts at one account from 200 addresses, all released at once
+        int attempts = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger throttled = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            String address = "10.0." + (i % 200 / 100) + "." + (i % 100);
+            results.add(pool.submit(() -> {
+                start.await();
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                try {
+                    filter.attemptAuthentication(login(address, "victim@example.com"), response);
+                } catch (BadCredentialsException e) {
+                    return null;
+                }
+                if (response.getStatus() == 429) {
+                    throttled.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // The account's bucket allows a burst of 10; everything else is turned away without hashing
+        assertThat(passwordChecks.get()).isLessThanOrEqualTo(11);
+        assertThat(throttled.get()).isEqualTo(attempts - passwordChecks.get());
+    }
+
+    private static MockHttpServletRequest login(String address, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(address);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"guess\"}").getBytes());
+        return request;
+    }
+}
@@ -0,0 +1,61 @@
+package com.sheshape.security;
+
+import com.sheshape.model.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-that-is-long-enough-for-hs256-signing";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000);
+
+    @Test
+    void verifyDecodesEveryClaimFromOneToken() {
+        String token = jwtUtil.generateToken(user());
+
+        VerifiedToken verified = jwtUtil.verify(token);
+
+        assertThat(verified.tokenId()).isNotBlank();
+        assertThat(verified.user()).isEqualTo(new AuthenticatedUser(42L, "user@example.com", User.Role.TRAINER));
+        assertThat(verified.tokenVersion()).isEqualTo(3);
+        assertThat(verified.authorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_TRAINER");
+        assertThat(verified.expiresAt()).isAfter(verified.issuedAt());
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        String token = jwtUtil.generateToken(user());
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+
+        assertThatThrownBy(() -> jwtUtil.verify(tampered)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherKey() {
+        String token = new JwtUtil(SECRET + "-other", 60_000).generateToken(user());
+
+        assertThatThrownBy(() -> jwtUtil.verify(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        String token = new JwtUtil(SECRET, -1000).generateToken(user());
+
+        assertThatThrownBy(() -> jwtUtil.verify(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    private static SecurityUser user() {
+        return new SecurityUser(42L, "user@example.com", "hash", true, User.Role.TRAINER, 3,
+                List.of(new SimpleGrantedAuthority("ROLE_TRAINER")));
+    }
+}
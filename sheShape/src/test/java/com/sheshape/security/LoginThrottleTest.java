@@ -0,0 +1,56 @@
+package com.sheshape.security;
+
+import com.sheshape.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class LoginThrottleTest {
+
+    private LoginThrottle throttle;
+
+    @AfterEach
+    void shutdown() {
+        throttle.shutdown();
+    }
+
+    @Test
+    void limitsAttemptsPerAddress() {
+        throttle = new LoginThrottle(2, 100, 1000);
+
+        throttle.checkAttempt("10.0.0.1", "a@example.com");
+        throttle.checkAttempt("10.0.0.1", "b@example.com");
+        TooManyRequestsException rejected = catchThrowableOfType(
+                () -> throttle.checkAttempt("10.0.0.1", "c@example.com"), TooManyRequestsException.class);
+
+        assertThat(rejected).isNotNull();
+        assertThat(rejected.getRetryAfterSeconds()).isPositive();
+        assertThatCode(() -> throttle.checkAttempt("10.0.0.2", "c@example.com")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void limitsAttemptsPerAccountIgnoringCaseAndWhitespace() {
+        throttle = new LoginThrottle(100, 2, 1000);
+
+        throttle.checkAttempt("10.0.0.1", "User@Example.com");
+        throttle.checkAttempt("10.0.0.2", " user@example.com ");
+
+        assertThat(catchThrowableOfType(() -> throttle.checkAttempt("10.0.0.3", "USER@EXAMPLE.COM"),
+                TooManyRequestsException.class)).isNotNull();
+    }
+
+    @Test
+    void untrackedAddressesShareTheOverflowBucketOnceFull() {
+        throttle = new LoginThrottle(1, 100, 1);
+
+        throttle.checkAttempt("10.0.0.1", null);
+        // The map is full, so both of these land in the one overflow bucket
+        throttle.checkAttempt("10.0.0.2", null);
+
+        assertThat(catchThrowableOfType(() -> throttle.checkAttempt("10.0.0.3", null),
+                TooManyRequestsException.class)).isNotNull();
+    }
+}
@@ -0,0 +1,72 @@
+package com.sheshape.security;
+
+import com.sheshape.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TokenRevocationStoreTest {
+
+    private final TokenRevocationStore store = new TokenRevocationStore(mock(RevokedTokenRepository.class),
+            mock(PlatformTransactionManager.class), 30, 300);
+
+    @AfterEach
+    void shutdown() {
+        store.shutdown();
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        TokenRevocationStore.BloomFilter filter = new TokenRevocationStore.BloomFilter(1000);
+        List<String> added = randomIds(1000);
+        added.forEach(filter::add);
+
+        assertThat(added).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void bloomFilterFalsePositiveRateStaysNearDesignAtCapacity() {
+        TokenRevocationStore.BloomFilter filter = new TokenRevocationStore.BloomFilter(10_000);
+        randomIds(10_000).forEach(filter::add);
+
+        long falsePositives = randomIds(100_000).stream().filter(filter::mightContain).count();
+
+        // Designed for 1%; allow for sampling noise
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void revokedTokensSurviveFilterRebuild() {
+        // More than the minimum capacity, so the filter is rebuilt larger along the way
+        List<String> revoked = randomIds(3000);
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        revoked.forEach(id -> store.revoke(id, expiresAt));
+
+        assertThat(revoked).allMatch(store::isRevoked);
+        assertThat(randomIds(1000)).noneMatch(store::isRevoked);
+    }
+
+    @Test
+    void ignoresTokensAlreadyExpired() {
+        store.revoke("expired", Instant.now().minusSeconds(1));
+
+        assertThat(store.isRevoked("expired")).isFalse();
+        assertThat(store.isRevoked(null)).isFalse();
+    }
+
+    private static List<String> randomIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+}
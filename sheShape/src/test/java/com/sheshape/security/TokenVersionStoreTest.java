@@ -0,0 +1,87 @@
+package com.sheshape.security;
+
+import com.sheshape.model.User;
+import com.sheshape.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenVersionStoreTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    // Long enough that only the reloads run by start() happen during a test
+    private final TokenVersionStore store = new TokenVersionStore(userRepository, 3600);
+
+    @AfterEach
+    void shutdown() {
+        store.shutdown();
+    }
+
+    @Test
+    void reloadKeepsLocalBumpsNewerThanTheQuery() {
+        when(userRepository.findAllTokenVersions()).thenReturn(rows(1L, 1));
+        store.start();
+
+        User user = new User();
+        user.setId(1L);
+        user.setTokenVersion(1);
+        store.revokeTokens(user);
+
+        // A reload whose query ran before the bump committed still sees version 1
+        store.start();
+
+        assertThat(store.isCurrent(1L, 1)).isFalse();
+        assertThat(store.isCurrent(1L, 2)).isTrue();
+    }
+
+    @Test
+    void reloadPicksUpBumpsFromOtherInstances() {
+        when(userRepository.findAllTokenVersions()).thenReturn(rows(1L, 1));
+        store.start();
+        assertThat(store.isCurrent(1L, 1)).isTrue();
+
+        when(userRepository.findAllTokenVersions()).thenReturn(rows(1L, 3));
+        store.start();
+
+        assertThat(store.isCurrent(1L, 1)).isFalse();
+        assertThat(store.isCurrent(1L, 3)).isTrue();
+    }
+
+    @Test
+    void looksUpUnknownUsersOnceAndRejectsMissingOnes() {
+        when(userRepository.findAllTokenVersions()).thenReturn(List.of());
+        when(userRepository.findTokenVersionById(5L)).thenReturn(Optional.of(0));
+        when(userRepository.findTokenVersionById(6L)).thenReturn(Optional.empty());
+        store.start();
+
+        assertThat(store.isCurrent(5L, 0)).isTrue();
+        assertThat(store.isCurrent(5L, 0)).isTrue();
+        assertThat(store.isCurrent(6L, 0)).isFalse();
+        verify(userRepository, times(1)).findTokenVersionById(5L);
+    }
+
+    @Test
+    void deletedUsersStayRevoked() {
+        when(userRepository.findAllTokenVersions()).thenReturn(rows(1L, 0));
+        store.start();
+
+        store.onUserDeleted(1L);
+
+        assertThat(store.isCurrent(1L, 0)).isFalse();
+    }
+
+    private static List<Object[]> rows(Long userId, Integer version) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{userId, version});
+        return rows;
+    }
+}
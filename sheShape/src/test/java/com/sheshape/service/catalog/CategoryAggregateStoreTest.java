@@ -0,0 +1,70 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.model.Product;
+import com.sheshape.repository.ProductRepository;
+import com.sheshape.service.catalog.CategoryAggregateStore.CategoryAggregate;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CategoryAggregateStoreTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CategoryAggregateStore store =
+            new CategoryAggregateStore(productRepository, mock(CatalogVersions.class));
+
+    @Test
+    void keepsChangesCommittedWhileTheRebuildQueries() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 5, new BigDecimal("10.00"), "leggings"});
+        rows.add(new Object[]{2L, 0, new BigDecimal("20.00"), "leggings"});
+        when(productRepository.findActiveCategoryRows()).thenAnswer(invocation -> {
+            // Both commits land after the rows were read, so the query result misses them
+            store.onProductSaved(product(2L, 3, "20.00", "leggings", "sale"));
+            store.onProductDeleted(1L);
+            return rows;
+        });
+
+        store.rebuild();
+
+        assertThat(store.getActiveProductCount()).isEqualTo(1);
+        assertThat(store.snapshot()).containsOnlyKeys("leggings", "sale");
+        CategoryAggregate leggings = store.snapshot().get("leggings");
+        assertThat(leggings.productCount()).isEqualTo(1);
+        assertThat(leggings.inStockCount()).isEqualTo(1);
+        assertThat(leggings.totalStock()).isEqualTo(3);
+        assertThat(leggings.priceSum()).isEqualByComparingTo("20.00");
+    }
+
+    @Test
+    void appliesIncrementalChangesAfterARebuild() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 5, new BigDecimal("10.00"), "leggings"});
+        when(productRepository.findActiveCategoryRows()).thenReturn(rows);
+        store.rebuild();
+
+        store.onProductSaved(product(1L, 0, "12.00", "leggings"));
+
+        CategoryAggregate leggings = store.snapshot().get("leggings");
+        assertThat(leggings.productCount()).isEqualTo(1);
+        assertThat(leggings.inStockCount()).isZero();
+        assertThat(leggings.priceSum()).isEqualByComparingTo("12.00");
+    }
+
+    private static Product product(Long id, int inventoryCount, String price, String... categories) {
+        Product product = new Product();
+        product.setId(id);
+        product.setInventoryCount(inventoryCount);
+        product.setPrice(new BigDecimal(price));
+        product.setCategories(Set.of(categories));
+        product.setIsActive(true);
+        return product;
+    }
+}
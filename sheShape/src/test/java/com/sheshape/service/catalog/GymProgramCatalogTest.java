@@ -0,0 +1,80 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.dto.GymProgramDto;
+import com.sheshape.dto.GymSessionDto;
+import com.sheshape.model.GymProgram;
+import com.sheshape.model.GymSession;
+import com.sheshape.model.User;
+import com.sheshape.repository.GymProgramRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GymProgramCatalogTest {
+
+    private final GymProgramRepository gymProgramRepository = mock(GymProgramRepository.class);
+    private final GymProgramCatalog catalog = new GymProgramCatalog(gymProgramRepository,
+            mock(CatalogVersions.class), mock(PlatformTransactionManager.class), 300);
+
+    @BeforeEach
+    void setUp() {
+        User trainer = new User();
+        trainer.setId(5L);
+        trainer.setUsername("coach");
+        trainer.setRole(User.Role.TRAINER);
+
+        GymProgram program = new GymProgram();
+        program.setId(1L);
+        program.setTitle("Strength");
+        program.setDifficultyLevel(GymProgram.DifficultyLevel.BEGINNER);
+        program.setPrice(new BigDecimal("49.00"));
+        program.setIsActive(true);
+        program.setTrainer(trainer);
+
+        GymSession session = new GymSession();
+        session.setId(10L);
+        session.setTitle("Warm-up");
+        session.setSessionOrder(1);
+        session.setVideoUrl("http://files/session-videos/warm-up.mp4");
+        program.addSession(session);
+
+        when(gymProgramRepository.findAllWithTrainer()).thenReturn(List.of(program));
+    }
+
+    @Test
+    void callersCannotChangeTheSnapshot() {
+        GymProgramDto program = catalog.getActivePrograms().get(0);
+        program.setTitle("Changed");
+        program.getTrainer().setUsername("changed");
+        program.getSessions().get(0).setTitle("Changed");
+        program.getSessions().clear();
+        catalog.findSession(1L, 10L).orElseThrow().setVideoUrl(null);
+
+        GymProgramDto reread = catalog.findProgram(1L).orElseThrow();
+        assertThat(reread.getTitle()).isEqualTo("Strength");
+        assertThat(reread.getTrainer().getUsername()).isEqualTo("coach");
+        assertThat(reread.getSessions()).extracting(GymSessionDto::getTitle).containsExactly("Warm-up");
+        assertThat(catalog.findSession(1L, 10L).orElseThrow().getVideoUrl()).isNotNull();
+        assertThat(catalog.getAllPrograms().get(0).getTitle()).isEqualTo("Strength");
+        // Still served from the one snapshot
+        verify(gymProgramRepository, times(1)).findAllWithTrainer();
+    }
+
+    @Test
+    void looksUpTheTrainerAndSessionsOfAProgram() {
+        assertThat(catalog.findTrainerId(1L)).contains(5L);
+        assertThat(catalog.containsSession(1L, 10L)).isTrue();
+        assertThat(catalog.containsSession(2L, 10L)).isFalse();
+        verify(gymProgramRepository).fetchSessions(anyCollection());
+    }
+}
@@ -0,0 +1,76 @@
+package com.sheshape.service.catalog;
+
+import com.sheshape.dto.ProductSummaryDto;
+import com.sheshape.model.Product;
+import com.sheshape.model.ProductImage;
+import com.sheshape.repository.ProductImageRepository;
+import com.sheshape.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductSummaryAssemblerTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductImageRepository productImageRepository = mock(ProductImageRepository.class);
+    private final ProductSummaryAssembler assembler =
+            new ProductSummaryAssembler(productRepository, productImageRepository);
+
+    @Test
+    void loadsAPageWithOneQueryPerAssociation() {
+        List<Product> products = new ArrayList<>();
+        List<Object[]> categories = new ArrayList<>();
+        List<ProductImage> mainImages = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            Product product = mock(Product.class);
+            when(product.getId()).thenReturn(id);
+            products.add(product);
+            categories.add(new Object[]{id, "leggings"});
+            categories.add(new Object[]{id, "sale"});
+            if (id % 2 == 0) {
+                ProductImage image = new ProductImage();
+                image.setId(100 + id);
+                image.setProduct(product);
+                image.setImageUrl("https://cdn.example.com/" + id + ".jpg");
+                mainImages.add(image);
+            }
+        }
+        when(productRepository.findCategoriesByProductIdIn(anyCollection())).thenReturn(categories);
+        when(productImageRepository.findMainImagesByProductIdIn(anyCollection())).thenReturn(mainImages);
+
+        List<ProductSummaryDto> summaries = assembler.toSummaries(products);
+
+        verify(productRepository, times(1)).findCategoriesByProductIdIn(anyCollection());
+        verify(productImageRepository, times(1)).findMainImagesByProductIdIn(anyCollection());
+        verifyNoMoreInteractions(productRepository, productImageRepository);
+        // The lazy collections would each cost a query per product
+        for (Product product : products) {
+            verify(product, never()).getImages();
+            verify(product, never()).getCategories();
+        }
+
+        assertThat(summaries).hasSize(20);
+        assertThat(summaries.get(0).getCategories()).containsExactlyInAnyOrder("leggings", "sale");
+        assertThat(summaries.get(0).getMainImage()).isNull();
+        assertThat(summaries.get(1).getMainImage().getImageUrl()).isEqualTo("https://cdn.example.com/2.jpg");
+        assertThat(summaries.get(1).getMainImage().isMain()).isTrue();
+    }
+
+    @Test
+    void emptyPageRunsNoQueries() {
+        assertThat(assembler.toSummaries(List.<Product>of())).isEmpty();
+
+        verifyNoInteractions(productRepository, productImageRepository);
+    }
+}
@@ -0,0 +1,116 @@
+package com.sheshape.service.enrollment;
+
+import com.sheshape.model.CatalogItemType;
+import com.sheshape.model.EnrollmentCount;
+import com.sheshape.repository.EnrollmentCountRepository;
+import com.sheshape.service.enrollment.EnrollmentCounters.Ranked;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.sheshape.model.CatalogItemType.GYM_PROGRAM;
+import static com.sheshape.model.CatalogItemType.NUTRITION_PLAN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EnrollmentCountersTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final EnrollmentCountRepository repository = mock(EnrollmentCountRepository.class);
+    // Flushes and reloads only run when a test calls them
+    private final EnrollmentCounters counters = new EnrollmentCounters(jdbcTemplate, repository,
+            mock(PlatformTransactionManager.class), 3600, 600);
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findAll()).thenReturn(List.of(
+                count(GYM_PROGRAM, 1L, 5, 4),
+                count(GYM_PROGRAM, 2L, 3, 3),
+                count(GYM_PROGRAM, 3L, 1, 1),
+                count(NUTRITION_PLAN, 1L, 9, 2)));
+    }
+
+    @AfterEach
+    void shutdown() {
+        counters.shutdown();
+    }
+
+    @Test
+    void ranksItemsPerTypeByEnrollments() {
+        assertThat(ids(GYM_PROGRAM)).containsExactly(1L, 2L, 3L);
+        assertThat(ids(NUTRITION_PLAN)).containsExactly(1L);
+    }
+
+    @Test
+    void flushMovesChangedItemsToTheirNewPosition() {
+        counters.reload();
+        for (int i = 0; i < 5; i++) {
+            counters.enrolled(GYM_PROGRAM, 3L);
+        }
+        counters.enrolled(GYM_PROGRAM, 4L);
+
+        // Counted but not visible until flushed
+        assertThat(ids(GYM_PROGRAM)).containsExactly(1L, 2L, 3L);
+        counters.flush();
+
+        assertThat(ids(GYM_PROGRAM)).containsExactly(3L, 1L, 2L, 4L);
+        assertThat(counters.get(GYM_PROGRAM, 3L)).contains(new Ranked(GYM_PROGRAM, 3L, 6, 6));
+    }
+
+    @Test
+    void tracksActiveEnrollmentsWithoutMovingTheItem() {
+        counters.reload();
+        counters.statusChanged(GYM_PROGRAM, 1L, true, false);
+        counters.expired(GYM_PROGRAM, 1L, 2);
+        counters.statusChanged(GYM_PROGRAM, 2L, true, true);
+
+        counters.flush();
+
+        assertThat(counters.get(GYM_PROGRAM, 1L)).contains(new Ranked(GYM_PROGRAM, 1L, 5, 1));
+        assertThat(ids(GYM_PROGRAM)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void keepsChangesForNextFlushWhenWriteFails() {
+        counters.reload();
+        doThrow(new QueryTimeoutException("timeout")).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        counters.enrolled(GYM_PROGRAM, 3L);
+
+        counters.flush();
+        assertThat(counters.get(GYM_PROGRAM, 3L).orElseThrow().enrollments()).isEqualTo(1);
+
+        doReturn(new int[]{1}).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        counters.flush();
+        assertThat(counters.get(GYM_PROGRAM, 3L).orElseThrow().enrollments()).isEqualTo(2);
+    }
+
+    @Test
+    void flushWithoutChangesWritesNothing() {
+        counters.reload();
+
+        counters.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private List<Long> ids(CatalogItemType type) {
+        return counters.ranking(type).map(Ranked::itemId).toList();
+    }
+
+    private static EnrollmentCount count(CatalogItemType type, Long itemId, long enrollments, long active) {
+        return new EnrollmentCount(new EnrollmentCount.Key(type, itemId), enrollments, active, LocalDateTime.now());
+    }
+}
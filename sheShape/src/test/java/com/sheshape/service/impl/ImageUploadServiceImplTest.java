@@ -0,0 +1,103 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.exception.ServiceUnavailableException;
+import com.sheshape.model.ImageUpload;
+import com.sheshape.model.StoredContent;
+import com.sheshape.repository.ImageUploadRepository;
+import com.sheshape.repository.StoredContentRepository;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.media.ImageVariantPipeline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageUploadServiceImplTest {
+
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final ImageUploadRepository imageUploadRepository = mock(ImageUploadRepository.class);
+    private final StoredContentRepository storedContentRepository = mock(StoredContentRepository.class);
+    private final ImageVariantPipeline imageVariantPipeline = mock(ImageVariantPipeline.class);
+    private final ImageUploadServiceImpl service = new ImageUploadServiceImpl(fileStorageService,
+            imageUploadRepository, storedContentRepository, imageVariantPipeline,
+            10_485_760, 5_242_880, 40_000_000, 10);
+
+    private final MockMultipartFile file =
+            new MockMultipartFile("file", "photo.png", "image/png", new byte[]{1, 2, 3, 4});
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void takesTheReferenceOnContentRegisteredConcurrentlyUnderAnotherKey() {
+        when(storedContentRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(storedContentRepository.register(anyString(), anyString(), anyLong())).thenReturn(0);
+        StoredContent content = new StoredContent();
+        content.setFileKey("blog-images/abc.jpg");
+        when(storedContentRepository.findByContentHashForUpdate(anyString())).thenReturn(Optional.of(content));
+        ImageUpload winner = new ImageUpload();
+        winner.setFileKey("blog-images/abc.jpg");
+        when(imageUploadRepository.findByFileKeyForShare("blog-images/abc.jpg")).thenReturn(Optional.of(winner));
+        when(storedContentRepository.acquire(anyString())).thenReturn(1);
+
+        ImageUpload upload = service.uploadImage(file, "product-images/");
+
+        assertThat(upload).isSameAs(winner);
+        verify(fileStorageService, never()).uploadFile(anyString(), any(Path.class), anyString());
+        verify(imageUploadRepository, never()).save(any());
+    }
+
+    @Test
+    void failsRetryablyWhenTheRegisteredContentIsBeingReleased() {
+        when(storedContentRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(storedContentRepository.register(anyString(), anyString(), anyLong())).thenReturn(0);
+        when(storedContentRepository.findByContentHashForUpdate(anyString())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.uploadImage(file, "product-images/"))
+                .isInstanceOf(ServiceUnavailableException.class);
+        verify(fileStorageService, never()).uploadFile(anyString(), any(Path.class), anyString());
+    }
+
+    @Test
+    void deletesTheStoredFileWhenTheTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        when(storedContentRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(storedContentRepository.register(anyString(), anyString(), anyLong())).thenReturn(1);
+        when(imageUploadRepository.findById(anyString())).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("database down")).when(imageUploadRepository).save(any());
+
+        assertThatThrownBy(() -> service.uploadImage(file, "product-images/"))
+                .isInstanceOf(IllegalStateException.class);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        ArgumentCaptor<Path> source = ArgumentCaptor.forClass(Path.class);
+        verify(fileStorageService).uploadFile(startsWith("product-images/"), source.capture(), eq("image/png"));
+        verify(fileStorageService).deleteFile(startsWith("product-images/"));
+        assertThat(Files.exists(source.getValue())).isFalse();
+        verify(imageVariantPipeline, never()).submit(anyString(), any());
+    }
+}
@@ -0,0 +1,112 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.service.FileStorageService.FilePage;
+import com.sheshape.service.FileStorageService.ListedFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalFileStorageServiceImplTest {
+
+    @TempDir
+    Path root;
+
+    private final LocalFileStorageServiceImpl storage = new LocalFileStorageServiceImpl();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(storage, "rootDirectory", root.toString());
+        ReflectionTestUtils.setField(storage, "publicUrl", "/api/files/");
+        ReflectionTestUtils.setField(storage, "signingSecret", "test-secret");
+        storage.init();
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {" ", "../outside.jpg", "../../etc/passwd", "products/../../outside.jpg", "/etc/passwd",
+            "products\\..\\outside.jpg", "products/", ".tmp/upload.part"})
+    void resolveRejectsKeysOutsideTheRoot(String fileKey) {
+        assertThatThrownBy(() -> storage.resolve(fileKey)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void resolveShardsKeysUnderTheirDirectory() {
+        Path path = storage.resolve("product-images/photo.jpg");
+
+        assertThat(path.startsWith(root.toAbsolutePath().resolve("product-images"))).isTrue();
+        assertThat(path.getFileName()).hasToString("photo.jpg");
+        assertThat(root.toAbsolutePath().relativize(path).getNameCount()).isEqualTo(4);
+    }
+
+    @Test
+    void sessionVideosAreNotPublic() {
+        assertThat(storage.isPublic(storage.resolve("product-images/photo.jpg"))).isTrue();
+        assertThat(storage.isPublic(storage.resolve("session-videos/video.mp4"))).isFalse();
+        assertThat(storage.isPublic(storage.resolve("product-images/../session-videos/video.mp4"))).isFalse();
+    }
+
+    @Test
+    void initRequiresSigningSecret() {
+        LocalFileStorageServiceImpl unsigned = new LocalFileStorageServiceImpl();
+        ReflectionTestUtils.setField(unsigned, "rootDirectory", root.toString());
+        ReflectionTestUtils.setField(unsigned, "signingSecret", "");
+
+        assertThatThrownBy(unsigned::init).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void storeUploadNeverOverwrites() throws IOException {
+        assertThat(storage.storeUpload("blog-images/a.txt", body("first"), 5)).isTrue();
+        assertThat(storage.storeUpload("blog-images/a.txt", body("other"), 5)).isFalse();
+
+        assertThat(Files.readString(storage.resolve("blog-images/a.txt"))).isEqualTo("first");
+    }
+
+    @Test
+    void storeUploadRejectsShortBodies() {
+        assertThatThrownBy(() -> storage.storeUpload("blog-images/b.txt", body("abc"), 5))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(storage.resolve("blog-images/b.txt")).doesNotExist();
+    }
+
+    @Test
+    void listFilesPagesThroughEveryFileOnce() {
+        List<String> stored = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            String fileKey = "product-images/" + i + ".jpg";
+            storage.uploadFile(fileKey, new byte[]{1}, "image/jpeg");
+            stored.add(fileKey);
+        }
+
+        List<String> listed = new ArrayList<>();
+        String token = null;
+        do {
+            FilePage page = storage.listFiles("product-images/", token, 3);
+            assertThat(page.files()).hasSizeLessThanOrEqualTo(3);
+            page.files().stream().map(ListedFile::fileKey).forEach(listed::add);
+            token = page.nextPageToken();
+        } while (token != null);
+
+        assertThat(listed).containsExactlyInAnyOrderElementsOf(stored).doesNotHaveDuplicates();
+    }
+
+    private static ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,133 @@
+package com.sheshape.service.media;
+
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.media.VideoSegmentCache.Segment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class VideoSegmentCacheTest {
+
+    private static final String KEY = "session-videos/video.mp4";
+    private static final long SEGMENT = 1024;
+    // The disk tier holds 1 MB, i.e. 1024 segments
+    private static final long FILE_SIZE = 2048 * SEGMENT;
+
+    @TempDir
+    Path cacheRoot;
+
+    private final FileStorageService storage = mock(FileStorageService.class);
+    private final List<VideoSegmentCache> caches = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        caches.forEach(VideoSegmentCache::shutdown);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedSegmentsFromDisk() throws IOException {
+        writesZeros();
+        VideoSegmentCache cache = cache(0);
+        for (long index = 0; index < 1024; index++) {
+            cache.getSegment(KEY, index * SEGMENT, FILE_SIZE);
+        }
+        cache.getSegment(KEY, 0, FILE_SIZE);
+
+        // One segment over the limit: segment 1 is now the least recently used
+        cache.getSegment(KEY, 1024 * SEGMENT, FILE_SIZE);
+        cache.getSegment(KEY, 0, FILE_SIZE);
+        cache.getSegment(KEY, SEGMENT, FILE_SIZE);
+
+        verify(storage, times(1)).downloadRange(eq(KEY), eq(0L), anyLong(), any());
+        verify(storage, times(2)).downloadRange(eq(KEY), eq(SEGMENT), anyLong(), any());
+    }
+
+    @Test
+    void servesSegmentsContainingThePositionAndClipsTheLast() throws IOException {
+        writesZeros();
+        VideoSegmentCache cache = cache(1);
+
+        Segment middle = cache.getSegment(KEY, 3 * SEGMENT + 10, 3 * SEGMENT + 100);
+        Segment again = cache.getSegment(KEY, 3 * SEGMENT, 3 * SEGMENT + 100);
+
+        assertThat(middle.offset()).isEqualTo(3 * SEGMENT);
+        assertThat(middle.length()).isEqualTo(100);
+        // Small enough for the memory tier
+        assertThat(again.bytes()).hasSize(100);
+        verify(storage, times(1)).downloadRange(eq(KEY), eq(3 * SEGMENT), eq(100L), any());
+    }
+
+    @Test
+    void concurrentMissesShareOneDownload() throws Exception {
+        CountDownLatch downloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            downloading.countDown();
+            release.await();
+            Files.write(invocation.getArgument(3), new byte[(int) (long) invocation.getArgument(2)]);
+            return null;
+        }).when(storage).downloadRange(eq(KEY), anyLong(), anyLong(), any());
+        VideoSegmentCache cache = cache(0);
+
+        CompletableFuture<Segment> first = CompletableFuture.supplyAsync(() -> cache.getSegment(KEY, 0, FILE_SIZE));
+        downloading.await();
+        CompletableFuture<Segment> second = CompletableFuture.supplyAsync(() -> cache.getSegment(KEY, 10, FILE_SIZE));
+        TimeUnit.MILLISECONDS.sleep(50);
+        release.countDown();
+
+        assertThat(second.get(1, TimeUnit.SECONDS).path()).isEqualTo(first.get(1, TimeUnit.SECONDS).path());
+        verify(storage, times(1)).downloadRange(eq(KEY), eq(0L), anyLong(), any());
+    }
+
+    @Test
+    void eachInstanceUsesItsOwnDirectoryAndRemovesItOnShutdown() throws IOException {
+        writesZeros();
+        Path sibling = Files.createFile(cacheRoot.resolve("unrelated.txt"));
+        VideoSegmentCache first = cache(0);
+        VideoSegmentCache second = cache(0);
+
+        Path firstDirectory = first.getSegment(KEY, 0, FILE_SIZE).path().getParent();
+        Path secondDirectory = second.getSegment(KEY, 0, FILE_SIZE).path().getParent();
+        assertThat(firstDirectory).isNotEqualTo(secondDirectory);
+        assertThat(firstDirectory.getParent()).isEqualTo(cacheRoot);
+
+        first.shutdown();
+
+        assertThat(firstDirectory).doesNotExist();
+        assertThat(secondDirectory).exists();
+        assertThat(sibling).exists();
+    }
+
+    private void writesZeros() {
+        doAnswer(invocation -> {
+            Files.write(invocation.getArgument(3), new byte[(int) (long) invocation.getArgument(2)]);
+            return null;
+        }).when(storage).downloadRange(eq(KEY), anyLong(), anyLong(), any());
+    }
+
+    private VideoSegmentCache cache(long memoryCacheMb) throws IOException {
+        VideoSegmentCache cache = new VideoSegmentCache(storage, new SimpleMeterRegistry(), 1, 1, memoryCacheMb,
+                cacheRoot.toString());
+        caches.add(cache);
+        return cache;
+    }
+}
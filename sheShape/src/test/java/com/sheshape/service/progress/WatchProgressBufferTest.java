@@ -0,0 +1,117 @@
+package com.sheshape.service.progress;
+
+import com.sheshape.dto.WatchProgressDto;
+import com.sheshape.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class WatchProgressBufferTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    // Flushes only run when a test calls flush()
+    private final WatchProgressBuffer buffer = new WatchProgressBuffer(jdbcTemplate,
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 3_600_000, 500, 2, 2);
+
+    @AfterEach
+    void shutdown() {
+        buffer.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalescesHeartbeatsIntoOneRowPerSession() {
+        buffer.record(1L, 10L, 100L, 5, 0.1);
+        buffer.record(1L, 10L, 100L, 10, 0.2);
+        buffer.record(1L, 10L, 100L, 15, 0.3);
+
+        buffer.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO session_progress"), rows.capture());
+        assertThat(rows.getValue()).hasSize(1);
+        assertThat(rows.getValue().get(0)[3]).isEqualTo(15);
+        assertThat(buffer.pendingFor(1L, 10L)).isEmpty();
+    }
+
+    @Test
+    void servesUnwrittenReportsByUserAndProgram() {
+        buffer.record(1L, 10L, 100L, 5, 0.1);
+        buffer.record(2L, 10L, 100L, 7, 0.2);
+
+        Map<Long, WatchProgressDto> pending = buffer.pendingFor(1L, 10L);
+
+        assertThat(pending).containsOnlyKeys(100L);
+        assertThat(pending.get(100L).getPositionSeconds()).isEqualTo(5);
+        assertThat(buffer.pendingFor(1L, 11L)).isEmpty();
+    }
+
+    @Test
+    void failedWriteDoesNotOverwriteNewerReport() {
+        buffer.record(1L, 10L, 100L, 5, 0.1);
+        doAnswer(invocation -> {
+            // A heartbeat arrives while the flush is writing, with a later timestamp
+            Thread.sleep(2);
+            buffer.record(1L, 10L, 100L, 20, 0.4);
+            throw new QueryTimeoutException("timeout");
+        }).when(jdbcTemplate).batchUpdate(startsWith("INSERT INTO session_progress"), anyList());
+
+        buffer.flush();
+
+        assertThat(buffer.pendingFor(1L, 10L).get(100L).getPositionSeconds()).isEqualTo(20);
+    }
+
+    @Test
+    void failedWriteIsRetriedOnNextFlush() {
+        buffer.record(1L, 10L, 100L, 5, 0.1);
+        doAnswer(invocation -> {
+            throw new QueryTimeoutException("timeout");
+        }).when(jdbcTemplate).batchUpdate(startsWith("INSERT INTO session_progress"), anyList());
+
+        buffer.flush();
+
+        assertThat(buffer.pendingFor(1L, 10L).get(100L).getPositionSeconds()).isEqualTo(5);
+    }
+
+    @Test
+    void failedWriteIsDroppedAfterMaxAttempts() {
+        buffer.record(1L, 10L, 100L, 5, 0.1);
+        doAnswer(invocation -> {
+            throw new QueryTimeoutException("timeout");
+        }).when(jdbcTemplate).batchUpdate(startsWith("INSERT INTO session_progress"), anyList());
+
+        buffer.flush();
+        buffer.flush();
+
+        assertThat(buffer.pendingFor(1L, 10L)).isEmpty();
+        // Dropping frees its slot
+        buffer.record(1L, 10L, 101L, 5, 0.1);
+        buffer.record(1L, 10L, 102L, 5, 0.1);
+    }
+
+    @Test
+    void rejectsNewSessionsBeyondMaxPending() {
+        buffer.record(1L, 10L, 100L, 5, 0.1);
+        buffer.record(1L, 10L, 101L, 5, 0.1);
+
+        assertThatThrownBy(() -> buffer.record(1L, 10L, 102L, 5, 0.1))
+                .isInstanceOf(ServiceUnavailableException.class);
+        // Sessions already waiting can still be updated
+        buffer.record(1L, 10L, 100L, 8, 0.2);
+    }
+}
@@ -0,0 +1,165 @@
+package com.sheshape.service.recommendation;
+
+import com.sheshape.dto.GymProgramDto;
+import com.sheshape.model.CatalogItemType;
+import com.sheshape.model.NutritionPlan;
+import com.sheshape.model.profile.FitnessProfile;
+import com.sheshape.repository.NutritionPlanRepository;
+import com.sheshape.repository.profile.FitnessProfileRepository;
+import com.sheshape.service.catalog.GymProgramCatalog;
+import com.sheshape.service.recommendation.RecommendationEngine.ItemRef;
+import com.sheshape.service.recommendation.RecommendationEngine.Recommendation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+
+import static com.sheshape.model.CatalogItemType.GYM_PROGRAM;
+import static com.sheshape.model.CatalogItemType.NUTRITION_PLAN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecommendationEngineTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final GymProgramCatalog catalog = mock(GymProgramCatalog.class);
+    private final NutritionPlanRepository nutritionPlanRepository = mock(NutritionPlanRepository.class);
+    private final FitnessProfileRepository fitnessProfileRepository = mock(FitnessProfileRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final RecommendationEngine engine = new RecommendationEngine(catalog, nutritionPlanRepository,
+            fitnessProfileRepository, jdbcTemplate, mock(PlatformTransactionManager.class),
+            0.6, 0.3, 0.1, 3600, 60, 30, 1000);
+
+    @BeforeEach
+    void setUp() {
+        when(catalog.getActivePrograms()).thenReturn(List.of(
+                program(1L, "Gentle mobility", "Stretch and breathe", "BEGINNER"),
+                program(2L, "Power lifting", "Heavy barbell work", "ADVANCED"),
+                program(3L, "Morning yoga", "Flexibility flow", "BEGINNER"),
+                program(4L, "Spin class", "Cycling intervals", "INTERMEDIATE")));
+        NutritionPlan plan = new NutritionPlan();
+        plan.setId(11L);
+        plan.setTitle("Lean kitchen");
+        plan.setDescription("Calorie deficit meals");
+        when(nutritionPlanRepository.findByIsActiveTrue()).thenReturn(List.of(plan));
+
+        FitnessProfile profile = new FitnessProfile();
+        profile.setFitnessLevel(FitnessProfile.FitnessLevel.BEGINNER);
+        profile.setPrimaryGoal(FitnessProfile.FitnessGoal.FLEXIBILITY);
+        when(fitnessProfileRepository.findByUserId(anyLong())).thenReturn(Optional.of(profile));
+        enrollments();
+    }
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void returnsTopKByProfileMatchBestFirst() {
+        List<Recommendation> result = engine.recommend(USER_ID, null, 2);
+
+        assertThat(ids(result)).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(result.get(0).score()).isGreaterThanOrEqualTo(result.get(1).score());
+        assertThat(result).allMatch(recommendation -> recommendation.item().ref().type() == GYM_PROGRAM);
+    }
+
+    @Test
+    void returnsEverythingRankedWhenLimitExceedsCatalog() {
+        List<Recommendation> result = engine.recommend(USER_ID, null, 10);
+
+        assertThat(result).hasSize(5);
+        assertThat(result).isSortedAccordingTo((a, b) -> Double.compare(b.score(), a.score()));
+        assertThat(ids(result.subList(2, 5))).doesNotContain(1L, 3L);
+    }
+
+    @Test
+    void skipsItemsTheUserIsEnrolledIn() {
+        enrollments(new ItemRef(GYM_PROGRAM, 3L));
+
+        assertThat(ids(engine.recommend(USER_ID, GYM_PROGRAM, 10))).containsExactlyInAnyOrder(1L, 2L, 4L);
+    }
+
+    @Test
+    void filtersByType() {
+        List<Recommendation> result = engine.recommend(USER_ID, NUTRITION_PLAN, 10);
+
+        assertThat(result).extracting(recommendation -> recommendation.item().ref())
+                .containsExactly(new ItemRef(NUTRITION_PLAN, 11L));
+    }
+
+    @Test
+    void coEnrollmentRanksItemsBoughtTogetherOnceBuilt() throws Exception {
+        when(fitnessProfileRepository.findByUserId(anyLong())).thenReturn(Optional.empty());
+        enrollments(new ItemRef(GYM_PROGRAM, 2L));
+        // Other users who took program 2 also took program 4
+        allEnrollments(new Object[][]{
+                {1L, "G", 2L}, {1L, "G", 4L},
+                {2L, "G", 2L}, {2L, "G", 4L},
+                {3L, "G", 1L}});
+
+        // Profile-only until the build has run: nothing matches an empty profile
+        assertThat(engine.recommend(USER_ID, GYM_PROGRAM, 1).get(0).score()).isZero();
+
+        engine.start();
+        List<Recommendation> result = List.of();
+        for (int attempt = 0; attempt < 100; attempt++) {
+            result = engine.recommend(USER_ID, GYM_PROGRAM, 1);
+            if (result.get(0).score() > 0) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        assertThat(ids(result)).containsExactly(4L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void enrollments(ItemRef... items) {
+        when(jdbcTemplate.query(startsWith("SELECT 'G'"), any(RowMapper.class), any(), any()))
+                .thenReturn(List.of(items));
+    }
+
+    private void allEnrollments(Object[][] rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn((Long) row[0]);
+                when(rs.getString(2)).thenReturn((String) row[1]);
+                when(rs.getLong(3)).thenReturn((Long) row[2]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static List<Long> ids(List<Recommendation> recommendations) {
+        return recommendations.stream().map(recommendation -> recommendation.item().ref().id()).toList();
+    }
+
+    private static GymProgramDto program(Long id, String title, String description, String difficultyLevel) {
+        GymProgramDto program = new GymProgramDto();
+        program.setId(id);
+        program.setTitle(title);
+        program.setDescription(description);
+        program.setDifficultyLevel(difficultyLevel);
+        program.setDurationDays(30);
+        program.setPrice(BigDecimal.TEN);
+        return program;
+    }
+}
@@ -0,0 +1,120 @@
+package com.sheshape.service.resilience;
+
+import com.sheshape.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IoGuardTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(100);
+
+    @Test
+    void opensOnceFailureRateIsReached() {
+        IoGuard guard = guard(2, error -> true);
+
+        guard.run(() -> { });
+        guard.run(() -> { });
+        fail(guard);
+        assertThat(guard.getState()).isEqualTo(IoGuard.State.CLOSED);
+        fail(guard);
+
+        assertThat(guard.getState()).isEqualTo(IoGuard.State.OPEN);
+        AtomicBoolean ran = new AtomicBoolean();
+        assertThatThrownBy(() -> guard.run(() -> ran.set(true))).isInstanceOf(ServiceUnavailableException.class);
+        assertThat(ran).isFalse();
+        assertThat(guard.isCallPermitted()).isFalse();
+    }
+
+    @Test
+    void closesAfterSuccessfulTrialCall() throws InterruptedException {
+        IoGuard guard = opened();
+        TimeUnit.MILLISECONDS.sleep(OPEN_DURATION.toMillis() + 20);
+        assertThat(guard.isCallPermitted()).isTrue();
+
+        guard.run(() -> { });
+
+        assertThat(guard.getState()).isEqualTo(IoGuard.State.CLOSED);
+    }
+
+    @Test
+    void reopensAfterFailedTrialCall() throws InterruptedException {
+        IoGuard guard = opened();
+        TimeUnit.MILLISECONDS.sleep(OPEN_DURATION.toMillis() + 20);
+
+        fail(guard);
+
+        assertThat(guard.getState()).isEqualTo(IoGuard.State.OPEN);
+        assertThat(guard.retryAfterSeconds()).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresErrorsThatAreNotFailures() {
+        IoGuard guard = guard(2, error -> !(error instanceof IllegalArgumentException));
+
+        for (int i = 0; i < 8; i++) {
+            assertThatThrownBy(() -> guard.run(() -> {
+                throw new IllegalArgumentException("caller's fault");
+            })).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        assertThat(guard.getState()).isEqualTo(IoGuard.State.CLOSED);
+    }
+
+    @Test
+    void rejectsCallsBeyondTheBulkhead() throws Exception {
+        IoGuard guard = guard(1, error -> true);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> guard.run(() -> {
+            started.countDown();
+            await(release);
+        }));
+        started.await();
+
+        assertThatThrownBy(() -> guard.run(() -> { })).isInstanceOf(ServiceUnavailableException.class);
+
+        release.countDown();
+        holder.get(1, TimeUnit.SECONDS);
+        // A rejected call is not a failure of the dependency
+        assertThat(guard.getState()).isEqualTo(IoGuard.State.CLOSED);
+    }
+
+    private static IoGuard opened() {
+        IoGuard guard = guard(2, error -> true);
+        for (int i = 0; i < 4; i++) {
+            fail(guard);
+        }
+        assertThat(guard.getState()).isEqualTo(IoGuard.State.OPEN);
+        return guard;
+    }
+
+    private static IoGuard guard(int maxConcurrentCalls, Predicate<Throwable> recordsFailure) {
+        IoGuard.Settings settings = new IoGuard.Settings(maxConcurrentCalls, Duration.ofMillis(10), 4, 4, 50,
+                OPEN_DURATION, 1);
+        return new IoGuard("test", settings, recordsFailure, new SimpleMeterRegistry());
+    }
+
+    private static void fail(IoGuard guard) {
+        assertThatThrownBy(() -> guard.run(() -> {
+            throw new IllegalStateException("dependency down");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.sheshape.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+
+    @Test
+    void allowsBurstThenRejects() {
+        RateLimiter limiter = new RateLimiter(1, 3);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.retryAfterSeconds()).isEqualTo(1);
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(50, 1);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        TimeUnit.MILLISECONDS.sleep(60);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void acquireWaitsForDebtToRefill() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(20, 1);
+        limiter.acquire(1);
+
+        long start = System.nanoTime();
+        limiter.acquire(1);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(40);
+    }
+
+    @Test
+    void isIdleOnlyWhenFull() {
+        RateLimiter limiter = new RateLimiter(0.01, 2);
+        assertThat(limiter.isIdle()).isTrue();
+
+        limiter.tryAcquire();
+
+        assertThat(limiter.isIdle()).isFalse();
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatThrownBy(() -> new RateLimiter(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RateLimiter(1, 0.5)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
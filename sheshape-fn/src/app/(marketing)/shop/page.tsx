@@ -187,6 +187,10 @@ export default function ShopPage() {
   };
   
   const getMainImageUrl = (product: Product) => {
+    if (product.mainImage) {
+      return product.mainImage.imageUrl;
+    }
+
     if (!product.images || product.images.length === 0) {
       return '/images/product-placeholder.jpg';
     }
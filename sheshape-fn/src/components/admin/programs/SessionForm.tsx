@@ -22,7 +22,7 @@ interface GymSession {
   id: number;
   title: string;
   description?: string;
-  videoUrl?: string;
+  videoPath?: string;
   durationMinutes?: number;
   sessionOrder: number;
   programId: number;
@@ -90,14 +90,19 @@ export function SessionForm({ programId, sessionId, mode }: SessionFormProps) {
       const fetchSession = async () => {
         try {
           setIsInitialLoading(true);
-          const response = await api.get(`/api/gym/sessions/${sessionId}`);
+          // Session responses leave out the stored video URL; editors read it separately
+          const [response, videoUrlsResponse] = await Promise.all([
+            api.get(`/api/gym/sessions/${sessionId}`),
+            api.get(`/api/gym/programs/${programId}/sessions/video-urls`),
+          ]);
           const session: GymSession = response.data;
+          const videoUrls: Record<string, string> = videoUrlsResponse.data;
           
           // Set form values
           reset({
             title: session.title,
             description: session.description || '',
-            videoUrl: session.videoUrl || '',
+            videoUrl: videoUrls[session.id] || '',
             durationMinutes: session.durationMinutes,
             sessionOrder: session.sessionOrder,
           });
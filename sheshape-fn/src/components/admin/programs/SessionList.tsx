@@ -30,7 +30,8 @@ interface GymSession {
   id: number;
   title: string;
   description?: string;
-  videoUrl?: string;
+  // Authenticated stream endpoint; the stored video URL is not returned
+  videoPath?: string;
   durationMinutes?: number;
   sessionOrder: number;
   programId: number;
@@ -66,6 +67,21 @@ export function SessionsList({ programId }: SessionsListProps) {
     fetchSessions();
   }, [programId]);
 
+  // The stream endpoint needs the bearer token, so a plain link can't open it
+  const openVideo = async (session: GymSession) => {
+    if (!session.videoPath) {
+      return;
+    }
+
+    try {
+      const response = await api.get(session.videoPath, { responseType: 'blob', timeout: 0 });
+      window.open(URL.createObjectURL(response.data), '_blank', 'noopener,noreferrer');
+    } catch (err) {
+      console.error('Error loading video:', err);
+      toast.error('Failed to load video');
+    }
+  };
+
   // Delete session
   const deleteSession = async (sessionId: number) => {
     if (!confirm('Are you sure you want to delete this session? This action cannot be undone.')) {
@@ -133,11 +149,9 @@ export function SessionsList({ programId }: SessionsListProps) {
               <TableCell>{session.title}</TableCell>
               <TableCell>{session.durationMinutes || '-'} min</TableCell>
               <TableCell>
-                {session.videoUrl ? (
-                  <Button variant="ghost" size="sm" className="h-8 px-2" asChild>
-                    <a href={session.videoUrl} target="_blank" rel="noopener noreferrer">
-                      <Play className="h-4 w-4 mr-1" /> View
-                    </a>
+                {session.videoPath ? (
+                  <Button variant="ghost" size="sm" className="h-8 px-2" onClick={() => openVideo(session)}>
+                    <Play className="h-4 w-4 mr-1" /> View
                   </Button>
                 ) : (
                   <span className="text-neutral-400">No video</span>
@@ -49,7 +49,7 @@ export function ProductCard({
       <div className="relative aspect-square overflow-hidden">
         <Link href={`/shop/products/${product.id}`}>
           <Image 
-            src={product.images[0].imageUrl || '/images/product-placeholder.jpg'} 
+            src={product.mainImage?.imageUrl || product.images?.[0]?.imageUrl || '/images/product-placeholder.jpg'} 
             alt={product.name}
             fill
             sizes="(max-width: 768px) 100vw, (max-width: 1200px) 50vw, 33vw"
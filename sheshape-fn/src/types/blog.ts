@@ -4,6 +4,7 @@ export interface BlogPost {
   title: string;
   content: string;
   imageUrl?: string;
+  imageSrcset?: string | null;
   category: string;
   isPublished: boolean;
   publishedAt: string | null;
@@ -9,6 +9,13 @@ export interface ProductImage {
   isMain: boolean;
   position: number;
   createdAt: string;
+  variants?: ImageVariant[];
+  srcset?: string | null;
+}
+export interface ImageVariant {
+  format: string;
+  width: number;
+  url: string;
 }
 export interface GymSession {
   id: number;
@@ -43,7 +50,8 @@ export interface Product {
   inventoryCount: number;
   isActive: boolean;
   categories: string[];
-  images: ProductImage[];
+  images?: ProductImage[];
+  mainImage?: ProductImage;
   createdAt: string;
   updatedAt: string;
 }